@@ -0,0 +1,97 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import software.amazon.serverless.apprepo.api.impl.pagination.jackson.AttributeValueDeserializer;
+import software.amazon.serverless.apprepo.api.impl.pagination.jackson.AttributeValueSerializer;
+import software.amazon.serverless.apprepo.api.impl.pagination.jackson.SdkBytesDeserializer;
+import software.amazon.serverless.apprepo.api.impl.pagination.jackson.SdkBytesSerializer;
+
+/**
+ * Json serialization of DynamoDB attribute maps with {@link AttributeValueSerializer} and
+ * {@link AttributeValueDeserializer}, registered the same way DynamoDbStartKeySerializer
+ * registers them.
+ *
+ * <p>"key" is a table start key with scalar attributes only. "item" is a full item with
+ * sets, a list and a nested map, which exercises the recursive paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AttributeValueJsonBenchmark {
+  @Param({"key", "item"})
+  private String shape;
+
+  private ObjectWriter writer;
+  private ObjectReader reader;
+  private Map<String, AttributeValue> attributes;
+  private String json;
+
+  @Setup
+  public void setUp() throws IOException {
+    SimpleModule module = new SimpleModule();
+    module.addDeserializer(AttributeValue.class, new AttributeValueDeserializer());
+    module.addSerializer(AttributeValue.class, new AttributeValueSerializer());
+    module.addDeserializer(SdkBytes.class, new SdkBytesDeserializer());
+    module.addSerializer(SdkBytes.class, new SdkBytesSerializer());
+    ObjectMapper objectMapper = new ObjectMapper();
+    objectMapper.registerModule(module);
+    writer = objectMapper.writer();
+    reader = objectMapper.readerFor(new TypeReference<Map<String, AttributeValue>>() {
+    });
+    attributes = "key".equals(shape) ? TherapistFixtures.indexStartKey() : item();
+    json = writer.writeValueAsString(attributes);
+  }
+
+  @Benchmark
+  public String serialize() throws IOException {
+    return writer.writeValueAsString(attributes);
+  }
+
+  @Benchmark
+  public Map<String, AttributeValue> deserialize() throws IOException {
+    return reader.readValue(json);
+  }
+
+  private static Map<String, AttributeValue> item() {
+    Map<String, AttributeValue> item = new HashMap<>(TherapistFixtures.record(1).toAttributeMap());
+    item.put("languages", AttributeValue.builder().ss("Hindi", "English", "Marathi").build());
+    item.put("fees", AttributeValue.builder().ns("500", "800", "1200").build());
+    item.put("photo", AttributeValue.builder()
+          .b(SdkBytes.fromByteArray(new byte[256]))
+          .build());
+    item.put("verified", AttributeValue.builder().bool(true).build());
+    item.put("slots", AttributeValue.builder().l(Arrays.asList(
+          AttributeValue.builder().s("MON-10:00").build(),
+          AttributeValue.builder().s("WED-16:30").build(),
+          AttributeValue.builder().nul(true).build()))
+          .build());
+    Map<String, AttributeValue> address = new HashMap<>();
+    address.put("city", AttributeValue.builder().s("Lucknow").build());
+    address.put("pin", AttributeValue.builder().n("226029").build());
+    item.put("address", AttributeValue.builder().m(address).build());
+    return item;
+  }
+}
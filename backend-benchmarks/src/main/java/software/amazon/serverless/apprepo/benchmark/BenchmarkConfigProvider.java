@@ -0,0 +1,110 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import java.time.Duration;
+
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+
+/**
+ * {@link ConfigProvider} with fixed values, so benchmarks don't need SSM.
+ */
+public class BenchmarkConfigProvider implements ConfigProvider {
+  @Override
+  public String getTherapistTableName() {
+    return "Therapist";
+  }
+
+  @Override
+  public String getKmsKeyId() {
+    return LocalKmsClient.KEY_ID;
+  }
+
+  @Override
+  public Duration getPaginationTokenTtl() {
+    return Duration.ofHours(1);
+  }
+
+  @Override
+  public Duration getPaginationDataKeyRotationInterval() {
+    return Duration.ofMinutes(15);
+  }
+
+  @Override
+  public String getTherapistTableStreamArn() {
+    return "arn:aws:dynamodb:us-east-1:123456789012:table/Therapist/stream/benchmark";
+  }
+
+  @Override
+  public long getTherapistCacheMaxSize() {
+    return 10_000L;
+  }
+
+  @Override
+  public Duration getTherapistCacheTtl() {
+    return Duration.ofSeconds(30);
+  }
+
+  @Override
+  public boolean isTherapistCacheStreamInvalidationEnabled() {
+    return false;
+  }
+
+  @Override
+  public int getTherapistShardCount() {
+    return 1;
+  }
+
+  @Override
+  public boolean isTherapistLegacyKeyFallbackEnabled() {
+    return false;
+  }
+
+  @Override
+  public long getQueryResponseByteBudget() {
+    return 1024L * 1024L;
+  }
+
+  @Override
+  public Duration getQueryPrefetchTtl() {
+    return Duration.ofSeconds(5);
+  }
+
+  @Override
+  public long getSearchCacheMaxBytes() {
+    return 16L * 1024L * 1024L;
+  }
+
+  @Override
+  public Duration getSearchCacheTtl() {
+    return Duration.ofSeconds(10);
+  }
+
+  @Override
+  public Duration getNameIndexRefreshInterval() {
+    return Duration.ofSeconds(30);
+  }
+
+  @Override
+  public int getDynamoDbMaxAttempts() {
+    return 3;
+  }
+
+  @Override
+  public int getDynamoDbRetryBudget() {
+    return 500;
+  }
+
+  @Override
+  public double getDynamoDbCircuitBreakerFailureRate() {
+    return 0.5;
+  }
+
+  @Override
+  public Duration getDynamoDbCircuitBreakerOpenDuration() {
+    return Duration.ofSeconds(5);
+  }
+
+  @Override
+  public boolean isDynamoDbHedgedReadEnabled() {
+    return false;
+  }
+}
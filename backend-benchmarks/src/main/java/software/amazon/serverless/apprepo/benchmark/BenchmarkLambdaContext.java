@@ -0,0 +1,67 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+/**
+ * Lambda {@link Context} of the handler benchmarks.
+ */
+class BenchmarkLambdaContext implements Context {
+  @Override
+  public String getAwsRequestId() {
+    return "benchmark";
+  }
+
+  @Override
+  public String getLogGroupName() {
+    return null;
+  }
+
+  @Override
+  public String getLogStreamName() {
+    return null;
+  }
+
+  @Override
+  public String getFunctionName() {
+    return "benchmark";
+  }
+
+  @Override
+  public String getFunctionVersion() {
+    return "$LATEST";
+  }
+
+  @Override
+  public String getInvokedFunctionArn() {
+    return null;
+  }
+
+  @Override
+  public CognitoIdentity getIdentity() {
+    return null;
+  }
+
+  @Override
+  public ClientContext getClientContext() {
+    return null;
+  }
+
+  @Override
+  public int getRemainingTimeInMillis() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public int getMemoryLimitInMB() {
+    return 1536;
+  }
+
+  @Override
+  public LambdaLogger getLogger() {
+    return message -> {
+    };
+  }
+}
@@ -0,0 +1,34 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler and writes Json results to target/jmh-result.json,
+ * so runs from different commits can be compared.
+ *
+ * <p>Accepts the regular JMH command line options, e.g. a benchmark name regex.
+ */
+public final class BenchmarkRunner {
+  static final String RESULT_FILE = "target/jmh-result.json";
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(final String[] args) throws CommandLineOptionException,
+        RunnerException {
+    Options options = new OptionsBuilder()
+          .parent(new CommandLineOptions(args))
+          .addProfiler(GCProfiler.class)
+          .resultFormat(ResultFormatType.JSON)
+          .result(RESULT_FILE)
+          .build();
+    new Runner(options).run();
+  }
+}
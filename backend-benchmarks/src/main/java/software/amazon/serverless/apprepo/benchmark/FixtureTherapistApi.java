@@ -0,0 +1,83 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import io.swagger.api.TherapistApi;
+import io.swagger.model.Therapist;
+import io.swagger.model.TherapistBatchCreateRequest;
+import io.swagger.model.TherapistBatchCreateResult;
+import io.swagger.model.TherapistBatchGetResult;
+import io.swagger.model.TherapistChanges;
+import io.swagger.model.TherapistFacets;
+import io.swagger.model.TherapistList;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistMapper;
+
+/**
+ * {@link TherapistApi} that answers from {@link TherapistFixtures} without DynamoDB, so the
+ * handler benchmarks measure the request and response path only.
+ */
+public class FixtureTherapistApi implements TherapistApi {
+  private static final int PAGE_SIZE = 10;
+
+  private final Therapist therapist = TherapistMapper.toTherapist(TherapistFixtures.record(1));
+  private final TherapistList therapistList = new TherapistList()
+        .therapist(TherapistFixtures.records(PAGE_SIZE).stream()
+              .map(TherapistMapper::toTherapistSummary)
+              .collect(Collectors.toList()))
+        .nextToken("AeEAAAB4AQIDAHh0b2tlbi1wbGFjZWhvbGRlcg");
+
+  @Override
+  public Therapist addTherapist(final Therapist body) {
+    return therapist;
+  }
+
+  @Override
+  public TherapistBatchCreateResult addTherapistBatch(final TherapistBatchCreateRequest body) {
+    return new TherapistBatchCreateResult();
+  }
+
+  @Override
+  public void deleteTherapist(final String therapistId, final Long expectedVersion) {
+  }
+
+  @Override
+  public TherapistBatchGetResult getTherapistBatch(final List<String> ids) {
+    return new TherapistBatchGetResult();
+  }
+
+  @Override
+  public Therapist getTherapist(final String therapistId, final String consistency,
+                                final Long minVersion) {
+    return therapist;
+  }
+
+  @Override
+  public TherapistList getTherapistByNTA(final String therapistArea, final String nextToken,
+                                         final String therapistType, final Integer maxItems,
+                                         final String name) {
+    return therapistList;
+  }
+
+  @Override
+  public TherapistChanges getTherapistChanges(final String since, final Integer maxItems) {
+    return new TherapistChanges();
+  }
+
+  @Override
+  public TherapistFacets getTherapistFacets(final String therapistArea) {
+    return new TherapistFacets();
+  }
+
+  @Override
+  public TherapistList getTherapistList(final String nextToken, final Integer maxItems,
+                                        final String consistency) {
+    return therapistList;
+  }
+
+  @Override
+  public Therapist updateTherapist(final Therapist body, final String therapistId) {
+    return therapist;
+  }
+}
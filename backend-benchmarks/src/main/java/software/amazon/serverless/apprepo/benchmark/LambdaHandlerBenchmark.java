@@ -0,0 +1,172 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import com.amazonaws.serverless.proxy.jersey.JerseyLambdaContainerHandler;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import software.amazon.serverless.apprepo.api.exception.ApiExceptionMapper;
+import software.amazon.serverless.apprepo.api.exception.InvalidJsonExceptionMappers;
+import software.amazon.serverless.apprepo.container.CorsHeadersResponseFilter;
+import software.amazon.serverless.apprepo.container.DirectDispatchLambdaHandler;
+import software.amazon.serverless.apprepo.container.MetricsFilter;
+import software.amazon.serverless.apprepo.metrics.Phase;
+import software.amazon.serverless.apprepo.metrics.RequestMetrics;
+
+/**
+ * The API Lambda request path through Jersey, as ApiLambdaHandler runs it, against
+ * {@link DirectDispatchLambdaHandler}. Both route to a {@link FixtureTherapistApi}, so only the
+ * event parsing, routing and response writing are measured.
+ *
+ * <p>DirectDispatchLambdaHandlerTest checks both handlers give the same responses.
+ * {@link ColdStart} measures building a handler and its first request in a fresh JVM. Both
+ * handlers record and flush their metrics; the EMF lines are discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LambdaHandlerBenchmark {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  @Param({"get", "list", "delete", "notFound"})
+  private String route;
+
+  private RequestStreamHandler jerseyHandler;
+  private RequestStreamHandler directHandler;
+  private Context context;
+  private byte[] event;
+
+  @Setup
+  public void setUp() throws IOException {
+    discardMetrics();
+    jerseyHandler = jerseyHandler();
+    directHandler = new DirectDispatchLambdaHandler(new FixtureTherapistApi());
+    context = new BenchmarkLambdaContext();
+    event = event(route);
+  }
+
+  @Benchmark
+  public byte[] jersey() throws IOException {
+    return handle(jerseyHandler, event, context);
+  }
+
+  @Benchmark
+  public byte[] directDispatch() throws IOException {
+    return handle(directHandler, event, context);
+  }
+
+  static RequestStreamHandler jerseyHandler() {
+    JerseyLambdaContainerHandler<AwsProxyRequest, AwsProxyResponse> handler =
+          JerseyLambdaContainerHandler.getAwsProxyHandler(new ResourceConfig()
+                .register(new FixtureTherapistApi())
+                .registerClasses(CorsHeadersResponseFilter.class, MetricsFilter.class,
+                      ApiExceptionMapper.class,
+                      InvalidJsonExceptionMappers.ParseExceptionMapper.class,
+                      InvalidJsonExceptionMappers.MappingExceptionMapper.class)
+                .register(JacksonFeature.class));
+    return (input, output, context) -> {
+      long start = System.nanoTime();
+      handler.proxyStream(input, output, context);
+      RequestMetrics.recordSince(Phase.TOTAL, start);
+      RequestMetrics.flush();
+    };
+  }
+
+  static void discardMetrics() {
+    RequestMetrics.setOutput(new PrintStream(ByteStreams.nullOutputStream()));
+  }
+
+  static byte[] handle(final RequestStreamHandler handler, final byte[] event,
+                       final Context context) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(2048);
+    handler.handleRequest(new ByteArrayInputStream(event), output, context);
+    return output.toByteArray();
+  }
+
+  static byte[] event(final String route) throws IOException {
+    switch (route) {
+      case "get":
+        return event("GET", "/therapist/" + TherapistFixtures.record(1).getTherapistId());
+      case "list":
+        return event("GET", "/therapist");
+      case "delete":
+        return event("DELETE", "/therapist/" + TherapistFixtures.record(1).getTherapistId());
+      case "notFound":
+        return event("GET", "/therapists");
+      default:
+        throw new IllegalArgumentException("Unknown route " + route);
+    }
+  }
+
+  private static byte[] event(final String httpMethod, final String path) throws IOException {
+    ObjectNode event = OBJECT_MAPPER.createObjectNode()
+          .put("resource", "/{proxy+}")
+          .put("path", path)
+          .put("httpMethod", httpMethod)
+          .put("isBase64Encoded", false);
+    event.putObject("headers").put("Accept", "application/json");
+    event.putObject("multiValueHeaders").putArray("Accept").add("application/json");
+    ObjectNode requestContext = event.putObject("requestContext")
+          .put("requestId", "benchmark")
+          .put("stage", "benchmark")
+          .put("httpMethod", httpMethod)
+          .put("path", path);
+    requestContext.putObject("identity").put("sourceIp", "127.0.0.1");
+    return OBJECT_MAPPER.writeValueAsBytes(event);
+  }
+
+  /**
+   * Time to build a handler and answer the first request in a fresh JVM.
+   */
+  @State(Scope.Benchmark)
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1)
+  @Fork(20)
+  public static class ColdStart {
+    private Context context;
+    private byte[] event;
+
+    @Setup
+    public void setUp() throws IOException {
+      discardMetrics();
+      context = new BenchmarkLambdaContext();
+      event = event("get");
+    }
+
+    @Benchmark
+    public byte[] jersey() throws IOException {
+      return handle(jerseyHandler(), event, context);
+    }
+
+    @Benchmark
+    public byte[] directDispatch() throws IOException {
+      return handle(new DirectDispatchLambdaHandler(new FixtureTherapistApi()), event, context);
+    }
+  }
+}
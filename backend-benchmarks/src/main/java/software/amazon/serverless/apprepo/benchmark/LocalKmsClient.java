@@ -0,0 +1,126 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DecryptResponse;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+import software.amazon.awssdk.services.kms.model.EncryptResponse;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyRequest;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyResponse;
+import software.amazon.awssdk.services.kms.model.InvalidCiphertextException;
+
+/**
+ * In-process stand-in for KMS that encrypts with a local AES-GCM key.
+ *
+ * <p>It measures the CPU and allocation cost of the token chain without the KMS round trip.
+ * Cipher text blobs start with 0x01 like real KMS blobs, and are bound to their encryption
+ * context like real KMS blobs.
+ */
+public class LocalKmsClient implements KmsClient {
+  static final String KEY_ID = "local-benchmark-key";
+  private static final byte BLOB_VERSION = 0x01;
+  private static final int IV_LENGTH_IN_BYTES = 12;
+  private static final int DATA_KEY_LENGTH_IN_BYTES = 32;
+
+  private final SecureRandom random = new SecureRandom();
+  private final SecretKey masterKey;
+
+  /**
+   * Construct a LocalKmsClient with a random master key.
+   */
+  public LocalKmsClient() {
+    byte[] key = new byte[DATA_KEY_LENGTH_IN_BYTES];
+    random.nextBytes(key);
+    this.masterKey = new SecretKeySpec(key, "AES");
+  }
+
+  @Override
+  public EncryptResponse encrypt(final EncryptRequest request) {
+    return EncryptResponse.builder()
+          .keyId(KEY_ID)
+          .ciphertextBlob(SdkBytes.fromByteArray(wrap(request.plaintext().asByteArray(),
+                request.encryptionContext())))
+          .build();
+  }
+
+  @Override
+  public DecryptResponse decrypt(final DecryptRequest request) {
+    return DecryptResponse.builder()
+          .keyId(KEY_ID)
+          .plaintext(SdkBytes.fromByteArray(unwrap(request.ciphertextBlob().asByteArray(),
+                request.encryptionContext())))
+          .build();
+  }
+
+  @Override
+  public GenerateDataKeyResponse generateDataKey(final GenerateDataKeyRequest request) {
+    byte[] dataKey = new byte[DATA_KEY_LENGTH_IN_BYTES];
+    random.nextBytes(dataKey);
+    return GenerateDataKeyResponse.builder()
+          .keyId(KEY_ID)
+          .plaintext(SdkBytes.fromByteArray(dataKey))
+          .ciphertextBlob(SdkBytes.fromByteArray(wrap(dataKey, request.encryptionContext())))
+          .build();
+  }
+
+  @Override
+  public String serviceName() {
+    return SERVICE_NAME;
+  }
+
+  @Override
+  public void close() {
+
+  }
+
+  private byte[] wrap(final byte[] plaintext, final Map<String, String> encryptionContext) {
+    byte[] iv = new byte[IV_LENGTH_IN_BYTES];
+    random.nextBytes(iv);
+    try {
+      Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+      cipher.init(Cipher.ENCRYPT_MODE, masterKey, new GCMParameterSpec(128, iv));
+      cipher.updateAAD(aad(encryptionContext));
+      byte[] cipherText = cipher.doFinal(plaintext);
+      return ByteBuffer.allocate(1 + iv.length + cipherText.length)
+            .put(BLOB_VERSION)
+            .put(iv)
+            .put(cipherText)
+            .array();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private byte[] unwrap(final byte[] blob, final Map<String, String> encryptionContext) {
+    if (blob.length < 1 + IV_LENGTH_IN_BYTES || blob[0] != BLOB_VERSION) {
+      throw InvalidCiphertextException.builder().message("Invalid cipher text.").build();
+    }
+    try {
+      Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+      cipher.init(Cipher.DECRYPT_MODE, masterKey,
+            new GCMParameterSpec(128, Arrays.copyOfRange(blob, 1, 1 + IV_LENGTH_IN_BYTES)));
+      cipher.updateAAD(aad(encryptionContext));
+      return cipher.doFinal(blob, 1 + IV_LENGTH_IN_BYTES, blob.length - 1 - IV_LENGTH_IN_BYTES);
+    } catch (GeneralSecurityException e) {
+      throw InvalidCiphertextException.builder().message("Invalid cipher text.").build();
+    }
+  }
+
+  private static byte[] aad(final Map<String, String> encryptionContext) {
+    return new TreeMap<>(encryptionContext).toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,78 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import software.amazon.serverless.apprepo.api.impl.pagination.DynamoDbStartKeySerializer;
+import software.amazon.serverless.apprepo.api.impl.pagination.EncryptedTokenSerializer;
+import software.amazon.serverless.apprepo.api.impl.pagination.InvalidTokenException;
+import software.amazon.serverless.apprepo.api.impl.pagination.PaginationTokenSerializer;
+import software.amazon.serverless.apprepo.api.impl.pagination.TimeBasedTokenSerializer;
+import software.amazon.serverless.apprepo.api.impl.pagination.TokenSerializer;
+
+/**
+ * The full {@link PaginationTokenSerializer} chain for an areaTypeIndex start key, against
+ * the Json, timestamp and KMS-per-token chain it replaced.
+ *
+ * <p>KMS is replaced by {@link LocalKmsClient}, so the numbers exclude the KMS round trip
+ * the legacy chain pays on every token. Token sizes are printed during set up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PaginationTokenBenchmark {
+  private Map<String, AttributeValue> startKey;
+  private PaginationTokenSerializer serializer;
+  private TokenSerializer<Map<String, AttributeValue>> jsonSerializer;
+  private TokenSerializer<String> timeBasedSerializer;
+  private TokenSerializer<String> kmsSerializer;
+  private String token;
+  private String legacyToken;
+
+  @Setup
+  public void setUp() {
+    BenchmarkConfigProvider configProvider = new BenchmarkConfigProvider();
+    LocalKmsClient kms = new LocalKmsClient();
+    startKey = TherapistFixtures.indexStartKey();
+    serializer = new PaginationTokenSerializer(kms, configProvider);
+    jsonSerializer = new DynamoDbStartKeySerializer();
+    timeBasedSerializer = new TimeBasedTokenSerializer(configProvider.getPaginationTokenTtl());
+    kmsSerializer = new EncryptedTokenSerializer(kms, configProvider.getKmsKeyId());
+    token = serialize();
+    legacyToken = serializeLegacy();
+    System.out.printf("%nToken length: %d, legacy token length: %d%n",
+          token.length(), legacyToken.length());
+  }
+
+  @Benchmark
+  public String serialize() {
+    return serializer.serialize(startKey);
+  }
+
+  @Benchmark
+  public Map<String, AttributeValue> deserialize() throws InvalidTokenException {
+    return serializer.deserialize(token);
+  }
+
+  @Benchmark
+  public String serializeLegacy() {
+    return kmsSerializer.serialize(timeBasedSerializer.serialize(
+          jsonSerializer.serialize(startKey)));
+  }
+
+  @Benchmark
+  public Map<String, AttributeValue> deserializeLegacy() throws InvalidTokenException {
+    return jsonSerializer.deserialize(timeBasedSerializer.deserialize(
+          kmsSerializer.deserialize(legacyToken)));
+  }
+}
@@ -0,0 +1,49 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import software.amazon.serverless.apprepo.metrics.Phase;
+import software.amazon.serverless.apprepo.metrics.RequestMetrics;
+
+/**
+ * The cost of {@link RequestMetrics}: recording one latency, done for every phase of every
+ * request, and flushing the metrics of a typical invocation, done once per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestMetricsBenchmark {
+  private long latency;
+
+  @Setup
+  public void setUp() {
+    LambdaHandlerBenchmark.discardMetrics();
+    latency = TimeUnit.MILLISECONDS.toNanos(7);
+  }
+
+  @Benchmark
+  public void record() {
+    RequestMetrics.record(Phase.DYNAMODB, latency);
+  }
+
+  @Benchmark
+  public void flush() {
+    RequestMetrics.setOperation("getTherapistList");
+    RequestMetrics.record(Phase.TOKEN_DECODE, latency / 50);
+    RequestMetrics.record(Phase.KMS, latency);
+    RequestMetrics.record(Phase.DYNAMODB, latency);
+    RequestMetrics.record(Phase.MAPPING, latency / 100);
+    RequestMetrics.record(Phase.TOKEN_ENCODE, latency / 50);
+    RequestMetrics.record(Phase.JSON_WRITE, latency / 20);
+    RequestMetrics.record(Phase.TOTAL, latency * 3);
+    RequestMetrics.flush();
+  }
+}
@@ -0,0 +1,58 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Representative therapist data shared by the benchmarks.
+ */
+final class TherapistFixtures {
+  private TherapistFixtures() {
+  }
+
+  static TherapistRecord record(final int index) {
+    return TherapistRecord.builder()
+          .userId("Raj")
+          .therapistId(UUID.nameUUIDFromBytes(Integer.toString(index).getBytes()).toString())
+          .createdAt(Instant.parse("2020-05-01T10:15:30.123Z").plusSeconds(index))
+          .therapistName("Dr. Prateek Gupta " + index)
+          .therapistArea(Integer.toString(226000 + index % 50))
+          .therapistType(index % 2 == 0 ? "Counsellor" : "Psychologist")
+          .therapistMob("9785462130")
+          .version(1L)
+          .build();
+  }
+
+  static List<TherapistRecord> records(final int count) {
+    List<TherapistRecord> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      records.add(record(i));
+    }
+    return records;
+  }
+
+  /**
+   * A LastEvaluatedKey of the areaTypeIndex, which carries both index and table keys.
+   */
+  static Map<String, AttributeValue> indexStartKey() {
+    TherapistRecord record = record(42);
+    Map<String, AttributeValue> startKey = new HashMap<>();
+    startKey.put(TherapistRecord.USER_ID_ATTRIBUTE_NAME,
+          AttributeValue.builder().s(record.getUserId()).build());
+    startKey.put(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME,
+          AttributeValue.builder().s(record.getTherapistId()).build());
+    startKey.put(TherapistRecord.THERAPIST_AREA_ATTRIBUTE_NAME,
+          AttributeValue.builder().s(record.getTherapistArea()).build());
+    startKey.put(TherapistRecord.THERAPIST_TYPE_ATTRIBUTE_NAME,
+          AttributeValue.builder().s(record.getTherapistType()).build());
+    return startKey;
+  }
+}
@@ -0,0 +1,54 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.swagger.model.TherapistList;
+import io.swagger.model.TherapistSummary;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistMapper;
+
+/**
+ * Jackson serialization of a {@link TherapistList} response body, as JacksonFeature writes it
+ * for GET /therapist and the search API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TherapistListJsonBenchmark {
+  @Param({"10", "100", "1000"})
+  private int count;
+
+  private ObjectWriter writer;
+  private TherapistList therapistList;
+
+  @Setup
+  public void setUp() {
+    writer = new ObjectMapper().writerFor(TherapistList.class);
+    List<TherapistSummary> summaries = TherapistFixtures.records(count).stream()
+          .map(TherapistMapper::toTherapistSummary)
+          .collect(Collectors.toList());
+    therapistList = new TherapistList()
+          .therapist(summaries)
+          .nextToken("AeEAAAB4AQIDAHh0b2tlbi1wbGFjZWhvbGRlcg");
+  }
+
+  @Benchmark
+  public byte[] serialize() throws JsonProcessingException {
+    return writer.writeValueAsBytes(therapistList);
+  }
+}
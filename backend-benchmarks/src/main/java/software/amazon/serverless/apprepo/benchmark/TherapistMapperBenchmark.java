@@ -0,0 +1,135 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import io.swagger.model.Therapist;
+import io.swagger.model.TherapistSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.modelmapper.PropertyMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistMapper;
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Mapping between {@link TherapistRecord} and the API models, with {@link TherapistMapper}
+ * against the ModelMapper configuration TherapistService used before it.
+ *
+ * <p>The steady state benchmarks map a list page of therapists. {@link ColdStart} measures
+ * the first mapping in a fresh JVM, which is what a Lambda cold start pays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TherapistMapperBenchmark {
+  @Param({"10", "100", "1000"})
+  private int count;
+
+  private List<TherapistRecord> records;
+  private Therapist therapist;
+  private ModelMapper modelMapper;
+
+  @Setup
+  public void setUp() {
+    records = TherapistFixtures.records(count);
+    therapist = TherapistMapper.toTherapist(records.get(0));
+    modelMapper = configureModelMapper();
+  }
+
+  @Benchmark
+  public List<TherapistSummary> toTherapistSummaries() {
+    List<TherapistSummary> summaries = new ArrayList<>(records.size());
+    for (TherapistRecord record : records) {
+      summaries.add(TherapistMapper.toTherapistSummary(record));
+    }
+    return summaries;
+  }
+
+  @Benchmark
+  public List<TherapistSummary> toTherapistSummariesModelMapper() {
+    List<TherapistSummary> summaries = new ArrayList<>(records.size());
+    for (TherapistRecord record : records) {
+      summaries.add(modelMapper.map(record, TherapistSummary.class));
+    }
+    return summaries;
+  }
+
+  @Benchmark
+  public Therapist toTherapist() {
+    return TherapistMapper.toTherapist(records.get(0));
+  }
+
+  @Benchmark
+  public Therapist toTherapistModelMapper() {
+    return modelMapper.map(records.get(0), Therapist.class);
+  }
+
+  @Benchmark
+  public TherapistRecord toTherapistRecord() {
+    return TherapistMapper.toTherapistRecord(therapist);
+  }
+
+  @Benchmark
+  public TherapistRecord toTherapistRecordModelMapper() {
+    return modelMapper.map(therapist, TherapistRecord.class);
+  }
+
+  /**
+   * The ModelMapper set up TherapistService used before {@link TherapistMapper}.
+   */
+  static ModelMapper configureModelMapper() {
+    ModelMapper modelMapper = new ModelMapper();
+    modelMapper.addMappings(new PropertyMap<TherapistRecord, Therapist>() {
+      protected void configure() {
+        map(source.getCreatedAt()).setCreationTime(null);
+      }
+    });
+    modelMapper.addMappings(new PropertyMap<TherapistRecord, TherapistSummary>() {
+      protected void configure() {
+        map(source.getCreatedAt()).setCreationTime(null);
+      }
+    });
+    return modelMapper;
+  }
+
+  /**
+   * Time to configure the mapper and map the first therapist in a fresh JVM.
+   */
+  @State(Scope.Benchmark)
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1)
+  @Fork(20)
+  public static class ColdStart {
+    private TherapistRecord record;
+
+    @Setup
+    public void setUp() {
+      record = TherapistFixtures.record(1);
+    }
+
+    @Benchmark
+    public Therapist firstMapping() {
+      return TherapistMapper.toTherapist(record);
+    }
+
+    @Benchmark
+    public Therapist firstMappingModelMapper() {
+      return configureModelMapper().map(record, Therapist.class);
+    }
+  }
+}
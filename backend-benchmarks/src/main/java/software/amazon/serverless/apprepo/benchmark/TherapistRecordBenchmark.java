@@ -0,0 +1,44 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Conversion between {@link TherapistRecord} and DynamoDB items, done for every item
+ * read or written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TherapistRecordBenchmark {
+  private TherapistRecord record;
+  private Map<String, AttributeValue> item;
+
+  @Setup
+  public void setUp() {
+    record = TherapistFixtures.record(1);
+    item = record.toAttributeMap();
+  }
+
+  @Benchmark
+  public TherapistRecord fromAttributeMap() {
+    return new TherapistRecord(item);
+  }
+
+  @Benchmark
+  public Map<String, AttributeValue> toAttributeMap() {
+    return record.toAttributeMap();
+  }
+}
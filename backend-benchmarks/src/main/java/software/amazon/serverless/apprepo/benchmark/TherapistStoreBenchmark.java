@@ -0,0 +1,64 @@
+package software.amazon.serverless.apprepo.benchmark;
+
+import io.swagger.model.Therapist;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import software.amazon.serverless.apprepo.api.impl.InMemoryTherapistStore;
+import software.amazon.serverless.apprepo.api.impl.ReadConsistency;
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+import software.amazon.serverless.apprepo.api.impl.TherapistStore;
+
+/**
+ * Reads and versioned updates of the {@link InMemoryTherapistStore} from several threads, on
+ * and off the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class TherapistStoreBenchmark {
+  private static final int THERAPIST_COUNT = 100_000;
+
+  @Param({"false", "true"})
+  private boolean offHeap;
+
+  private TherapistStore store;
+  private List<TherapistRecord> records;
+
+  @Setup
+  public void setUp() {
+    store = new InMemoryTherapistStore(offHeap);
+    records = TherapistFixtures.records(THERAPIST_COUNT);
+    records.forEach(store::create);
+  }
+
+  @Benchmark
+  public TherapistRecord get() {
+    return store.get(randomRecord().getTherapistId(), ReadConsistency.EVENTUAL, null)
+          .orElseThrow(IllegalStateException::new);
+  }
+
+  @Benchmark
+  public TherapistRecord update() {
+    // Without an expected version the update only checks that the therapist exists.
+    return store.update(randomRecord().getTherapistId(), new Therapist()
+          .therapistMob("9785462131"));
+  }
+
+  private TherapistRecord randomRecord() {
+    return records.get(ThreadLocalRandom.current().nextInt(THERAPIST_COUNT));
+  }
+}
@@ -1,5 +1,6 @@
 package software.amazon.serverless.apprepo.api.exception;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
@@ -8,7 +9,8 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Exception mapper that maps throwables that are not {@link ApiException}
- * to {@link InternalServerApiException}.
+ * to {@link InternalServerApiException}. Other {@link WebApplicationException}s, such as
+ * Jersey's 404 for an unknown path, keep their own response.
  */
 @Provider
 @Slf4j
@@ -19,6 +21,8 @@ public class ApiExceptionMapper implements ExceptionMapper<Throwable> {
       log.info("4xx exception is thrown", throwable);
       ApiException apiException = (ApiException) throwable;
       return apiException.getResponse();
+    } else if (throwable instanceof WebApplicationException) {
+      return ((WebApplicationException) throwable).getResponse();
     } else {
       log.error("5xx exception is thrown", throwable);
       return new InternalServerApiException().getResponse();
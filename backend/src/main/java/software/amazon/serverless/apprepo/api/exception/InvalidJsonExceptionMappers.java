@@ -0,0 +1,67 @@
+package software.amazon.serverless.apprepo.api.exception;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+import io.swagger.model.BadRequestException;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exception mappers that answer a request body that is not valid Json, or does not fit its
+ * model, with a {@link BadRequestApiException} rather than Jackson's plain text parser message.
+ *
+ * <p>They map the same exception types as the mappers registered by Jersey's JacksonFeature,
+ * and take precedence over them by their priority.
+ */
+@Slf4j
+public final class InvalidJsonExceptionMappers {
+  private static final int PRIORITY = Priorities.USER - 1;
+
+  private InvalidJsonExceptionMappers() {
+  }
+
+  /**
+   * Get the response to a request body that can not be read.
+   *
+   * @param exception the exception reading the body.
+   * @return the 400 response.
+   */
+  public static Response toResponse(final Exception exception) {
+    log.info("Request body is not valid", exception);
+    return new BadRequestApiException(new BadRequestException()
+          .errorCode("InvalidRequest")
+          .message("The request body is not valid Json."))
+          .getResponse();
+  }
+
+  /**
+   * Maps a body that is not valid Json.
+   */
+  @Provider
+  @Priority(PRIORITY)
+  public static class ParseExceptionMapper implements ExceptionMapper<JsonParseException> {
+    @Override
+    public Response toResponse(final JsonParseException exception) {
+      return InvalidJsonExceptionMappers.toResponse(exception);
+    }
+  }
+
+  /**
+   * Maps Json that does not fit the model of the body.
+   */
+  @Provider
+  @Priority(PRIORITY)
+  public static class MappingExceptionMapper implements ExceptionMapper<JsonMappingException> {
+    @Override
+    public Response toResponse(final JsonMappingException exception) {
+      return InvalidJsonExceptionMappers.toResponse(exception);
+    }
+  }
+}
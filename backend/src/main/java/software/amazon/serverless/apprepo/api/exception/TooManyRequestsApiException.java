@@ -0,0 +1,14 @@
+package software.amazon.serverless.apprepo.api.exception;
+
+import io.swagger.model.TooManyRequestsException;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * Too Many Requests Api exception.
+ */
+public class TooManyRequestsApiException extends ApiException {
+  public TooManyRequestsApiException(final TooManyRequestsException exception) {
+    super(exception, Response.Status.TOO_MANY_REQUESTS);
+  }
+}
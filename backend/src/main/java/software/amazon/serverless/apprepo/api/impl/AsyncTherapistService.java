@@ -0,0 +1,472 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.swagger.model.ConflictException;
+import io.swagger.model.NotFoundException;
+import io.swagger.model.Therapist;
+import io.swagger.model.TherapistBatchCreateRequest;
+import io.swagger.model.TherapistChanges;
+import io.swagger.model.TherapistList;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.MediaType;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import software.amazon.serverless.apprepo.api.exception.BadRequestApiException;
+import software.amazon.serverless.apprepo.api.exception.ConflictApiException;
+import software.amazon.serverless.apprepo.api.exception.NotFoundApiException;
+import software.amazon.serverless.apprepo.api.impl.batch.AsyncTherapistBatchOperations;
+import software.amazon.serverless.apprepo.api.impl.cache.TherapistCache;
+import software.amazon.serverless.apprepo.api.impl.changes.ChangeLog;
+import software.amazon.serverless.apprepo.api.impl.facet.TherapistFacetItem;
+import software.amazon.serverless.apprepo.api.impl.search.NameIndex;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+
+/**
+ * Non-blocking variant of {@link TherapistService} on {@link DynamoDbAsyncClient}.
+ *
+ * <p>It serves the same paths as {@link io.swagger.api.TherapistApi} with the same behavior,
+ * but every resource method suspends its {@link AsyncResponse} and resumes it when the
+ * DynamoDB call completes, so no request thread waits for the network round trip.
+ *
+ * <p>Paginated lists and searches are the exception: their pages are assembled by the
+ * {@link TherapistQueryExecutor} and {@link TherapistSearchCache} of {@link TherapistService},
+ * which query with the blocking client and decode and encode the pagination tokens with KMS.
+ * They run on a page executor of their own, never on the SDK threads that complete the
+ * non-blocking calls.
+ */
+@Slf4j
+@Path("/therapist")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class AsyncTherapistService {
+  // Page tasks mostly wait on blocking DynamoDB and KMS calls, like the batch executor.
+  private static final int PAGE_POOL_SIZE = 16;
+  private static final ExecutorService PAGE_EXECUTOR = Executors.newFixedThreadPool(
+        PAGE_POOL_SIZE, new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("therapist-page-%d")
+              .build());
+
+  private final DynamoDbAsyncClient dynamodb;
+  private final String tableName;
+  private final Clock clock;
+  private final TherapistCache therapistCache;
+  private final AsyncTherapistBatchOperations therapistBatchOperations;
+  private final TherapistPartitioner therapistPartitioner;
+  private final TherapistQueryExecutor therapistQueryExecutor;
+  private final TherapistSearchCache therapistSearchCache;
+  private final NameIndex nameIndex;
+  private final ExecutorService pageExecutor;
+
+  @Inject
+  public AsyncTherapistService(
+        final DynamoDbAsyncClient dynamodb, final ConfigProvider configProvider,
+        final TherapistCache therapistCache,
+        final AsyncTherapistBatchOperations therapistBatchOperations,
+        final TherapistPartitioner therapistPartitioner,
+        final TherapistQueryExecutor therapistQueryExecutor,
+        final TherapistSearchCache therapistSearchCache, final NameIndex nameIndex) {
+    this(dynamodb, configProvider.getTherapistTableName(), therapistCache,
+          therapistBatchOperations, therapistPartitioner, therapistQueryExecutor,
+          therapistSearchCache, nameIndex, PAGE_EXECUTOR, Clock.systemUTC());
+  }
+
+  AsyncTherapistService(final DynamoDbAsyncClient dynamodb, final String tableName,
+                        final TherapistCache therapistCache,
+                        final AsyncTherapistBatchOperations therapistBatchOperations,
+                        final TherapistPartitioner therapistPartitioner,
+                        final TherapistQueryExecutor therapistQueryExecutor,
+                        final TherapistSearchCache therapistSearchCache,
+                        final NameIndex nameIndex, final ExecutorService pageExecutor,
+                        final Clock clock) {
+    this.dynamodb = dynamodb;
+    this.tableName = tableName;
+    this.therapistCache = therapistCache;
+    this.therapistBatchOperations = therapistBatchOperations;
+    this.therapistPartitioner = therapistPartitioner;
+    this.therapistQueryExecutor = therapistQueryExecutor;
+    this.therapistSearchCache = therapistSearchCache;
+    this.nameIndex = nameIndex;
+    this.pageExecutor = pageExecutor;
+    this.clock = clock;
+  }
+
+  @POST
+  public void addTherapist(final Therapist therapist,
+                           @Suspended final AsyncResponse asyncResponse) {
+    log.info("Creating therapist with input {}", therapist);
+    resume(asyncResponse, addTherapist(therapist));
+  }
+
+  @POST
+  @Path("/batch")
+  public void addTherapistBatch(final TherapistBatchCreateRequest request,
+                                @Suspended final AsyncResponse asyncResponse) {
+    resume(asyncResponse, therapistBatchOperations.addTherapistBatch(request)
+          .thenApply(result -> {
+            therapistQueryExecutor.invalidatePrefetched();
+            result.getResults().stream()
+                  .filter(item -> item.getTherapist() != null)
+                  .forEach(item -> therapistSearchCache.invalidate(
+                        TherapistMapper.toTherapistRecord(item.getTherapist())));
+            return result;
+          }));
+  }
+
+  @GET
+  @Path("/batch")
+  public void getTherapistBatch(@QueryParam("ids") final List<String> ids,
+                                @Suspended final AsyncResponse asyncResponse) {
+    resume(asyncResponse, therapistBatchOperations.getTherapistBatch(ids));
+  }
+
+  @GET
+  @Path("/changes")
+  public void getTherapistChanges(@QueryParam("since") final String since,
+                                  @QueryParam("maxItems") final Integer maxItems,
+                                  @Suspended final AsyncResponse asyncResponse) {
+    log.info("Listing therapist changes since {} with maxItems {}", since, maxItems);
+    resume(asyncResponse, getTherapistChanges(since, maxItems));
+  }
+
+  @GET
+  @Path("/facets")
+  public void getTherapistFacets(@QueryParam("therapistArea") final String therapistArea,
+                                 @Suspended final AsyncResponse asyncResponse) {
+    log.info("Getting therapist facets with therapistArea {}", therapistArea);
+    resume(asyncResponse, dynamodb.getItem(GetItemRequest.builder()
+          .tableName(tableName)
+          .key(TherapistFacetItem.key())
+          .build())
+          .thenApply(response -> TherapistFacetItem.toTherapistFacets(response.item(),
+                therapistArea)));
+  }
+
+  @GET
+  @Path("/{therapistId}")
+  public void getTherapist(@PathParam("therapistId") final String therapistId,
+                           @QueryParam("consistency") final String consistency,
+                           @QueryParam("minVersion") final Long minVersion,
+                           @Suspended final AsyncResponse asyncResponse) {
+    log.info("Getting therapist {} with consistency {} and minVersion {}", therapistId,
+          consistency, minVersion);
+    resume(asyncResponse, getTherapist(therapistId, consistency, minVersion));
+  }
+
+  @GET
+  public void getTherapistList(@QueryParam("nextToken") final String nextToken,
+                               @QueryParam("maxItems") final Integer maxItems,
+                               @QueryParam("consistency") final String consistency,
+                               @Suspended final AsyncResponse asyncResponse) {
+    log.info("Listing therapists with nextToken {}, maxItems {} and consistency {}", nextToken,
+          maxItems, consistency);
+    resume(asyncResponse, getTherapistList(nextToken, maxItems, consistency));
+  }
+
+  @GET
+  @Path("/search")
+  public void getTherapistByNTA(@QueryParam("therapistArea") final String therapistArea,
+                                @QueryParam("nextToken") final String nextToken,
+                                @QueryParam("therapistType") final String therapistType,
+                                @QueryParam("maxItems") final Integer maxItems,
+                                @QueryParam("name") final String name,
+                                @Suspended final AsyncResponse asyncResponse) {
+    log.info("Listing therapists with therapistArea {}, nextToken {}, therapistType {}, "
+          + "maxItems {} and name {}", therapistArea, nextToken, therapistType, maxItems, name);
+    resume(asyncResponse, getTherapistByNTA(therapistArea, nextToken, therapistType,
+          maxItems, name));
+  }
+
+  @PUT
+  @Path("/{therapistId}")
+  public void updateTherapist(final Therapist therapist,
+                              @PathParam("therapistId") final String therapistId,
+                              @Suspended final AsyncResponse asyncResponse) {
+    log.info("Updating therapist {} with input {}", therapistId, therapist);
+    resume(asyncResponse, updateTherapist(therapist, therapistId));
+  }
+
+  @DELETE
+  @Path("/{therapistId}")
+  public void deleteTherapist(@PathParam("therapistId") final String therapistId,
+                              @QueryParam("expectedVersion") final Long expectedVersion,
+                              @Suspended final AsyncResponse asyncResponse) {
+    log.info("Deleting therapist {} at version {}", therapistId, expectedVersion);
+    resume(asyncResponse, deleteTherapist(therapistId, expectedVersion));
+  }
+
+  CompletionStage<Therapist> addTherapist(final Therapist therapist) {
+    TherapistRecord therapistRecord = TherapistMapper.toTherapistRecord(therapist);
+    therapistRecord.setTherapistId(UUID.randomUUID().toString());
+    therapistRecord.setCreatedAt(Instant.now(clock));
+    therapistRecord.setVersion(1L);
+    therapistRecord.setUserId(therapistPartitioner.partitionKey(
+          therapistRecord.getTherapistId()));
+    return dynamodb.putItem(PutItemRequest.builder()
+          .tableName(tableName)
+          .item(therapistRecord.toAttributeMap())
+          .conditionExpression(
+                String.format("attribute_not_exists(%s) AND attribute_not_exists(%s)",
+                      TherapistRecord.USER_ID_ATTRIBUTE_NAME,
+                      TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME))
+          .build())
+          .handle((response, throwable) -> {
+            if (unwrap(throwable) instanceof ConditionalCheckFailedException) {
+              throw new ConflictApiException(new ConflictException()
+                    .errorCode("TherapistAlreadyExist")
+                    .message(String.format("Therapist %s already exists.",
+                          therapist.getTherapistId())));
+            }
+            rethrow(throwable);
+            therapistQueryExecutor.invalidatePrefetched();
+            therapistSearchCache.invalidate(therapistRecord);
+            return TherapistMapper.toTherapist(therapistRecord);
+          });
+  }
+
+  CompletionStage<Therapist> getTherapist(final String therapistId, final String consistency,
+                                          final Long minVersion) {
+    ReadConsistency readConsistency;
+    try {
+      readConsistency = ReadConsistency.fromParameter(consistency);
+    } catch (BadRequestApiException e) {
+      return failed(e);
+    }
+    // Strongly consistent reads are not served from the cache, as CachingTherapistStore.
+    return therapistCache.get(therapistId)
+          .filter(cachedRecord -> !readConsistency.isConsistentRead()
+                && ReadConsistency.isAtLeast(cachedRecord, minVersion))
+          .<CompletionStage<TherapistRecord>>map(CompletableFuture::completedFuture)
+          .orElseGet(() -> loadTherapist(therapistId, readConsistency, minVersion)
+                .thenApply(loadedRecord -> {
+                  therapistCache.put(loadedRecord);
+                  return loadedRecord;
+                }))
+          .thenApply(TherapistMapper::toTherapist);
+  }
+
+  CompletionStage<TherapistList> getTherapistList(final String nextToken,
+                                                  final Integer maxItems,
+                                                  final String consistency) {
+    ReadConsistency readConsistency;
+    try {
+      readConsistency = ReadConsistency.fromParameter(consistency);
+    } catch (BadRequestApiException e) {
+      return failed(e);
+    }
+    return CompletableFuture.supplyAsync(() -> TherapistService.list(therapistQueryExecutor,
+          therapistPartitioner, tableName, readConsistency, nextToken, maxItems), pageExecutor);
+  }
+
+  CompletionStage<TherapistChanges> getTherapistChanges(final String since,
+                                                        final Integer maxItems) {
+    if (since == null) {
+      return dynamodb.getItem(ChangeLog.head(tableName))
+            .thenApply(response -> ChangeLog.fromHead(response.item(), clock));
+    }
+    QueryRequest request;
+    try {
+      request = ChangeLog.query(tableName, since,
+            maxItems == null ? TherapistService.DEFAULT_LIST_THERAPIST_LIMIT : maxItems, clock);
+    } catch (BadRequestApiException e) {
+      return failed(e);
+    }
+    return dynamodb.query(request)
+          .thenApply(response -> ChangeLog.toTherapistChanges(since, response, clock));
+  }
+
+  CompletionStage<TherapistList> getTherapistByNTA(final String therapistArea,
+                                                   final String nextToken,
+                                                   final String therapistType,
+                                                   final Integer maxItems,
+                                                   final String name) {
+    // The name index is in memory, so the search completes without waiting on the network.
+    if (name != null) {
+      try {
+        return CompletableFuture.completedFuture(TherapistService.searchByName(nameIndex, name,
+              therapistArea, therapistType, nextToken, maxItems));
+      } catch (BadRequestApiException e) {
+        return failed(e);
+      }
+    }
+    return CompletableFuture.supplyAsync(() -> TherapistService.searchByArea(
+          therapistQueryExecutor, therapistSearchCache, tableName, therapistArea, therapistType,
+          nextToken, maxItems), pageExecutor);
+  }
+
+  CompletionStage<Therapist> updateTherapist(final Therapist therapist,
+                                             final String therapistId) {
+    UpdateItemRequest request;
+    try {
+      request = TherapistWriteRequests.update(tableName, therapistPartitioner.key(therapistId),
+            therapist);
+    } catch (BadRequestApiException e) {
+      return failed(e);
+    }
+    return writeThroughKeys(therapistId, therapist.getVersion(), 0,
+          key -> dynamodb.updateItem(request.toBuilder().key(key).build()))
+          .thenApply(response -> {
+            TherapistRecord therapistRecord = new TherapistRecord(response.attributes());
+            therapistCache.put(therapistRecord);
+            therapistQueryExecutor.invalidatePrefetched();
+            therapistSearchCache.invalidate(therapistRecord);
+            return TherapistMapper.toTherapist(therapistRecord);
+          });
+  }
+
+  CompletionStage<Void> deleteTherapist(final String therapistId, final Long expectedVersion) {
+    return writeThroughKeys(therapistId, expectedVersion, 0,
+          key -> dynamodb.deleteItem(TherapistWriteRequests.delete(tableName, key,
+                expectedVersion)))
+          .thenAccept(response -> {
+            therapistCache.invalidateDeleted(therapistId);
+            therapistQueryExecutor.invalidatePrefetched();
+            // The delete returns the therapist as it was, so only its search pages are evicted.
+            therapistSearchCache.invalidate(new TherapistRecord(response.attributes()));
+          });
+  }
+
+  /**
+   * Apply a conditional write to the keys the therapist may be stored under, from the given
+   * one on, until one succeeds. Only a failed expected version needs a read to tell
+   * a conflict from a therapist that is not stored under the key.
+   */
+  private <T> CompletionStage<T> writeThroughKeys(
+        final String therapistId, final Long expectedVersion, final int keyIndex,
+        final Function<Map<String, AttributeValue>, CompletionStage<T>> write) {
+    List<Map<String, AttributeValue>> keys = therapistPartitioner.keys(therapistId);
+    if (keyIndex == keys.size()) {
+      return failed(TherapistWriteRequests.conditionFailed(therapistId, expectedVersion, null));
+    }
+    Map<String, AttributeValue> key = keys.get(keyIndex);
+    return write.apply(key)
+          .<CompletionStage<T>>handle((result, throwable) -> {
+            if (throwable == null) {
+              return CompletableFuture.completedFuture(result);
+            }
+            Throwable cause = unwrap(throwable);
+            if (!(cause instanceof ConditionalCheckFailedException)) {
+              return failed(cause);
+            }
+            if (expectedVersion == null) {
+              return writeThroughKeys(therapistId, null, keyIndex + 1, write);
+            }
+            return dynamodb.getItem(TherapistWriteRequests.currentItem(tableName, key))
+                  .thenCompose(response -> response.item().isEmpty()
+                        ? writeThroughKeys(therapistId, expectedVersion, keyIndex + 1, write)
+                        : AsyncTherapistService.<T>failed(TherapistWriteRequests
+                              .conditionFailed(therapistId, expectedVersion, response.item())));
+          })
+          .thenCompose(stage -> stage);
+  }
+
+  private CompletionStage<TherapistRecord> loadTherapist(final String therapistId,
+                                                         final ReadConsistency consistency,
+                                                         final Long minVersion) {
+    List<Map<String, AttributeValue>> keys = therapistPartitioner.keys(therapistId);
+    CompletionStage<TherapistRecord> load = readTherapist(keys, 0,
+          consistency.isConsistentRead());
+    if (!consistency.isConsistentRead()) {
+      // An eventually consistent read may not see the client's own write yet; only then is
+      // the therapist read again consistently.
+      load = load.thenCompose(therapistRecord ->
+            ReadConsistency.isAtLeast(therapistRecord, minVersion)
+                  ? CompletableFuture.completedFuture(therapistRecord)
+                  : readTherapist(keys, 0, true));
+    }
+    return load.thenApply(therapistRecord -> {
+      if (therapistRecord == null) {
+        throw new NotFoundApiException(new NotFoundException()
+              .errorCode("TherapistNotFound")
+              .message(String.format("Therapist %s can not be found.", therapistId)));
+      }
+      return therapistRecord;
+    });
+  }
+
+  private CompletionStage<TherapistRecord> readTherapist(
+        final List<Map<String, AttributeValue>> keys, final int keyIndex,
+        final boolean consistentRead) {
+    if (keyIndex == keys.size()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return dynamodb.getItem(GetItemRequest.builder()
+          .tableName(tableName)
+          .consistentRead(consistentRead)
+          .key(keys.get(keyIndex))
+          .build())
+          .thenCompose(response -> response.item().isEmpty()
+                ? readTherapist(keys, keyIndex + 1, consistentRead)
+                : CompletableFuture.completedFuture(new TherapistRecord(response.item())));
+  }
+
+  private static void resume(final AsyncResponse asyncResponse,
+                             final CompletionStage<?> result) {
+    result.whenComplete((entity, throwable) -> {
+      if (throwable == null) {
+        asyncResponse.resume(entity);
+      } else {
+        // Resume with the ApiException itself so it maps to its status code, not a 500.
+        asyncResponse.resume(unwrap(throwable));
+      }
+    });
+  }
+
+  private static <T> CompletionStage<T> failed(final Throwable throwable) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(throwable);
+    return future;
+  }
+
+  private static Throwable unwrap(final Throwable throwable) {
+    Throwable cause = throwable;
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  private static void rethrow(final Throwable throwable) {
+    if (throwable == null) {
+      return;
+    }
+    if (throwable instanceof CompletionException) {
+      throw (CompletionException) throwable;
+    }
+    throw new CompletionException(throwable);
+  }
+}
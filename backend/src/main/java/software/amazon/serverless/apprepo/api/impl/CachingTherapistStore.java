@@ -0,0 +1,71 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import io.swagger.model.Therapist;
+
+import java.util.Optional;
+
+import software.amazon.serverless.apprepo.api.impl.cache.TherapistCache;
+
+/**
+ * {@link TherapistStore} that serves hot therapists from the container's
+ * {@link TherapistCache} and delegates the rest to another store.
+ *
+ * <p>Only eventually consistent reads are served from the cache, as other containers' writes
+ * only reach it once the cached therapist expires. A cached therapist is served unless it is
+ * older than the client's version token; a miss is loaded from the delegate and cached.
+ * Strongly consistent reads always read the delegate and cache what they read. Updates cache
+ * the new version and deletes invalidate the therapist, so this container reads its own
+ * writes.
+ */
+public class CachingTherapistStore implements TherapistStore {
+  private final TherapistStore delegate;
+  private final TherapistCache therapistCache;
+
+  /**
+   * Construct a CachingTherapistStore.
+   *
+   * @param delegate       store the therapists are loaded from and written to.
+   * @param therapistCache cache of the therapists.
+   */
+  public CachingTherapistStore(final TherapistStore delegate,
+                               final TherapistCache therapistCache) {
+    this.delegate = delegate;
+    this.therapistCache = therapistCache;
+  }
+
+  @Override
+  public void create(final TherapistRecord record) {
+    delegate.create(record);
+  }
+
+  @Override
+  public Optional<TherapistRecord> get(final String therapistId,
+                                       final ReadConsistency consistency,
+                                       final Long minVersion) {
+    if (!consistency.isConsistentRead()) {
+      Optional<TherapistRecord> cachedRecord = therapistCache.get(therapistId)
+            .filter(record -> ReadConsistency.isAtLeast(record, minVersion));
+      if (cachedRecord.isPresent()) {
+        return cachedRecord;
+      }
+    }
+    Optional<TherapistRecord> loadedRecord = delegate.get(therapistId, consistency, minVersion);
+    loadedRecord.ifPresent(therapistCache::put);
+    return loadedRecord;
+  }
+
+  @Override
+  public TherapistRecord update(final String therapistId, final Therapist therapist) {
+    TherapistRecord therapistRecord = delegate.update(therapistId, therapist);
+    // The whole updated record replaces any older cached version.
+    therapistCache.put(therapistRecord);
+    return therapistRecord;
+  }
+
+  @Override
+  public TherapistRecord delete(final String therapistId, final Long expectedVersion) {
+    TherapistRecord therapistRecord = delegate.delete(therapistId, expectedVersion);
+    therapistCache.invalidateDeleted(therapistId);
+    return therapistRecord;
+  }
+}
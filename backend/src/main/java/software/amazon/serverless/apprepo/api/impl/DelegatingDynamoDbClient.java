@@ -0,0 +1,315 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CreateBackupRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateBackupResponse;
+import software.amazon.awssdk.services.dynamodb.model.CreateGlobalTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateGlobalTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteBackupRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteBackupResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeBackupRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeBackupResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeContinuousBackupsRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeContinuousBackupsResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeEndpointsRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeEndpointsResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeGlobalTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeGlobalTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeGlobalTableSettingsRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeGlobalTableSettingsResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeLimitsRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeLimitsResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTimeToLiveRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTimeToLiveResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ListBackupsRequest;
+import software.amazon.awssdk.services.dynamodb.model.ListBackupsResponse;
+import software.amazon.awssdk.services.dynamodb.model.ListGlobalTablesRequest;
+import software.amazon.awssdk.services.dynamodb.model.ListGlobalTablesResponse;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesRequest;
+import software.amazon.awssdk.services.dynamodb.model.ListTablesResponse;
+import software.amazon.awssdk.services.dynamodb.model.ListTagsOfResourceRequest;
+import software.amazon.awssdk.services.dynamodb.model.ListTagsOfResourceResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.RestoreTableFromBackupRequest;
+import software.amazon.awssdk.services.dynamodb.model.RestoreTableFromBackupResponse;
+import software.amazon.awssdk.services.dynamodb.model.RestoreTableToPointInTimeRequest;
+import software.amazon.awssdk.services.dynamodb.model.RestoreTableToPointInTimeResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TagResourceRequest;
+import software.amazon.awssdk.services.dynamodb.model.TagResourceResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UntagResourceRequest;
+import software.amazon.awssdk.services.dynamodb.model.UntagResourceResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateContinuousBackupsRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateContinuousBackupsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateGlobalTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateGlobalTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateGlobalTableSettingsRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateGlobalTableSettingsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTimeToLiveRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTimeToLiveResponse;
+import software.amazon.awssdk.services.dynamodb.paginators.BatchGetItemIterable;
+import software.amazon.awssdk.services.dynamodb.paginators.ListTablesIterable;
+import software.amazon.awssdk.services.dynamodb.paginators.QueryIterable;
+import software.amazon.awssdk.services.dynamodb.paginators.ScanIterable;
+
+/**
+ * {@link DynamoDbClient} that sends every operation to another client, for decorators to
+ * extend and override only the operations they instrument.
+ *
+ * <p>Paginators are built on this client rather than the delegate, so their pages go through
+ * the decorator too.
+ */
+public abstract class DelegatingDynamoDbClient implements DynamoDbClient {
+  protected final DynamoDbClient delegate;
+
+  /**
+   * Construct DelegatingDynamoDbClient.
+   *
+   * @param delegate the DynamoDbClient to send the operations to.
+   */
+  protected DelegatingDynamoDbClient(final DynamoDbClient delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public BatchGetItemResponse batchGetItem(final BatchGetItemRequest request) {
+    return delegate.batchGetItem(request);
+  }
+
+  @Override
+  public BatchGetItemIterable batchGetItemPaginator(final BatchGetItemRequest request) {
+    return new BatchGetItemIterable(this, request);
+  }
+
+  @Override
+  public BatchWriteItemResponse batchWriteItem(final BatchWriteItemRequest request) {
+    return delegate.batchWriteItem(request);
+  }
+
+  @Override
+  public CreateBackupResponse createBackup(final CreateBackupRequest request) {
+    return delegate.createBackup(request);
+  }
+
+  @Override
+  public CreateGlobalTableResponse createGlobalTable(final CreateGlobalTableRequest request) {
+    return delegate.createGlobalTable(request);
+  }
+
+  @Override
+  public CreateTableResponse createTable(final CreateTableRequest request) {
+    return delegate.createTable(request);
+  }
+
+  @Override
+  public DeleteBackupResponse deleteBackup(final DeleteBackupRequest request) {
+    return delegate.deleteBackup(request);
+  }
+
+  @Override
+  public DeleteItemResponse deleteItem(final DeleteItemRequest request) {
+    return delegate.deleteItem(request);
+  }
+
+  @Override
+  public DeleteTableResponse deleteTable(final DeleteTableRequest request) {
+    return delegate.deleteTable(request);
+  }
+
+  @Override
+  public DescribeBackupResponse describeBackup(final DescribeBackupRequest request) {
+    return delegate.describeBackup(request);
+  }
+
+  @Override
+  public DescribeContinuousBackupsResponse describeContinuousBackups(
+        final DescribeContinuousBackupsRequest request) {
+    return delegate.describeContinuousBackups(request);
+  }
+
+  @Override
+  public DescribeEndpointsResponse describeEndpoints(final DescribeEndpointsRequest request) {
+    return delegate.describeEndpoints(request);
+  }
+
+  @Override
+  public DescribeGlobalTableResponse describeGlobalTable(final DescribeGlobalTableRequest request) {
+    return delegate.describeGlobalTable(request);
+  }
+
+  @Override
+  public DescribeGlobalTableSettingsResponse describeGlobalTableSettings(
+        final DescribeGlobalTableSettingsRequest request) {
+    return delegate.describeGlobalTableSettings(request);
+  }
+
+  @Override
+  public DescribeLimitsResponse describeLimits(final DescribeLimitsRequest request) {
+    return delegate.describeLimits(request);
+  }
+
+  @Override
+  public DescribeTableResponse describeTable(final DescribeTableRequest request) {
+    return delegate.describeTable(request);
+  }
+
+  @Override
+  public DescribeTimeToLiveResponse describeTimeToLive(final DescribeTimeToLiveRequest request) {
+    return delegate.describeTimeToLive(request);
+  }
+
+  @Override
+  public GetItemResponse getItem(final GetItemRequest request) {
+    return delegate.getItem(request);
+  }
+
+  @Override
+  public ListBackupsResponse listBackups(final ListBackupsRequest request) {
+    return delegate.listBackups(request);
+  }
+
+  @Override
+  public ListGlobalTablesResponse listGlobalTables(final ListGlobalTablesRequest request) {
+    return delegate.listGlobalTables(request);
+  }
+
+  @Override
+  public ListTablesResponse listTables(final ListTablesRequest request) {
+    return delegate.listTables(request);
+  }
+
+  @Override
+  public ListTablesIterable listTablesPaginator(final ListTablesRequest request) {
+    return new ListTablesIterable(this, request);
+  }
+
+  @Override
+  public ListTagsOfResourceResponse listTagsOfResource(final ListTagsOfResourceRequest request) {
+    return delegate.listTagsOfResource(request);
+  }
+
+  @Override
+  public PutItemResponse putItem(final PutItemRequest request) {
+    return delegate.putItem(request);
+  }
+
+  @Override
+  public QueryResponse query(final QueryRequest request) {
+    return delegate.query(request);
+  }
+
+  @Override
+  public QueryIterable queryPaginator(final QueryRequest request) {
+    return new QueryIterable(this, request);
+  }
+
+  @Override
+  public RestoreTableFromBackupResponse restoreTableFromBackup(
+        final RestoreTableFromBackupRequest request) {
+    return delegate.restoreTableFromBackup(request);
+  }
+
+  @Override
+  public RestoreTableToPointInTimeResponse restoreTableToPointInTime(
+        final RestoreTableToPointInTimeRequest request) {
+    return delegate.restoreTableToPointInTime(request);
+  }
+
+  @Override
+  public ScanResponse scan(final ScanRequest request) {
+    return delegate.scan(request);
+  }
+
+  @Override
+  public ScanIterable scanPaginator(final ScanRequest request) {
+    return new ScanIterable(this, request);
+  }
+
+  @Override
+  public TagResourceResponse tagResource(final TagResourceRequest request) {
+    return delegate.tagResource(request);
+  }
+
+  @Override
+  public TransactGetItemsResponse transactGetItems(final TransactGetItemsRequest request) {
+    return delegate.transactGetItems(request);
+  }
+
+  @Override
+  public TransactWriteItemsResponse transactWriteItems(final TransactWriteItemsRequest request) {
+    return delegate.transactWriteItems(request);
+  }
+
+  @Override
+  public UntagResourceResponse untagResource(final UntagResourceRequest request) {
+    return delegate.untagResource(request);
+  }
+
+  @Override
+  public UpdateContinuousBackupsResponse updateContinuousBackups(
+        final UpdateContinuousBackupsRequest request) {
+    return delegate.updateContinuousBackups(request);
+  }
+
+  @Override
+  public UpdateGlobalTableResponse updateGlobalTable(final UpdateGlobalTableRequest request) {
+    return delegate.updateGlobalTable(request);
+  }
+
+  @Override
+  public UpdateGlobalTableSettingsResponse updateGlobalTableSettings(
+        final UpdateGlobalTableSettingsRequest request) {
+    return delegate.updateGlobalTableSettings(request);
+  }
+
+  @Override
+  public UpdateItemResponse updateItem(final UpdateItemRequest request) {
+    return delegate.updateItem(request);
+  }
+
+  @Override
+  public UpdateTableResponse updateTable(final UpdateTableRequest request) {
+    return delegate.updateTable(request);
+  }
+
+  @Override
+  public UpdateTimeToLiveResponse updateTimeToLive(final UpdateTimeToLiveRequest request) {
+    return delegate.updateTimeToLive(request);
+  }
+
+  @Override
+  public String serviceName() {
+    return delegate.serviceName();
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+}
@@ -0,0 +1,156 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import io.swagger.model.ConflictException;
+import io.swagger.model.Therapist;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import software.amazon.serverless.apprepo.api.exception.ConflictApiException;
+
+/**
+ * {@link TherapistStore} on the Therapist DynamoDB table.
+ *
+ * <p>Writes are single conditional requests built by {@link TherapistWriteRequests}, and
+ * therapists are stored under the partition keys of the {@link TherapistPartitioner}.
+ */
+@Slf4j
+public class DynamoDbTherapistStore implements TherapistStore {
+  private final DynamoDbClient dynamodb;
+  private final String tableName;
+  private final TherapistPartitioner therapistPartitioner;
+
+  /**
+   * Construct a DynamoDbTherapistStore.
+   *
+   * @param dynamodb             DynamoDbClient of the Therapist table.
+   * @param tableName            Therapist table name.
+   * @param therapistPartitioner partitioner of the therapists.
+   */
+  public DynamoDbTherapistStore(final DynamoDbClient dynamodb, final String tableName,
+                                final TherapistPartitioner therapistPartitioner) {
+    this.dynamodb = dynamodb;
+    this.tableName = tableName;
+    this.therapistPartitioner = therapistPartitioner;
+  }
+
+  @Override
+  public void create(final TherapistRecord record) {
+    // The partition key is derived from the id, so therapists spread over the shards.
+    record.setUserId(therapistPartitioner.partitionKey(record.getTherapistId()));
+    try {
+      dynamodb.putItem(
+      // Here, putItem is an API call to dynamoDb that lets you put an item in your dynamo database.
+      // Similarly, you can just use Ctrl+Space after the (.) to look at other API calls offered by the dynamoDb SDK.
+        PutItemRequest
+        // In the SDKs(service clients) offered by AWS, 95% of the time, SDK.(any method) is an individual API call
+        // and it will take only 1 object as input whose name will be <API Name>Request
+        // and will always return 1 object whose name will be <API Name>Response.
+            .builder()
+            // Builder method is used when the construction of an object
+            // (here, PutItemRequest) is very complex and it simplifies it by using chaining with the (.) operator
+            // and putting all the code in one line.
+            .tableName(tableName)
+            .item(record.toAttributeMap())
+            .conditionExpression(
+                  String.format("attribute_not_exists(%s) AND attribute_not_exists(%s)",
+                        TherapistRecord.USER_ID_ATTRIBUTE_NAME,
+                        TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME))
+            .build());
+            // And then we pass different parameters required in the builder() to construct PutItemRequest,
+            // now as we are done with that, we have all the parameters but as an object of the builder() function
+            // but we want it as the object of the PutItemRequest function. Hence, in the end, we use build() function
+            // which takes our parameters as builder object and converts it to PutItemRequest type.
+    } catch (ConditionalCheckFailedException e) {
+      throw new ConflictApiException(new ConflictException()
+            .errorCode("TherapistAlreadyExist")
+            .message(String.format("Therapist %s already exists.",
+            record.getTherapistId())));
+    }
+  }
+
+  @Override
+  public Optional<TherapistRecord> get(final String therapistId,
+                                       final ReadConsistency consistency,
+                                       final Long minVersion) {
+    TherapistRecord therapistRecord = readTherapist(therapistId, consistency.isConsistentRead());
+    // An eventually consistent read may not see the client's own write yet; only then is the
+    // therapist read again consistently.
+    if (!consistency.isConsistentRead()
+          && !ReadConsistency.isAtLeast(therapistRecord, minVersion)) {
+      log.info("Therapist {} is older than version {}, reading it consistently", therapistId,
+            minVersion);
+      therapistRecord = readTherapist(therapistId, true);
+    }
+    return Optional.ofNullable(therapistRecord);
+  }
+
+  @Override
+  public TherapistRecord update(final String therapistId, final Therapist therapist) {
+    // The update is conditioned on the therapist existing (and being at the expected
+    // version) and returns the updated item, so no read is needed before or after it.
+    return new TherapistRecord(writeThroughKeys(therapistId, therapist.getVersion(),
+          key -> dynamodb.updateItem(TherapistWriteRequests.update(tableName, key, therapist)))
+          .attributes());
+  }
+
+  @Override
+  public TherapistRecord delete(final String therapistId, final Long expectedVersion) {
+    // One conditional DeleteItem checks that the therapist exists (and is at the expected
+    // version) instead of loading it first, so a delete is a single round trip. ALL_OLD
+    // returns the deleted item.
+    return new TherapistRecord(writeThroughKeys(therapistId, expectedVersion, key ->
+          dynamodb.deleteItem(TherapistWriteRequests.delete(tableName, key, expectedVersion)))
+          .attributes());
+  }
+
+  /**
+   * Apply a conditional write to the keys the therapist may be stored under, until one
+   * succeeds. The write to a key fails when the therapist is not stored under it or is not
+   * at the expected version.
+   */
+  private <T> T writeThroughKeys(final String therapistId, final Long expectedVersion,
+                                 final Function<Map<String, AttributeValue>, T> write) {
+    for (Map<String, AttributeValue> key : therapistPartitioner.keys(therapistId)) {
+      try {
+        return write.apply(key);
+      } catch (ConditionalCheckFailedException e) {
+        // Only a failed expected version needs a read to tell a conflict from a missing key.
+        if (expectedVersion != null) {
+          Map<String, AttributeValue> currentItem =
+                dynamodb.getItem(TherapistWriteRequests.currentItem(tableName, key)).item();
+          if (!currentItem.isEmpty()) {
+            throw TherapistWriteRequests.conditionFailed(therapistId, expectedVersion,
+                  currentItem);
+          }
+        }
+      }
+    }
+    throw TherapistWriteRequests.conditionFailed(therapistId, expectedVersion, null);
+  }
+
+  private TherapistRecord readTherapist(final String therapistId, final boolean consistentRead) {
+    // The sharded key is read first; the legacy key only while the migration is pending.
+    for (Map<String, AttributeValue> key : therapistPartitioner.keys(therapistId)) {
+      Map<String, AttributeValue> therapistMap = dynamodb.getItem(GetItemRequest.builder()
+            .tableName(tableName)
+            .consistentRead(consistentRead)
+            .key(key)
+            .build()).item();
+      if (!therapistMap.isEmpty()) {
+        // TherapistRecord converts the DynamoDB item to the database model.
+        return new TherapistRecord(therapistMap);
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,335 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import io.swagger.model.ConflictException;
+import io.swagger.model.Therapist;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+
+import software.amazon.serverless.apprepo.api.exception.ConflictApiException;
+
+/**
+ * {@link TherapistStore} in the memory of the container, for tests and load benchmarks of the
+ * service without DynamoDB. Therapists are not shared with other containers and are lost when
+ * the container stops.
+ *
+ * <p>Therapist ids are UUIDs, so therapists are keyed by the two longs of their id in open
+ * addressing tables rather than by strings in a HashMap, which saves hashing the id string and
+ * an entry object per therapist. The tables are striped by the hash of the id, each guarded by
+ * its own lock, so operations on different stripes do not contend. The version check and the
+ * write happen under the lock of the therapist's stripe, which makes them atomic like the
+ * condition of a DynamoDB write. Ids that are not lowercase UUIDs are never created, so they
+ * are not found.
+ *
+ * <p>With the off-heap option each therapist is kept serialized in a direct buffer instead of
+ * as a {@link TherapistRecord}, so a large data set adds little to the heap the garbage
+ * collector scans, at the cost of decoding the therapist on every read.
+ */
+public class InMemoryTherapistStore implements TherapistStore {
+  private static final int STRIPE_BITS = 6;
+  private static final int STRIPE_COUNT = 1 << STRIPE_BITS;
+  private static final int INITIAL_STRIPE_CAPACITY = 64;
+  private static final int UUID_LENGTH = 36;
+  private static final byte CREATED_AT_PRESENT = 1;
+  private static final byte VERSION_PRESENT = 2;
+
+  private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+  private final boolean offHeap;
+
+  /**
+   * Construct an InMemoryTherapistStore.
+   *
+   * @param offHeap whether therapists are kept serialized in direct buffers.
+   */
+  public InMemoryTherapistStore(final boolean offHeap) {
+    this.offHeap = offHeap;
+    for (int i = 0; i < STRIPE_COUNT; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  @Override
+  public void create(final TherapistRecord record) {
+    String therapistId = record.getTherapistId();
+    if (!isUuid(therapistId)) {
+      throw new IllegalArgumentException(String.format("Therapist id %s is not a UUID.",
+            therapistId));
+    }
+    long msb = mostSignificantBits(therapistId);
+    long lsb = leastSignificantBits(therapistId);
+    Object payload = toPayload(record);
+    Stripe stripe = stripe(msb, lsb);
+    synchronized (stripe) {
+      if (stripe.find(msb, lsb) >= 0) {
+        throw new ConflictApiException(new ConflictException()
+              .errorCode("TherapistAlreadyExist")
+              .message(String.format("Therapist %s already exists.", therapistId)));
+      }
+      stripe.add(msb, lsb, payload);
+    }
+  }
+
+  @Override
+  public Optional<TherapistRecord> get(final String therapistId,
+                                       final ReadConsistency consistency,
+                                       final Long minVersion) {
+    // Every read sees the latest write, so the consistency and version token are always met.
+    if (!isUuid(therapistId)) {
+      return Optional.empty();
+    }
+    long msb = mostSignificantBits(therapistId);
+    long lsb = leastSignificantBits(therapistId);
+    Stripe stripe = stripe(msb, lsb);
+    Object payload;
+    synchronized (stripe) {
+      int slot = stripe.find(msb, lsb);
+      payload = slot < 0 ? null : stripe.values[slot];
+    }
+    // Payloads are replaced rather than changed, so they are decoded outside the lock.
+    return Optional.ofNullable(payload).map(this::toRecord);
+  }
+
+  @Override
+  public TherapistRecord update(final String therapistId, final Therapist therapist) {
+    TherapistWriteRequests.checkUpdate(therapist);
+    if (!isUuid(therapistId)) {
+      throw TherapistWriteRequests.conditionFailed(therapistId, therapist.getVersion(), null);
+    }
+    long msb = mostSignificantBits(therapistId);
+    long lsb = leastSignificantBits(therapistId);
+    Stripe stripe = stripe(msb, lsb);
+    synchronized (stripe) {
+      int slot = stripe.find(msb, lsb);
+      TherapistRecord current = slot < 0 ? null : toRecord(stripe.values[slot]);
+      TherapistWriteRequests.checkCondition(therapistId, therapist.getVersion(), current);
+      TherapistRecord updated = TherapistWriteRequests.apply(current, therapist);
+      stripe.values[slot] = toPayload(updated);
+      return updated;
+    }
+  }
+
+  @Override
+  public TherapistRecord delete(final String therapistId, final Long expectedVersion) {
+    if (!isUuid(therapistId)) {
+      throw TherapistWriteRequests.conditionFailed(therapistId, expectedVersion, null);
+    }
+    long msb = mostSignificantBits(therapistId);
+    long lsb = leastSignificantBits(therapistId);
+    Stripe stripe = stripe(msb, lsb);
+    synchronized (stripe) {
+      int slot = stripe.find(msb, lsb);
+      TherapistRecord current = slot < 0 ? null : toRecord(stripe.values[slot]);
+      TherapistWriteRequests.checkCondition(therapistId, expectedVersion, current);
+      stripe.remove(slot);
+      return current;
+    }
+  }
+
+  private Stripe stripe(final long msb, final long lsb) {
+    return stripes[hash(msb, lsb) & (STRIPE_COUNT - 1)];
+  }
+
+  private Object toPayload(final TherapistRecord record) {
+    return offHeap ? encode(record) : copy(record);
+  }
+
+  private TherapistRecord toRecord(final Object payload) {
+    return offHeap ? decode((ByteBuffer) payload) : copy((TherapistRecord) payload);
+  }
+
+  private static int hash(final long msb, final long lsb) {
+    long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  /**
+   * Whether an id is a UUID in the lowercase form {@link java.util.UUID#toString} returns,
+   * so that every id maps to one key and every key to one id.
+   */
+  private static boolean isUuid(final String id) {
+    if (id == null || id.length() != UUID_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < UUID_LENGTH; i++) {
+      char c = id.charAt(i);
+      boolean valid = i == 8 || i == 13 || i == 18 || i == 23
+            ? c == '-'
+            : (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+      if (!valid) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long mostSignificantBits(final String uuid) {
+    return hexBits(uuid, 0, 18);
+  }
+
+  private static long leastSignificantBits(final String uuid) {
+    return hexBits(uuid, 19, UUID_LENGTH);
+  }
+
+  private static long hexBits(final String uuid, final int from, final int to) {
+    long bits = 0;
+    for (int i = from; i < to; i++) {
+      char c = uuid.charAt(i);
+      if (c != '-') {
+        bits = bits << 4 | Character.digit(c, 16);
+      }
+    }
+    return bits;
+  }
+
+  private static TherapistRecord copy(final TherapistRecord record) {
+    // Records are mutable, so neither the caller's nor the stored one is shared.
+    return TherapistRecord.builder()
+          .userId(record.getUserId())
+          .therapistId(record.getTherapistId())
+          .createdAt(record.getCreatedAt())
+          .therapistName(record.getTherapistName())
+          .therapistArea(record.getTherapistArea())
+          .therapistType(record.getTherapistType())
+          .version(record.getVersion())
+          .therapistMob(record.getTherapistMob())
+          .build();
+  }
+
+  private static ByteBuffer encode(final TherapistRecord record) {
+    byte[][] strings = {utf8(record.getUserId()), utf8(record.getTherapistId()),
+          utf8(record.getTherapistName()), utf8(record.getTherapistArea()),
+          utf8(record.getTherapistType()), utf8(record.getTherapistMob())};
+    // Flags, createdAt seconds and nanos, version, then each string's length and bytes.
+    int size = Byte.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES;
+    for (byte[] string : strings) {
+      size += Integer.BYTES + (string == null ? 0 : string.length);
+    }
+    ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+    Instant createdAt = record.getCreatedAt();
+    Long version = record.getVersion();
+    buffer.put((byte) ((createdAt == null ? 0 : CREATED_AT_PRESENT)
+          | (version == null ? 0 : VERSION_PRESENT)));
+    buffer.putLong(createdAt == null ? 0 : createdAt.getEpochSecond());
+    buffer.putInt(createdAt == null ? 0 : createdAt.getNano());
+    buffer.putLong(version == null ? 0 : version);
+    for (byte[] string : strings) {
+      buffer.putInt(string == null ? -1 : string.length);
+      if (string != null) {
+        buffer.put(string);
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private static TherapistRecord decode(final ByteBuffer payload) {
+    // Readers of the same payload each use their own position.
+    ByteBuffer buffer = payload.duplicate();
+    byte flags = buffer.get();
+    long createdAtSeconds = buffer.getLong();
+    int createdAtNanos = buffer.getInt();
+    long version = buffer.getLong();
+    return TherapistRecord.builder()
+          .createdAt((flags & CREATED_AT_PRESENT) == 0
+                ? null : Instant.ofEpochSecond(createdAtSeconds, createdAtNanos))
+          .version((flags & VERSION_PRESENT) == 0 ? null : version)
+          .userId(readString(buffer))
+          .therapistId(readString(buffer))
+          .therapistName(readString(buffer))
+          .therapistArea(readString(buffer))
+          .therapistType(readString(buffer))
+          .therapistMob(readString(buffer))
+          .build();
+  }
+
+  private static byte[] utf8(final String string) {
+    return string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String readString(final ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Open addressing table of one stripe, with linear probing and at most half of the slots
+   * used. Only accessed under the stripe's lock.
+   */
+  private static final class Stripe {
+    // The key in slot i is at 2i and 2i + 1; a slot is free when its value is null.
+    private long[] keys = new long[2 * INITIAL_STRIPE_CAPACITY];
+    private Object[] values = new Object[INITIAL_STRIPE_CAPACITY];
+    private int size;
+
+    /**
+     * Find the slot of a key.
+     *
+     * @return the slot, or -1 - the free slot the key would be added at.
+     */
+    private int find(final long msb, final long lsb) {
+      int mask = values.length - 1;
+      for (int slot = home(msb, lsb, mask); ; slot = (slot + 1) & mask) {
+        if (values[slot] == null) {
+          return -1 - slot;
+        }
+        if (keys[2 * slot] == msb && keys[2 * slot + 1] == lsb) {
+          return slot;
+        }
+      }
+    }
+
+    private void add(final long msb, final long lsb, final Object value) {
+      if (2 * (size + 1) > values.length) {
+        grow();
+      }
+      int slot = -1 - find(msb, lsb);
+      keys[2 * slot] = msb;
+      keys[2 * slot + 1] = lsb;
+      values[slot] = value;
+      size++;
+    }
+
+    private void remove(final int slot) {
+      int mask = values.length - 1;
+      int free = slot;
+      // Keys after the removed one that probed past its slot are shifted back, so no lookup
+      // stops at the freed slot before reaching its key.
+      for (int next = (free + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+        int home = home(keys[2 * next], keys[2 * next + 1], mask);
+        if (((next - home) & mask) >= ((next - free) & mask)) {
+          keys[2 * free] = keys[2 * next];
+          keys[2 * free + 1] = keys[2 * next + 1];
+          values[free] = values[next];
+          free = next;
+        }
+      }
+      values[free] = null;
+      size--;
+    }
+
+    private void grow() {
+      long[] oldKeys = keys;
+      Object[] oldValues = values;
+      keys = new long[2 * oldKeys.length];
+      values = new Object[2 * oldValues.length];
+      size = 0;
+      for (int slot = 0; slot < oldValues.length; slot++) {
+        if (oldValues[slot] != null) {
+          add(oldKeys[2 * slot], oldKeys[2 * slot + 1], oldValues[slot]);
+        }
+      }
+    }
+
+    private static int home(final long msb, final long lsb, final int mask) {
+      // The low bits of the hash select the stripe, the next ones the slot.
+      return (hash(msb, lsb) >>> STRIPE_BITS) & mask;
+    }
+  }
+}
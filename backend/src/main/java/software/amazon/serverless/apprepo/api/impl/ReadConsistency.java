@@ -0,0 +1,61 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import io.swagger.model.BadRequestException;
+
+import java.util.Locale;
+
+import software.amazon.serverless.apprepo.api.exception.BadRequestApiException;
+
+/**
+ * Read consistency a client asks for with the consistency query parameter.
+ *
+ * <p>Reads are strongly consistent unless the client opts into eventually consistent reads,
+ * which cost half the read capacity and may be served from a container's cache of therapists.
+ * A strongly consistent read never is, so it includes every write made before it, in any
+ * container. The version a write returns is the client's version
+ * token: a read that presents it as minVersion is read again consistently when the eventually
+ * consistent item is older or missing, so the client always reads its own writes.
+ */
+public enum ReadConsistency {
+  STRONG,
+  EVENTUAL;
+
+  /**
+   * Parse the consistency query parameter.
+   *
+   * @param value "strong" or "eventual", in any case, or null for strong.
+   * @return the read consistency.
+   * @throws BadRequestApiException when the value is neither.
+   */
+  public static ReadConsistency fromParameter(final String value) {
+    if (value == null) {
+      return STRONG;
+    }
+    try {
+      return valueOf(value.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestApiException(new BadRequestException()
+            .errorCode("InvalidRequest")
+            .message(String.format("Consistency %s is invalid, use strong or eventual.",
+                  value)));
+    }
+  }
+
+  /**
+   * Whether a record satisfies the client's version token.
+   *
+   * @param record     the record read, or null when none was found.
+   * @param minVersion the lowest version the client may see, or null for any.
+   * @return true if the record is at least at minVersion.
+   */
+  static boolean isAtLeast(final TherapistRecord record, final Long minVersion) {
+    if (minVersion == null) {
+      return true;
+    }
+    return record != null && record.getVersion() != null && record.getVersion() >= minVersion;
+  }
+
+  public boolean isConsistentRead() {
+    return this == STRONG;
+  }
+}
@@ -0,0 +1,191 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import lombok.RequiredArgsConstructor;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+/**
+ * Lists the therapists of every partition of {@link TherapistPartitioner} as one list ordered
+ * by therapistId, shared by TherapistService and AsyncTherapistService.
+ *
+ * <p>Each partition is queried for a full page in parallel and the pages are merged until
+ * the page is full or the byte budget is spent; the items that are not returned are read
+ * again by the next page. The pagination token maps
+ * each partition to the therapistId of the last item returned from it, or to
+ * {@link #EXHAUSTED} once all its items were returned; a partition missing from the token is
+ * read from its beginning.
+ */
+final class TherapistListMerger {
+  private static final String EXHAUSTED = "";
+  private static final Comparator<Cursor> BY_THERAPIST_ID =
+        Comparator.comparing(Cursor::currentTherapistId);
+
+  private TherapistListMerger() {
+  }
+
+  /**
+   * Decode the position of every partition from a pagination token.
+   *
+   * @param token decoded pagination token, or null for the first page.
+   * @return positions keyed by partition key.
+   */
+  static Map<String, AttributeValue> positions(final Map<String, AttributeValue> token) {
+    if (token == null) {
+      return Collections.emptyMap();
+    }
+    // A token issued before sharding is the ExclusiveStartKey of the legacy partition.
+    AttributeValue userId = token.get(TherapistRecord.USER_ID_ATTRIBUTE_NAME);
+    AttributeValue therapistId = token.get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME);
+    if (userId != null && therapistId != null) {
+      return Collections.singletonMap(userId.s(), therapistId);
+    }
+    return token;
+  }
+
+  /**
+   * Build the query of every partition that is not exhausted.
+   *
+   * @param tableName      Therapist table name.
+   * @param partitions     partition keys to list.
+   * @param positions      position of each partition.
+   * @param limit          page size.
+   * @param consistentRead whether the partitions are read strongly consistent.
+   * @return queries keyed by partition key.
+   */
+  static Map<String, QueryRequest> queries(final String tableName, final List<String> partitions,
+                                           final Map<String, AttributeValue> positions,
+                                           final int limit, final boolean consistentRead) {
+    Map<String, QueryRequest> queries = new LinkedHashMap<>();
+    for (String partition : partitions) {
+      AttributeValue position = positions.get(partition);
+      if (position != null && EXHAUSTED.equals(position.s())) {
+        continue;
+      }
+      QueryRequest.Builder builder = QueryRequest.builder()
+            .consistentRead(consistentRead)
+            .tableName(tableName)
+            .keyConditionExpression(String.format("%s = :u",
+                  TherapistRecord.USER_ID_ATTRIBUTE_NAME))
+            .expressionAttributeValues(Collections.singletonMap(":u",
+                  AttributeValue.builder().s(partition).build()))
+            .limit(limit);
+      if (position != null) {
+        builder.exclusiveStartKey(TherapistRecord.toKeyRecord(partition, position.s()));
+      }
+      queries.put(partition, builder.build());
+    }
+    return queries;
+  }
+
+  /**
+   * Merge the pages of the partitions into one page.
+   *
+   * @param partitions partition keys to list.
+   * @param positions  position of each partition the pages were read from.
+   * @param responses  page of each queried partition.
+   * @param limit      page size.
+   * @param byteBudget maximum size of the merged therapists in bytes.
+   * @return the merged page and the next positions.
+   */
+  static TherapistPage merge(final List<String> partitions,
+                             final Map<String, AttributeValue> positions,
+                             final Map<String, QueryResponse> responses, final int limit,
+                             final long byteBudget) {
+    Map<String, AttributeValue> nextPositions = new HashMap<>(positions);
+    PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, responses.size()),
+          BY_THERAPIST_ID);
+    responses.forEach((partition, response) -> {
+      Cursor cursor = new Cursor(partition, response.items(),
+            response.lastEvaluatedKey().isEmpty());
+      if (cursor.hasNext()) {
+        cursors.add(cursor);
+      } else if (cursor.exhausted) {
+        nextPositions.put(partition, toPosition(EXHAUSTED));
+      }
+    });
+
+    List<TherapistRecord> records = new ArrayList<>(limit);
+    long bytes = 0;
+    while (records.size() < limit && !cursors.isEmpty()) {
+      Cursor cursor = cursors.peek();
+      long size = TherapistQueryExecutor.itemSize(cursor.current());
+      if (!records.isEmpty() && bytes + size > byteBudget) {
+        break;
+      }
+      cursors.poll();
+      Map<String, AttributeValue> item = cursor.next();
+      bytes += size;
+      records.add(new TherapistRecord(item));
+      nextPositions.put(cursor.partition, toPosition(therapistId(item)));
+      if (cursor.hasNext()) {
+        cursors.add(cursor);
+      } else if (cursor.exhausted) {
+        nextPositions.put(cursor.partition, toPosition(EXHAUSTED));
+      } else {
+        // The partition's next item is unknown, so nothing after this one can be ordered.
+        break;
+      }
+    }
+
+    Map<String, AttributeValue> token = new HashMap<>();
+    boolean hasMore = false;
+    for (String partition : partitions) {
+      AttributeValue position = nextPositions.get(partition);
+      // A partition nothing was returned from yet stays out of the token, so the next page
+      // reads it from its beginning.
+      if (position == null) {
+        hasMore = true;
+        continue;
+      }
+      token.put(partition, position);
+      hasMore |= !EXHAUSTED.equals(position.s());
+    }
+    return new TherapistPage(records, hasMore ? token : null);
+  }
+
+  private static String therapistId(final Map<String, AttributeValue> item) {
+    return item.get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME).s();
+  }
+
+  private static AttributeValue toPosition(final String therapistId) {
+    return AttributeValue.builder().s(therapistId).build();
+  }
+
+  /**
+   * Position in the page of one partition.
+   */
+  @RequiredArgsConstructor
+  private static final class Cursor {
+    private final String partition;
+    private final List<Map<String, AttributeValue>> items;
+    private final boolean exhausted;
+    private int index;
+
+    boolean hasNext() {
+      return index < items.size();
+    }
+
+    Map<String, AttributeValue> next() {
+      return items.get(index++);
+    }
+
+    Map<String, AttributeValue> current() {
+      return items.get(index);
+    }
+
+    String currentTherapistId() {
+      return therapistId(current());
+    }
+  }
+}
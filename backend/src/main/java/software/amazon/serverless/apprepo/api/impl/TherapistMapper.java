@@ -0,0 +1,73 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import io.swagger.model.Therapist;
+import io.swagger.model.TherapistSummary;
+
+import java.time.Instant;
+
+/**
+ * Maps {@link TherapistRecord} to and from the API models.
+ *
+ * <p>The mappings are written out field by field instead of resolved reflectively,
+ * so they cost no start up time and allocate nothing but the target object.
+ * The record's createdAt is exposed as the model's creationTime in ISO-8601 format.
+ */
+public final class TherapistMapper {
+  private TherapistMapper() {
+  }
+
+  /**
+   * Map a record to a {@link Therapist}.
+   *
+   * @param record the record.
+   * @return the therapist.
+   */
+  public static Therapist toTherapist(final TherapistRecord record) {
+    return new Therapist()
+          .therapistId(record.getTherapistId())
+          .therapistName(record.getTherapistName())
+          .creationTime(toCreationTime(record.getCreatedAt()))
+          .therapistMob(record.getTherapistMob())
+          .therapistArea(record.getTherapistArea())
+          .therapistType(record.getTherapistType())
+          .version(record.getVersion());
+  }
+
+  /**
+   * Map a record to a {@link TherapistSummary}.
+   *
+   * @param record the record.
+   * @return the therapist summary.
+   */
+  public static TherapistSummary toTherapistSummary(final TherapistRecord record) {
+    return new TherapistSummary()
+          .therapistId(record.getTherapistId())
+          .therapistName(record.getTherapistName())
+          .therapistMob(record.getTherapistMob())
+          .therapistArea(record.getTherapistArea())
+          .therapistType(record.getTherapistType())
+          .creationTime(toCreationTime(record.getCreatedAt()))
+          .version(record.getVersion());
+  }
+
+  /**
+   * Map a {@link Therapist} to a record. The creation time and version are not taken from
+   * the input.
+   *
+   * @param therapist the therapist.
+   * @return the record.
+   */
+  public static TherapistRecord toTherapistRecord(final Therapist therapist) {
+    return TherapistRecord.builder()
+          .therapistId(therapist.getTherapistId())
+          .therapistName(therapist.getTherapistName())
+          .therapistMob(therapist.getTherapistMob())
+          .therapistArea(therapist.getTherapistArea())
+          .therapistType(therapist.getTherapistType())
+          .build();
+  }
+
+  private static String toCreationTime(final Instant createdAt) {
+    return createdAt == null ? null : createdAt.toString();
+  }
+}
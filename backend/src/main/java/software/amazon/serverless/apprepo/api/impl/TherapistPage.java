@@ -0,0 +1,18 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * One page of a therapist list or search and the position the next page starts at.
+ */
+@RequiredArgsConstructor
+final class TherapistPage {
+  final List<TherapistRecord> records;
+  // Position to serialize into the pagination token, or null on the last page.
+  final Map<String, AttributeValue> nextPosition;
+}
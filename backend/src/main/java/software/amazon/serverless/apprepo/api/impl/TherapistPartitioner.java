@@ -0,0 +1,147 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+
+/**
+ * Spreads therapists over several partition keys so the table is not limited to the
+ * throughput of a single DynamoDB partition.
+ *
+ * <p>A therapist is stored under the partition key {@code Raj#<shard>}, where the shard is
+ * the murmur3 hash of its therapistId modulo the shard count, so its key is computed from the
+ * id alone and point reads stay a single GetItem. With one shard every therapist is stored
+ * under the legacy partition key {@code Raj}.
+ *
+ * <p>While therapists written before sharding are migrated (see
+ * {@code TherapistShardMigrationCli}), the legacy key fallback makes point reads and writes
+ * that miss the sharded key try the legacy key, and lists include the legacy partition. It
+ * should be disabled once the migration completed, after which a missing therapist costs one
+ * read again.
+ */
+public class TherapistPartitioner {
+  public static final String LEGACY_USER_ID = "Raj";
+  // Every partition has a position in the list pagination token, which holds at most 255.
+  static final int MAX_SHARD_COUNT = 64;
+  private static final HashFunction SHARD_HASH = Hashing.murmur3_32();
+
+  private final int shardCount;
+  private final boolean legacyKeyFallback;
+  private final List<String> partitions;
+
+  /**
+   * Construct TherapistPartitioner.
+   *
+   * @param configProvider ConfigProvider to provide configuration values.
+   */
+  @Inject
+  public TherapistPartitioner(final ConfigProvider configProvider) {
+    this(configProvider.getTherapistShardCount(),
+          configProvider.isTherapistLegacyKeyFallbackEnabled());
+  }
+
+  /**
+   * Construct TherapistPartitioner.
+   *
+   * @param shardCount        number of partition keys therapists are spread over.
+   * @param legacyKeyFallback whether therapists may still be stored under the legacy key.
+   */
+  public TherapistPartitioner(final int shardCount, final boolean legacyKeyFallback) {
+    if (shardCount < 1 || shardCount > MAX_SHARD_COUNT) {
+      throw new IllegalArgumentException(String.format(
+            "Shard count must be between 1 and %d.", MAX_SHARD_COUNT));
+    }
+    this.shardCount = shardCount;
+    this.legacyKeyFallback = legacyKeyFallback && shardCount > 1;
+    ImmutableList.Builder<String> builder = ImmutableList.builder();
+    if (shardCount == 1) {
+      builder.add(LEGACY_USER_ID);
+    } else {
+      for (int shard = 0; shard < shardCount; shard++) {
+        builder.add(toPartitionKey(shard));
+      }
+      if (this.legacyKeyFallback) {
+        builder.add(LEGACY_USER_ID);
+      }
+    }
+    this.partitions = builder.build();
+  }
+
+  /**
+   * Get the partition key a therapist is written under.
+   *
+   * @param therapistId therapist id.
+   * @return the userId of the therapist's record.
+   */
+  public String partitionKey(final String therapistId) {
+    if (shardCount == 1) {
+      return LEGACY_USER_ID;
+    }
+    int hash = SHARD_HASH.hashString(therapistId, StandardCharsets.UTF_8).asInt();
+    return toPartitionKey(Math.floorMod(hash, shardCount));
+  }
+
+  /**
+   * Build the key a therapist is written under.
+   *
+   * @param therapistId therapist id.
+   * @return a map of DynamoDB {@link AttributeValue} with the key attributes.
+   */
+  public Map<String, AttributeValue> key(final String therapistId) {
+    return TherapistRecord.toKeyRecord(partitionKey(therapistId), therapistId);
+  }
+
+  /**
+   * Build the keys a therapist may be stored under, in the order they should be tried.
+   *
+   * @param therapistId therapist id.
+   * @return the sharded key, followed by the legacy key while the fallback is enabled.
+   */
+  public List<Map<String, AttributeValue>> keys(final String therapistId) {
+    if (!legacyKeyFallback) {
+      return ImmutableList.of(key(therapistId));
+    }
+    return ImmutableList.of(key(therapistId),
+          TherapistRecord.toKeyRecord(LEGACY_USER_ID, therapistId));
+  }
+
+  /**
+   * Get how many keys {@link #keys(String)} returns for each therapist.
+   *
+   * @return 2 while the legacy key fallback is enabled, otherwise 1.
+   */
+  public int keysPerTherapist() {
+    return legacyKeyFallback ? 2 : 1;
+  }
+
+  /**
+   * Get every partition key therapists are stored under, for listing.
+   *
+   * @return the partition keys.
+   */
+  public List<String> partitions() {
+    return partitions;
+  }
+
+  public int getShardCount() {
+    return shardCount;
+  }
+
+  public boolean isLegacyKeyFallbackEnabled() {
+    return legacyKeyFallback;
+  }
+
+  private static String toPartitionKey(final int shard) {
+    return LEGACY_USER_ID + "#" + shard;
+  }
+}
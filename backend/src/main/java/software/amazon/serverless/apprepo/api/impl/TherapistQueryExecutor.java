@@ -0,0 +1,327 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.swagger.model.BadRequestException;
+import io.swagger.model.TherapistList;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import software.amazon.serverless.apprepo.api.exception.BadRequestApiException;
+import software.amazon.serverless.apprepo.api.impl.pagination.InvalidTokenException;
+import software.amazon.serverless.apprepo.api.impl.pagination.TokenSerializer;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+import software.amazon.serverless.apprepo.metrics.Phase;
+import software.amazon.serverless.apprepo.metrics.RequestMetrics;
+
+/**
+ * Runs the paginated therapist list and search queries of TherapistService and
+ * AsyncTherapistService.
+ *
+ * <p>A page holds exactly the requested number of therapists, unless the query has no more
+ * or the therapists would exceed the response byte budget; it is assembled from as many
+ * DynamoDB pages as needed, and the next page starts right after its last therapist.
+ *
+ * <p>While the response of an eventually consistent page is serialized, the next page is
+ * loaded in the background and kept for a short ttl under the returned token, so a client
+ * paging through the results gets the next page without waiting for DynamoDB. Writes in this
+ * container drop the prefetched pages; writes in other containers may be missed for at most
+ * the ttl. Strongly consistent pages are never prefetched, as they must see every write
+ * that completed before they are requested.
+ */
+@Slf4j
+public class TherapistQueryExecutor {
+  private static final int MAX_PREFETCHED_PAGES = 64;
+  private static final int PREFETCH_THREADS = 2;
+
+  private final DynamoDbClient dynamodb;
+  private final TokenSerializer<Map<String, AttributeValue>> paginationTokenSerializer;
+  private final ExecutorService executor;
+  private final ExecutorService prefetchExecutor;
+  private final long responseByteBudget;
+  private final Cache<String, CompletableFuture<TherapistPage>> prefetchedPages;
+
+  /**
+   * Construct TherapistQueryExecutor.
+   *
+   * @param dynamodb                  DynamoDbClient of the Therapist table.
+   * @param paginationTokenSerializer serializer of the pagination tokens.
+   * @param configProvider            ConfigProvider to provide configuration values.
+   * @param executor                  executor the queries of a page run on in parallel.
+   */
+  @Inject
+  public TherapistQueryExecutor(
+        final DynamoDbClient dynamodb,
+        final TokenSerializer<Map<String, AttributeValue>> paginationTokenSerializer,
+        final ConfigProvider configProvider, final ExecutorService executor) {
+    this(dynamodb, paginationTokenSerializer, executor,
+          configProvider.getQueryResponseByteBudget(), configProvider.getQueryPrefetchTtl());
+  }
+
+  TherapistQueryExecutor(final DynamoDbClient dynamodb,
+                         final TokenSerializer<Map<String, AttributeValue>> serializer,
+                         final ExecutorService executor, final long responseByteBudget,
+                         final Duration prefetchTtl) {
+    this.dynamodb = dynamodb;
+    this.paginationTokenSerializer = serializer;
+    this.executor = executor;
+    this.responseByteBudget = responseByteBudget;
+    if (prefetchTtl.isZero()) {
+      this.prefetchExecutor = null;
+      this.prefetchedPages = null;
+    } else {
+      // Prefetches that do not fit the queue are skipped rather than delaying requests.
+      this.prefetchExecutor = new ThreadPoolExecutor(PREFETCH_THREADS, PREFETCH_THREADS,
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_PREFETCHED_PAGES),
+            new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("therapist-prefetch-%d")
+                  .build());
+      this.prefetchedPages = CacheBuilder.newBuilder()
+            .maximumSize(MAX_PREFETCHED_PAGES)
+            .expireAfterWrite(prefetchTtl.toMillis(), TimeUnit.MILLISECONDS)
+            .build();
+    }
+  }
+
+  /**
+   * Loads a page of therapists.
+   */
+  @FunctionalInterface
+  interface PageLoader {
+    /**
+     * Load the page starting at a position.
+     *
+     * @param position   position decoded from the pagination token, or null for the first
+     *                   page.
+     * @param maxItems   maximum number of therapists.
+     * @param byteBudget maximum size of the therapists in bytes.
+     * @return the page.
+     */
+    TherapistPage load(Map<String, AttributeValue> position, int maxItems, long byteBudget);
+  }
+
+  /**
+   * Get a page of a list or search and prefetch the next one.
+   *
+   * @param queryId     identifies the query and its parameters, so a prefetched page is only
+   *                    served for the same query.
+   * @param consistency read consistency of the pages; only eventually consistent pages are
+   *                    prefetched.
+   * @param nextToken   pagination token, or null for the first page.
+   * @param maxItems    maximum number of therapists.
+   * @param loader      loads the pages of the query.
+   * @return the page of therapist summaries.
+   * @throws BadRequestApiException when the pagination token is invalid.
+   */
+  TherapistList execute(final String queryId, final ReadConsistency consistency,
+                        final String nextToken, final int maxItems, final PageLoader loader) {
+    Map<String, AttributeValue> position = null;
+    if (nextToken != null) {
+      long decodeStart = System.nanoTime();
+      try {
+        position = paginationTokenSerializer.deserialize(nextToken);
+      } catch (InvalidTokenException e) {
+        throw new BadRequestApiException(new BadRequestException()
+              .errorCode("InvalidRequest")
+              .message(String.format("NextToken %s is invalid.", nextToken)));
+      } finally {
+        RequestMetrics.recordSince(Phase.TOKEN_DECODE, decodeStart);
+      }
+    }
+
+    boolean prefetched = !consistency.isConsistentRead();
+    TherapistPage page = nextToken == null || !prefetched ? null
+          : takePrefetched(prefetchKey(queryId, consistency, maxItems, nextToken));
+    if (page == null) {
+      page = loader.load(position, maxItems, responseByteBudget);
+    }
+
+    long mappingStart = System.nanoTime();
+    TherapistList result = new TherapistList()
+          .therapist(page.records.stream()
+                .map(TherapistMapper::toTherapistSummary)
+                .collect(Collectors.toList()));
+    RequestMetrics.recordSince(Phase.MAPPING, mappingStart);
+    if (page.nextPosition != null) {
+      long encodeStart = System.nanoTime();
+      String token = paginationTokenSerializer.serialize(page.nextPosition);
+      RequestMetrics.recordSince(Phase.TOKEN_ENCODE, encodeStart);
+      result.nextToken(token);
+      if (prefetched) {
+        prefetch(prefetchKey(queryId, consistency, maxItems, token), page.nextPosition,
+              maxItems, loader);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Fill a page from a query, reading as many DynamoDB pages as needed.
+   *
+   * @param request            the query, without limit and start key.
+   * @param keyAttributeNames  attributes of the key the query pages by.
+   * @param position           key to start after, or null to start at the beginning.
+   * @param maxItems           maximum number of therapists.
+   * @param byteBudget         maximum size of the therapists in bytes.
+   * @return the page.
+   */
+  TherapistPage queryPage(final QueryRequest request, final List<String> keyAttributeNames,
+                          final Map<String, AttributeValue> position, final int maxItems,
+                          final long byteBudget) {
+    List<TherapistRecord> records = new ArrayList<>(maxItems);
+    long bytes = 0;
+    Map<String, AttributeValue> startKey = position;
+    while (true) {
+      // Never ask for more than the page still needs, so its end is DynamoDB's last key.
+      QueryResponse response = dynamodb.query(request.toBuilder()
+            .exclusiveStartKey(startKey)
+            .limit(maxItems - records.size())
+            .build());
+      Map<String, AttributeValue> lastItem = null;
+      for (Map<String, AttributeValue> item : response.items()) {
+        long size = itemSize(item);
+        if (!records.isEmpty() && bytes + size > byteBudget) {
+          return new TherapistPage(records, toKey(lastItem == null
+                ? startKey : lastItem, keyAttributeNames));
+        }
+        bytes += size;
+        records.add(new TherapistRecord(item));
+        lastItem = item;
+      }
+      if (response.lastEvaluatedKey().isEmpty()) {
+        return new TherapistPage(records, null);
+      }
+      if (records.size() == maxItems) {
+        return new TherapistPage(records, response.lastEvaluatedKey());
+      }
+      startKey = response.lastEvaluatedKey();
+    }
+  }
+
+  /**
+   * Run queries in parallel.
+   *
+   * @param queries queries by name.
+   * @return responses by name.
+   */
+  Map<String, QueryResponse> queryAll(final Map<String, QueryRequest> queries) {
+    Map<String, QueryResponse> responses = new HashMap<>();
+    if (queries.size() == 1) {
+      queries.forEach((name, query) -> responses.put(name, dynamodb.query(query)));
+      return responses;
+    }
+    Map<String, CompletableFuture<QueryResponse>> futures = new HashMap<>();
+    queries.forEach((name, query) -> futures.put(name,
+          CompletableFuture.supplyAsync(() -> dynamodb.query(query), executor)));
+    try {
+      futures.forEach((name, future) -> responses.put(name, future.join()));
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+    return responses;
+  }
+
+  /**
+   * Drop the prefetched pages after a write, so the next pages read it.
+   */
+  void invalidatePrefetched() {
+    if (prefetchedPages != null) {
+      prefetchedPages.invalidateAll();
+    }
+  }
+
+  /**
+   * Approximate the size of an item as DynamoDB counts it: the lengths of the attribute
+   * names and values. The JSON of the therapist is about the same size.
+   */
+  static long itemSize(final Map<String, AttributeValue> item) {
+    long size = 0;
+    for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+      AttributeValue value = attribute.getValue();
+      size += attribute.getKey().length();
+      if (value.s() != null) {
+        size += value.s().length();
+      } else if (value.n() != null) {
+        size += value.n().length();
+      } else if (value.b() != null) {
+        size += value.b().asByteBuffer().remaining();
+      } else {
+        size += 1;
+      }
+    }
+    return size;
+  }
+
+  private void prefetch(final String key, final Map<String, AttributeValue> position,
+                        final int maxItems, final PageLoader loader) {
+    if (prefetchedPages == null) {
+      return;
+    }
+    try {
+      prefetchedPages.put(key, CompletableFuture.supplyAsync(
+            () -> loader.load(position, maxItems, responseByteBudget), prefetchExecutor));
+    } catch (RejectedExecutionException e) {
+      log.debug("Prefetch queue is full, the next page is not prefetched");
+    }
+  }
+
+  private TherapistPage takePrefetched(final String key) {
+    if (prefetchedPages == null) {
+      return null;
+    }
+    CompletableFuture<TherapistPage> future = prefetchedPages.asMap().remove(key);
+    if (future == null) {
+      return null;
+    }
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      log.warn("Prefetching a page failed, loading it again", e.getCause());
+      return null;
+    }
+  }
+
+  private static String prefetchKey(final String queryId, final ReadConsistency consistency,
+                                    final int maxItems, final String token) {
+    return queryId + '\n' + consistency + '\n' + maxItems + '\n' + token;
+  }
+
+  private static Map<String, AttributeValue> toKey(final Map<String, AttributeValue> item,
+                                                   final List<String> keyAttributeNames) {
+    Map<String, AttributeValue> key = new HashMap<>();
+    for (String name : keyAttributeNames) {
+      AttributeValue value = item.get(name);
+      if (value != null) {
+        key.put(name, value);
+      }
+    }
+    return key;
+  }
+}
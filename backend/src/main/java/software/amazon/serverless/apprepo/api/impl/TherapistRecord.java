@@ -1,7 +1,10 @@
 package software.amazon.serverless.apprepo.api.impl;
 
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import lombok.AllArgsConstructor;
@@ -26,6 +29,15 @@ public class TherapistRecord {
   public static final String THERAPIST_TYPE_ATTRIBUTE_NAME = "therapistType";
   public static final String VERSION_ATTRIBUTE_NAME = "version";
   public static final String THERAPIST_MOBILE_ATTRIBUTE_NAME = "therapistMob";
+  public static final String AREA_TYPE_INDEX_NAME = "areaTypeIndex";
+  // Partition keys with this prefix hold the table's own items, e.g. the facet counts, which
+  // are not therapists. Therapists are stored under "Raj" and its shards.
+  public static final String RESERVED_USER_ID_PREFIX = "#";
+  // A page of the index ends at a key of both the table and the index attributes.
+  public static final List<String> AREA_TYPE_INDEX_KEY_ATTRIBUTE_NAMES =
+        Collections.unmodifiableList(Arrays.asList(USER_ID_ATTRIBUTE_NAME,
+              THERAPIST_ID_ATTRIBUTE_NAME, THERAPIST_AREA_ATTRIBUTE_NAME,
+              THERAPIST_TYPE_ATTRIBUTE_NAME));
 
   private String userId;
   private String therapistId;
@@ -108,4 +120,30 @@ public class TherapistRecord {
     }
     return therapistMap;
   }
+
+  /**
+   * Check whether a partition key holds the table's own items rather than therapists.
+   *
+   * @param userId partition key, or null.
+   * @return true if items under the key are not therapists.
+   */
+  public static boolean isReservedUserId(final String userId) {
+    return userId != null && userId.startsWith(RESERVED_USER_ID_PREFIX);
+  }
+
+  /**
+   * Build the key of a therapist in Therapist DynamoDB table.
+   *
+   * @param userId      partition key the therapist is stored under.
+   * @param therapistId therapist id.
+   * @return a map of DynamoDB {@link AttributeValue} with the key attributes.
+   */
+  public static Map<String, AttributeValue> toKeyRecord(final String userId,
+                                                        final String therapistId) {
+    return TherapistRecord.builder()
+          .userId(userId)
+          .therapistId(therapistId)
+          .build()
+          .toAttributeMap();
+  }
 }
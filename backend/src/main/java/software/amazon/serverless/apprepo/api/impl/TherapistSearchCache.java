@@ -0,0 +1,171 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+
+/**
+ * In-container cache of search pages, keyed by therapistArea, therapistType, the position the
+ * page starts at and its size.
+ *
+ * <p>The cache is bounded by the approximate size of the cached therapists in bytes and evicts
+ * the least recently used pages first; pages also expire after a short TTL. Concurrent
+ * searches for the same page wait for one load instead of each querying the index.
+ *
+ * <p>A write in this container evicts only the pages it can change: the pages of its area
+ * whose type is the therapist's type or not given, and every page that holds the therapist,
+ * so a therapist that moved to another area or type is dropped from its old pages. A load
+ * that overlaps a write is not cached. Writes in other containers are missed for at most the
+ * TTL.
+ */
+public class TherapistSearchCache {
+  // Rough per-object overheads of the JVM, so small pages are not weighed as free.
+  private static final int PAGE_OVERHEAD_BYTES = 128;
+  private static final int RECORD_OVERHEAD_BYTES = 160;
+
+  private final Cache<SearchKey, TherapistPage> cache;
+  // Incremented by every write, so a load can tell it may have missed one.
+  private final AtomicLong writeCount = new AtomicLong();
+
+  /**
+   * Construct TherapistSearchCache.
+   *
+   * @param configProvider ConfigProvider to provide configuration values.
+   */
+  @Inject
+  public TherapistSearchCache(final ConfigProvider configProvider) {
+    this(configProvider.getSearchCacheMaxBytes(), configProvider.getSearchCacheTtl());
+  }
+
+  /**
+   * Construct TherapistSearchCache.
+   *
+   * @param maximumBytes maximum approximate size of the cached pages in bytes.
+   * @param ttl          how long a page stays cached after it is loaded, zero to disable the
+   *                     cache.
+   */
+  public TherapistSearchCache(final long maximumBytes, final Duration ttl) {
+    Weigher<SearchKey, TherapistPage> weigher = TherapistSearchCache::weigh;
+    this.cache = ttl.isZero() ? null : CacheBuilder.newBuilder()
+          .maximumWeight(maximumBytes)
+          .weigher(weigher)
+          .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS)
+          .build();
+  }
+
+  /**
+   * Get a search page, loading it on a miss.
+   *
+   * @param therapistArea area searched.
+   * @param therapistType type searched, or null for any.
+   * @param position      position the page starts at, or null for the first page.
+   * @param maxItems      maximum number of therapists.
+   * @param loader        queries the page on a miss.
+   * @return the page.
+   */
+  TherapistPage get(final String therapistArea, final String therapistType,
+                    final Map<String, AttributeValue> position, final int maxItems,
+                    final Supplier<TherapistPage> loader) {
+    if (cache == null) {
+      return loader.get();
+    }
+    SearchKey key = new SearchKey(therapistArea, therapistType, position, maxItems);
+    long writesBeforeLoad = writeCount.get();
+    TherapistPage page;
+    try {
+      page = cache.get(key, loader::get);
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+    if (writeCount.get() != writesBeforeLoad) {
+      // The page may have been read before the write; serve it once but do not keep it.
+      cache.asMap().remove(key, page);
+    }
+    return page;
+  }
+
+  /**
+   * Evict the pages a write of a therapist can change.
+   *
+   * @param therapistRecord the therapist as written, or as it was before a delete.
+   */
+  void invalidate(final TherapistRecord therapistRecord) {
+    if (cache == null) {
+      return;
+    }
+    writeCount.incrementAndGet();
+    String therapistId = therapistRecord.getTherapistId();
+    cache.asMap().entrySet().removeIf(entry -> entry.getKey().matches(therapistRecord)
+          || entry.getValue().records.stream()
+                .anyMatch(cached -> Objects.equals(cached.getTherapistId(), therapistId)));
+  }
+
+  /**
+   * Evict every page.
+   */
+  void invalidateAll() {
+    if (cache == null) {
+      return;
+    }
+    writeCount.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  private static int weigh(final SearchKey key, final TherapistPage page) {
+    long bytes = PAGE_OVERHEAD_BYTES;
+    for (TherapistRecord record : page.records) {
+      bytes += RECORD_OVERHEAD_BYTES + 2L * (length(record.getUserId())
+            + length(record.getTherapistId()) + length(record.getTherapistName())
+            + length(record.getTherapistArea()) + length(record.getTherapistType())
+            + length(record.getTherapistMob()));
+    }
+    return (int) Math.min(Integer.MAX_VALUE, bytes);
+  }
+
+  private static int length(final String value) {
+    return value == null ? 0 : value.length();
+  }
+
+  /**
+   * Identifies a search page.
+   */
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static final class SearchKey {
+    private final String therapistArea;
+    private final String therapistType;
+    private final Map<String, AttributeValue> position;
+    private final int maxItems;
+
+    private boolean matches(final TherapistRecord therapistRecord) {
+      return Objects.equals(therapistArea, therapistRecord.getTherapistArea())
+            && (therapistType == null
+                  || therapistType.equals(therapistRecord.getTherapistType()));
+    }
+  }
+}
@@ -3,10 +3,14 @@ package software.amazon.serverless.apprepo.api.impl;
 import com.sun.tools.javac.resources.CompilerProperties;
 import io.swagger.api.TherapistApi;
 import io.swagger.model.Therapist;
+import io.swagger.model.TherapistBatchCreateRequest;
+import io.swagger.model.TherapistBatchCreateResult;
+import io.swagger.model.TherapistBatchGetResult;
+import io.swagger.model.TherapistChanges;
+import io.swagger.model.TherapistFacets;
 import io.swagger.model.TherapistList;
 import io.swagger.model.TherapistSummary;
 import io.swagger.model.BadRequestException;
-import io.swagger.model.ConflictException;
 import io.swagger.model.InternalServerErrorException;
 import io.swagger.model.NotFoundException;
 import io.swagger.model.TooManyRequestsException;
@@ -26,43 +30,39 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
-import org.modelmapper.ModelMapper;
-import org.modelmapper.PropertyMap;
-
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
-import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
-import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
-import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
-import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 
 import software.amazon.serverless.apprepo.api.exception.BadRequestApiException;
-import software.amazon.serverless.apprepo.api.exception.ConflictApiException;
 import software.amazon.serverless.apprepo.api.exception.NotFoundApiException;
 import software.amazon.serverless.apprepo.api.exception.InternalServerApiException;
-import software.amazon.serverless.apprepo.api.impl.pagination.InvalidTokenException;
+import software.amazon.serverless.apprepo.api.impl.batch.TherapistBatchOperations;
+import software.amazon.serverless.apprepo.api.impl.changes.ChangeLog;
+import software.amazon.serverless.apprepo.api.impl.facet.TherapistFacetItem;
 import software.amazon.serverless.apprepo.api.impl.pagination.TokenSerializer;
+import software.amazon.serverless.apprepo.api.impl.search.NameIndex;
 import software.amazon.serverless.apprepo.container.config.ConfigProvider;
 
 /**
  * TherapistService implements {@link TherapistApi}.
  *
- * <p>It interacts with DynamoDB when processing each API.
+ * <p>It interacts with DynamoDB when processing each API. Therapists are created, read,
+ * updated and deleted one at a time through the {@link TherapistStore}.
  */
 @Slf4j
 @RequiredArgsConstructor
 public class TherapistService implements TherapistApi {
   static final Integer DEFAULT_LIST_THERAPIST_LIMIT = 10;
+  private static final String LIST_QUERY_ID = "list";
+  private static final String SEARCH_QUERY_ID = "search";
   private final TokenSerializer<Map<String, AttributeValue>> paginationTokenSerializer;
   private final DynamoDbClient dynamodb;
   // DynamoDBClient creates a client for the dynanmoDB service provided by AWS which already has all the required format on
   // how does dynamoDB service take input from this code.
   // Hence, dynamoDBClient helps us interact with dynamoDB in an interface that is easily understandable by us as a client.
   // Similarly, every service provider for the ease of integrating with the service provides a similar client.
-  private final ModelMapper modelMapper;
   // We know that an API is just a handshake contract that has 3 well-defined things i.e., input, processing, and output.
   // Now the inputs and outputs in these APIs are data containers whose definition has to be represented in some class
   // and a collection of such classes is called a model.
@@ -75,9 +75,9 @@ public class TherapistService implements TherapistApi {
   // Now, these 3 components have different properties and are not directly compatible with each other,
   // but to keep a workflow in which a client request goes to API and then the API request goes to the controller,
   // we need a way to make the 3 different models from these 3 different components compatible with each other.
-  // Hence we use the ModelMapper.
-  // ModelMapper is a library that allows the user to translate different models with one line of code
-  // if the user follows a certain format while creating these model classes.
+  // Hence we use the TherapistMapper.
+  // TherapistMapper translates between these models field by field, without the reflection
+  // a mapping library would need on every call and at start up.
   // A newer version of MVC states that we should create another model for databases also.
   //
   // In this code, we haven't created a client side model and we have only used model(API), controller(server-side processor) and database
@@ -85,6 +85,12 @@ public class TherapistService implements TherapistApi {
   // and a model used for database is specified in "TherapistRecord"
   private final String tableName;
   private final Clock clock;
+  private final TherapistStore therapistStore;
+  private final TherapistBatchOperations therapistBatchOperations;
+  private final TherapistPartitioner therapistPartitioner;
+  private final TherapistQueryExecutor therapistQueryExecutor;
+  private final TherapistSearchCache therapistSearchCache;
+  private final NameIndex nameIndex;
   @Context
   @Setter
   private SecurityContext securityContext;
@@ -92,9 +98,16 @@ public class TherapistService implements TherapistApi {
   @Inject
   public TherapistService(
         final TokenSerializer<Map<String, AttributeValue>> paginationTokenSerializer,
-        final DynamoDbClient dynamodb, final ConfigProvider configProvider) {
-    this(paginationTokenSerializer, dynamodb, configureModelMapper(),
-          configProvider.getTherapistTableName(), Clock.systemUTC());
+        final DynamoDbClient dynamodb, final ConfigProvider configProvider,
+        final TherapistStore therapistStore,
+        final TherapistBatchOperations therapistBatchOperations,
+        final TherapistPartitioner therapistPartitioner,
+        final TherapistQueryExecutor therapistQueryExecutor,
+        final TherapistSearchCache therapistSearchCache, final NameIndex nameIndex) {
+    this(paginationTokenSerializer, dynamodb,
+          configProvider.getTherapistTableName(), Clock.systemUTC(), therapistStore,
+          therapistBatchOperations, therapistPartitioner, therapistQueryExecutor,
+          therapistSearchCache, nameIndex);
           // Configurations are variables that a system needs to decide its behavior
           // and these variables can be modified over time to change the system behavior the way we want
           // For eg., configprovider for the purpose of hitting a zerodha api can have things like endpoint url, timeout while hitting api, refresh rate etc.
@@ -109,36 +122,21 @@ public class TherapistService implements TherapistApi {
   public TherapistService(
         final TokenSerializer<Map<String, AttributeValue>> paginationTokenSerializer,
         final DynamoDbClient dynamodb, final ConfigProvider configProvider,
+        final TherapistStore therapistStore,
+        final TherapistBatchOperations therapistBatchOperations,
+        final TherapistPartitioner therapistPartitioner,
+        final TherapistQueryExecutor therapistQueryExecutor,
+        final TherapistSearchCache therapistSearchCache, final NameIndex nameIndex,
         final Clock clock) {
-    this(paginationTokenSerializer, dynamodb, configureModelMapper(),
-          configProvider.getTherapistTableName(), clock);
-  }
-
-  private static ModelMapper configureModelMapper() {
-    ModelMapper modelMapper = new ModelMapper();
-    PropertyMap<TherapistRecord, Therapist> therapistMap =
-        new PropertyMap<TherapistRecord, Therapist>() {
-          protected void configure() {
-            map(source.getCreatedAt()).setCreationTime(null);
-          }
-        };
-
-    PropertyMap<TherapistRecord, TherapistSummary> therapistSummaryMap =
-        new PropertyMap<TherapistRecord, TherapistSummary>() {
-          protected void configure() {
-            map(source.getCreatedAt()).setCreationTime(null);
-          }
-        };
-
-    modelMapper.addMappings(therapistMap);
-    modelMapper.addMappings(therapistSummaryMap);
-    return modelMapper;
+    this(paginationTokenSerializer, dynamodb,
+          configProvider.getTherapistTableName(), clock, therapistStore,
+          therapistBatchOperations, therapistPartitioner, therapistQueryExecutor,
+          therapistSearchCache, nameIndex);
   }
 
   public Therapist addTherapist(final Therapist therapist) {
     log.info("Creating therapist with input {}", therapist);
-    TherapistRecord therapistRecord = modelMapper.map(therapist,
-          TherapistRecord.class);
+    TherapistRecord therapistRecord = TherapistMapper.toTherapistRecord(therapist);
     // Now as we saw earlier, we use therapist type model for API and controller and TherapistRecord for databases
     // and in the above code, we are translating our therapist model of type API to TherapistRecord model for our database.
 
@@ -147,281 +145,227 @@ public class TherapistService implements TherapistApi {
     therapistRecord.setTherapistId(id);
     therapistRecord.setCreatedAt(Instant.now(clock));
     therapistRecord.setVersion(1L);
-    therapistRecord.setUserId("Raj");
+    // The store fails the create when the id is taken.
+    therapistStore.create(therapistRecord);
+    therapistQueryExecutor.invalidatePrefetched();
+    therapistSearchCache.invalidate(therapistRecord);
 
-    try {
-      dynamodb.putItem(
-      // Here, putItem is an API call to dynamoDb that lets you put an item in your dynamo database.
-      // Similarly, you can just use Ctrl+Space after the (.) to look at other API calls offered by the dynamoDb SDK.
-        PutItemRequest
-        // In the SDKs(service clients) offered by AWS, 95% of the time, SDK.(any method) is an individual API call
-        // and it will take only 1 object as input whose name will be <API Name>Request
-        // and will always return 1 object whose name will be <API Name>Response.
-            .builder()
-            // Builder method is used when the construction of an object
-            // (here, PutItemRequest) is very complex and it simplifies it by using chaining with the (.) operator
-            // and putting all the code in one line.
-            .tableName(tableName)
-            .item(therapistRecord.toAttributeMap())
-            .conditionExpression(
-                  String.format("attribute_not_exists(%s) AND attribute_not_exists(%s)",
-                        TherapistRecord.USER_ID_ATTRIBUTE_NAME,
-                        TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME))
-            .build());
-            // And then we pass different parameters required in the builder() to construct PutItemRequest,
-            // now as we are done with that, we have all the parameters but as an object of the builder() function
-            // but we want it as the object of the PutItemRequest function. Hence, in the end, we use build() function
-            // which takes our parameters as builder object and converts it to PutItemRequest type.
-    } catch (ConditionalCheckFailedException e) {
-      throw new ConflictApiException(new ConflictException()
-            .errorCode("TherapistAlreadyExist")
-            .message(String.format("Therapist %s already exists.",
-            therapist.getTherapistId())));
-    }
-    
-    return modelMapper.map(therapistRecord, Therapist.class);
+    return TherapistMapper.toTherapist(therapistRecord);
     // Now we have to return a therapist type model for the API response and we used database model of type TherapistRecord,
     // so we again change it back to therapist type from TherapistRecord for API as we are returning a Therapist type object in this method.
   }
 
-  public void deleteTherapist(final String therapistId) {
-    log.info("Deleting therapist {}", therapistId);
-    TherapistRecord therapistRecord = loadTherapist(therapistId);
-    // Even thought in the dynamodb.deleteItem, we just need the tablename and a key to delete a therapist entry
-    // we still loadTherapist because we have to check if the therapist exists or not and loadTherapist function will throw and error if it does not.
-    Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
-    expressionAttributeValues.put(":v", AttributeValue.builder()
-          .n(therapistRecord.getVersion().toString())
-          .build());
-    // This takes out the version of the therapistId loaded in the TherapistRecord format.
-    dynamodb.deleteItem(DeleteItemRequest.builder()
-          .tableName(tableName)
-          .key(toKeyRecord(therapistId))
-          .conditionExpression(String.format("%s = :v", TherapistRecord.VERSION_ATTRIBUTE_NAME))
-          .expressionAttributeValues(expressionAttributeValues)
-            // Now after taking out the version of the therapist to be deleted, this compares it to version of the current TherapistRecord
-          .build());
+  public TherapistBatchCreateResult addTherapistBatch(final TherapistBatchCreateRequest request) {
+    // Each chunk of 25 therapists is one BatchWriteItem call instead of 25 PutItem calls.
+    TherapistBatchCreateResult result = therapistBatchOperations.addTherapistBatch(request);
+    therapistQueryExecutor.invalidatePrefetched();
+    result.getResults().stream()
+          .filter(item -> item.getTherapist() != null)
+          .forEach(item -> therapistSearchCache.invalidate(
+                TherapistMapper.toTherapistRecord(item.getTherapist())));
+    return result;
   }
 
-  // The same methods are used in the following code and the explanation remains the same.
-
-  public Therapist getTherapist(String therapistId) {
-    log.info("Getting therapist {}", therapistId);
-    TherapistRecord therapistRecord = loadTherapist(therapistId);
-    return modelMapper.map(therapistRecord, Therapist.class);
+  public void deleteTherapist(final String therapistId, final Long expectedVersion) {
+    log.info("Deleting therapist {} at version {}", therapistId, expectedVersion);
+    TherapistRecord therapistRecord = therapistStore.delete(therapistId, expectedVersion);
+    therapistQueryExecutor.invalidatePrefetched();
+    // The store returns the deleted therapist, so only the search pages of its area are
+    // evicted.
+    therapistSearchCache.invalidate(therapistRecord);
   }
 
-  public TherapistList getTherapistList(final String nextToken, final Integer maxItems) {
-    log.info("Listing therapists with nextToken {} and maxItems {}", nextToken, maxItems);
-    Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
-    expressionAttributeValues.put(":u", AttributeValue.builder()
-          .s("Raj")
-          .build());
-
-    QueryRequest.Builder requestBuilder = QueryRequest.builder()
-          .consistentRead(true)
-          .tableName(tableName)
-          .keyConditionExpression(String.format("%s = :u",
-                TherapistRecord.USER_ID_ATTRIBUTE_NAME))
-          .expressionAttributeValues(expressionAttributeValues)
-          .limit(maxItems == null ? DEFAULT_LIST_THERAPIST_LIMIT : maxItems);
-    if (nextToken != null) {
-      try {
-        requestBuilder.exclusiveStartKey(paginationTokenSerializer.deserialize(nextToken));
-      } catch (InvalidTokenException e) {
-        throw new BadRequestApiException(new BadRequestException()
-              .errorCode("InvalidRequest")
-              .message(String.format("NextToken %s is invalid.", nextToken)));
-      }
-    }
-    QueryResponse queryResponse = dynamodb.query(requestBuilder.build());
+  // The same methods are used in the following code and the explanation remains the same.
 
-    List<TherapistSummary> therapistSummaries = queryResponse.items()
-          .stream()
-          .map(TherapistRecord::new)
-          .map(record -> modelMapper.map(record, TherapistSummary.class))
-          .collect(Collectors.toList());
+  public TherapistBatchGetResult getTherapistBatch(final List<String> ids) {
+    // Up to 100 therapists are read with one BatchGetItem call instead of one GetItem each.
+    return therapistBatchOperations.getTherapistBatch(ids);
+  }
 
-    TherapistList result = new TherapistList()
-          .therapist(therapistSummaries);
-    Map<String, AttributeValue> lastEvaluatedKey = queryResponse.lastEvaluatedKey();
-    if (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty()) {
-      result.nextToken(paginationTokenSerializer.serialize(lastEvaluatedKey));
+  public TherapistChanges getTherapistChanges(final String since, final Integer maxItems) {
+    log.info("Listing therapist changes since {} with maxItems {}", since, maxItems);
+    // Without a watermark the client starts at the head of the change log, and lists all
+    // therapists once to catch up to it.
+    if (since == null) {
+      return ChangeLog.fromHead(dynamodb.getItem(ChangeLog.head(tableName)).item(), clock);
     }
-    return result;
+    return ChangeLog.toTherapistChanges(since, dynamodb.query(ChangeLog.query(tableName, since,
+          limit(maxItems), clock)), clock);
   }
 
-  public TherapistList getTherapistByNTA(final String therapistArea, final String nextToken, final String therapistType) {
-      log.info("Listing therapists with therapistArea {} , nextToken {} and therapistType {}", therapistArea, nextToken, therapistType);
-
-      if (therapistType == null)
-      {
-        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
-        expressionAttributeValues.put(":therapistAreaValue", AttributeValue.builder()
-                .s(therapistArea)
-                .build());
-
-        QueryRequest.Builder requestBuilder = QueryRequest.builder()
-                .tableName(tableName)
-                .indexName("areaTypeIndex")
-                .keyConditionExpression("therapistArea = :therapistAreaValue")
-                .expressionAttributeValues(expressionAttributeValues);
-
-        if (nextToken != null) {
-          try {
-            requestBuilder.exclusiveStartKey(paginationTokenSerializer.deserialize(nextToken));
-          } catch (InvalidTokenException e) {
-            throw new BadRequestApiException(new BadRequestException()
-                  .errorCode("InvalidRequest")
-                  .message(String.format("NextToken %s is invalid.", nextToken)));
-          }
-        }
-
-        QueryResponse queryResponse = dynamodb.query(requestBuilder.build());
-
-        List<TherapistSummary> therapistSummaries = queryResponse.items()
-                .stream()
-                .map(TherapistRecord::new)
-                .map(record -> modelMapper.map(record, TherapistSummary.class))
-                .collect(Collectors.toList());
-
-        TherapistList result = new TherapistList()
-                .therapist(therapistSummaries);
-        Map<String, AttributeValue> lastEvaluatedKey = queryResponse.lastEvaluatedKey();
-        if (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty()) {
-          result.nextToken(paginationTokenSerializer.serialize(lastEvaluatedKey));
-        }
-        return result;
-      }
-      else
-      {
-        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
-        expressionAttributeValues.put(":therapistAreaValue", AttributeValue.builder()
-                .s(therapistArea)
-                .build());
-        expressionAttributeValues.put(":therapistTypeValue", AttributeValue.builder()
-                .s(therapistType)
-                .build());
-
-        QueryRequest.Builder requestBuilder = QueryRequest.builder()
-                .tableName(tableName)
-                .indexName("areaTypeIndex")
-                .keyConditionExpression("therapistArea = :therapistAreaValue AND therapistType = :therapistTypeValue")
-                .expressionAttributeValues(expressionAttributeValues);
-
-        if (nextToken != null) {
-          try {
-            requestBuilder.exclusiveStartKey(paginationTokenSerializer.deserialize(nextToken));
-          } catch (InvalidTokenException e) {
-            throw new BadRequestApiException(new BadRequestException()
-                  .errorCode("InvalidRequest")
-                  .message(String.format("NextToken %s is invalid.", nextToken)));
-          }
-        }
+  public TherapistFacets getTherapistFacets(final String therapistArea) {
+    log.info("Getting therapist facets with therapistArea {}", therapistArea);
+    // The counts are kept up to date in a single item by the facet stream Lambda, so this is
+    // one GetItem however many therapists there are.
+    return TherapistFacetItem.toTherapistFacets(dynamodb.getItem(GetItemRequest.builder()
+          .tableName(tableName)
+          .key(TherapistFacetItem.key())
+          .build())
+          .item(), therapistArea);
+  }
 
-        QueryResponse queryResponse = dynamodb.query(requestBuilder.build());
+  public Therapist getTherapist(final String therapistId, final String consistency,
+                                final Long minVersion) {
+    log.info("Getting therapist {} with consistency {} and minVersion {}", therapistId,
+          consistency, minVersion);
+    ReadConsistency readConsistency = ReadConsistency.fromParameter(consistency);
+    TherapistRecord therapistRecord = therapistStore.get(therapistId, readConsistency,
+          minVersion)
+          .orElseThrow(() -> new NotFoundApiException(new NotFoundException()
+                .errorCode("TherapistNotFound")
+                .message(String.format("Therapist %s can not be found.", therapistId))));
+    return TherapistMapper.toTherapist(therapistRecord);
+  }
 
-        List<TherapistSummary> therapistSummaries = queryResponse.items()
-                .stream()
-                .map(TherapistRecord::new)
-                .map(record -> modelMapper.map(record, TherapistSummary.class))
-                .collect(Collectors.toList());
+  public TherapistList getTherapistList(final String nextToken, final Integer maxItems,
+                                        final String consistency) {
+    log.info("Listing therapists with nextToken {}, maxItems {} and consistency {}", nextToken,
+          maxItems, consistency);
+    return list(therapistQueryExecutor, therapistPartitioner, tableName,
+          ReadConsistency.fromParameter(consistency), nextToken, maxItems);
+  }
 
-        TherapistList result = new TherapistList()
-                .therapist(therapistSummaries);
-        Map<String, AttributeValue> lastEvaluatedKey = queryResponse.lastEvaluatedKey();
-        if (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty()) {
-          result.nextToken(paginationTokenSerializer.serialize(lastEvaluatedKey));
-        }
-        return result;
-      }
+  public TherapistList getTherapistByNTA(final String therapistArea, final String nextToken,
+                                         final String therapistType, final Integer maxItems,
+                                         final String name) {
+    log.info("Listing therapists with therapistArea {}, nextToken {}, therapistType {}, "
+          + "maxItems {} and name {}", therapistArea, nextToken, therapistType, maxItems, name);
+    if (name != null) {
+      return searchByName(nameIndex, name, therapistArea, therapistType, nextToken, maxItems);
     }
+    return searchByArea(therapistQueryExecutor, therapistSearchCache, tableName, therapistArea,
+          therapistType, nextToken, maxItems);
+  }
 
   public Therapist updateTherapist(final Therapist therapist,
                                        final String therapistId) {
     log.info("Updating therapist {} with input {}", therapistId, therapist);
-    if (therapist.getTherapistName() == null
-          && therapist.getTherapistMob() == null
-          && therapist.getTherapistType() == null
-          && therapist.getTherapistArea() == null) {
+    TherapistRecord therapistRecord = therapistStore.update(therapistId, therapist);
+    therapistQueryExecutor.invalidatePrefetched();
+    therapistSearchCache.invalidate(therapistRecord);
+    return TherapistMapper.toTherapist(therapistRecord);
+  }
+
+  /**
+   * List a page of therapists of every shard, merged by therapistId. Every shard is queried
+   * in parallel.
+   *
+   * @param therapistQueryExecutor executor of the paginated queries.
+   * @param therapistPartitioner   partitioner of the therapist keys.
+   * @param tableName              Therapist table name.
+   * @param readConsistency        read consistency of the queries.
+   * @param nextToken              pagination token, or null for the first page.
+   * @param maxItems               maximum number of therapists, or null for the default.
+   * @return the page of therapists.
+   * @throws BadRequestApiException when the pagination token is invalid.
+   */
+  static TherapistList list(final TherapistQueryExecutor therapistQueryExecutor,
+                            final TherapistPartitioner therapistPartitioner,
+                            final String tableName, final ReadConsistency readConsistency,
+                            final String nextToken, final Integer maxItems) {
+    List<String> partitions = therapistPartitioner.partitions();
+    return therapistQueryExecutor.execute(LIST_QUERY_ID, readConsistency, nextToken,
+          limit(maxItems),
+          (position, limit, byteBudget) -> {
+            Map<String, AttributeValue> positions = TherapistListMerger.positions(position);
+            return TherapistListMerger.merge(partitions, positions,
+                  therapistQueryExecutor.queryAll(TherapistListMerger.queries(tableName,
+                        partitions, positions, limit, readConsistency.isConsistentRead())),
+                  limit, byteBudget);
+          });
+  }
+
+  /**
+   * Search a page of therapists by area and optionally type on the area and type index.
+   *
+   * @param therapistQueryExecutor executor of the paginated queries.
+   * @param therapistSearchCache   cache of the search pages.
+   * @param tableName              Therapist table name.
+   * @param therapistArea          area to search.
+   * @param therapistType          only return therapists of this type, or null.
+   * @param nextToken              pagination token, or null for the first page.
+   * @param maxItems               maximum number of therapists, or null for the default.
+   * @return the page of therapists.
+   * @throws BadRequestApiException when the area is missing or the pagination token is invalid.
+   */
+  static TherapistList searchByArea(final TherapistQueryExecutor therapistQueryExecutor,
+                                    final TherapistSearchCache therapistSearchCache,
+                                    final String tableName, final String therapistArea,
+                                    final String therapistType, final String nextToken,
+                                    final Integer maxItems) {
+    if (therapistArea == null) {
       throw new BadRequestApiException(new BadRequestException()
             .errorCode("InvalidRequest")
-            .message("No update is present."));
+            .message("Either therapistArea or name is required."));
     }
-
-    TherapistRecord therapistRecord = loadTherapist(therapistId);
     Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
-    String therapistName = therapist.getTherapistName();
-    String therapistMob = therapist.getTherapistMob();
-    String therapistType = therapist.getTherapistType();
-    String therapistArea = therapist.getTherapistArea();
-    List<String> updateExpressionList = new ArrayList<>();
-    if (therapistName != null) {
-      therapistRecord.setTherapistName(therapistName);
-      expressionAttributeValues.put(":a", AttributeValue.builder().s(therapistName).build());
-      updateExpressionList.add(String.format("%s = :a",
-            TherapistRecord.THERAPIST_NAME_ATTRIBUTE_NAME));
-    }
-    if (therapistMob != null) {
-      therapistRecord.setTherapistMob(therapistMob);
-      expressionAttributeValues.put(":d", AttributeValue.builder().s(therapistMob).build());
-      updateExpressionList.add(String.format("%s = :d",
-              TherapistRecord.THERAPIST_MOBILE_ATTRIBUTE_NAME));
-    }
+    expressionAttributeValues.put(":therapistAreaValue", AttributeValue.builder()
+          .s(therapistArea)
+          .build());
+    String keyConditionExpression = String.format("%s = :therapistAreaValue",
+          TherapistRecord.THERAPIST_AREA_ATTRIBUTE_NAME);
     if (therapistType != null) {
-      therapistRecord.setTherapistType(therapistType);
-      expressionAttributeValues.put(":h", AttributeValue.builder().s(therapistType).build());
-      updateExpressionList.add(String.format("%s = :h",
-            TherapistRecord.THERAPIST_TYPE_ATTRIBUTE_NAME));
-    }
-    if (therapistArea != null) {
-      therapistRecord.setTherapistArea(therapistArea);
-      expressionAttributeValues.put(":l", AttributeValue.builder().s(therapistArea).build());
-      updateExpressionList.add(String.format("%s = :l",
-            TherapistRecord.THERAPIST_AREA_ATTRIBUTE_NAME));
+      expressionAttributeValues.put(":therapistTypeValue", AttributeValue.builder()
+            .s(therapistType)
+            .build());
+      keyConditionExpression += String.format(" AND %s = :therapistTypeValue",
+            TherapistRecord.THERAPIST_TYPE_ATTRIBUTE_NAME);
     }
-
-    long newVersion = therapistRecord.getVersion() + 1;
-    expressionAttributeValues.put(":nv", AttributeValue.builder()
-          .n(Long.toString(newVersion))
-          .build());
-    updateExpressionList.add(String.format("%s = :nv",
-          TherapistRecord.VERSION_ATTRIBUTE_NAME));
-    String updateExpression = String.format("SET %s", String.join(",", updateExpressionList));
-    expressionAttributeValues.put(":v", AttributeValue.builder()
-          .n(therapistRecord.getVersion().toString())
-          .build());
-    dynamodb.updateItem(UpdateItemRequest.builder()
+    QueryRequest request = QueryRequest.builder()
           .tableName(tableName)
-          .key(toKeyRecord(therapistId))
-          .updateExpression(updateExpression)
+          .indexName(TherapistRecord.AREA_TYPE_INDEX_NAME)
+          .keyConditionExpression(keyConditionExpression)
           .expressionAttributeValues(expressionAttributeValues)
-          .conditionExpression(String.format("%s = :v", TherapistRecord.VERSION_ATTRIBUTE_NAME))
-          .build());
-    return modelMapper.map(therapistRecord, Therapist.class);
+          .build();
+
+    // The page is filled to maxItems over as many DynamoDB pages as it takes, instead of
+    // returning whatever one 1 MB DynamoDB page holds.
+    String queryId = String.join("\n", SEARCH_QUERY_ID, therapistArea,
+          String.valueOf(therapistType));
+    // Pages are served from the container's search cache; a miss queries the index once,
+    // however many requests are waiting for the page. Index reads are eventually consistent.
+    return therapistQueryExecutor.execute(queryId, ReadConsistency.EVENTUAL, nextToken,
+          limit(maxItems),
+          (position, limit, byteBudget) -> therapistSearchCache.get(therapistArea,
+                therapistType, position, limit, () -> therapistQueryExecutor.queryPage(request,
+                      TherapistRecord.AREA_TYPE_INDEX_KEY_ATTRIBUTE_NAMES, position, limit,
+                      byteBudget)));
   }
 
-  private TherapistRecord loadTherapist(final String therapistId) {
-    Map<String, AttributeValue> therapistMap = dynamodb.getItem(GetItemRequest.builder()
-          .tableName(tableName)
-          .consistentRead(Boolean.TRUE)
-          .key(toKeyRecord(therapistId))
-          .build()).item();
-    if (therapistMap.isEmpty()) {
-      throw new NotFoundApiException(new NotFoundException()
-            .errorCode("TherapistNotFound")
-            .message(String.format("Therapist %s can not be found.", therapistId)));
+  /**
+   * Search therapists by name in the container's {@link NameIndex}. The results are ranked,
+   * so they are returned as a single page of the best maxItems matches, without a nextToken.
+   *
+   * @param nameIndex     the name index.
+   * @param name          the name query.
+   * @param therapistArea only return therapists in this area, or null.
+   * @param therapistType only return therapists of this type, or null.
+   * @param nextToken     must be null, name search has no further pages.
+   * @param maxItems      maximum number of therapists, or null for the default.
+   * @return the best matching therapists.
+   * @throws BadRequestApiException when name search is not available or the request is invalid.
+   */
+  static TherapistList searchByName(final NameIndex nameIndex, final String name,
+                                    final String therapistArea, final String therapistType,
+                                    final String nextToken, final Integer maxItems) {
+    if (nextToken != null) {
+      throw new BadRequestApiException(new BadRequestException()
+            .errorCode("InvalidRequest")
+            .message("nextToken can not be used with name."));
     }
-    return new TherapistRecord(therapistMap);
-    // TherapistRecord is a function thats a constructor to the TherapistRecord.class
-    // which takes the dynamoDb response of the type therapistMap and converts it to TherapistRecord
+    if (!nameIndex.isLoaded()) {
+      throw new BadRequestApiException(new BadRequestException()
+            .errorCode("NameSearchUnavailable")
+            .message("Search by name is not available."));
+    }
+    return new TherapistList()
+          .therapist(nameIndex.search(name, therapistArea, therapistType, limit(maxItems))
+                .stream()
+                .map(TherapistMapper::toTherapistSummary)
+                .collect(Collectors.toList()));
   }
 
-  private Map<String, AttributeValue> toKeyRecord(final String therapistId) {
-    return TherapistRecord.builder()
-          .userId("Raj")
-          .therapistId(therapistId)
-          .build()
-          .toAttributeMap();
+  private static int limit(final Integer maxItems) {
+    return maxItems == null ? DEFAULT_LIST_THERAPIST_LIMIT : maxItems;
   }
 }
@@ -0,0 +1,57 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import io.swagger.model.Therapist;
+
+import java.util.Optional;
+
+import software.amazon.serverless.apprepo.api.exception.BadRequestApiException;
+import software.amazon.serverless.apprepo.api.exception.ConflictApiException;
+import software.amazon.serverless.apprepo.api.exception.NotFoundApiException;
+
+/**
+ * Stores the therapists TherapistService creates, reads, updates and deletes one at a time.
+ *
+ * <p>Every implementation checks versions the same way: a write is conditioned on the
+ * therapist existing and, when an expected version is given, on it being at that version; a
+ * therapist that does not exist fails with {@link NotFoundApiException} and one at another
+ * version with {@link ConflictApiException}, and an update increments the version.
+ */
+public interface TherapistStore {
+  /**
+   * Create a therapist.
+   *
+   * @param record the therapist, with its id, createdAt and version set.
+   * @throws ConflictApiException when a therapist with the id already exists.
+   */
+  void create(TherapistRecord record);
+
+  /**
+   * Get a therapist.
+   *
+   * @param therapistId therapist id.
+   * @param consistency read consistency the client asked for.
+   * @param minVersion  the lowest version the client may see, or null for any.
+   * @return the therapist, or empty when it does not exist.
+   */
+  Optional<TherapistRecord> get(String therapistId, ReadConsistency consistency,
+                                Long minVersion);
+
+  /**
+   * Update the given fields of a therapist and increment its version.
+   *
+   * @param therapistId therapist id.
+   * @param therapist   fields to update and the optional expected version.
+   * @return the updated therapist.
+   * @throws BadRequestApiException when no field is updated.
+   */
+  TherapistRecord update(String therapistId, Therapist therapist);
+
+  /**
+   * Delete a therapist.
+   *
+   * @param therapistId     therapist id.
+   * @param expectedVersion version the therapist must be at, or null to delete any version.
+   * @return the deleted therapist.
+   */
+  TherapistRecord delete(String therapistId, Long expectedVersion);
+}
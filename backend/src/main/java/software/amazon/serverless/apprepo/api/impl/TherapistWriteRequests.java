@@ -0,0 +1,230 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import io.swagger.model.BadRequestException;
+import io.swagger.model.ConflictException;
+import io.swagger.model.NotFoundException;
+import io.swagger.model.Therapist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import software.amazon.serverless.apprepo.api.exception.ApiException;
+import software.amazon.serverless.apprepo.api.exception.BadRequestApiException;
+import software.amazon.serverless.apprepo.api.exception.ConflictApiException;
+import software.amazon.serverless.apprepo.api.exception.NotFoundApiException;
+
+/**
+ * Builds the single conditional requests that update and delete a therapist, shared by
+ * DynamoDbTherapistStore and AsyncTherapistService. The other {@link TherapistStore}s check
+ * and apply the writes with the same semantics.
+ *
+ * <p>The requests are conditioned on the item existing and, when the client sends one, on
+ * its expected version, so no read is needed before the write. Only when the condition
+ * fails is the item read, to tell a missing therapist from a version conflict.
+ */
+final class TherapistWriteRequests {
+  private static final String EXISTS_CONDITION = String.format("attribute_exists(%s)",
+        TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME);
+  private static final String EXPECTED_VERSION_CONDITION = String.format("%s = :ev",
+        TherapistRecord.VERSION_ATTRIBUTE_NAME);
+
+  private TherapistWriteRequests() {
+  }
+
+  /**
+   * Build an UpdateItem request that sets the given fields, increments the version and
+   * returns the updated item.
+   *
+   * @param tableName Therapist table name.
+   * @param key       key of the therapist.
+   * @param therapist fields to update and the optional expected version.
+   * @return the request.
+   * @throws BadRequestApiException when no field is updated.
+   */
+  static UpdateItemRequest update(final String tableName, final Map<String, AttributeValue> key,
+                                  final Therapist therapist) {
+    checkUpdate(therapist);
+    Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+    List<String> updateExpressionList = new ArrayList<>();
+    if (therapist.getTherapistName() != null) {
+      expressionAttributeValues.put(":a", AttributeValue.builder()
+            .s(therapist.getTherapistName())
+            .build());
+      updateExpressionList.add(String.format("%s = :a",
+            TherapistRecord.THERAPIST_NAME_ATTRIBUTE_NAME));
+    }
+    if (therapist.getTherapistMob() != null) {
+      expressionAttributeValues.put(":d", AttributeValue.builder()
+            .s(therapist.getTherapistMob())
+            .build());
+      updateExpressionList.add(String.format("%s = :d",
+            TherapistRecord.THERAPIST_MOBILE_ATTRIBUTE_NAME));
+    }
+    if (therapist.getTherapistType() != null) {
+      expressionAttributeValues.put(":h", AttributeValue.builder()
+            .s(therapist.getTherapistType())
+            .build());
+      updateExpressionList.add(String.format("%s = :h",
+            TherapistRecord.THERAPIST_TYPE_ATTRIBUTE_NAME));
+    }
+    if (therapist.getTherapistArea() != null) {
+      expressionAttributeValues.put(":l", AttributeValue.builder()
+            .s(therapist.getTherapistArea())
+            .build());
+      updateExpressionList.add(String.format("%s = :l",
+            TherapistRecord.THERAPIST_AREA_ATTRIBUTE_NAME));
+    }
+
+    expressionAttributeValues.put(":one", AttributeValue.builder().n("1").build());
+    updateExpressionList.add(String.format("%1$s = %1$s + :one",
+          TherapistRecord.VERSION_ATTRIBUTE_NAME));
+    return UpdateItemRequest.builder()
+          .tableName(tableName)
+          .key(key)
+          .updateExpression(String.format("SET %s", String.join(",", updateExpressionList)))
+          .conditionExpression(condition(therapist.getVersion(), expressionAttributeValues))
+          .expressionAttributeValues(expressionAttributeValues)
+          .returnValues(ReturnValue.ALL_NEW)
+          .build();
+  }
+
+  /**
+   * Check that an update sets at least one field, like {@link #update} does.
+   *
+   * @param therapist fields to update.
+   * @throws BadRequestApiException when no field is updated.
+   */
+  static void checkUpdate(final Therapist therapist) {
+    if (therapist.getTherapistName() == null && therapist.getTherapistMob() == null
+          && therapist.getTherapistType() == null && therapist.getTherapistArea() == null) {
+      throw new BadRequestApiException(new BadRequestException()
+            .errorCode("InvalidRequest")
+            .message("No update is present."));
+    }
+  }
+
+  /**
+   * Apply an update to a therapist like the UpdateItem request of {@link #update} does, for
+   * stores other than DynamoDB.
+   *
+   * @param current   the therapist before the update.
+   * @param therapist fields to update, checked with {@link #checkUpdate}.
+   * @return a new record with the given fields set and the version incremented.
+   */
+  static TherapistRecord apply(final TherapistRecord current, final Therapist therapist) {
+    TherapistRecord updated = new TherapistRecord(current.toAttributeMap());
+    if (therapist.getTherapistName() != null) {
+      updated.setTherapistName(therapist.getTherapistName());
+    }
+    if (therapist.getTherapistMob() != null) {
+      updated.setTherapistMob(therapist.getTherapistMob());
+    }
+    if (therapist.getTherapistType() != null) {
+      updated.setTherapistType(therapist.getTherapistType());
+    }
+    if (therapist.getTherapistArea() != null) {
+      updated.setTherapistArea(therapist.getTherapistArea());
+    }
+    updated.setVersion(current.getVersion() + 1);
+    return updated;
+  }
+
+  /**
+   * Check the condition of a write like the condition expression of the requests does, for
+   * stores other than DynamoDB.
+   *
+   * @param therapistId     therapist id.
+   * @param expectedVersion version the therapist must be at, or null for any version.
+   * @param current         the current therapist, or null when it does not exist.
+   * @throws NotFoundApiException when the therapist does not exist.
+   * @throws ConflictApiException when the therapist is not at the expected version.
+   */
+  static void checkCondition(final String therapistId, final Long expectedVersion,
+                             final TherapistRecord current) {
+    if (current == null) {
+      throw conditionFailed(therapistId, expectedVersion, null);
+    }
+    if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+      throw conditionFailed(therapistId, expectedVersion, current.toAttributeMap());
+    }
+  }
+
+  /**
+   * Build a DeleteItem request that returns the deleted item.
+   *
+   * @param tableName       Therapist table name.
+   * @param key             key of the therapist.
+   * @param expectedVersion version the therapist must be at, or null to delete any version.
+   * @return the request.
+   */
+  static DeleteItemRequest delete(final String tableName, final Map<String, AttributeValue> key,
+                                  final Long expectedVersion) {
+    Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+    DeleteItemRequest.Builder builder = DeleteItemRequest.builder()
+          .tableName(tableName)
+          .key(key)
+          .conditionExpression(condition(expectedVersion, expressionAttributeValues))
+          .returnValues(ReturnValue.ALL_OLD);
+    if (!expressionAttributeValues.isEmpty()) {
+      builder.expressionAttributeValues(expressionAttributeValues);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Build the consistent read of the current item after a failed condition. Only needed
+   * when an expected version was given; otherwise the therapist does not exist.
+   *
+   * @param tableName Therapist table name.
+   * @param key       key of the therapist.
+   * @return the request.
+   */
+  static GetItemRequest currentItem(final String tableName,
+                                    final Map<String, AttributeValue> key) {
+    return GetItemRequest.builder()
+          .tableName(tableName)
+          .consistentRead(Boolean.TRUE)
+          .key(key)
+          .build();
+  }
+
+  /**
+   * Map a failed write condition to NotFound or Conflict.
+   *
+   * @param therapistId     therapist id.
+   * @param expectedVersion the expected version of the write.
+   * @param currentItem     the current item, or null or empty when it does not exist.
+   * @return the exception to throw.
+   */
+  static ApiException conditionFailed(final String therapistId, final Long expectedVersion,
+                                      final Map<String, AttributeValue> currentItem) {
+    if (currentItem == null || currentItem.isEmpty()) {
+      return new NotFoundApiException(new NotFoundException()
+            .errorCode("TherapistNotFound")
+            .message(String.format("Therapist %s can not be found.", therapistId)));
+    }
+    return new ConflictApiException(new ConflictException()
+          .errorCode("VersionConflict")
+          .message(String.format("Therapist %s is at version %d, not %d.", therapistId,
+                new TherapistRecord(currentItem).getVersion(), expectedVersion)));
+  }
+
+  private static String condition(final Long expectedVersion,
+                                  final Map<String, AttributeValue> expressionAttributeValues) {
+    if (expectedVersion == null) {
+      return EXISTS_CONDITION;
+    }
+    expressionAttributeValues.put(":ev", AttributeValue.builder()
+          .n(expectedVersion.toString())
+          .build());
+    return EXISTS_CONDITION + " AND " + EXPECTED_VERSION_CONDITION;
+  }
+}
@@ -0,0 +1,251 @@
+package software.amazon.serverless.apprepo.api.impl.batch;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.swagger.model.TherapistBatchCreateRequest;
+import io.swagger.model.TherapistBatchCreateResult;
+import io.swagger.model.TherapistBatchGetResult;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import software.amazon.serverless.apprepo.api.exception.BadRequestApiException;
+import software.amazon.serverless.apprepo.api.impl.TherapistPartitioner;
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+import software.amazon.serverless.apprepo.api.impl.batch.TherapistBatchOperations.Failure;
+import software.amazon.serverless.apprepo.api.impl.batch.TherapistBatchOperations.GetGroupResult;
+import software.amazon.serverless.apprepo.api.impl.cache.TherapistCache;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+
+/**
+ * Batch operations on therapists of AsyncTherapistService, on {@link DynamoDbAsyncClient}.
+ *
+ * <p>Batches are split, retried and reported like in {@link TherapistBatchOperations}, but no
+ * thread waits for them: the BatchWriteItem and BatchGetItem calls are non-blocking, and the
+ * retry of unprocessed items is scheduled after its {@link Backoff} delay instead of sleeping.
+ */
+@Slf4j
+public class AsyncTherapistBatchOperations {
+  private static final Backoff DEFAULT_BACKOFF = new Backoff(Duration.ofMillis(25),
+        Duration.ofSeconds(1));
+  // Only starts the retries, which return at once, so one thread serves the container.
+  private static final ScheduledExecutorService RETRY_SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("therapist-batch-retry-%d")
+              .build());
+
+  private final DynamoDbAsyncClient dynamodb;
+  private final String tableName;
+  private final TherapistCache therapistCache;
+  private final TherapistPartitioner therapistPartitioner;
+  private final Backoff backoff;
+  private final ScheduledExecutorService retryScheduler;
+  private final Clock clock;
+
+  /**
+   * Construct AsyncTherapistBatchOperations.
+   *
+   * @param dynamodb             DynamoDbAsyncClient of the Therapist table.
+   * @param configProvider       ConfigProvider to provide configuration values.
+   * @param therapistCache       cache the therapists read are put in.
+   * @param therapistPartitioner partitioner of the therapist keys.
+   */
+  @Inject
+  public AsyncTherapistBatchOperations(final DynamoDbAsyncClient dynamodb,
+                                       final ConfigProvider configProvider,
+                                       final TherapistCache therapistCache,
+                                       final TherapistPartitioner therapistPartitioner) {
+    this(dynamodb, configProvider.getTherapistTableName(), therapistCache,
+          therapistPartitioner, DEFAULT_BACKOFF, RETRY_SCHEDULER, Clock.systemUTC());
+  }
+
+  AsyncTherapistBatchOperations(final DynamoDbAsyncClient dynamodb, final String tableName,
+                                final TherapistCache therapistCache,
+                                final TherapistPartitioner therapistPartitioner,
+                                final Backoff backoff,
+                                final ScheduledExecutorService retryScheduler,
+                                final Clock clock) {
+    this.dynamodb = dynamodb;
+    this.tableName = tableName;
+    this.therapistCache = therapistCache;
+    this.therapistPartitioner = therapistPartitioner;
+    this.backoff = backoff;
+    this.retryScheduler = retryScheduler;
+    this.clock = clock;
+  }
+
+  /**
+   * Add a batch of therapists.
+   *
+   * @param request the therapists to add.
+   * @return future of the result of each therapist in request order.
+   * @throws BadRequestApiException when the batch is empty or too large.
+   */
+  public CompletableFuture<TherapistBatchCreateResult> addTherapistBatch(
+        final TherapistBatchCreateRequest request) {
+    List<TherapistRecord> records = TherapistBatchOperations.newRecords(request,
+          therapistPartitioner, clock);
+    List<CompletableFuture<Map<String, Failure>>> groups = Lists
+          .partition(records, TherapistBatchOperations.MAX_BATCH_WRITE_ITEMS)
+          .stream()
+          .map(group -> putGroup(TherapistBatchOperations.toWriteRequests(group), 1))
+          .collect(Collectors.toList());
+    return CompletableFuture.allOf(groups.toArray(new CompletableFuture<?>[0]))
+          .thenApply(done -> {
+            Map<String, Failure> failures = new HashMap<>();
+            groups.forEach(group -> failures.putAll(group.join()));
+            return TherapistBatchOperations.toResult(records, failures);
+          });
+  }
+
+  /**
+   * Get a batch of therapists.
+   *
+   * <p>The therapists are read with strongly consistent BatchGetItem calls, never from the
+   * {@link TherapistCache}, and the therapists read are cached.
+   *
+   * @param ids therapist ids; each element may hold several comma separated ids.
+   * @return future of the therapists in request order and the ids that were not found.
+   * @throws BadRequestApiException when there are no ids or too many ids.
+   */
+  public CompletableFuture<TherapistBatchGetResult> getTherapistBatch(final List<String> ids) {
+    List<String> therapistIds = TherapistBatchOperations.validIds(ids);
+    Map<String, TherapistRecord> found = new HashMap<>();
+    List<CompletableFuture<GetGroupResult>> groups = Lists
+          .partition(therapistIds,
+                TherapistBatchOperations.idsPerGroup(therapistPartitioner))
+          .stream()
+          .map(group -> getGroup(TherapistBatchOperations.toKeysAndAttributes(group,
+                therapistPartitioner), new ArrayList<>(group.size()), 1))
+          .collect(Collectors.toList());
+    return CompletableFuture.allOf(groups.toArray(new CompletableFuture<?>[0]))
+          .thenApply(done -> TherapistBatchOperations.toResult(therapistIds, found,
+                groups.stream()
+                      .map(CompletableFuture::join)
+                      .collect(Collectors.toList()), therapistCache));
+  }
+
+  /**
+   * Write the pending items of one group and schedule the retry of unprocessed items.
+   *
+   * @return future of the failures keyed by therapistId.
+   */
+  private CompletableFuture<Map<String, Failure>> putGroup(final List<WriteRequest> pending,
+                                                           final int attempt) {
+    return dynamodb.batchWriteItem(BatchWriteItemRequest.builder()
+          .requestItems(Collections.singletonMap(tableName, pending))
+          .build())
+          .handle((response, throwable) -> {
+            if (throwable != null) {
+              log.warn("Failed to write a batch of {} therapists", pending.size(),
+                    sdkException(throwable));
+              return CompletableFuture.completedFuture(
+                    TherapistBatchOperations.toFailures(pending, Failure.WRITE_FAILED));
+            }
+            List<WriteRequest> unprocessed = response.unprocessedItems()
+                  .getOrDefault(tableName, Collections.emptyList());
+            if (unprocessed.isEmpty()) {
+              return CompletableFuture.completedFuture(Collections.<String, Failure>emptyMap());
+            }
+            if (attempt == TherapistBatchOperations.MAX_ATTEMPTS) {
+              log.warn("{} therapists are still unprocessed after {} attempts",
+                    unprocessed.size(), attempt);
+              return CompletableFuture.completedFuture(TherapistBatchOperations.toFailures(
+                    unprocessed, Failure.throttled(attempt)));
+            }
+            return afterBackoff(attempt - 1, () -> putGroup(unprocessed, attempt + 1));
+          })
+          .thenCompose(stage -> stage);
+  }
+
+  /**
+   * Read the pending keys of one group and schedule the retry of unprocessed keys.
+   *
+   * @return future of the therapists read and the ids that could not be read.
+   */
+  private CompletableFuture<GetGroupResult> getGroup(final KeysAndAttributes pending,
+                                                     final List<TherapistRecord> records,
+                                                     final int attempt) {
+    return dynamodb.batchGetItem(BatchGetItemRequest.builder()
+          .requestItems(Collections.singletonMap(tableName, pending))
+          .build())
+          .handle((response, throwable) -> {
+            if (throwable != null) {
+              log.warn("Failed to read a batch of {} therapists", pending.keys().size(),
+                    sdkException(throwable));
+              return CompletableFuture.completedFuture(new GetGroupResult(records,
+                    TherapistBatchOperations.toIds(pending.keys())));
+            }
+            response.responses().getOrDefault(tableName, Collections.emptyList())
+                  .forEach(item -> records.add(new TherapistRecord(item)));
+            KeysAndAttributes unprocessed = response.unprocessedKeys().get(tableName);
+            if (unprocessed == null || unprocessed.keys().isEmpty()) {
+              return CompletableFuture.completedFuture(new GetGroupResult(records,
+                    Collections.<String>emptyList()));
+            }
+            if (attempt == TherapistBatchOperations.MAX_ATTEMPTS) {
+              log.warn("{} therapist keys are still unprocessed after {} attempts",
+                    unprocessed.keys().size(), attempt);
+              return CompletableFuture.completedFuture(new GetGroupResult(records,
+                    TherapistBatchOperations.toIds(unprocessed.keys())));
+            }
+            return afterBackoff(attempt - 1, () -> getGroup(unprocessed, records, attempt + 1));
+          })
+          .thenCompose(stage -> stage);
+  }
+
+  /**
+   * Start a retry after its backoff delay.
+   */
+  private <T> CompletableFuture<T> afterBackoff(final int retry,
+                                                final Supplier<CompletableFuture<T>> call) {
+    CompletableFuture<CompletableFuture<T>> started = new CompletableFuture<>();
+    retryScheduler.schedule(() -> {
+      try {
+        started.complete(call.get());
+      } catch (RuntimeException e) {
+        started.completeExceptionally(e);
+      }
+    }, backoff.delay(retry).toMillis(), TimeUnit.MILLISECONDS);
+    return started.thenCompose(stage -> stage);
+  }
+
+  /**
+   * Get the DynamoDB error a call failed with. Any other error is not the batch's to report
+   * per item, and fails the whole batch as it does in TherapistBatchOperations.
+   */
+  private static SdkException sdkException(final Throwable throwable) {
+    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+          ? throwable.getCause() : throwable;
+    if (cause instanceof SdkException) {
+      return (SdkException) cause;
+    }
+    throw cause instanceof RuntimeException
+          ? (RuntimeException) cause : new CompletionException(cause);
+  }
+}
@@ -0,0 +1,50 @@
+package software.amazon.serverless.apprepo.api.impl.batch;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter.
+ *
+ * <p>The delay before retry n is uniformly random between 0 and min(cap, base * 2^n), so
+ * concurrent callers that were throttled together do not retry in lockstep.
+ * See https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/
+ */
+public class Backoff {
+  private static final int MAX_SHIFT = 30;
+
+  private final long baseMillis;
+  private final long capMillis;
+
+  /**
+   * Construct a Backoff.
+   *
+   * @param base delay ceiling of the first retry.
+   * @param cap  maximum delay ceiling.
+   */
+  public Backoff(final Duration base, final Duration cap) {
+    this.baseMillis = base.toMillis();
+    this.capMillis = cap.toMillis();
+  }
+
+  /**
+   * Get a random delay for a retry.
+   *
+   * @param attempt zero based number of the retry.
+   * @return delay before the retry.
+   */
+  public Duration delay(final int attempt) {
+    long ceiling = Math.min(capMillis, baseMillis << Math.min(attempt, MAX_SHIFT));
+    return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+  }
+
+  /**
+   * Sleep for a random delay before a retry.
+   *
+   * @param attempt zero based number of the retry.
+   * @throws InterruptedException when the thread is interrupted while sleeping.
+   */
+  public void sleep(final int attempt) throws InterruptedException {
+    Thread.sleep(delay(attempt).toMillis());
+  }
+}
@@ -0,0 +1,434 @@
+package software.amazon.serverless.apprepo.api.impl.batch;
+
+import com.google.common.collect.Lists;
+
+import io.swagger.model.BadRequestException;
+import io.swagger.model.Therapist;
+import io.swagger.model.TherapistBatchCreateItem;
+import io.swagger.model.TherapistBatchCreateRequest;
+import io.swagger.model.TherapistBatchCreateResult;
+import io.swagger.model.TherapistBatchGetResult;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import software.amazon.serverless.apprepo.api.exception.BadRequestApiException;
+import software.amazon.serverless.apprepo.api.impl.TherapistMapper;
+import software.amazon.serverless.apprepo.api.impl.TherapistPartitioner;
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+import software.amazon.serverless.apprepo.api.impl.cache.TherapistCache;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+
+/**
+ * Batch operations on therapists of TherapistService.
+ *
+ * <p>Writes are split into BatchWriteItem calls of 25 items and reads into BatchGetItem calls
+ * of 100 keys, which run in parallel on an {@link ExecutorService}. Items and keys DynamoDB
+ * returns as unprocessed are retried with {@link Backoff}; those that are still unprocessed
+ * after the last attempt, or whose call failed, are reported per item instead of failing
+ * the whole batch.
+ *
+ * <p>The calls block: the caller waits for the whole batch, and each group holds an executor
+ * thread while it waits for DynamoDB and sleeps before its retries. AsyncTherapistService
+ * uses {@link AsyncTherapistBatchOperations} instead, which shares the helpers here.
+ */
+@Slf4j
+public class TherapistBatchOperations {
+  static final int MAX_BATCH_WRITE_ITEMS = 25;
+  static final int MAX_BATCH_CREATE_ITEMS = 500;
+  static final int MAX_BATCH_GET_ITEMS = 100;
+  static final int MAX_BATCH_GET_IDS = 200;
+  static final String ID_DELIMITER = ",";
+  static final int MAX_ATTEMPTS = 8;
+  // The generated models do not compile with Json enums, so the status is a plain string.
+  static final String CREATED_STATUS = "CREATED";
+  static final String FAILED_STATUS = "FAILED";
+  private static final Backoff DEFAULT_BACKOFF = new Backoff(Duration.ofMillis(25),
+        Duration.ofSeconds(1));
+
+  private final DynamoDbClient dynamodb;
+  private final String tableName;
+  private final ExecutorService executor;
+  private final TherapistCache therapistCache;
+  private final TherapistPartitioner therapistPartitioner;
+  private final Backoff backoff;
+  private final Clock clock;
+
+  /**
+   * Construct TherapistBatchOperations.
+   *
+   * @param dynamodb       DynamoDbClient of the Therapist table.
+   * @param configProvider ConfigProvider to provide configuration values.
+   * @param executor       executor the batch calls run on.
+   * @param therapistCache       cache the therapists read are put in.
+   * @param therapistPartitioner partitioner of the therapist keys.
+   */
+  @Inject
+  public TherapistBatchOperations(final DynamoDbClient dynamodb,
+                                  final ConfigProvider configProvider,
+                                  final ExecutorService executor,
+                                  final TherapistCache therapistCache,
+                                  final TherapistPartitioner therapistPartitioner) {
+    this(dynamodb, configProvider.getTherapistTableName(), executor, therapistCache,
+          therapistPartitioner, DEFAULT_BACKOFF, Clock.systemUTC());
+  }
+
+  TherapistBatchOperations(final DynamoDbClient dynamodb, final String tableName,
+                           final ExecutorService executor, final TherapistCache therapistCache,
+                           final TherapistPartitioner therapistPartitioner,
+                           final Backoff backoff, final Clock clock) {
+    this.dynamodb = dynamodb;
+    this.tableName = tableName;
+    this.executor = executor;
+    this.therapistCache = therapistCache;
+    this.therapistPartitioner = therapistPartitioner;
+    this.backoff = backoff;
+    this.clock = clock;
+  }
+
+  /**
+   * Add a batch of therapists and wait for the result.
+   *
+   * @param request the therapists to add.
+   * @return the result of each therapist in request order.
+   * @throws BadRequestApiException when the batch is empty or too large.
+   */
+  public TherapistBatchCreateResult addTherapistBatch(final TherapistBatchCreateRequest request) {
+    List<TherapistRecord> records = newRecords(request, therapistPartitioner, clock);
+    List<CompletableFuture<Map<String, Failure>>> groups = Lists
+          .partition(records, MAX_BATCH_WRITE_ITEMS)
+          .stream()
+          .map(group -> CompletableFuture.supplyAsync(() -> putGroup(group), executor))
+          .collect(Collectors.toList());
+    Map<String, Failure> failures = new HashMap<>();
+    groups.forEach(group -> failures.putAll(join(group)));
+    return toResult(records, failures);
+  }
+
+  /**
+   * Get a batch of therapists and wait for the result.
+   *
+   * <p>The therapists are read with strongly consistent BatchGetItem calls, never from the
+   * {@link TherapistCache}, and the therapists read are cached.
+   *
+   * @param ids therapist ids; each element may hold several comma separated ids.
+   * @return the therapists in request order and the ids that were not found.
+   * @throws BadRequestApiException when there are no ids or too many ids.
+   */
+  public TherapistBatchGetResult getTherapistBatch(final List<String> ids) {
+    List<String> therapistIds = validIds(ids);
+    Map<String, TherapistRecord> found = new HashMap<>();
+    List<CompletableFuture<GetGroupResult>> groups = Lists
+          .partition(therapistIds,
+                idsPerGroup(therapistPartitioner))
+          .stream()
+          .map(group -> CompletableFuture.supplyAsync(() -> getGroup(group), executor))
+          .collect(Collectors.toList());
+    return toResult(therapistIds, found, groups.stream()
+          .map(TherapistBatchOperations::join)
+          .collect(Collectors.toList()), therapistCache);
+  }
+
+  /**
+   * Create the records of a batch of therapists, with new ids under their partition keys.
+   *
+   * @throws BadRequestApiException when the batch is empty or too large.
+   */
+  static List<TherapistRecord> newRecords(final TherapistBatchCreateRequest request,
+                                          final TherapistPartitioner therapistPartitioner,
+                                          final Clock clock) {
+    List<Therapist> therapists = request == null ? null : request.getTherapists();
+    if (therapists == null || therapists.isEmpty()
+          || therapists.size() > MAX_BATCH_CREATE_ITEMS) {
+      throw new BadRequestApiException(new BadRequestException()
+            .errorCode("InvalidRequest")
+            .message(String.format("A batch must have between 1 and %d therapists.",
+                  MAX_BATCH_CREATE_ITEMS)));
+    }
+    log.info("Creating a batch of {} therapists", therapists.size());
+
+    Instant createdAt = Instant.now(clock);
+    List<TherapistRecord> records = new ArrayList<>(therapists.size());
+    for (Therapist therapist : therapists) {
+      TherapistRecord therapistRecord = TherapistMapper.toTherapistRecord(therapist);
+      therapistRecord.setTherapistId(UUID.randomUUID().toString());
+      therapistRecord.setCreatedAt(createdAt);
+      therapistRecord.setVersion(1L);
+      therapistRecord.setUserId(therapistPartitioner.partitionKey(
+            therapistRecord.getTherapistId()));
+      records.add(therapistRecord);
+    }
+    return records;
+  }
+
+  /**
+   * Parse the ids of a batch get.
+   *
+   * @throws BadRequestApiException when there are no ids or too many ids.
+   */
+  static List<String> validIds(final List<String> ids) {
+    List<String> therapistIds = parseIds(ids);
+    if (therapistIds.isEmpty() || therapistIds.size() > MAX_BATCH_GET_IDS) {
+      throw new BadRequestApiException(new BadRequestException()
+            .errorCode("InvalidRequest")
+            .message(String.format("A batch must have between 1 and %d therapist ids.",
+                  MAX_BATCH_GET_IDS)));
+    }
+    log.info("Getting a batch of {} therapists", therapistIds.size());
+    return therapistIds;
+  }
+
+  /**
+   * Get the number of ids read by one BatchGetItem call.
+   */
+  static int idsPerGroup(final TherapistPartitioner therapistPartitioner) {
+    // Every key a therapist may be stored under is read in the same call, so a group holds
+    // fewer ids while the legacy key fallback is enabled.
+    return MAX_BATCH_GET_ITEMS / therapistPartitioner.keysPerTherapist();
+  }
+
+  /**
+   * Get the put requests of a group of records.
+   */
+  static List<WriteRequest> toWriteRequests(final List<TherapistRecord> group) {
+    return group.stream()
+          .map(therapistRecord -> WriteRequest.builder()
+                .putRequest(PutRequest.builder()
+                      .item(therapistRecord.toAttributeMap())
+                      .build())
+                .build())
+          .collect(Collectors.toList());
+  }
+
+  /**
+   * Get the strongly consistent read of every key a group of therapists may be stored under.
+   */
+  static KeysAndAttributes toKeysAndAttributes(final List<String> group,
+                                               final TherapistPartitioner therapistPartitioner) {
+    return KeysAndAttributes.builder()
+          .keys(group.stream()
+                .flatMap(therapistId -> therapistPartitioner.keys(therapistId).stream())
+                .collect(Collectors.toList()))
+          .consistentRead(Boolean.TRUE)
+          .build();
+  }
+
+  /**
+   * Write one group of at most 25 records and retry unprocessed items.
+   *
+   * @return failures keyed by therapistId.
+   */
+  private Map<String, Failure> putGroup(final List<TherapistRecord> group) {
+    List<WriteRequest> pending = toWriteRequests(group);
+    try {
+      for (int attempt = 1; ; attempt++) {
+        BatchWriteItemResponse response = dynamodb.batchWriteItem(BatchWriteItemRequest.builder()
+              .requestItems(Collections.singletonMap(tableName, pending))
+              .build());
+        pending = response.unprocessedItems().getOrDefault(tableName, Collections.emptyList());
+        if (pending.isEmpty()) {
+          return Collections.emptyMap();
+        }
+        if (attempt == MAX_ATTEMPTS) {
+          log.warn("{} therapists are still unprocessed after {} attempts", pending.size(),
+                attempt);
+          return toFailures(pending, Failure.throttled(attempt));
+        }
+        backoff.sleep(attempt - 1);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return toFailures(pending, new Failure("Interrupted", "Therapist was not written."));
+    } catch (SdkException e) {
+      log.warn("Failed to write a batch of {} therapists", pending.size(), e);
+      return toFailures(pending, Failure.WRITE_FAILED);
+    }
+  }
+
+  /**
+   * Read one group of at most 100 therapists and retry unprocessed keys.
+   */
+  private GetGroupResult getGroup(final List<String> group) {
+    List<TherapistRecord> records = new ArrayList<>(group.size());
+    KeysAndAttributes pending = toKeysAndAttributes(group, therapistPartitioner);
+    try {
+      for (int attempt = 1; ; attempt++) {
+        BatchGetItemResponse response = dynamodb.batchGetItem(BatchGetItemRequest.builder()
+              .requestItems(Collections.singletonMap(tableName, pending))
+              .build());
+        response.responses().getOrDefault(tableName, Collections.emptyList())
+              .forEach(item -> records.add(new TherapistRecord(item)));
+        KeysAndAttributes unprocessed = response.unprocessedKeys().get(tableName);
+        if (unprocessed == null || unprocessed.keys().isEmpty()) {
+          return new GetGroupResult(records, Collections.emptyList());
+        }
+        pending = unprocessed;
+        if (attempt == MAX_ATTEMPTS) {
+          log.warn("{} therapist keys are still unprocessed after {} attempts",
+                pending.keys().size(), attempt);
+          return new GetGroupResult(records, toIds(pending.keys()));
+        }
+        backoff.sleep(attempt - 1);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new GetGroupResult(records, toIds(pending.keys()));
+    } catch (SdkException e) {
+      log.warn("Failed to read a batch of {} therapists", pending.keys().size(), e);
+      return new GetGroupResult(records, toIds(pending.keys()));
+    }
+  }
+
+  /**
+   * Split comma separated ids and drop blanks and duplicates, keeping the first occurrence.
+   */
+  static List<String> parseIds(final List<String> ids) {
+    Set<String> therapistIds = new LinkedHashSet<>();
+    if (ids != null) {
+      for (String value : ids) {
+        if (value == null) {
+          continue;
+        }
+        for (String therapistId : value.split(ID_DELIMITER)) {
+          if (!therapistId.trim().isEmpty()) {
+            therapistIds.add(therapistId.trim());
+          }
+        }
+      }
+    }
+    return new ArrayList<>(therapistIds);
+  }
+
+  static List<String> toIds(final List<Map<String, AttributeValue>> keys) {
+    return keys.stream()
+          .map(key -> key.get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME).s())
+          .collect(Collectors.toList());
+  }
+
+  /**
+   * Cache the therapists the groups read and get the result of a batch get.
+   */
+  static TherapistBatchGetResult toResult(final List<String> therapistIds,
+                                          final Map<String, TherapistRecord> found,
+                                          final List<GetGroupResult> groupResults,
+                                          final TherapistCache therapistCache) {
+    Set<String> unprocessedIds = new LinkedHashSet<>();
+    for (GetGroupResult groupResult : groupResults) {
+      groupResult.records.forEach(therapistRecord -> {
+        therapistCache.put(therapistRecord);
+        found.put(therapistRecord.getTherapistId(), therapistRecord);
+      });
+      unprocessedIds.addAll(groupResult.unprocessedIds);
+    }
+    // An id is unprocessed only if it was not found under one of its other keys.
+    unprocessedIds.removeAll(found.keySet());
+
+    TherapistBatchGetResult result = new TherapistBatchGetResult()
+          .therapists(new ArrayList<>())
+          .missingIds(new ArrayList<>())
+          .unprocessedIds(new ArrayList<>(unprocessedIds));
+    for (String therapistId : therapistIds) {
+      TherapistRecord therapistRecord = found.get(therapistId);
+      if (therapistRecord != null) {
+        result.getTherapists().add(TherapistMapper.toTherapist(therapistRecord));
+      } else if (!unprocessedIds.contains(therapistId)) {
+        result.getMissingIds().add(therapistId);
+      }
+    }
+    return result;
+  }
+
+  private static <T> T join(final CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  static Map<String, Failure> toFailures(final List<WriteRequest> writeRequests,
+                                                 final Failure failure) {
+    return writeRequests.stream()
+          .collect(Collectors.toMap(
+                writeRequest -> writeRequest.putRequest().item()
+                      .get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME).s(),
+                writeRequest -> failure));
+  }
+
+  static TherapistBatchCreateResult toResult(final List<TherapistRecord> records,
+                                             final Map<String, Failure> failures) {
+    List<TherapistBatchCreateItem> results = new ArrayList<>(records.size());
+    for (int i = 0; i < records.size(); i++) {
+      TherapistRecord therapistRecord = records.get(i);
+      Failure failure = failures.get(therapistRecord.getTherapistId());
+      TherapistBatchCreateItem item = new TherapistBatchCreateItem().index(i);
+      if (failure == null) {
+        item.status(CREATED_STATUS)
+              .therapist(TherapistMapper.toTherapist(therapistRecord));
+      } else {
+        item.status(FAILED_STATUS)
+              .errorCode(failure.errorCode)
+              .message(failure.message);
+      }
+      results.add(item);
+    }
+    return new TherapistBatchCreateResult().results(results);
+  }
+
+  /**
+   * Therapists read by one BatchGetItem group and the ids that could not be read.
+   */
+  @RequiredArgsConstructor
+  static final class GetGroupResult {
+    private final List<TherapistRecord> records;
+    private final List<String> unprocessedIds;
+  }
+
+  /**
+   * Why an item of a batch was not processed.
+   */
+  @RequiredArgsConstructor
+  static final class Failure {
+    static final Failure WRITE_FAILED = new Failure("WriteFailed", "Therapist was not written.");
+
+    private final String errorCode;
+    private final String message;
+
+    static Failure throttled(final int attempts) {
+      return new Failure("Throttled", String.format(
+            "Therapist was not written after %d attempts.", attempts));
+    }
+  }
+}
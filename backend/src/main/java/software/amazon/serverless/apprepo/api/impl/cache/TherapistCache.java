@@ -0,0 +1,155 @@
+package software.amazon.serverless.apprepo.api.impl.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.RequiredArgsConstructor;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Bounded in-container read-through cache of {@link TherapistRecord} keyed by therapistId.
+ *
+ * <p>Entries are evicted by size and expire after a TTL. Invalidation leaves a marker with
+ * the lowest version that may still be cached, so a concurrent load that read an older
+ * version of the item can not put it back into the cache.
+ */
+public class TherapistCache {
+  private static final long DELETED = Long.MAX_VALUE;
+
+  private final Cache<String, Entry> cache;
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * Construct a TherapistCache.
+   *
+   * @param maximumSize maximum number of cached therapists.
+   * @param ttl         how long a therapist stays cached after it is loaded.
+   */
+  public TherapistCache(final long maximumSize, final Duration ttl) {
+    RemovalListener<String, Entry> removalListener = this::onRemoval;
+    this.cache = CacheBuilder.newBuilder()
+          .maximumSize(maximumSize)
+          .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS)
+          .removalListener(removalListener)
+          .build();
+  }
+
+  /**
+   * Get a cached therapist.
+   *
+   * @param therapistId therapist id.
+   * @return the cached record, or empty on a cache miss.
+   */
+  public Optional<TherapistRecord> get(final String therapistId) {
+    Entry entry = cache.getIfPresent(therapistId);
+    if (entry == null || entry.record == null) {
+      missCount.increment();
+      return Optional.empty();
+    }
+    hitCount.increment();
+    return Optional.of(entry.record);
+  }
+
+  /**
+   * Cache a therapist loaded from the table, unless a newer version is already known.
+   *
+   * @param record the loaded record.
+   */
+  public void put(final TherapistRecord record) {
+    long version = record.getVersion() == null ? 0L : record.getVersion();
+    Entry loaded = new Entry(record, version);
+    cache.asMap().merge(record.getTherapistId(), loaded,
+          (current, update) -> update.version >= current.version ? update : current);
+  }
+
+  /**
+   * Invalidate a therapist and reject cached versions lower than minVersion.
+   *
+   * @param therapistId therapist id.
+   * @param minVersion  the lowest version that may be cached from now on.
+   */
+  public void invalidate(final String therapistId, final long minVersion) {
+    // A cached record that is already at least minVersion is still valid and is kept.
+    cache.asMap().merge(therapistId, new Entry(null, minVersion),
+          (current, update) -> current.version >= update.version ? current : update);
+  }
+
+  /**
+   * Invalidate a deleted therapist.
+   *
+   * @param therapistId therapist id.
+   */
+  public void invalidateDeleted(final String therapistId) {
+    invalidate(therapistId, DELETED);
+  }
+
+  /**
+   * Apply a change from the table's stream.
+   *
+   * @param record stream record with new and old images.
+   */
+  public void onStreamRecord(final Record record) {
+    Map<String, AttributeValue> keys = record.dynamodb().keys();
+    AttributeValue therapistId = keys.get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME);
+    if (therapistId == null) {
+      return;
+    }
+    if (record.eventName() == OperationType.REMOVE) {
+      invalidateDeleted(therapistId.s());
+      return;
+    }
+    AttributeValue version = record.dynamodb().newImage()
+          .get(TherapistRecord.VERSION_ATTRIBUTE_NAME);
+    if (version != null) {
+      invalidate(therapistId.s(), Long.parseLong(version.n()));
+    } else {
+      cache.invalidate(therapistId.s());
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  private void onRemoval(final RemovalNotification<String, Entry> notification) {
+    if (notification.wasEvicted()) {
+      evictionCount.increment();
+    }
+  }
+
+  /**
+   * A cached record, or an invalidation marker when record is null.
+   */
+  @RequiredArgsConstructor
+  private static final class Entry {
+    private final TherapistRecord record;
+    private final long version;
+  }
+}
@@ -0,0 +1,130 @@
+package software.amazon.serverless.apprepo.api.impl.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamResponse;
+import software.amazon.awssdk.services.dynamodb.model.ExpiredIteratorException;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+/**
+ * Consumes the Therapist table's NEW_AND_OLD_IMAGES stream and applies every change
+ * to a {@link TherapistCache}.
+ *
+ * <p>DynamoDB streams throttle when more than two readers poll the same shard, and the
+ * TherapistStreamLambda already is one, so this is meant for a single long-running container.
+ * Lambda containers rely on local invalidation and the cache TTL instead.
+ */
+@Slf4j
+public class TherapistCacheStreamConsumer {
+  private final DynamoDbStreamsClient streams;
+  private final String streamArn;
+  private final TherapistCache cache;
+  private final Duration pollInterval;
+  // Only touched by the single polling thread.
+  private final Map<String, String> shardIterators = new HashMap<>();
+  private final Set<String> closedShards = new HashSet<>();
+  private boolean shardsChanged = true;
+  private boolean initialized = false;
+
+  /**
+   * Construct a TherapistCacheStreamConsumer.
+   *
+   * @param streams      DynamoDbStreamsClient to read the stream.
+   * @param streamArn    Therapist table stream ARN.
+   * @param cache        the cache to invalidate.
+   * @param pollInterval delay between two polls of the stream.
+   */
+  public TherapistCacheStreamConsumer(final DynamoDbStreamsClient streams, final String streamArn,
+                                      final TherapistCache cache, final Duration pollInterval) {
+    this.streams = streams;
+    this.streamArn = streamArn;
+    this.cache = cache;
+    this.pollInterval = pollInterval;
+  }
+
+  /**
+   * Start polling the stream on the given executor.
+   *
+   * @param executor executor to poll on. Must run one poll at a time.
+   */
+  public void start(final ScheduledExecutorService executor) {
+    log.info("Starting therapist cache invalidation from stream {}", streamArn);
+    executor.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(),
+          TimeUnit.MILLISECONDS);
+  }
+
+  void poll() {
+    try {
+      if (shardsChanged) {
+        refreshShards();
+      }
+      Iterator<Map.Entry<String, String>> iterator = shardIterators.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<String, String> shard = iterator.next();
+        try {
+          GetRecordsResponse response = streams.getRecords(GetRecordsRequest.builder()
+                .shardIterator(shard.getValue())
+                .build());
+          response.records().forEach(cache::onStreamRecord);
+          if (response.nextShardIterator() == null) {
+            // The shard is closed. Its children are picked up on the next refresh.
+            closedShards.add(shard.getKey());
+            iterator.remove();
+            shardsChanged = true;
+          } else {
+            shard.setValue(response.nextShardIterator());
+          }
+        } catch (ExpiredIteratorException e) {
+          log.warn("Shard iterator of {} expired, reopening it", shard.getKey());
+          iterator.remove();
+          shardsChanged = true;
+        }
+      }
+    } catch (RuntimeException e) {
+      // Keep polling; entries still expire with the cache TTL in the meantime.
+      log.warn("Failed to poll stream {}", streamArn, e);
+    }
+  }
+
+  private void refreshShards() {
+    String lastShardId = null;
+    do {
+      DescribeStreamResponse response = streams.describeStream(DescribeStreamRequest.builder()
+            .streamArn(streamArn)
+            .exclusiveStartShardId(lastShardId)
+            .build());
+      for (Shard shard : response.streamDescription().shards()) {
+        String shardId = shard.shardId();
+        boolean open = shard.sequenceNumberRange().endingSequenceNumber() == null;
+        if (open && !shardIterators.containsKey(shardId) && !closedShards.contains(shardId)) {
+          // Shards found after start up are new children, so read them from the beginning.
+          shardIterators.put(shardId, streams.getShardIterator(GetShardIteratorRequest.builder()
+                .streamArn(streamArn)
+                .shardId(shardId)
+                .shardIteratorType(initialized
+                      ? ShardIteratorType.TRIM_HORIZON : ShardIteratorType.LATEST)
+                .build())
+                .shardIterator());
+        }
+      }
+      lastShardId = response.streamDescription().lastEvaluatedShardId();
+    } while (lastShardId != null);
+    initialized = true;
+    shardsChanged = false;
+  }
+}
@@ -0,0 +1,184 @@
+package software.amazon.serverless.apprepo.api.impl.changes;
+
+import io.swagger.model.BadRequestException;
+import io.swagger.model.TherapistChange;
+import io.swagger.model.TherapistChanges;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import software.amazon.serverless.apprepo.api.exception.BadRequestApiException;
+import software.amazon.serverless.apprepo.api.impl.TherapistMapper;
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * The change log of the Therapist table, written by {@link ChangeLogWriter} from the table
+ * stream and read by the changes operation of TherapistService and AsyncTherapistService.
+ *
+ * <p>Every change is an entry under the "#changes" partition key, sorted by a sequence number
+ * the single writer assigns in order, so a client that has read up to a sequence number only
+ * needs the entries after it. The next sequence number is kept in a head item. Entries
+ * expire after {@link #RETENTION}.
+ *
+ * <p>The client's position is a watermark, the sequence number and the time of the last
+ * change it read. A watermark older than the retention may have missed expired entries and
+ * is rejected; the client then lists all therapists again.
+ */
+public final class ChangeLog {
+  public static final Duration RETENTION = Duration.ofDays(30);
+  static final String USER_ID = TherapistRecord.RESERVED_USER_ID_PREFIX + "changes";
+  static final String HEAD_USER_ID = TherapistRecord.RESERVED_USER_ID_PREFIX + "changes-head";
+  static final String SEQUENCE_ATTRIBUTE_NAME = "sequence";
+  static final String CHANGE_TYPE_ATTRIBUTE_NAME = "changeType";
+  static final String CHANGED_THERAPIST_ID_ATTRIBUTE_NAME = "changedTherapistId";
+  static final String CHANGED_AT_ATTRIBUTE_NAME = "changedAt";
+  static final String IMAGE_ATTRIBUTE_NAME = "image";
+  static final String EXPIRES_AT_ATTRIBUTE_NAME = "expiresAt";
+  // The generated models do not compile with Json enums, so the change type is a string.
+  static final String UPSERT = "UPSERT";
+  static final String DELETE = "DELETE";
+  // Sort keys are strings, so sequence numbers are padded to sort in numeric order.
+  private static final String SEQUENCE_FORMAT = "%020d";
+  private static final String WATERMARK_SEPARATOR = ".";
+
+  private ChangeLog() {
+  }
+
+  /**
+   * Build the read of the head item, for the first watermark of a client.
+   *
+   * @param tableName Therapist table name.
+   * @return the request.
+   */
+  public static GetItemRequest head(final String tableName) {
+    return GetItemRequest.builder()
+          .tableName(tableName)
+          .key(headKey())
+          .consistentRead(Boolean.TRUE)
+          .build();
+  }
+
+  /**
+   * Build the watermark of the head of the log, from the head item.
+   *
+   * @param headItem the head item, or null or empty when nothing was logged yet.
+   * @param clock    clock the watermark is timed with.
+   * @return an empty result with the watermark to sync from.
+   */
+  public static TherapistChanges fromHead(final Map<String, AttributeValue> headItem,
+                                          final Clock clock) {
+    long sequence = headItem == null || !headItem.containsKey(SEQUENCE_ATTRIBUTE_NAME)
+          ? 0 : Long.parseLong(headItem.get(SEQUENCE_ATTRIBUTE_NAME).n());
+    return new TherapistChanges()
+          .watermark(watermark(sequence, clock.instant()))
+          .hasMore(false);
+  }
+
+  /**
+   * Build the query of the changes after a watermark. The query is strongly consistent, as
+   * an eventually consistent read could skip an entry that is only on some replicas.
+   *
+   * @param tableName Therapist table name.
+   * @param since     the client's watermark.
+   * @param limit     maximum number of changes.
+   * @param clock     clock the watermark's age is checked with.
+   * @return the request.
+   * @throws BadRequestApiException when the watermark is invalid or expired.
+   */
+  public static QueryRequest query(final String tableName, final String since,
+                                   final int limit, final Clock clock) {
+    long[] watermark = parseWatermark(since);
+    if (Instant.ofEpochMilli(watermark[1]).isBefore(clock.instant().minus(RETENTION))) {
+      throw new BadRequestApiException(new BadRequestException()
+            .errorCode("WatermarkExpired")
+            .message(String.format("Changes are kept for %d days; list all therapists "
+                  + "again to get a new watermark.", RETENTION.toDays())));
+    }
+    Map<String, AttributeValue> values = new HashMap<>();
+    values.put(":userId", AttributeValue.builder().s(USER_ID).build());
+    values.put(":since", AttributeValue.builder().s(sortKey(watermark[0])).build());
+    return QueryRequest.builder()
+          .tableName(tableName)
+          .keyConditionExpression(String.format("%s = :userId AND %s > :since",
+                TherapistRecord.USER_ID_ATTRIBUTE_NAME,
+                TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME))
+          .expressionAttributeValues(values)
+          .consistentRead(Boolean.TRUE)
+          .limit(limit)
+          .build();
+  }
+
+  /**
+   * Convert a page of the log to the API model.
+   *
+   * @param since    the client's watermark.
+   * @param response the query response.
+   * @param clock    clock the watermark is timed with when there are no changes.
+   * @return the changes, and the watermark after the last of them.
+   */
+  public static TherapistChanges toTherapistChanges(final String since,
+                                                    final QueryResponse response,
+                                                    final Clock clock) {
+    TherapistChanges changes = new TherapistChanges()
+          .changes(response.items().stream()
+                .map(ChangeLog::toTherapistChange)
+                .collect(Collectors.toList()))
+          .hasMore(!response.lastEvaluatedKey().isEmpty());
+    if (response.items().isEmpty()) {
+      // Nothing changed since the watermark, so its sequence number is still current; timing
+      // it now keeps a client that polls a quiet log from expiring after the retention.
+      return changes.watermark(watermark(parseWatermark(since)[0], clock.instant()));
+    }
+    Map<String, AttributeValue> last = response.items().get(response.items().size() - 1);
+    return changes.watermark(watermark(
+          Long.parseLong(last.get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME).s()),
+          Instant.parse(last.get(CHANGED_AT_ATTRIBUTE_NAME).s())));
+  }
+
+  static Map<String, AttributeValue> headKey() {
+    return TherapistRecord.toKeyRecord(HEAD_USER_ID, HEAD_USER_ID);
+  }
+
+  static String sortKey(final long sequence) {
+    return String.format(SEQUENCE_FORMAT, sequence);
+  }
+
+  private static TherapistChange toTherapistChange(final Map<String, AttributeValue> item) {
+    TherapistChange change = new TherapistChange()
+          .changeType(item.get(CHANGE_TYPE_ATTRIBUTE_NAME).s())
+          .therapistId(item.get(CHANGED_THERAPIST_ID_ATTRIBUTE_NAME).s());
+    if (item.containsKey(IMAGE_ATTRIBUTE_NAME)) {
+      change.therapist(TherapistMapper.toTherapist(
+            new TherapistRecord(item.get(IMAGE_ATTRIBUTE_NAME).m())));
+    }
+    return change;
+  }
+
+  private static String watermark(final long sequence, final Instant changedAt) {
+    return sequence + WATERMARK_SEPARATOR + changedAt.toEpochMilli();
+  }
+
+  // The sequence number and the epoch millis of the change.
+  private static long[] parseWatermark(final String watermark) {
+    String[] parts = watermark.split("\\.", 2);
+    try {
+      if (parts.length == 2) {
+        return new long[] {Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+      }
+    } catch (NumberFormatException e) {
+      // Reported below.
+    }
+    throw new BadRequestApiException(new BadRequestException()
+          .errorCode("InvalidRequest")
+          .message(String.format("Invalid watermark %s.", watermark)));
+  }
+}
@@ -0,0 +1,142 @@
+package software.amazon.serverless.apprepo.api.impl.changes;
+
+import com.google.common.collect.Iterables;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Appends the changes of a Therapist table stream batch to the {@link ChangeLog}.
+ *
+ * <p>The entries are written in transactions that also advance the head item, conditioned on
+ * the sequence number the writer read, so entries are only ever appended after the ones a
+ * client may already have read. A retried batch appends its changes again; clients apply
+ * changes as upserts and deletes by id, so a repeated change is harmless.
+ *
+ * <p>There must be a single writer at a time; a concurrent one fails its condition and its
+ * batch is retried.
+ */
+@Slf4j
+public class ChangeLogWriter {
+  // A transaction holds up to 25 items, one of which is the head.
+  static final int MAX_ENTRIES_PER_TRANSACTION = 24;
+
+  private final DynamoDbClient dynamodb;
+  private final String tableName;
+  private final Clock clock;
+
+  /**
+   * Construct a ChangeLogWriter.
+   *
+   * @param dynamodb  DynamoDB client.
+   * @param tableName Therapist table name.
+   * @param clock     clock the changes are timed with.
+   */
+  public ChangeLogWriter(final DynamoDbClient dynamodb, final String tableName,
+                         final Clock clock) {
+    this.dynamodb = dynamodb;
+    this.tableName = tableName;
+    this.clock = clock;
+  }
+
+  /**
+   * Append a batch of changes.
+   *
+   * @param changes the changes of the batch, in order.
+   */
+  public void append(final List<Change> changes) {
+    if (changes.isEmpty()) {
+      return;
+    }
+    Map<String, AttributeValue> head = dynamodb.getItem(ChangeLog.head(tableName)).item();
+    long sequence = head == null || !head.containsKey(ChangeLog.SEQUENCE_ATTRIBUTE_NAME)
+          ? 0 : Long.parseLong(head.get(ChangeLog.SEQUENCE_ATTRIBUTE_NAME).n());
+    for (List<Change> transaction : Iterables.partition(changes,
+          MAX_ENTRIES_PER_TRANSACTION)) {
+      sequence = write(sequence, transaction);
+    }
+    log.info("Appended {} changes to the change log, now at {}", changes.size(), sequence);
+  }
+
+  private long write(final long sequence, final List<Change> changes) {
+    Instant changedAt = clock.instant();
+    long expiresAt = changedAt.plus(ChangeLog.RETENTION).getEpochSecond();
+    List<TransactWriteItem> items = new ArrayList<>(changes.size() + 1);
+    long next = sequence;
+    for (Change change : changes) {
+      next++;
+      Map<String, AttributeValue> entry = TherapistRecord.toKeyRecord(ChangeLog.USER_ID,
+            ChangeLog.sortKey(next));
+      entry.put(ChangeLog.CHANGED_THERAPIST_ID_ATTRIBUTE_NAME,
+            AttributeValue.builder().s(change.therapistId).build());
+      entry.put(ChangeLog.CHANGE_TYPE_ATTRIBUTE_NAME, AttributeValue.builder()
+            .s(change.therapist == null ? ChangeLog.DELETE : ChangeLog.UPSERT)
+            .build());
+      if (change.therapist != null) {
+        entry.put(ChangeLog.IMAGE_ATTRIBUTE_NAME, AttributeValue.builder()
+              .m(change.therapist.toAttributeMap())
+              .build());
+      }
+      entry.put(ChangeLog.CHANGED_AT_ATTRIBUTE_NAME,
+            AttributeValue.builder().s(changedAt.toString()).build());
+      entry.put(ChangeLog.EXPIRES_AT_ATTRIBUTE_NAME,
+            AttributeValue.builder().n(Long.toString(expiresAt)).build());
+      items.add(TransactWriteItem.builder()
+            .put(Put.builder()
+                  .tableName(tableName)
+                  .item(entry)
+                  .build())
+            .build());
+    }
+
+    Map<String, String> names = new HashMap<>();
+    names.put("#sequence", ChangeLog.SEQUENCE_ATTRIBUTE_NAME);
+    Map<String, AttributeValue> values = new HashMap<>();
+    values.put(":next", AttributeValue.builder().n(Long.toString(next)).build());
+    String condition = "attribute_not_exists(#sequence)";
+    if (sequence > 0) {
+      values.put(":sequence", AttributeValue.builder().n(Long.toString(sequence)).build());
+      condition = "#sequence = :sequence";
+    }
+    items.add(TransactWriteItem.builder()
+          .update(Update.builder()
+                .tableName(tableName)
+                .key(ChangeLog.headKey())
+                .updateExpression("SET #sequence = :next")
+                .conditionExpression(condition)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .build())
+          .build());
+    dynamodb.transactWriteItems(TransactWriteItemsRequest.builder()
+          .transactItems(items)
+          .build());
+    return next;
+  }
+
+  /**
+   * A change of a therapist from the stream.
+   */
+  @RequiredArgsConstructor
+  public static final class Change {
+    private final String therapistId;
+    // The therapist after the change, null when it was deleted.
+    private final TherapistRecord therapist;
+  }
+}
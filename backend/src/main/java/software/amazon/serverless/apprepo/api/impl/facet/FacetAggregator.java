@@ -0,0 +1,274 @@
+package software.amazon.serverless.apprepo.api.impl.facet;
+
+import com.google.common.collect.Iterables;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Applies batches of the Therapist table's NEW_AND_OLD_IMAGES stream to the
+ * {@link TherapistFacetItem}.
+ *
+ * <p>A change counts the old image out of its area and area and type and the new image in,
+ * so inserts, deletes and moves between areas or types all come down to the same deltas,
+ * and an update that keeps both nets to nothing. The deltas of a batch are summed first and
+ * written as few updates as possible.
+ *
+ * <p>Lambda retries a failed batch, so every update is written in a transaction with a
+ * marker item for its part of the batch, which fails the transaction if that part was
+ * already applied. Markers expire after {@link #BATCH_MARKER_TTL}, longer than the 24 hours a
+ * stream record can be retried for.
+ *
+ * <p>The first batch counts the whole table with a Scan instead, and the time the Scan
+ * started is kept with the counts. The Scan already counts the changes made before it, such
+ * as the rest of a stream read from its trim horizon, so only changes made after that second
+ * are applied. Stream records are timed to the second, so a change made in the second the
+ * Scan started or while it ran may be counted twice or not at all. There must be a single
+ * aggregator at a time, so that no batch is applied while the Scan runs.
+ */
+@Slf4j
+public class FacetAggregator {
+  static final String BATCH_USER_ID = TherapistRecord.RESERVED_USER_ID_PREFIX + "facets-batch";
+  static final String EXPIRES_AT_ATTRIBUTE_NAME = "expiresAt";
+  // Keeps the update expression well within DynamoDB's 4 KB expression limit.
+  static final int MAX_COUNTERS_PER_UPDATE = 50;
+  private static final Duration BATCH_MARKER_TTL = Duration.ofDays(2);
+  private static final int SCAN_PAGE_SIZE = 1000;
+
+  private final DynamoDbClient dynamodb;
+  private final String tableName;
+  private final Clock clock;
+  // When the Scan the counts started from ran; it never changes once the facet item exists.
+  private Instant scannedAt;
+
+  /**
+   * Construct a FacetAggregator.
+   *
+   * @param dynamodb  DynamoDB client.
+   * @param tableName Therapist table name.
+   * @param clock     clock the markers expire by.
+   */
+  public FacetAggregator(final DynamoDbClient dynamodb, final String tableName,
+                         final Clock clock) {
+    this.dynamodb = dynamodb;
+    this.tableName = tableName;
+    this.clock = clock;
+  }
+
+  /**
+   * Apply a batch of changes.
+   *
+   * @param batchId id of the batch that is the same when the batch is retried.
+   * @param changes the changes of the batch, in order.
+   */
+  public void apply(final String batchId, final List<Change> changes) {
+    if (scannedAt == null) {
+      scannedAt = readScannedAt();
+    }
+    SortedMap<String, Long> areaDeltas = new TreeMap<>();
+    SortedMap<String, Long> areaTypeDeltas = new TreeMap<>();
+    int applied = 0;
+    for (Change change : changes) {
+      if (change.changedAt.isAfter(scannedAt)) {
+        count(change.oldImage, -1, areaDeltas, areaTypeDeltas);
+        count(change.newImage, 1, areaDeltas, areaTypeDeltas);
+        applied++;
+      }
+    }
+    if (applied < changes.size()) {
+      log.info("Skipping {} changes of batch {}, the scan at {} counts them",
+            changes.size() - applied, batchId, scannedAt);
+    }
+    areaDeltas.values().removeIf(delta -> delta == 0);
+    areaTypeDeltas.values().removeIf(delta -> delta == 0);
+    if (areaDeltas.isEmpty() && areaTypeDeltas.isEmpty()) {
+      return;
+    }
+
+    List<Counter> counters = new ArrayList<>();
+    areaDeltas.forEach((area, delta) -> counters.add(
+          new Counter(TherapistFacetItem.AREA_COUNTS_ATTRIBUTE_NAME, area, delta)));
+    areaTypeDeltas.forEach((areaType, delta) -> counters.add(
+          new Counter(TherapistFacetItem.AREA_TYPE_COUNTS_ATTRIBUTE_NAME, areaType, delta)));
+    int part = 0;
+    for (List<Counter> partCounters : Iterables.partition(counters, MAX_COUNTERS_PER_UPDATE)) {
+      write(batchId + "/" + part++, partCounters);
+    }
+    log.info("Applied {} changes of batch {} to {} counters", applied, batchId,
+          counters.size());
+  }
+
+  private void write(final String markerId, final List<Counter> counters) {
+    Map<String, String> names = new HashMap<>();
+    Map<String, AttributeValue> values = new HashMap<>();
+    values.put(":zero", AttributeValue.builder().n("0").build());
+    List<String> sets = new ArrayList<>(counters.size());
+    for (int i = 0; i < counters.size(); i++) {
+      Counter counter = counters.get(i);
+      String path = String.format("%s.#c%d", counter.attributeName, i);
+      names.put("#c" + i, counter.key);
+      values.put(":d" + i, AttributeValue.builder().n(Long.toString(counter.delta)).build());
+      sets.add(String.format("%1$s = if_not_exists(%1$s, :zero) + :d%2$d", path, i));
+    }
+
+    Map<String, AttributeValue> marker = TherapistRecord.toKeyRecord(BATCH_USER_ID, markerId);
+    marker.put(EXPIRES_AT_ATTRIBUTE_NAME, AttributeValue.builder()
+          .n(Long.toString(clock.instant().plus(BATCH_MARKER_TTL).getEpochSecond()))
+          .build());
+    try {
+      dynamodb.transactWriteItems(TransactWriteItemsRequest.builder()
+            .transactItems(TransactWriteItem.builder()
+                  .update(Update.builder()
+                        .tableName(tableName)
+                        .key(TherapistFacetItem.key())
+                        .updateExpression("SET " + String.join(", ", sets))
+                        .conditionExpression(String.format("attribute_exists(%s)",
+                              TherapistRecord.USER_ID_ATTRIBUTE_NAME))
+                        .expressionAttributeNames(names)
+                        .expressionAttributeValues(values)
+                        .build())
+                  .build(), TransactWriteItem.builder()
+                  .put(Put.builder()
+                        .tableName(tableName)
+                        .item(marker)
+                        .conditionExpression(String.format("attribute_not_exists(%s)",
+                              TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME))
+                        .build())
+                  .build())
+            .build());
+    } catch (TransactionCanceledException e) {
+      if (isApplied(markerId)) {
+        log.info("Skipping {}, it was already applied", markerId);
+        return;
+      }
+      // The facet item may be gone, so the retry reads it again.
+      scannedAt = null;
+      throw e;
+    }
+  }
+
+  private boolean isApplied(final String markerId) {
+    Map<String, AttributeValue> marker = dynamodb.getItem(GetItemRequest.builder()
+          .tableName(tableName)
+          .key(TherapistRecord.toKeyRecord(BATCH_USER_ID, markerId))
+          .consistentRead(Boolean.TRUE)
+          .build())
+          .item();
+    return marker != null && !marker.isEmpty();
+  }
+
+  private Instant readScannedAt() {
+    Map<String, AttributeValue> item = dynamodb.getItem(GetItemRequest.builder()
+          .tableName(tableName)
+          .key(TherapistFacetItem.key())
+          .consistentRead(Boolean.TRUE)
+          .build())
+          .item();
+    if (item == null || item.isEmpty()) {
+      return bootstrap();
+    }
+    return Instant.ofEpochSecond(Long.parseLong(
+          item.get(TherapistFacetItem.SCANNED_AT_ATTRIBUTE_NAME).n()));
+  }
+
+  // Stream records are timed to the second they were made in, rounded down.
+  private Instant bootstrap() {
+    Instant startedAt = clock.instant().truncatedTo(ChronoUnit.SECONDS);
+    SortedMap<String, Long> areaCounts = new TreeMap<>();
+    SortedMap<String, Long> areaTypeCounts = new TreeMap<>();
+    Map<String, AttributeValue> exclusiveStartKey = null;
+    do {
+      ScanResponse response = dynamodb.scan(ScanRequest.builder()
+            .tableName(tableName)
+            .limit(SCAN_PAGE_SIZE)
+            .exclusiveStartKey(exclusiveStartKey)
+            .build());
+      for (Map<String, AttributeValue> scanned : response.items()) {
+        count(new TherapistRecord(scanned), 1, areaCounts, areaTypeCounts);
+      }
+      exclusiveStartKey = response.lastEvaluatedKey().isEmpty()
+            ? null : response.lastEvaluatedKey();
+    } while (exclusiveStartKey != null);
+
+    Map<String, AttributeValue> item = TherapistFacetItem.key();
+    item.put(TherapistFacetItem.AREA_COUNTS_ATTRIBUTE_NAME, toMap(areaCounts));
+    item.put(TherapistFacetItem.AREA_TYPE_COUNTS_ATTRIBUTE_NAME, toMap(areaTypeCounts));
+    item.put(TherapistFacetItem.SCANNED_AT_ATTRIBUTE_NAME,
+          AttributeValue.builder().n(Long.toString(startedAt.getEpochSecond())).build());
+    dynamodb.putItem(PutItemRequest.builder()
+          .tableName(tableName)
+          .item(item)
+          .conditionExpression(String.format("attribute_not_exists(%s)",
+                TherapistRecord.USER_ID_ATTRIBUTE_NAME))
+          .build());
+    log.info("Counted {} areas of table {} from {}", areaCounts.size(), tableName,
+          startedAt);
+    return startedAt;
+  }
+
+  private static void count(final TherapistRecord record, final long delta,
+                            final Map<String, Long> areaCounts,
+                            final Map<String, Long> areaTypeCounts) {
+    if (record == null || record.getTherapistArea() == null
+          || TherapistRecord.isReservedUserId(record.getUserId())) {
+      return;
+    }
+    areaCounts.merge(record.getTherapistArea(), delta, Long::sum);
+    if (record.getTherapistType() != null) {
+      areaTypeCounts.merge(TherapistFacetItem.areaTypeKey(record.getTherapistArea(),
+            record.getTherapistType()), delta, Long::sum);
+    }
+  }
+
+  private static AttributeValue toMap(final Map<String, Long> counts) {
+    Map<String, AttributeValue> map = new HashMap<>();
+    counts.forEach((key, count) -> map.put(key,
+          AttributeValue.builder().n(Long.toString(count)).build()));
+    return AttributeValue.builder().m(map).build();
+  }
+
+  /**
+   * A change of a therapist from the stream.
+   */
+  @RequiredArgsConstructor
+  public static final class Change {
+    // When the change was made, to the second, as the stream's approximate creation time.
+    private final Instant changedAt;
+    // Null for an insert.
+    private final TherapistRecord oldImage;
+    // Null for a delete.
+    private final TherapistRecord newImage;
+  }
+
+  @RequiredArgsConstructor
+  private static final class Counter {
+    private final String attributeName;
+    private final String key;
+    private final long delta;
+  }
+}
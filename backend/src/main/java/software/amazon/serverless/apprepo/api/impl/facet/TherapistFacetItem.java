@@ -0,0 +1,113 @@
+package software.amazon.serverless.apprepo.api.impl.facet;
+
+import io.swagger.model.TherapistAreaFacet;
+import io.swagger.model.TherapistFacets;
+import io.swagger.model.TherapistTypeFacet;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * The item of the Therapist table that holds the number of therapists per area and per area
+ * and type, maintained by {@link FacetAggregator}.
+ *
+ * <p>The counts are two map attributes: areaCounts by area, and areaTypeCounts by the URL
+ * encoded area and type joined with a "/", so any area and type make a key that splits back
+ * unambiguously. Counts that dropped to zero are kept and skipped when read.
+ */
+public final class TherapistFacetItem {
+  public static final String USER_ID = TherapistRecord.RESERVED_USER_ID_PREFIX + "facets";
+  static final String AREA_COUNTS_ATTRIBUTE_NAME = "areaCounts";
+  static final String AREA_TYPE_COUNTS_ATTRIBUTE_NAME = "areaTypeCounts";
+  // When the Scan that first counted the table started, in epoch seconds.
+  static final String SCANNED_AT_ATTRIBUTE_NAME = "scannedAt";
+  private static final String AREA_TYPE_SEPARATOR = "/";
+  private static final String ENCODING = StandardCharsets.UTF_8.name();
+
+  private TherapistFacetItem() {
+  }
+
+  /**
+   * Build the key of the item.
+   *
+   * @return a map of DynamoDB {@link AttributeValue} with the key attributes.
+   */
+  public static Map<String, AttributeValue> key() {
+    return TherapistRecord.toKeyRecord(USER_ID, USER_ID);
+  }
+
+  /**
+   * Convert the item to the API model.
+   *
+   * @param item          the item, or null or empty when nothing was counted yet.
+   * @param therapistArea only return this area, or null for every area.
+   * @return the areas and their types with at least one therapist, sorted.
+   */
+  public static TherapistFacets toTherapistFacets(final Map<String, AttributeValue> item,
+                                                  final String therapistArea) {
+    SortedMap<String, TherapistAreaFacet> areas = new TreeMap<>();
+    for (Map.Entry<String, Long> count : counts(item, AREA_COUNTS_ATTRIBUTE_NAME).entrySet()) {
+      if (count.getValue() > 0
+            && (therapistArea == null || therapistArea.equals(count.getKey()))) {
+        areas.put(count.getKey(), new TherapistAreaFacet()
+              .therapistArea(count.getKey())
+              .count(count.getValue())
+              .types(new ArrayList<>()));
+      }
+    }
+    // Sorted by encoded key, which keeps the types of an area in a stable order.
+    for (Map.Entry<String, Long> count
+          : counts(item, AREA_TYPE_COUNTS_ATTRIBUTE_NAME).entrySet()) {
+      String[] areaType = count.getKey().split(AREA_TYPE_SEPARATOR, 2);
+      TherapistAreaFacet area = areas.get(decode(areaType[0]));
+      if (count.getValue() > 0 && area != null) {
+        area.getTypes().add(new TherapistTypeFacet()
+              .therapistType(decode(areaType[1]))
+              .count(count.getValue()));
+      }
+    }
+    return new TherapistFacets().areas(new ArrayList<>(areas.values()));
+  }
+
+  static String areaTypeKey(final String therapistArea, final String therapistType) {
+    return encode(therapistArea) + AREA_TYPE_SEPARATOR + encode(therapistType);
+  }
+
+  private static SortedMap<String, Long> counts(final Map<String, AttributeValue> item,
+                                                final String attributeName) {
+    if (item == null || !item.containsKey(attributeName)) {
+      return Collections.emptySortedMap();
+    }
+    SortedMap<String, Long> counts = new TreeMap<>();
+    item.get(attributeName).m().forEach((key, value) ->
+          counts.put(key, Long.parseLong(value.n())));
+    return counts;
+  }
+
+  private static String encode(final String value) {
+    try {
+      return URLEncoder.encode(value, ENCODING);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String decode(final String value) {
+    try {
+      return URLDecoder.decode(value, ENCODING);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
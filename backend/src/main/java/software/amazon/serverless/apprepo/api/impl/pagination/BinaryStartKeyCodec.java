@@ -0,0 +1,171 @@
+package software.amazon.serverless.apprepo.api.impl.pagination;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Encodes DynamoDb's pagination keys (LastEvaluatedKey and ExclusiveStartKey) together with
+ * the token expiry into a compact binary form, without intermediate Json or timestamp strings.
+ *
+ * <p>Layout: version byte, expiry in epoch millis (8 bytes), attribute count (1 byte), then
+ * for each attribute: name length (2 bytes), UTF-8 name, type byte (S, N or B),
+ * value length (2 bytes), value bytes. Only scalar attributes are supported, which
+ * covers every DynamoDb key attribute.
+ */
+public class BinaryStartKeyCodec {
+  static final byte FORMAT_VERSION = 0x02;
+  private static final byte STRING_TYPE = 'S';
+  private static final byte NUMBER_TYPE = 'N';
+  private static final byte BINARY_TYPE = 'B';
+  private static final int HEADER_LENGTH = 1 + Long.BYTES + 1;
+  private static final int MAX_ATTRIBUTES = 0xFF;
+  private static final int MAX_FIELD_LENGTH = 0xFFFF;
+
+  private final Duration ttl;
+  private final Clock clock;
+
+  public BinaryStartKeyCodec(final Duration ttl) {
+    this(ttl, Clock.systemUTC());
+  }
+
+  BinaryStartKeyCodec(final Duration ttl, final Clock clock) {
+    this.ttl = ttl;
+    this.clock = clock;
+  }
+
+  /**
+   * Check whether the plaintext token is in this binary format.
+   *
+   * @param token plaintext token.
+   * @return true if the token starts with the binary format version.
+   */
+  public static boolean isBinaryFormat(final byte[] token) {
+    return token.length > 0 && token[0] == FORMAT_VERSION;
+  }
+
+  /**
+   * Encode the start key with an expiry of now plus ttl.
+   *
+   * @param startKey DynamoDb start key.
+   * @return encoded token.
+   */
+  public byte[] encode(final Map<String, AttributeValue> startKey) {
+    int count = startKey.size();
+    if (count > MAX_ATTRIBUTES) {
+      throw new IllegalArgumentException(String.format(
+            "Start key has %d attributes, at most %d are supported.", count, MAX_ATTRIBUTES));
+    }
+    byte[][] names = new byte[count][];
+    byte[] types = new byte[count];
+    byte[][] values = new byte[count][];
+    int length = HEADER_LENGTH;
+    int i = 0;
+    for (Map.Entry<String, AttributeValue> entry : startKey.entrySet()) {
+      AttributeValue value = entry.getValue();
+      names[i] = checkLength(entry.getKey().getBytes(StandardCharsets.UTF_8));
+      if (value.s() != null) {
+        types[i] = STRING_TYPE;
+        values[i] = value.s().getBytes(StandardCharsets.UTF_8);
+      } else if (value.n() != null) {
+        types[i] = NUMBER_TYPE;
+        values[i] = value.n().getBytes(StandardCharsets.US_ASCII);
+      } else if (value.b() != null) {
+        types[i] = BINARY_TYPE;
+        values[i] = value.b().asByteArray();
+      } else {
+        throw new IllegalArgumentException(String.format(
+              "Attribute %s is not a scalar value.", entry.getKey()));
+      }
+      checkLength(values[i]);
+      length += Short.BYTES + names[i].length + 1 + Short.BYTES + values[i].length;
+      i++;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(length)
+          .put(FORMAT_VERSION)
+          .putLong(Instant.now(clock).plus(ttl).toEpochMilli())
+          .put((byte) count);
+    for (i = 0; i < count; i++) {
+      buffer.putShort((short) names[i].length)
+            .put(names[i])
+            .put(types[i])
+            .putShort((short) values[i].length)
+            .put(values[i]);
+    }
+    return buffer.array();
+  }
+
+  /**
+   * Decode the start key and check that the token has not expired.
+   *
+   * @param token encoded token.
+   * @return DynamoDb start key.
+   * @throws InvalidTokenException when the token is malformed or has expired.
+   */
+  public Map<String, AttributeValue> decode(final byte[] token) throws InvalidTokenException {
+    if (!isBinaryFormat(token)) {
+      throw new InvalidTokenException("Unsupported token format.");
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(token);
+    try {
+      buffer.get();
+      long expiresAt = buffer.getLong();
+      if (expiresAt < clock.millis()) {
+        throw new InvalidTokenException(String.format("Token has expired at %s.",
+              Instant.ofEpochMilli(expiresAt)));
+      }
+      int count = Byte.toUnsignedInt(buffer.get());
+      Map<String, AttributeValue> startKey = new HashMap<>(count * 2);
+      for (int i = 0; i < count; i++) {
+        String name = new String(readField(buffer), StandardCharsets.UTF_8);
+        byte type = buffer.get();
+        byte[] value = readField(buffer);
+        startKey.put(name, toAttributeValue(type, value));
+      }
+      if (buffer.hasRemaining()) {
+        throw new InvalidTokenException("Token has trailing bytes.");
+      }
+      return startKey;
+    } catch (BufferUnderflowException e) {
+      throw new InvalidTokenException("Token is truncated.", e);
+    }
+  }
+
+  private static AttributeValue toAttributeValue(final byte type, final byte[] value)
+        throws InvalidTokenException {
+    switch (type) {
+      case STRING_TYPE:
+        return AttributeValue.builder().s(new String(value, StandardCharsets.UTF_8)).build();
+      case NUMBER_TYPE:
+        return AttributeValue.builder().n(new String(value, StandardCharsets.US_ASCII)).build();
+      case BINARY_TYPE:
+        return AttributeValue.builder().b(SdkBytes.fromByteArray(value)).build();
+      default:
+        throw new InvalidTokenException(String.format("Unknown attribute type %d.", type));
+    }
+  }
+
+  private static byte[] readField(final ByteBuffer buffer) {
+    byte[] field = new byte[Short.toUnsignedInt(buffer.getShort())];
+    buffer.get(field);
+    return field;
+  }
+
+  private static byte[] checkLength(final byte[] field) {
+    if (field.length > MAX_FIELD_LENGTH) {
+      throw new IllegalArgumentException(String.format(
+            "Start key field of %d bytes is longer than %d bytes.", field.length,
+            MAX_FIELD_LENGTH));
+    }
+    return field;
+  }
+}
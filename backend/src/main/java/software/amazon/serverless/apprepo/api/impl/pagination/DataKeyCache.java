@@ -0,0 +1,189 @@
+package software.amazon.serverless.apprepo.api.impl.pagination;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.DataKeySpec;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DecryptResponse;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyRequest;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyResponse;
+import software.amazon.awssdk.services.kms.model.KmsException;
+
+/**
+ * Caches KMS data keys used for envelope encryption of pagination tokens.
+ *
+ * <p>The current data key is generated with KMS GenerateDataKey and reused for encryption
+ * until it is older than the rotation interval. Wrapped data keys read from tokens are
+ * unwrapped with KMS Decrypt once and kept until they expire, so tokens issued by other
+ * containers can be decrypted without a KMS call per request.
+ *
+ * <p>Data keys are generated and unwrapped with the {@link #ENCRYPTION_CONTEXT}, so KMS only
+ * unwraps data keys generated for tokens, and not cipher text KMS encrypted directly, such as
+ * the tokens of {@link EncryptedTokenSerializer} without data keys. Decrypt takes no key id in
+ * this SDK, so the key KMS unwrapped with is checked against the key id instead.
+ * See doc: https://docs.aws.amazon.com/kms/latest/developerguide/concepts.html#enveloping.
+ */
+@Slf4j
+public class DataKeyCache {
+  static final int MAX_UNWRAPPED_DATA_KEYS = 100;
+  static final Map<String, String> ENCRYPTION_CONTEXT =
+        Collections.singletonMap("purpose", "pagination-token-data-key");
+  private static final String DATA_KEY_ALGORITHM = "AES";
+  private static final int DATA_KEY_LENGTH_IN_BYTES = 32;
+
+  private final KmsClient kms;
+  private final String keyId;
+  private final Duration rotationInterval;
+  private final Clock clock;
+  private final Cache<ByteBuffer, SecretKey> unwrappedDataKeys;
+  private volatile DataKey currentDataKey;
+
+  /**
+   * Construct a DataKeyCache.
+   *
+   * @param kms              KmsClient to generate and unwrap data keys.
+   * @param keyId            KMS key id that wraps the data keys.
+   * @param rotationInterval how long a generated data key is used for encryption.
+   * @param expiry           how long an unwrapped data key is kept for decryption.
+   */
+  public DataKeyCache(final KmsClient kms, final String keyId,
+                      final Duration rotationInterval, final Duration expiry) {
+    this(kms, keyId, rotationInterval, expiry, Clock.systemUTC());
+  }
+
+  DataKeyCache(final KmsClient kms, final String keyId, final Duration rotationInterval,
+               final Duration expiry, final Clock clock) {
+    this.kms = kms;
+    this.keyId = keyId;
+    this.rotationInterval = rotationInterval;
+    this.clock = clock;
+    this.unwrappedDataKeys = CacheBuilder.newBuilder()
+          .maximumSize(MAX_UNWRAPPED_DATA_KEYS)
+          .expireAfterWrite(expiry.toMillis(), TimeUnit.MILLISECONDS)
+          .build();
+  }
+
+  /**
+   * Get the data key to encrypt new tokens with. A new data key is generated
+   * once the current one is older than the rotation interval.
+   *
+   * @return the current data key.
+   */
+  public DataKey getEncryptionKey() {
+    DataKey dataKey = currentDataKey;
+    if (dataKey == null || isRotationDue(dataKey)) {
+      synchronized (this) {
+        dataKey = currentDataKey;
+        if (dataKey == null || isRotationDue(dataKey)) {
+          dataKey = generateDataKey();
+          currentDataKey = dataKey;
+        }
+      }
+    }
+    return dataKey;
+  }
+
+  /**
+   * Get the plaintext data key for a wrapped data key read from a token.
+   *
+   * @param wrappedKey the KMS encrypted data key.
+   * @return the plaintext data key.
+   * @throws InvalidTokenException when the wrapped key is not a data key of the KMS key.
+   */
+  public SecretKey getDecryptionKey(final byte[] wrappedKey) throws InvalidTokenException {
+    try {
+      return unwrappedDataKeys.get(ByteBuffer.wrap(wrappedKey), () -> unwrap(wrappedKey));
+    } catch (UncheckedExecutionException | ExecutionException e) {
+      if (e.getCause() instanceof InvalidTokenException) {
+        throw (InvalidTokenException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to decrypt data key in token.", e.getCause());
+    }
+  }
+
+  /**
+   * Whether KMS rejected a request because of the cipher text it was given, rather than
+   * because it throttled or failed.
+   *
+   * @param e the exception KMS returned.
+   * @return true when the cipher text is at fault.
+   */
+  static boolean isRejectedCipherText(final KmsException e) {
+    return e.statusCode() < 500 && !e.isThrottlingException();
+  }
+
+  private boolean isRotationDue(final DataKey dataKey) {
+    return dataKey.getCreatedAt().plus(rotationInterval).isBefore(Instant.now(clock));
+  }
+
+  private DataKey generateDataKey() {
+    log.info("Generating pagination data key with KMS key {}", keyId);
+    GenerateDataKeyResponse response = kms.generateDataKey(GenerateDataKeyRequest.builder()
+          .keyId(keyId)
+          .keySpec(DataKeySpec.AES_256)
+          .encryptionContext(ENCRYPTION_CONTEXT)
+          .build());
+    byte[] wrappedKey = response.ciphertextBlob().asByteArray();
+    SecretKey key = new SecretKeySpec(response.plaintext().asByteArray(), DATA_KEY_ALGORITHM);
+    // Tokens encrypted in this container can be decrypted without unwrapping the key again.
+    unwrappedDataKeys.put(ByteBuffer.wrap(wrappedKey), key);
+    return new DataKey(key, wrappedKey, Instant.now(clock));
+  }
+
+  private SecretKey unwrap(final byte[] wrappedKey) throws InvalidTokenException {
+    DecryptResponse response;
+    try {
+      response = kms.decrypt(DecryptRequest.builder()
+            .ciphertextBlob(SdkBytes.fromByteArray(wrappedKey))
+            .encryptionContext(ENCRYPTION_CONTEXT)
+            .build());
+    } catch (KmsException e) {
+      if (isRejectedCipherText(e)) {
+        throw new InvalidTokenException("Failed to decrypt data key in token.", e);
+      }
+      throw e;
+    }
+    if (!isKey(response.keyId())) {
+      throw new InvalidTokenException("Data key in token is not wrapped with the KMS key.");
+    }
+    byte[] plaintext = response.plaintext().asByteArray();
+    if (plaintext.length != DATA_KEY_LENGTH_IN_BYTES) {
+      throw new InvalidTokenException("Data key in token is not an AES-256 key.");
+    }
+    return new SecretKeySpec(plaintext, DATA_KEY_ALGORITHM);
+  }
+
+  // KMS returns the key ARN, which ends with the key id.
+  private boolean isKey(final String keyArn) {
+    return keyArn != null && (keyArn.equals(keyId) || keyArn.endsWith("/" + keyId));
+  }
+
+  /**
+   * A plaintext data key together with its KMS encrypted form.
+   */
+  @Value
+  public static class DataKey {
+    private final SecretKey key;
+    private final byte[] wrappedKey;
+    private final Instant createdAt;
+  }
+}
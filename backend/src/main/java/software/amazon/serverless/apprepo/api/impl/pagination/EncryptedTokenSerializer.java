@@ -1,62 +1,197 @@
 package software.amazon.serverless.apprepo.api.impl.pagination;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
 import java.util.Base64;
 
-import lombok.RequiredArgsConstructor;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
 import org.apache.commons.lang3.StringUtils;
 import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.kms.KmsClient;
 import software.amazon.awssdk.services.kms.model.DecryptRequest;
 import software.amazon.awssdk.services.kms.model.EncryptRequest;
-import software.amazon.awssdk.services.kms.model.InvalidCiphertextException;
+import software.amazon.awssdk.services.kms.model.KmsException;
 
 /**
  * Implementation of {@link TokenSerializer} that encrypts and decrypts the token
  * using KMS as well as encode and decode the token using Base64.
  *
- * <p>Note, this class uses KMS to encrypt and decrypt directly. KMS encrypt only allows plain text
- * that is smaller than 4096 bytes. If your plain text is larger than 4096 bytes, use envelope
- * encryption with KMS instead. See doc: https://docs.aws.amazon.com/kms/latest/developerguide/concepts.html#enveloping.
+ * <p>By default this class uses KMS to encrypt and decrypt directly. KMS encrypt only allows
+ * plain text that is smaller than 4096 bytes and costs a KMS call per token. When constructed
+ * with a {@link DataKeyCache}, tokens are envelope encrypted instead: they are encrypted locally
+ * with AES-GCM using a cached data key, and the KMS wrapped data key is embedded in the token so
+ * any container can decrypt it. See doc: https://docs.aws.amazon.com/kms/latest/developerguide/concepts.html#enveloping.
+ *
+ * <p>Envelope token layout: version byte, wrapped key length (2 bytes), wrapped key,
+ * IV (12 bytes), AES-GCM cipher text with tag. Tokens encrypted by KMS directly are
+ * still accepted in both modes. A token that is not one the service issued is an
+ * {@link InvalidTokenException}, whichever part of it fails to decrypt.
  */
-@RequiredArgsConstructor
 public class EncryptedTokenSerializer implements TokenSerializer<String> {
+  // KMS cipher text blobs start with a 0x01 version byte, so this never matches a KMS token.
+  static final byte ENVELOPE_TOKEN_VERSION = (byte) 0xE1;
   private static final Charset DEFAULT_ENCODING = StandardCharsets.UTF_8;
+  private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+  private static final int IV_LENGTH_IN_BYTES = 12;
+  private static final int TAG_LENGTH_IN_BITS = 128;
+  private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
   private final KmsClient kms;
   private final String keyId;
+  private final DataKeyCache dataKeyCache;
+
+  /**
+   * Construct an EncryptedTokenSerializer that encrypts tokens with KMS directly.
+   *
+   * @param kms   KmsClient for token encryption and decryption.
+   * @param keyId KMS key id.
+   */
+  public EncryptedTokenSerializer(final KmsClient kms, final String keyId) {
+    this(kms, keyId, null);
+  }
+
+  /**
+   * Construct an EncryptedTokenSerializer that envelope encrypts tokens.
+   *
+   * @param kms          KmsClient to decrypt tokens encrypted by KMS directly.
+   * @param keyId        KMS key id.
+   * @param dataKeyCache cache of data keys for envelope encryption.
+   */
+  public EncryptedTokenSerializer(final KmsClient kms, final String keyId,
+                                  final DataKeyCache dataKeyCache) {
+    this.kms = kms;
+    this.keyId = keyId;
+    this.dataKeyCache = dataKeyCache;
+  }
 
   @Override
   public String deserialize(final String encodedStartKey) throws InvalidTokenException {
-    try {
-      return kms.decrypt(DecryptRequest.builder()
-            .ciphertextBlob(SdkBytes.fromByteArray(base64Decode(encodedStartKey)))
-            .build())
-            .plaintext()
-            .asUtf8String();
-    } catch (InvalidCiphertextException e) {
-      throw new InvalidTokenException("Failed to decrypt token:" + encodedStartKey, e);
-    }
+    return new String(decrypt(base64Decode(encodedStartKey)), DEFAULT_ENCODING);
   }
 
   @Override
   public String serialize(final String startKey) {
-    byte[] plainText = startKey.getBytes(DEFAULT_ENCODING);
-    byte[] cipherText = kms.encrypt(EncryptRequest.builder()
+    return base64Encode(encrypt(startKey.getBytes(DEFAULT_ENCODING)));
+  }
+
+  /**
+   * Encrypt a plaintext token.
+   *
+   * @param plainText plaintext token.
+   * @return cipher text.
+   */
+  public byte[] encrypt(final byte[] plainText) {
+    if (dataKeyCache != null) {
+      return envelopeEncrypt(plainText);
+    }
+    return kms.encrypt(EncryptRequest.builder()
           .plaintext(SdkBytes.fromByteArray(plainText))
           .keyId(keyId)
           .build())
           .ciphertextBlob()
           .asByteArray();
-    return base64Encode(cipherText);
   }
 
-  private String base64Encode(final byte[] token) {
+  /**
+   * Decrypt a cipher text token, whether it is envelope encrypted or encrypted by KMS directly.
+   *
+   * @param cipherText cipher text.
+   * @return plaintext token.
+   * @throws InvalidTokenException when the token can not be decrypted.
+   */
+  public byte[] decrypt(final byte[] cipherText) throws InvalidTokenException {
+    if (cipherText.length > 0 && cipherText[0] == ENVELOPE_TOKEN_VERSION) {
+      return envelopeDecrypt(cipherText);
+    }
+    try {
+      return kms.decrypt(DecryptRequest.builder()
+            .ciphertextBlob(SdkBytes.fromByteArray(cipherText))
+            .build())
+            .plaintext()
+            .asByteArray();
+    } catch (KmsException e) {
+      if (DataKeyCache.isRejectedCipherText(e)) {
+        throw new InvalidTokenException("Failed to decrypt token.", e);
+      }
+      throw e;
+    }
+  }
+
+  private byte[] envelopeEncrypt(final byte[] plainText) {
+    DataKeyCache.DataKey dataKey = dataKeyCache.getEncryptionKey();
+    byte[] wrappedKey = dataKey.getWrappedKey();
+    byte[] iv = new byte[IV_LENGTH_IN_BYTES];
+    SECURE_RANDOM.nextBytes(iv);
+    int headerLength = 1 + Short.BYTES + wrappedKey.length;
+    try {
+      Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+      cipher.init(Cipher.ENCRYPT_MODE, dataKey.getKey(),
+            new GCMParameterSpec(TAG_LENGTH_IN_BITS, iv));
+      ByteBuffer token = ByteBuffer.allocate(headerLength + IV_LENGTH_IN_BYTES
+            + cipher.getOutputSize(plainText.length));
+      token.put(ENVELOPE_TOKEN_VERSION)
+            .putShort((short) wrappedKey.length)
+            .put(wrappedKey);
+      // Bind the header to the cipher text so the wrapped key can not be swapped.
+      cipher.updateAAD(token.array(), 0, headerLength);
+      token.put(iv);
+      cipher.doFinal(ByteBuffer.wrap(plainText), token);
+      return token.array();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to encrypt token.", e);
+    }
+  }
+
+  private byte[] envelopeDecrypt(final byte[] cipherText) throws InvalidTokenException {
+    if (dataKeyCache == null) {
+      throw new InvalidTokenException("Envelope encrypted tokens are not supported.");
+    }
+    ByteBuffer token = ByteBuffer.wrap(cipherText);
+    byte[] wrappedKey;
+    byte[] iv = new byte[IV_LENGTH_IN_BYTES];
+    try {
+      token.get();
+      wrappedKey = new byte[Short.toUnsignedInt(token.getShort())];
+      token.get(wrappedKey);
+      token.get(iv);
+    } catch (BufferUnderflowException e) {
+      throw new InvalidTokenException("Envelope encrypted token is truncated.", e);
+    }
+    int headerLength = 1 + Short.BYTES + wrappedKey.length;
+    SecretKey key = dataKeyCache.getDecryptionKey(wrappedKey);
+    Cipher cipher;
+    try {
+      cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to decrypt token.", e);
+    }
+    try {
+      cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_IN_BITS, iv));
+      cipher.updateAAD(cipherText, 0, headerLength);
+      return cipher.doFinal(cipherText, token.position(), token.remaining());
+    } catch (AEADBadTagException | InvalidKeyException | InvalidAlgorithmParameterException e) {
+      throw new InvalidTokenException("Failed to decrypt envelope encrypted token.", e);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to decrypt token.", e);
+    }
+  }
+
+  static String base64Encode(final byte[] token) {
     // Using UrlEncoder to avoid url unfriendly character in next token.
     return new String(Base64.getUrlEncoder().encode(token), DEFAULT_ENCODING);
   }
 
-  private byte[] base64Decode(final String encodedToken) throws InvalidTokenException {
+  static byte[] base64Decode(final String encodedToken) throws InvalidTokenException {
     if (StringUtils.isBlank(encodedToken)) {
       throw new InvalidTokenException("The token is blank.");
     }
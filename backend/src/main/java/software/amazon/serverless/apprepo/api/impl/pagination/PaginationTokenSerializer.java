@@ -1,5 +1,7 @@
 package software.amazon.serverless.apprepo.api.impl.pagination;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
 
 import javax.inject.Inject;
@@ -13,20 +15,27 @@ import software.amazon.serverless.apprepo.container.config.ConfigProvider;
  * Implementation of {@link TokenSerializer} to serialize/deserialize
  * pagination token for List APIs.
  *
- * <p>It chians {@link DynamoDbStartKeySerializer}, {@link TimeBasedTokenSerializer}
- * and {@link EncryptedTokenSerializer} to serialize/deserialize a DynamoDb start key
- * to a String token that is URL friendly.
+ * <p>It chains {@link BinaryStartKeyCodec} and {@link EncryptedTokenSerializer} to
+ * serialize/deserialize a DynamoDb start key to a String token that is URL friendly.
  *
  * <p>Serialize flow:
- * DynamoDb start key -> Json string -> Json String with TTL -> base64 encoded cipher text (Token)
+ * DynamoDb start key -> binary start key with expiry -> base64 encoded cipher text (Token)
  *
  * <p>Deserialize flow:
- * Token -> Base64 decoded plaintext -> Json String with TTL -> Json String -> DynamoDb start key
+ * Token -> Base64 decoded plaintext -> binary start key with expiry -> DynamoDb start key
+ *
+ * <p>Tokens issued before the binary format are told apart by the plaintext version byte
+ * and still deserialized through {@link TimeBasedTokenSerializer} and
+ * {@link DynamoDbStartKeySerializer}.
+ *
+ * <p>Tokens are envelope encrypted with a cached KMS data key, so KMS is only called when
+ * the data key rotates or a token wrapped by another container's data key is first seen.
  */
 public class PaginationTokenSerializer implements TokenSerializer<Map<String, AttributeValue>> {
+  private final BinaryStartKeyCodec binaryStartKeyCodec;
   private final TokenSerializer<Map<String, AttributeValue>> dynamoDbStartKeySerializer;
   private final TokenSerializer<String> timeBasedTokenSerializer;
-  private final TokenSerializer<String> encryptedTokenSerializer;
+  private final EncryptedTokenSerializer encryptedTokenSerializer;
 
   /**
    * Construct PaginationTokenSerializer from KmsClient and ConfigProvider.
@@ -36,25 +45,34 @@ public class PaginationTokenSerializer implements TokenSerializer<Map<String, At
    */
   @Inject
   public PaginationTokenSerializer(final KmsClient kms, final ConfigProvider configProvider) {
+    this.binaryStartKeyCodec = new BinaryStartKeyCodec(configProvider.getPaginationTokenTtl());
     this.dynamoDbStartKeySerializer = new DynamoDbStartKeySerializer();
     this.timeBasedTokenSerializer = new TimeBasedTokenSerializer(
           configProvider.getPaginationTokenTtl());
+    Duration rotationInterval = configProvider.getPaginationDataKeyRotationInterval();
+    // Keep unwrapped data keys for as long as tokens encrypted with them can still be valid.
+    DataKeyCache dataKeyCache = new DataKeyCache(kms, configProvider.getKmsKeyId(),
+          rotationInterval, rotationInterval.plus(configProvider.getPaginationTokenTtl()));
     this.encryptedTokenSerializer = new EncryptedTokenSerializer(
-          kms, configProvider.getKmsKeyId());
+          kms, configProvider.getKmsKeyId(), dataKeyCache);
   }
 
   @Override
   public Map<String, AttributeValue> deserialize(final String token)
         throws InvalidTokenException {
-    String plaintext = encryptedTokenSerializer.deserialize(token);
-    String json = timeBasedTokenSerializer.deserialize(plaintext);
+    byte[] plaintext = encryptedTokenSerializer.decrypt(
+          EncryptedTokenSerializer.base64Decode(token));
+    if (BinaryStartKeyCodec.isBinaryFormat(plaintext)) {
+      return binaryStartKeyCodec.decode(plaintext);
+    }
+    String json = timeBasedTokenSerializer.deserialize(
+          new String(plaintext, StandardCharsets.UTF_8));
     return dynamoDbStartKeySerializer.deserialize(json);
   }
 
   @Override
   public String serialize(final Map<String, AttributeValue> startKey) {
-    String json = dynamoDbStartKeySerializer.serialize(startKey);
-    String jsonWithTtl = timeBasedTokenSerializer.serialize(json);
-    return encryptedTokenSerializer.serialize(jsonWithTtl);
+    byte[] plaintext = binaryStartKeyCodec.encode(startKey);
+    return EncryptedTokenSerializer.base64Encode(encryptedTokenSerializer.encrypt(plaintext));
   }
 }
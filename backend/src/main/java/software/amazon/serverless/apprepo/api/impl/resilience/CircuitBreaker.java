@@ -0,0 +1,138 @@
+package software.amazon.serverless.apprepo.api.impl.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Count based circuit breaker.
+ *
+ * <p>While closed, the outcomes of the calls are counted in fixed windows. Once a window has
+ * seen enough calls and the share of failures reaches the threshold, the breaker opens and
+ * rejects every call for the open duration. After that it is half open and lets a single
+ * probe through: its success closes the breaker, its failure opens it again.
+ */
+@Slf4j
+public class CircuitBreaker {
+  private static final int MINIMUM_CALLS = 10;
+  private static final Duration WINDOW = Duration.ofSeconds(10);
+
+  private enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final String name;
+  private final double failureRateThreshold;
+  private final Duration openDuration;
+  private final Clock clock;
+  private State state = State.CLOSED;
+  private Instant windowStart;
+  private int calls;
+  private int failures;
+  private Instant openedAt;
+  private boolean probeInFlight;
+
+  /**
+   * Construct a closed CircuitBreaker.
+   *
+   * @param name                 name used in the logs.
+   * @param failureRateThreshold share of failed calls that opens the breaker.
+   * @param openDuration         how long the breaker stays open.
+   * @param clock                clock of the windows and the open duration.
+   */
+  public CircuitBreaker(final String name, final double failureRateThreshold,
+                        final Duration openDuration, final Clock clock) {
+    this.name = name;
+    this.failureRateThreshold = failureRateThreshold;
+    this.openDuration = openDuration;
+    this.clock = clock;
+    this.windowStart = clock.instant();
+  }
+
+  /**
+   * Ask whether a call may be made. Every permitted call must be followed by
+   * {@link #onSuccess()} or {@link #onFailure()}.
+   *
+   * @return false when the breaker is open, or half open with its probe in flight.
+   */
+  public synchronized boolean tryAcquirePermission() {
+    Instant now = clock.instant();
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (now.isBefore(openedAt.plus(openDuration))) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+        probeInFlight = true;
+        return true;
+      default:
+        if (probeInFlight) {
+          return false;
+        }
+        probeInFlight = true;
+        return true;
+    }
+  }
+
+  /**
+   * Record a call that the service answered, including errors that are the caller's fault.
+   */
+  public synchronized void onSuccess() {
+    if (state == State.HALF_OPEN) {
+      log.info("Circuit breaker {} closed", name);
+      state = State.CLOSED;
+      probeInFlight = false;
+      resetWindow(clock.instant());
+      return;
+    }
+    count(false);
+  }
+
+  /**
+   * Record a call that failed because the service was unavailable, throttled or timed out.
+   */
+  public synchronized void onFailure() {
+    if (state == State.HALF_OPEN) {
+      open();
+      return;
+    }
+    if (state == State.CLOSED && count(true)) {
+      open();
+    }
+  }
+
+  public synchronized boolean isOpen() {
+    return state == State.OPEN;
+  }
+
+  private boolean count(final boolean failure) {
+    Instant now = clock.instant();
+    if (!now.isBefore(windowStart.plus(WINDOW))) {
+      resetWindow(now);
+    }
+    calls++;
+    if (failure) {
+      failures++;
+    }
+    return calls >= MINIMUM_CALLS && failures >= failureRateThreshold * calls;
+  }
+
+  private void open() {
+    log.warn("Circuit breaker {} opened for {} after {} failures in {} calls", name,
+          openDuration, failures, calls);
+    state = State.OPEN;
+    openedAt = clock.instant();
+    probeInFlight = false;
+    resetWindow(openedAt);
+  }
+
+  private void resetWindow(final Instant now) {
+    windowStart = now;
+    calls = 0;
+    failures = 0;
+  }
+}
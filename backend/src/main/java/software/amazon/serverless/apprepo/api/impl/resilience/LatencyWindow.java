@@ -0,0 +1,55 @@
+package software.amazon.serverless.apprepo.api.impl.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The most recent latencies of a call, to derive its percentiles from.
+ */
+public class LatencyWindow {
+  private static final int MINIMUM_SAMPLES = 20;
+
+  private final long[] samples;
+  private int next;
+  private int size;
+
+  /**
+   * Construct an empty LatencyWindow.
+   *
+   * @param capacity number of recent latencies kept.
+   */
+  public LatencyWindow(final int capacity) {
+    this.samples = new long[capacity];
+  }
+
+  /**
+   * Record a latency.
+   *
+   * @param nanos the latency in nanoseconds.
+   */
+  public synchronized void record(final long nanos) {
+    samples[next] = nanos;
+    next = (next + 1) % samples.length;
+    size = Math.min(size + 1, samples.length);
+  }
+
+  /**
+   * Get a percentile of the recorded latencies.
+   *
+   * @param percentile the percentile between 0 and 1, e.g. 0.95.
+   * @return the latency, or empty while too few latencies are recorded to tell.
+   */
+  public Optional<Duration> percentile(final double percentile) {
+    long[] sorted;
+    synchronized (this) {
+      if (size < MINIMUM_SAMPLES) {
+        return Optional.empty();
+      }
+      sorted = Arrays.copyOf(samples, size);
+    }
+    Arrays.sort(sorted);
+    int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+    return Optional.of(Duration.ofNanos(sorted[Math.max(0, index)]));
+  }
+}
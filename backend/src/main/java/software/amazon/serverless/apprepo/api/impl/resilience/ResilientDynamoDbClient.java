@@ -0,0 +1,273 @@
+package software.amazon.serverless.apprepo.api.impl.resilience;
+
+import io.swagger.model.TooManyRequestsException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import software.amazon.serverless.apprepo.api.exception.TooManyRequestsApiException;
+import software.amazon.serverless.apprepo.api.impl.DelegatingDynamoDbClient;
+import software.amazon.serverless.apprepo.api.impl.batch.Backoff;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+
+/**
+ * {@link DynamoDbClient} decorator that retries within a {@link RetryBudget}, fails fast with
+ * {@link TooManyRequestsApiException} while its {@link CircuitBreaker} is open, and optionally
+ * hedges GetItem requests.
+ *
+ * <p>The wrapped client must not retry itself. An attempt fails when DynamoDB throttles, times
+ * out, returns a 5xx or can not be reached; those attempts are retried with jittered backoff
+ * until the attempts or the budget run out, and count against the circuit breaker. Any other
+ * error is the caller's, e.g. a failed condition, and is thrown at once.
+ *
+ * <p>A hedged GetItem sends a second request when the first has not returned after the p95
+ * latency of recent GetItem calls, and returns whichever succeeds first. Hedges are paid from
+ * the retry budget, so they stop when DynamoDB is struggling.
+ */
+@Slf4j
+public class ResilientDynamoDbClient extends DelegatingDynamoDbClient {
+  private static final Backoff RETRY_BACKOFF = new Backoff(Duration.ofMillis(25),
+        Duration.ofSeconds(1));
+  private static final double HEDGE_PERCENTILE = 0.95;
+  private static final Duration MIN_HEDGE_DELAY = Duration.ofMillis(5);
+  private static final int LATENCY_SAMPLES = 256;
+
+  private final ExecutorService executor;
+  private final int maxAttempts;
+  private final RetryBudget retryBudget;
+  private final CircuitBreaker circuitBreaker;
+  private final boolean hedgedReadEnabled;
+  private final LatencyWindow getItemLatency = new LatencyWindow(LATENCY_SAMPLES);
+
+  /**
+   * Construct ResilientDynamoDbClient.
+   *
+   * @param delegate       DynamoDbClient without retries.
+   * @param configProvider ConfigProvider to provide configuration values.
+   * @param executor       executor hedged GetItem requests run on.
+   */
+  public ResilientDynamoDbClient(final DynamoDbClient delegate,
+                                 final ConfigProvider configProvider,
+                                 final ExecutorService executor) {
+    this(delegate, executor, configProvider.getDynamoDbMaxAttempts(),
+          new RetryBudget(configProvider.getDynamoDbRetryBudget()),
+          new CircuitBreaker("DynamoDB", configProvider.getDynamoDbCircuitBreakerFailureRate(),
+                configProvider.getDynamoDbCircuitBreakerOpenDuration(), Clock.systemUTC()),
+          configProvider.isDynamoDbHedgedReadEnabled());
+  }
+
+  ResilientDynamoDbClient(final DynamoDbClient delegate, final ExecutorService executor,
+                          final int maxAttempts, final RetryBudget retryBudget,
+                          final CircuitBreaker circuitBreaker, final boolean hedgedReadEnabled) {
+    super(delegate);
+    this.executor = executor;
+    this.maxAttempts = maxAttempts;
+    this.retryBudget = retryBudget;
+    this.circuitBreaker = circuitBreaker;
+    this.hedgedReadEnabled = hedgedReadEnabled;
+  }
+
+  @Override
+  public GetItemResponse getItem(final GetItemRequest request) {
+    if (!hedgedReadEnabled) {
+      return call(() -> delegate.getItem(request));
+    }
+    return hedged(() -> {
+      long start = System.nanoTime();
+      GetItemResponse response = call(() -> delegate.getItem(request));
+      getItemLatency.record(System.nanoTime() - start);
+      return response;
+    });
+  }
+
+  @Override
+  public PutItemResponse putItem(final PutItemRequest request) {
+    return call(() -> delegate.putItem(request));
+  }
+
+  @Override
+  public UpdateItemResponse updateItem(final UpdateItemRequest request) {
+    return call(() -> delegate.updateItem(request));
+  }
+
+  @Override
+  public DeleteItemResponse deleteItem(final DeleteItemRequest request) {
+    return call(() -> delegate.deleteItem(request));
+  }
+
+  @Override
+  public QueryResponse query(final QueryRequest request) {
+    return call(() -> delegate.query(request));
+  }
+
+  @Override
+  public BatchGetItemResponse batchGetItem(final BatchGetItemRequest request) {
+    return call(() -> delegate.batchGetItem(request));
+  }
+
+  @Override
+  public BatchWriteItemResponse batchWriteItem(final BatchWriteItemRequest request) {
+    return call(() -> delegate.batchWriteItem(request));
+  }
+
+  @Override
+  public ScanResponse scan(final ScanRequest request) {
+    return call(() -> delegate.scan(request));
+  }
+
+  @Override
+  public TransactGetItemsResponse transactGetItems(final TransactGetItemsRequest request) {
+    return call(() -> delegate.transactGetItems(request));
+  }
+
+  @Override
+  public TransactWriteItemsResponse transactWriteItems(final TransactWriteItemsRequest request) {
+    // The token makes a retry of a transaction that did commit succeed without writing again.
+    TransactWriteItemsRequest idempotent = request.clientRequestToken() != null ? request
+          : request.toBuilder().clientRequestToken(UUID.randomUUID().toString()).build();
+    return call(() -> delegate.transactWriteItems(idempotent));
+  }
+
+  private <T> T call(final Supplier<T> attempt) {
+    for (int attempts = 1; ; attempts++) {
+      if (!circuitBreaker.tryAcquirePermission()) {
+        throw new TooManyRequestsApiException(new TooManyRequestsException()
+              .errorCode("ServiceUnavailable")
+              .message("The therapist store is unavailable. Retry later."));
+      }
+      SdkException failure;
+      try {
+        T response = attempt.get();
+        circuitBreaker.onSuccess();
+        retryBudget.onSuccess();
+        return response;
+      } catch (SdkException e) {
+        if (!isRetryable(e)) {
+          circuitBreaker.onSuccess();
+          throw e;
+        }
+        circuitBreaker.onFailure();
+        failure = e;
+      } catch (RuntimeException e) {
+        // Not a DynamoDB error; only the permission has to be given back.
+        circuitBreaker.onSuccess();
+        throw e;
+      }
+      if (attempts >= maxAttempts
+            || !retryBudget.tryAcquire(failure instanceof ApiCallAttemptTimeoutException)) {
+        throw failure;
+      }
+      log.info("Retrying DynamoDB call after attempt {} failed", attempts, failure);
+      try {
+        RETRY_BACKOFF.sleep(attempts - 1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw failure;
+      }
+    }
+  }
+
+  private <T> T hedged(final Supplier<T> call) {
+    CompletableFuture<T> primary = CompletableFuture.supplyAsync(call, executor);
+    Duration delay = getItemLatency.percentile(HEDGE_PERCENTILE)
+          .map(p95 -> p95.compareTo(MIN_HEDGE_DELAY) < 0 ? MIN_HEDGE_DELAY : p95)
+          .orElse(null);
+    if (delay == null) {
+      return join(primary);
+    }
+    try {
+      return primary.get(delay.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      // Fall through to the hedge.
+    } catch (ExecutionException e) {
+      throw unwrap(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw SdkClientException.create("Interrupted while waiting for GetItem", e);
+    }
+    if (circuitBreaker.isOpen() || !retryBudget.tryAcquire(false)) {
+      return join(primary);
+    }
+    log.info("Hedging GetItem after {}", delay);
+    return join(firstSuccessful(primary, CompletableFuture.supplyAsync(call, executor)));
+  }
+
+  private static <T> CompletableFuture<T> firstSuccessful(final CompletableFuture<T> first,
+                                                          final CompletableFuture<T> second) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    AtomicInteger failures = new AtomicInteger();
+    first.whenComplete((value, error) -> complete(result, failures, value, error));
+    second.whenComplete((value, error) -> complete(result, failures, value, error));
+    return result;
+  }
+
+  private static <T> void complete(final CompletableFuture<T> result,
+                                   final AtomicInteger failures, final T value,
+                                   final Throwable error) {
+    if (error == null) {
+      result.complete(value);
+    } else if (failures.incrementAndGet() == 2) {
+      result.completeExceptionally(error);
+    }
+  }
+
+  private static <T> T join(final CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      throw unwrap(e.getCause());
+    }
+  }
+
+  private static RuntimeException unwrap(final Throwable throwable) {
+    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+          ? throwable.getCause() : throwable;
+    return cause instanceof RuntimeException ? (RuntimeException) cause
+          : SdkClientException.create("GetItem failed", cause);
+  }
+
+  private static boolean isRetryable(final SdkException e) {
+    if (e instanceof AwsServiceException) {
+      AwsServiceException serviceException = (AwsServiceException) e;
+      return serviceException.isThrottlingException() || serviceException.statusCode() >= 500;
+    }
+    return e instanceof SdkClientException;
+  }
+}
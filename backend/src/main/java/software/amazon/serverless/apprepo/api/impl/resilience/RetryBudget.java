@@ -0,0 +1,53 @@
+package software.amazon.serverless.apprepo.api.impl.resilience;
+
+/**
+ * Token bucket that bounds the retries of a container.
+ *
+ * <p>Every retry or hedged request takes tokens and every successful call returns one, so
+ * while calls mostly succeed retries are free, and during an outage the retries stop once the
+ * budget is spent instead of multiplying the load on the struggling service.
+ */
+public class RetryBudget {
+  static final int RETRY_COST = 5;
+  static final int TIMEOUT_RETRY_COST = 10;
+  static final int SUCCESS_REFUND = 1;
+
+  private final int capacity;
+  private int tokens;
+
+  /**
+   * Construct a full RetryBudget.
+   *
+   * @param capacity maximum number of tokens.
+   */
+  public RetryBudget(final int capacity) {
+    this.capacity = capacity;
+    this.tokens = capacity;
+  }
+
+  /**
+   * Take the tokens of a retry.
+   *
+   * @param afterTimeout whether the failed attempt timed out, which makes the retry cost more.
+   * @return false when the budget can not pay for the retry.
+   */
+  public synchronized boolean tryAcquire(final boolean afterTimeout) {
+    int cost = afterTimeout ? TIMEOUT_RETRY_COST : RETRY_COST;
+    if (tokens < cost) {
+      return false;
+    }
+    tokens -= cost;
+    return true;
+  }
+
+  /**
+   * Return a token after a successful call.
+   */
+  public synchronized void onSuccess() {
+    tokens = Math.min(capacity, tokens + SUCCESS_REFUND);
+  }
+
+  public synchronized int getTokens() {
+    return tokens;
+  }
+}
@@ -0,0 +1,268 @@
+package software.amazon.serverless.apprepo.api.impl.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.RequiredArgsConstructor;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Inverted index over the terms of therapist names, searched in the container without calling
+ * DynamoDB.
+ *
+ * <p>The index is a list of immutable {@link NameIndexSegment}s, a large base segment and the
+ * small delta segments written since, newest first. A therapist in a newer segment hides its
+ * older versions, and a tombstone hides a deleted one. The list is replaced as a whole by
+ * {@link #swap}, so a search sees either the old or the new segments, never a mix.
+ *
+ * <p>Every term of a query must match a term of the name. A term matches exactly, the last
+ * term also as a prefix, as the client is probably still typing it, and a term of
+ * {@value #MIN_FUZZY_LENGTH} or more characters that matches neither way matches the terms one
+ * edit away, a deletion, insertion, substitution or transposition of adjacent characters.
+ * Results are ranked by how they matched, then by name. A prefix is expanded to every term it
+ * starts, unless those terms hold more than {@value #MAX_PREFIX_DOCS} therapists of a segment;
+ * then only the terms first in byte order up to that many therapists are.
+ */
+public class NameIndex {
+  static final int MIN_PREFIX_LENGTH = 2;
+  static final int MIN_FUZZY_LENGTH = 4;
+  // Bounds the work of a short prefix, e.g. "jo", on a large index.
+  static final int MAX_PREFIX_DOCS = 10000;
+  // Typos are only corrected within the characters names are tokenized to in practice.
+  private static final char[] FUZZY_ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789"
+        .toCharArray();
+  private static final int EXACT_SCORE = 3;
+  private static final int PREFIX_SCORE = 2;
+  private static final int FUZZY_SCORE = 1;
+
+  private volatile List<NameIndexSegment> segments = null;
+
+  /**
+   * Replace the segments of the index.
+   *
+   * @param newestFirst the segments, newest first.
+   */
+  public void swap(final List<NameIndexSegment> newestFirst) {
+    segments = Collections.unmodifiableList(new ArrayList<>(newestFirst));
+  }
+
+  /**
+   * Whether the index has been loaded at least once.
+   *
+   * @return true if searches are served.
+   */
+  public boolean isLoaded() {
+    return segments != null;
+  }
+
+  /**
+   * Search therapists by name.
+   *
+   * @param name          the name query.
+   * @param therapistArea only return therapists in this area, or null for any area.
+   * @param therapistType only return therapists of this type, or null for any type.
+   * @param limit         maximum number of therapists to return.
+   * @return the best matching therapists, best first.
+   */
+  public List<TherapistRecord> search(final String name, final String therapistArea,
+                                      final String therapistType, final int limit) {
+    List<NameIndexSegment> current = segments;
+    List<String> terms = new ArrayList<>(new LinkedHashSet<>(NameTokenizer.tokenize(name)));
+    if (current == null || terms.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<Hit> hits = new ArrayList<>();
+    for (int s = 0; s < current.size(); s++) {
+      NameIndexSegment segment = current.get(s);
+      Map<Integer, Integer> scores = match(segment, terms);
+      for (Map.Entry<Integer, Integer> match : scores.entrySet()) {
+        int ordinal = match.getKey();
+        if (segment.isDeleted(ordinal) || isShadowed(current, s, segment.therapistId(ordinal))) {
+          continue;
+        }
+        TherapistRecord record = segment.record(ordinal);
+        if ((therapistArea == null || therapistArea.equals(record.getTherapistArea()))
+              && (therapistType == null || therapistType.equals(record.getTherapistType()))) {
+          hits.add(new Hit(record, match.getValue()));
+        }
+      }
+    }
+
+    hits.sort(Comparator.comparingInt((Hit hit) -> -hit.score)
+          .thenComparing(hit -> String.valueOf(hit.record.getTherapistName()),
+                String.CASE_INSENSITIVE_ORDER)
+          .thenComparing(hit -> hit.record.getTherapistId()));
+    List<TherapistRecord> records = new ArrayList<>(Math.min(limit, hits.size()));
+    for (int i = 0; i < hits.size() && i < limit; i++) {
+      records.add(hits.get(i).record);
+    }
+    return records;
+  }
+
+  // Doc ordinals matching every term, with the sum of their best score per term.
+  private static Map<Integer, Integer> match(final NameIndexSegment segment,
+                                             final List<String> terms) {
+    List<List<Postings>> termPostings = new ArrayList<>(terms.size());
+    int smallest = -1;
+    long smallestCount = Long.MAX_VALUE;
+    for (int i = 0; i < terms.size(); i++) {
+      List<Postings> postings = postings(segment, terms.get(i), i == terms.size() - 1);
+      if (postings.isEmpty()) {
+        return Collections.emptyMap();
+      }
+      long count = postings.stream().mapToLong(p -> p.docs.length).sum();
+      if (count < smallestCount) {
+        smallest = i;
+        smallestCount = count;
+      }
+      termPostings.add(postings);
+    }
+
+    // Candidates come from the rarest term and are probed in the postings of the others.
+    Map<Integer, Integer> scores = new HashMap<>();
+    for (Postings postings : termPostings.get(smallest)) {
+      for (int doc : postings.docs) {
+        scores.merge(doc, postings.score, Math::max);
+      }
+    }
+    for (int i = 0; i < termPostings.size() && !scores.isEmpty(); i++) {
+      if (i == smallest) {
+        continue;
+      }
+      Iterator<Map.Entry<Integer, Integer>> candidates = scores.entrySet().iterator();
+      while (candidates.hasNext()) {
+        Map.Entry<Integer, Integer> candidate = candidates.next();
+        int best = 0;
+        for (Postings postings : termPostings.get(i)) {
+          if (postings.score > best
+                && Arrays.binarySearch(postings.docs, candidate.getKey()) >= 0) {
+            best = postings.score;
+          }
+        }
+        if (best == 0) {
+          candidates.remove();
+        } else {
+          candidate.setValue(candidate.getValue() + best);
+        }
+      }
+    }
+    return scores;
+  }
+
+  private static List<Postings> postings(final NameIndexSegment segment, final String term,
+                                         final boolean last) {
+    List<Postings> postings = new ArrayList<>();
+    byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+    int exact = segment.findTerm(bytes);
+    if (exact >= 0) {
+      postings.add(new Postings(segment.postings(exact), EXACT_SCORE));
+    }
+    if (last && term.length() >= MIN_PREFIX_LENGTH) {
+      int[] docs = prefixDocs(segment, bytes, exact);
+      if (docs.length > 0) {
+        postings.add(new Postings(docs, PREFIX_SCORE));
+      }
+    }
+    if (postings.isEmpty() && term.length() >= MIN_FUZZY_LENGTH) {
+      for (String variant : editsAway(term)) {
+        int ordinal = segment.findTerm(variant.getBytes(StandardCharsets.UTF_8));
+        if (ordinal >= 0) {
+          postings.add(new Postings(segment.postings(ordinal), FUZZY_SCORE));
+        }
+      }
+    }
+    return postings;
+  }
+
+  // The union of the postings of the terms the prefix starts, other than the exact term, so a
+  // candidate is probed with one binary search however many terms the prefix expands to.
+  // Terms are added in byte order until MAX_PREFIX_DOCS docs are collected.
+  private static int[] prefixDocs(final NameIndexSegment segment, final byte[] prefix,
+                                  final int exact) {
+    int[] docs = new int[0];
+    int count = 0;
+    for (int ordinal = segment.lowerBound(prefix); ordinal < segment.getTermCount()
+          && count < MAX_PREFIX_DOCS && segment.termStartsWith(ordinal, prefix); ordinal++) {
+      if (ordinal == exact) {
+        continue;
+      }
+      int[] termDocs = segment.postings(ordinal);
+      if (count + termDocs.length > docs.length) {
+        docs = Arrays.copyOf(docs, Math.max(2 * docs.length, count + termDocs.length));
+      }
+      System.arraycopy(termDocs, 0, docs, count, termDocs.length);
+      count += termDocs.length;
+    }
+    Arrays.sort(docs, 0, count);
+    int unique = 0;
+    for (int i = 0; i < count; i++) {
+      if (unique == 0 || docs[i] != docs[unique - 1]) {
+        docs[unique++] = docs[i];
+      }
+    }
+    return Arrays.copyOf(docs, unique);
+  }
+
+  // Every string one deletion, transposition, substitution or insertion away from the term.
+  // Looking each up is a few hundred binary searches, cheaper than comparing every term.
+  private static Set<String> editsAway(final String term) {
+    Set<String> variants = new LinkedHashSet<>();
+    StringBuilder variant = new StringBuilder(term.length() + 1);
+    for (int i = 0; i < term.length(); i++) {
+      variants.add(variant.append(term, 0, i).append(term, i + 1, term.length()).toString());
+      variant.setLength(0);
+      if (i + 1 < term.length()) {
+        variants.add(variant.append(term, 0, i).append(term.charAt(i + 1))
+              .append(term.charAt(i)).append(term, i + 2, term.length()).toString());
+        variant.setLength(0);
+      }
+      for (char c : FUZZY_ALPHABET) {
+        variants.add(variant.append(term, 0, i).append(c).append(term, i + 1, term.length())
+              .toString());
+        variant.setLength(0);
+      }
+    }
+    for (int i = 0; i <= term.length(); i++) {
+      for (char c : FUZZY_ALPHABET) {
+        variants.add(variant.append(term, 0, i).append(c).append(term, i, term.length())
+              .toString());
+        variant.setLength(0);
+      }
+    }
+    variants.remove(term);
+    return variants;
+  }
+
+  private static boolean isShadowed(final List<NameIndexSegment> newestFirst, final int index,
+                                    final String therapistId) {
+    for (int s = 0; s < index; s++) {
+      if (newestFirst.get(s).findDoc(therapistId) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @RequiredArgsConstructor
+  private static final class Postings {
+    private final int[] docs;
+    private final int score;
+  }
+
+  @RequiredArgsConstructor
+  private static final class Hit {
+    private final TherapistRecord record;
+    private final int score;
+  }
+}
@@ -0,0 +1,136 @@
+package software.amazon.serverless.apprepo.api.impl.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a container's {@link NameIndex} up to date with the manifest in the
+ * {@link NameIndexStore}.
+ *
+ * <p>Each refresh checks the manifest's ETag and, when it changed, downloads the segments the
+ * container does not have yet to local files and maps them read-only. Segments already mapped
+ * are reused, so a refresh after a stream batch downloads one small delta segment. The mapped
+ * segments are then swapped into the index together, and the files of segments that left the
+ * manifest are deleted; their mappings stay valid until they are garbage collected.
+ */
+@Slf4j
+public class NameIndexLoader {
+  private final NameIndexStore store;
+  private final NameIndex index;
+  private final Path directory;
+  // Only touched by the single refresh thread.
+  private final Map<String, NameIndexSegment> mapped = new HashMap<>();
+  private String manifestETag = null;
+
+  /**
+   * Construct a NameIndexLoader.
+   *
+   * @param store     where the index is stored.
+   * @param index     the index to load.
+   * @param directory local directory for the segment files.
+   */
+  public NameIndexLoader(final NameIndexStore store, final NameIndex index,
+                         final Path directory) {
+    this.store = store;
+    this.index = index;
+    this.directory = directory;
+  }
+
+  /**
+   * Refresh the index periodically on the given executor.
+   *
+   * @param executor executor to refresh on. Must run one refresh at a time.
+   * @param interval delay between two refreshes.
+   */
+  public void start(final ScheduledExecutorService executor, final Duration interval) {
+    executor.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+      } catch (RuntimeException e) {
+        // Keep serving the segments already loaded.
+        log.warn("Failed to refresh the name index", e);
+      }
+    }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Load the current manifest's segments into the index, if the manifest changed.
+   */
+  public void refresh() {
+    String eTag = store.getManifestETag();
+    if (eTag == null) {
+      // Nothing is indexed before the first stream batch; search finds nothing until then.
+      index.swap(Collections.emptyList());
+      return;
+    }
+    if (eTag.equals(manifestETag)) {
+      return;
+    }
+    NameIndexManifest manifest = store.readManifest();
+    if (manifest == null) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    Map<String, NameIndexSegment> current = new HashMap<>();
+    List<NameIndexSegment> newestFirst = new ArrayList<>(manifest.getSegments().size());
+    for (String key : manifest.getSegments()) {
+      NameIndexSegment segment = mapped.get(key);
+      if (segment == null) {
+        segment = map(key);
+      }
+      current.put(key, segment);
+      newestFirst.add(0, segment);
+    }
+    index.swap(newestFirst);
+
+    for (String key : mapped.keySet()) {
+      if (!current.containsKey(key)) {
+        try {
+          Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+          log.warn("Failed to delete name index segment file of {}", key, e);
+        }
+      }
+    }
+    mapped.clear();
+    mapped.putAll(current);
+    manifestETag = eTag;
+    log.info("Loaded name index generation {} with {} segments in {} ms",
+          manifest.getGeneration(), newestFirst.size(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  private NameIndexSegment map(final String key) {
+    Path file = file(key);
+    try {
+      Files.createDirectories(directory);
+      store.downloadSegment(key, file);
+      // The mapping outlives the channel, so it is closed right away.
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        return new NameIndexSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+              channel.size()));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Path file(final String key) {
+    return directory.resolve(key.replace('/', '_'));
+  }
+}
@@ -0,0 +1,34 @@
+package software.amazon.serverless.apprepo.api.impl.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The current segments of the {@link NameIndex}, stored as JSON next to them. Segments are
+ * never modified, so replacing the manifest swaps the index atomically for every reader.
+ *
+ * <p>Segments replaced by a compaction are kept as retired for a while, so containers that
+ * read the previous manifest can still download them.
+ */
+@Data
+public class NameIndexManifest {
+  private long generation;
+  // Oldest first; the first one is the base segment.
+  private List<String> segments = new ArrayList<>();
+  private List<RetiredSegment> retired = new ArrayList<>();
+
+  /**
+   * A segment no longer in the index.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class RetiredSegment {
+    private String key;
+    private long retiredAtMillis;
+  }
+}
@@ -0,0 +1,262 @@
+package software.amazon.serverless.apprepo.api.impl.search;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * An immutable segment of the {@link NameIndex}, read in place from a {@link ByteBuffer},
+ * usually a read-only memory-mapped file. Nothing is copied on the heap when a segment is
+ * opened, so opening a segment of millions of therapists is as cheap as opening an empty one
+ * and the pages are shared with the OS page cache.
+ *
+ * <p>The layout, all integers big-endian, is:
+ * <pre>
+ * header     magic "TNIX", format version, doc count, term count, doc index position,
+ *            term index position
+ * docs       per therapist sorted by id: flags, id, userId, name, area, type, mobile,
+ *            createdAt millis, version
+ * postings   per term: ascending doc ordinals as varint deltas
+ * terms      per term: UTF-8 bytes, posting count, postings position
+ * doc index  position of every doc, in id order
+ * term index position of every term, in UTF-8 byte order
+ * </pre>
+ * Strings are an int length, -1 for null, and UTF-8 bytes. A doc with the deleted flag is
+ * a tombstone: it hides the therapist in older segments and has no terms.
+ *
+ * <p>A segment is written by {@link NameIndexSegmentWriter}.
+ */
+public final class NameIndexSegment {
+  static final int MAGIC = 0x544E4958;
+  static final int FORMAT_VERSION = 1;
+  static final int HEADER_SIZE = 24;
+  static final byte DELETED_FLAG = 1;
+  static final long NULL_LONG = Long.MIN_VALUE;
+
+  private final ByteBuffer buffer;
+  private final int docCount;
+  private final int termCount;
+  private final int docIndexPosition;
+  private final int termIndexPosition;
+
+  /**
+   * Open a segment.
+   *
+   * @param buffer the segment bytes, from position 0. Only read with absolute gets, so the
+   *               buffer may be shared.
+   * @throws IllegalArgumentException when the bytes are not a segment of this format.
+   */
+  public NameIndexSegment(final ByteBuffer buffer) {
+    this.buffer = buffer;
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not a name index segment.");
+    }
+    if (buffer.getInt(4) != FORMAT_VERSION) {
+      throw new IllegalArgumentException(String.format(
+            "Unsupported name index segment version %d.", buffer.getInt(4)));
+    }
+    this.docCount = buffer.getInt(8);
+    this.termCount = buffer.getInt(12);
+    this.docIndexPosition = buffer.getInt(16);
+    this.termIndexPosition = buffer.getInt(20);
+  }
+
+  public int getDocCount() {
+    return docCount;
+  }
+
+  public int getTermCount() {
+    return termCount;
+  }
+
+  /**
+   * Find the first term that is not less than the given bytes.
+   *
+   * @param term UTF-8 bytes of the term.
+   * @return term ordinal, {@link #getTermCount()} when every term is less.
+   */
+  public int lowerBound(final byte[] term) {
+    int low = 0;
+    int high = termCount;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (compareTerm(mid, term) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Find a term.
+   *
+   * @param term UTF-8 bytes of the term.
+   * @return term ordinal, or -1 when the segment does not have the term.
+   */
+  public int findTerm(final byte[] term) {
+    int ordinal = lowerBound(term);
+    return ordinal < termCount && compareTerm(ordinal, term) == 0 ? ordinal : -1;
+  }
+
+  /**
+   * Check whether a term starts with the given bytes.
+   *
+   * @param ordinal term ordinal.
+   * @param prefix  UTF-8 bytes of the prefix.
+   * @return true if the term starts with the prefix.
+   */
+  public boolean termStartsWith(final int ordinal, final byte[] prefix) {
+    int position = termPosition(ordinal);
+    int length = buffer.getInt(position);
+    if (length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (buffer.get(position + 4 + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Decode the postings of a term.
+   *
+   * @param ordinal term ordinal.
+   * @return the ascending ordinals of the docs that have the term.
+   */
+  public int[] postings(final int ordinal) {
+    int position = termPosition(ordinal);
+    position += 4 + buffer.getInt(position);
+    int[] docs = new int[buffer.getInt(position)];
+    int postingPosition = buffer.getInt(position + 4);
+    int doc = 0;
+    for (int i = 0; i < docs.length; i++) {
+      int delta = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buffer.get(postingPosition++);
+        delta |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      doc += delta;
+      docs[i] = doc;
+    }
+    return docs;
+  }
+
+  /**
+   * Find the doc of a therapist, including tombstones.
+   *
+   * @param therapistId therapist id.
+   * @return doc ordinal, or -1 when the segment does not have the therapist.
+   */
+  public int findDoc(final String therapistId) {
+    byte[] id = therapistId.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = docCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int compare = compareBytes(docPosition(mid) + 1, id);
+      if (compare < 0) {
+        low = mid + 1;
+      } else if (compare > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Check whether a doc is a tombstone.
+   *
+   * @param ordinal doc ordinal.
+   * @return true if the therapist was deleted.
+   */
+  public boolean isDeleted(final int ordinal) {
+    return (buffer.get(docPosition(ordinal)) & DELETED_FLAG) != 0;
+  }
+
+  /**
+   * Get the therapist id of a doc.
+   *
+   * @param ordinal doc ordinal.
+   * @return therapist id.
+   */
+  public String therapistId(final int ordinal) {
+    return readString(docPosition(ordinal) + 1);
+  }
+
+  /**
+   * Read the therapist of a doc.
+   *
+   * @param ordinal doc ordinal.
+   * @return the therapist; of a tombstone only the id is set.
+   */
+  public TherapistRecord record(final int ordinal) {
+    int[] position = {docPosition(ordinal) + 1};
+    TherapistRecord.TherapistRecordBuilder builder = TherapistRecord.builder()
+          .therapistId(nextString(position))
+          .userId(nextString(position))
+          .therapistName(nextString(position))
+          .therapistArea(nextString(position))
+          .therapistType(nextString(position))
+          .therapistMob(nextString(position));
+    long createdAt = buffer.getLong(position[0]);
+    long version = buffer.getLong(position[0] + 8);
+    return builder
+          .createdAt(createdAt == NULL_LONG ? null : Instant.ofEpochMilli(createdAt))
+          .version(version == NULL_LONG ? null : version)
+          .build();
+  }
+
+  private int docPosition(final int ordinal) {
+    return buffer.getInt(docIndexPosition + 4 * ordinal);
+  }
+
+  private int termPosition(final int ordinal) {
+    return buffer.getInt(termIndexPosition + 4 * ordinal);
+  }
+
+  private int compareTerm(final int ordinal, final byte[] term) {
+    return compareBytes(termPosition(ordinal), term);
+  }
+
+  // Compares the length-prefixed bytes at a position with the given bytes, as unsigned bytes.
+  private int compareBytes(final int position, final byte[] bytes) {
+    int length = buffer.getInt(position);
+    int common = Math.min(length, bytes.length);
+    for (int i = 0; i < common; i++) {
+      int compare = Integer.compare(buffer.get(position + 4 + i) & 0xFF, bytes[i] & 0xFF);
+      if (compare != 0) {
+        return compare;
+      }
+    }
+    return Integer.compare(length, bytes.length);
+  }
+
+  private String readString(final int position) {
+    int length = buffer.getInt(position);
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    ByteBuffer view = buffer.duplicate();
+    view.position(position + 4);
+    view.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private String nextString(final int[] position) {
+    String value = readString(position[0]);
+    position[0] += 4 + Math.max(0, buffer.getInt(position[0]));
+    return value;
+  }
+}
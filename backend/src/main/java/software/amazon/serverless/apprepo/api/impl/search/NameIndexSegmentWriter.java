@@ -0,0 +1,137 @@
+package software.amazon.serverless.apprepo.api.impl.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Writes a {@link NameIndexSegment}.
+ */
+public final class NameIndexSegmentWriter {
+  private NameIndexSegmentWriter() {
+  }
+
+  /**
+   * Write a segment.
+   *
+   * @param docs the therapists of the segment by id; a null therapist is written as a
+   *             tombstone.
+   * @return the segment bytes.
+   */
+  public static byte[] write(final SortedMap<String, TherapistRecord> docs) {
+    // Terms never hold surrogates, see NameTokenizer, so String order is UTF-8 byte order.
+    SortedMap<String, List<Integer>> terms = new TreeMap<>();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.write(new byte[NameIndexSegment.HEADER_SIZE]);
+
+      int[] docPositions = new int[docs.size()];
+      int ordinal = 0;
+      for (Map.Entry<String, TherapistRecord> doc : docs.entrySet()) {
+        docPositions[ordinal] = out.size();
+        TherapistRecord record = doc.getValue();
+        if (record == null) {
+          out.writeByte(NameIndexSegment.DELETED_FLAG);
+          writeString(out, doc.getKey());
+          for (int i = 0; i < 5; i++) {
+            writeString(out, null);
+          }
+          out.writeLong(NameIndexSegment.NULL_LONG);
+          out.writeLong(NameIndexSegment.NULL_LONG);
+        } else {
+          out.writeByte(0);
+          writeString(out, doc.getKey());
+          writeString(out, record.getUserId());
+          writeString(out, record.getTherapistName());
+          writeString(out, record.getTherapistArea());
+          writeString(out, record.getTherapistType());
+          writeString(out, record.getTherapistMob());
+          out.writeLong(record.getCreatedAt() == null
+                ? NameIndexSegment.NULL_LONG : record.getCreatedAt().toEpochMilli());
+          out.writeLong(record.getVersion() == null
+                ? NameIndexSegment.NULL_LONG : record.getVersion());
+          int docOrdinal = ordinal;
+          NameTokenizer.tokenize(record.getTherapistName()).stream()
+                .distinct()
+                .forEach(term -> terms.computeIfAbsent(term, key -> new ArrayList<>())
+                      .add(docOrdinal));
+        }
+        ordinal++;
+      }
+
+      int[] postingPositions = new int[terms.size()];
+      int termOrdinal = 0;
+      for (List<Integer> postings : terms.values()) {
+        postingPositions[termOrdinal++] = out.size();
+        int previous = 0;
+        for (int doc : postings) {
+          writeVarint(out, doc - previous);
+          previous = doc;
+        }
+      }
+
+      int[] termPositions = new int[terms.size()];
+      termOrdinal = 0;
+      for (Map.Entry<String, List<Integer>> term : terms.entrySet()) {
+        termPositions[termOrdinal] = out.size();
+        writeString(out, term.getKey());
+        out.writeInt(term.getValue().size());
+        out.writeInt(postingPositions[termOrdinal]);
+        termOrdinal++;
+      }
+
+      int docIndexPosition = out.size();
+      for (int position : docPositions) {
+        out.writeInt(position);
+      }
+      int termIndexPosition = out.size();
+      for (int position : termPositions) {
+        out.writeInt(position);
+      }
+      out.flush();
+
+      ByteBuffer segment = ByteBuffer.wrap(bytes.toByteArray());
+      segment.putInt(0, NameIndexSegment.MAGIC)
+            .putInt(4, NameIndexSegment.FORMAT_VERSION)
+            .putInt(8, docs.size())
+            .putInt(12, terms.size())
+            .putInt(16, docIndexPosition)
+            .putInt(20, termIndexPosition);
+      return segment.array();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void writeString(final DataOutputStream out, final String value)
+        throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static void writeVarint(final DataOutputStream out, final int value)
+        throws IOException {
+    int remaining = value;
+    while ((remaining & ~0x7F) != 0) {
+      out.writeByte((remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    out.writeByte(remaining);
+  }
+}
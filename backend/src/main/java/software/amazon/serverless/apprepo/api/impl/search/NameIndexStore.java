@@ -0,0 +1,162 @@
+package software.amazon.serverless.apprepo.api.impl.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Reads and writes the segments and the manifest of the {@link NameIndex} in S3.
+ */
+public class NameIndexStore {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final String PREFIX = "name-index/";
+  private static final String MANIFEST_KEY = PREFIX + "manifest.json";
+  private static final String SEGMENT_KEY_FORMAT = PREFIX + "segments/%020d.tnix";
+  private static final int NOT_FOUND = 404;
+
+  private final S3Client s3;
+  private final String bucket;
+
+  /**
+   * Construct a NameIndexStore.
+   *
+   * @param s3     S3 client.
+   * @param bucket bucket of the index.
+   */
+  public NameIndexStore(final S3Client s3, final String bucket) {
+    this.s3 = s3;
+    this.bucket = bucket;
+  }
+
+  /**
+   * Get the ETag of the manifest, to check whether it changed without reading it.
+   *
+   * @return the ETag, or null when there is no index yet.
+   */
+  public String getManifestETag() {
+    try {
+      return s3.headObject(HeadObjectRequest.builder()
+            .bucket(bucket)
+            .key(MANIFEST_KEY)
+            .build())
+            .eTag();
+    } catch (S3Exception e) {
+      if (e.statusCode() == NOT_FOUND) {
+        return null;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Read the manifest.
+   *
+   * @return the manifest, or null when there is no index yet.
+   */
+  public NameIndexManifest readManifest() {
+    try {
+      return OBJECT_MAPPER.readValue(s3.getObjectAsBytes(GetObjectRequest.builder()
+            .bucket(bucket)
+            .key(MANIFEST_KEY)
+            .build())
+            .asByteArray(), NameIndexManifest.class);
+    } catch (S3Exception e) {
+      if (e.statusCode() == NOT_FOUND) {
+        return null;
+      }
+      throw e;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Replace the manifest. Its segments must have been written.
+   *
+   * @param manifest the manifest.
+   */
+  public void writeManifest(final NameIndexManifest manifest) {
+    try {
+      s3.putObject(PutObjectRequest.builder()
+            .bucket(bucket)
+            .key(MANIFEST_KEY)
+            .contentType("application/json")
+            .build(), RequestBody.fromBytes(OBJECT_MAPPER.writeValueAsBytes(manifest)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Write a segment.
+   *
+   * @param generation manifest generation the segment is written for, which names it.
+   * @param segment    the segment bytes.
+   * @return the key of the segment.
+   */
+  public String writeSegment(final long generation, final byte[] segment) {
+    String key = String.format(SEGMENT_KEY_FORMAT, generation);
+    s3.putObject(PutObjectRequest.builder()
+          .bucket(bucket)
+          .key(key)
+          .contentType("application/octet-stream")
+          .build(), RequestBody.fromBytes(segment));
+    return key;
+  }
+
+  /**
+   * Read a segment into memory.
+   *
+   * @param key key of the segment.
+   * @return the segment bytes.
+   */
+  public byte[] readSegment(final String key) {
+    return s3.getObjectAsBytes(GetObjectRequest.builder()
+          .bucket(bucket)
+          .key(key)
+          .build())
+          .asByteArray();
+  }
+
+  /**
+   * Download a segment to a file, replacing the file if it exists.
+   *
+   * @param key  key of the segment.
+   * @param file where to write the segment.
+   */
+  public void downloadSegment(final String key, final Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    s3.getObject(GetObjectRequest.builder()
+          .bucket(bucket)
+          .key(key)
+          .build(), ResponseTransformer.toFile(file));
+  }
+
+  /**
+   * Delete a segment.
+   *
+   * @param key key of the segment.
+   */
+  public void deleteSegment(final String key) {
+    s3.deleteObject(DeleteObjectRequest.builder()
+          .bucket(bucket)
+          .key(key)
+          .build());
+  }
+}
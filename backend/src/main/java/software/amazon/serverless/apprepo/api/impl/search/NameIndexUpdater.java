@@ -0,0 +1,153 @@
+package software.amazon.serverless.apprepo.api.impl.search;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Applies batches of the Therapist table stream to the {@link NameIndex} in the
+ * {@link NameIndexStore}.
+ *
+ * <p>Each batch is written as a small delta segment and added to the manifest. Once there are
+ * more than {@value #MAX_SEGMENTS} segments they are compacted into a new base segment, which
+ * keeps the number of segments a search looks at small. The first batch builds the base
+ * segment from a Scan of the table instead.
+ *
+ * <p>There must be a single updater at a time, as the manifest is replaced without a
+ * condition.
+ */
+@Slf4j
+public class NameIndexUpdater {
+  static final int MAX_SEGMENTS = 8;
+  // Long enough for every container to have moved to a newer manifest.
+  private static final Duration RETIRED_SEGMENT_TTL = Duration.ofHours(1);
+  private static final int SCAN_PAGE_SIZE = 1000;
+
+  private final NameIndexStore store;
+  private final DynamoDbClient dynamodb;
+  private final String tableName;
+  private final Clock clock;
+
+  /**
+   * Construct a NameIndexUpdater.
+   *
+   * @param store     where the index is stored.
+   * @param dynamodb  DynamoDB client, to build the first base segment.
+   * @param tableName Therapist table name.
+   * @param clock     clock retired segments are timed with.
+   */
+  public NameIndexUpdater(final NameIndexStore store, final DynamoDbClient dynamodb,
+                          final String tableName, final Clock clock) {
+    this.store = store;
+    this.dynamodb = dynamodb;
+    this.tableName = tableName;
+    this.clock = clock;
+  }
+
+  /**
+   * Apply a batch of changes.
+   *
+   * @param changes the latest image of every changed therapist by id, null when deleted.
+   */
+  public void update(final SortedMap<String, TherapistRecord> changes) {
+    NameIndexManifest manifest = store.readManifest();
+    if (manifest == null) {
+      // The scan reads the table after the batch's changes, so it already includes them.
+      manifest = new NameIndexManifest();
+      manifest.getSegments().add(store.writeSegment(manifest.getGeneration(),
+            NameIndexSegmentWriter.write(scanTable())));
+      store.writeManifest(manifest);
+      log.info("Built the name index base segment from table {}", tableName);
+      return;
+    }
+    if (changes.isEmpty()) {
+      return;
+    }
+
+    long generation = manifest.getGeneration() + 1;
+    manifest.setGeneration(generation);
+    manifest.getSegments().add(store.writeSegment(generation,
+          NameIndexSegmentWriter.write(changes)));
+    if (manifest.getSegments().size() > MAX_SEGMENTS) {
+      compact(manifest);
+    }
+    deleteRetiredSegments(manifest);
+    store.writeManifest(manifest);
+    log.info("Applied {} changes to name index generation {}", changes.size(), generation);
+  }
+
+  private void compact(final NameIndexManifest manifest) {
+    SortedMap<String, TherapistRecord> docs = new TreeMap<>();
+    for (String key : manifest.getSegments()) {
+      NameIndexSegment segment = new NameIndexSegment(ByteBuffer.wrap(store.readSegment(key)));
+      for (int ordinal = 0; ordinal < segment.getDocCount(); ordinal++) {
+        if (segment.isDeleted(ordinal)) {
+          docs.remove(segment.therapistId(ordinal));
+        } else {
+          TherapistRecord record = segment.record(ordinal);
+          docs.put(record.getTherapistId(), record);
+        }
+      }
+    }
+    // Containers reuse the segments they mapped by key, so the base gets a key of its own.
+    manifest.setGeneration(manifest.getGeneration() + 1);
+    String base = store.writeSegment(manifest.getGeneration(),
+          NameIndexSegmentWriter.write(docs));
+    long now = clock.millis();
+    List<String> segments = manifest.getSegments();
+    for (String key : segments) {
+      manifest.getRetired().add(new NameIndexManifest.RetiredSegment(key, now));
+    }
+    segments.clear();
+    segments.add(base);
+    log.info("Compacted the name index into {} with {} therapists", base, docs.size());
+  }
+
+  private void deleteRetiredSegments(final NameIndexManifest manifest) {
+    long expired = clock.millis() - RETIRED_SEGMENT_TTL.toMillis();
+    Iterator<NameIndexManifest.RetiredSegment> retired = manifest.getRetired().iterator();
+    while (retired.hasNext()) {
+      NameIndexManifest.RetiredSegment segment = retired.next();
+      if (segment.getRetiredAtMillis() < expired) {
+        store.deleteSegment(segment.getKey());
+        retired.remove();
+      }
+    }
+  }
+
+  private SortedMap<String, TherapistRecord> scanTable() {
+    SortedMap<String, TherapistRecord> docs = new TreeMap<>();
+    Map<String, AttributeValue> exclusiveStartKey = null;
+    do {
+      ScanResponse response = dynamodb.scan(ScanRequest.builder()
+            .tableName(tableName)
+            .limit(SCAN_PAGE_SIZE)
+            .exclusiveStartKey(exclusiveStartKey)
+            .build());
+      for (Map<String, AttributeValue> item : response.items()) {
+        TherapistRecord record = new TherapistRecord(item);
+        if (record.getTherapistId() != null
+              && !TherapistRecord.isReservedUserId(record.getUserId())) {
+          docs.put(record.getTherapistId(), record);
+        }
+      }
+      exclusiveStartKey = response.lastEvaluatedKey().isEmpty()
+            ? null : response.lastEvaluatedKey();
+    } while (exclusiveStartKey != null);
+    return docs;
+  }
+}
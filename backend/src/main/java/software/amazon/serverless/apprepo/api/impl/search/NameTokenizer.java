@@ -0,0 +1,55 @@
+package software.amazon.serverless.apprepo.api.impl.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits therapist names and name queries into the terms of the {@link NameIndex}.
+ *
+ * <p>Names are lower cased and stripped of diacritics, so "Dr. José" and "dr jose" give the
+ * same terms, and split on everything that is not a letter or digit. Apostrophes are dropped
+ * rather than split on, so "O'Neil" is one term.
+ */
+public final class NameTokenizer {
+  private static final int MAX_TERM_LENGTH = 64;
+
+  private NameTokenizer() {
+  }
+
+  /**
+   * Tokenize a name.
+   *
+   * @param name the name, or null.
+   * @return the terms in order, duplicates included; empty when the name has none.
+   */
+  public static List<String> tokenize(final String name) {
+    if (name == null || name.isEmpty()) {
+      return Collections.emptyList();
+    }
+    String normalized = Normalizer.normalize(name, Normalizer.Form.NFKD)
+          .toLowerCase(Locale.ROOT);
+    List<String> terms = new ArrayList<>(4);
+    StringBuilder term = new StringBuilder();
+    for (int i = 0; i < normalized.length(); i++) {
+      char c = normalized.charAt(i);
+      if (Character.getType(c) == Character.NON_SPACING_MARK || c == '\'' || c == '’') {
+        continue;
+      }
+      if (Character.isLetterOrDigit(c)) {
+        if (term.length() < MAX_TERM_LENGTH) {
+          term.append(c);
+        }
+      } else if (term.length() > 0) {
+        terms.add(term.toString());
+        term.setLength(0);
+      }
+    }
+    if (term.length() > 0) {
+      terms.add(term.toString());
+    }
+    return terms;
+  }
+}
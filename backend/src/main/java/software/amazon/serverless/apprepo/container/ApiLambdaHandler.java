@@ -5,48 +5,115 @@ import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
 import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Singleton;
 
+import lombok.extern.slf4j.Slf4j;
+
 import org.glassfish.hk2.api.TypeLiteral;
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
 import org.glassfish.jersey.jackson.JacksonFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.kms.KmsClient;
 
+import software.amazon.serverless.apprepo.api.exception.ApiExceptionMapper;
+import software.amazon.serverless.apprepo.api.exception.InvalidJsonExceptionMappers;
+import software.amazon.serverless.apprepo.api.impl.AsyncTherapistService;
+import software.amazon.serverless.apprepo.api.impl.TherapistPartitioner;
+import software.amazon.serverless.apprepo.api.impl.TherapistQueryExecutor;
+import software.amazon.serverless.apprepo.api.impl.TherapistSearchCache;
 import software.amazon.serverless.apprepo.api.impl.TherapistService;
+import software.amazon.serverless.apprepo.api.impl.TherapistStore;
+import software.amazon.serverless.apprepo.api.impl.batch.AsyncTherapistBatchOperations;
+import software.amazon.serverless.apprepo.api.impl.batch.TherapistBatchOperations;
+import software.amazon.serverless.apprepo.api.impl.cache.TherapistCache;
 import software.amazon.serverless.apprepo.api.impl.pagination.PaginationTokenSerializer;
 import software.amazon.serverless.apprepo.api.impl.pagination.TokenSerializer;
+import software.amazon.serverless.apprepo.api.impl.search.NameIndex;
 import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+import software.amazon.serverless.apprepo.container.config.Env;
+import software.amazon.serverless.apprepo.container.factory.DynamoDbAsyncClientFactory;
 import software.amazon.serverless.apprepo.container.factory.DynamoDbClientFactory;
+import software.amazon.serverless.apprepo.container.factory.ExecutorServiceFactory;
 import software.amazon.serverless.apprepo.container.factory.KmsClientFactory;
+import software.amazon.serverless.apprepo.container.factory.NameIndexFactory;
 import software.amazon.serverless.apprepo.container.factory.SsmConfigProviderFactory;
+import software.amazon.serverless.apprepo.container.factory.TherapistCacheFactory;
+import software.amazon.serverless.apprepo.container.factory.TherapistStoreFactory;
+import software.amazon.serverless.apprepo.metrics.Phase;
+import software.amazon.serverless.apprepo.metrics.RequestMetrics;
 
 /**
  * API Lambda handler. This is the entry point for the API Lambda.
+ *
+ * <p>The handler is primed by {@link ApiLambdaPrimer} during static initialization.
+ * Scheduled keep-warm events are answered without entering Jersey. The latencies of every
+ * other invocation are flushed by {@link RequestMetrics} once it is answered.
  */
+@Slf4j
 public class ApiLambdaHandler implements RequestStreamHandler {
+  private static final long INIT_START_NANOS = System.nanoTime();
+  private static final String KEEP_WARM_SOURCE = "aws.events";
+  // API Gateway events start with a long header section; a scheduled event names its source
+  // in the first few hundred bytes.
+  private static final int KEEP_WARM_PROBE_LENGTH = 512;
+  private static final byte[] KEEP_WARM_RESPONSE = "{}".getBytes(StandardCharsets.UTF_8);
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final AtomicBoolean FIRST_REQUEST = new AtomicBoolean(true);
+
   private static final ResourceConfig jerseyApplication = new ResourceConfig()
-        .registerClasses(TherapistService.class,
-                CorsHeadersResponseFilter.class)
+        .registerClasses(Env.isAsyncServiceEnabled()
+                    ? AsyncTherapistService.class : TherapistService.class,
+                CorsHeadersResponseFilter.class, MetricsFilter.class, PrimingRequestFilter.class)
+        .registerClasses(ApiExceptionMapper.class,
+                InvalidJsonExceptionMappers.ParseExceptionMapper.class,
+                InvalidJsonExceptionMappers.MappingExceptionMapper.class)
         .register(JacksonFeature.class)
         .register(new AbstractBinder() {
           @Override
           protected void configure() {
             bindFactory(DynamoDbClientFactory.class)
                   .to(DynamoDbClient.class).in(Singleton.class);
+            bindFactory(DynamoDbAsyncClientFactory.class)
+                  .to(DynamoDbAsyncClient.class).in(Singleton.class);
             bindFactory(SsmConfigProviderFactory.class)
                   .to(ConfigProvider.class).in(Singleton.class);
             bindFactory(KmsClientFactory.class)
                   .to(KmsClient.class).in(Singleton.class);
+            bindFactory(TherapistCacheFactory.class)
+                  .to(TherapistCache.class).in(Singleton.class);
+            bindFactory(TherapistStoreFactory.class)
+                  .to(TherapistStore.class).in(Singleton.class);
+            bindFactory(NameIndexFactory.class)
+                  .to(NameIndex.class).in(Singleton.class);
+            bindFactory(ExecutorServiceFactory.class)
+                  .to(ExecutorService.class).in(Singleton.class);
+            bind(TherapistPartitioner.class)
+                  .to(TherapistPartitioner.class).in(Singleton.class);
+            bind(TherapistBatchOperations.class)
+                  .to(TherapistBatchOperations.class).in(Singleton.class);
+            bind(AsyncTherapistBatchOperations.class)
+                  .to(AsyncTherapistBatchOperations.class).in(Singleton.class);
+            bind(TherapistQueryExecutor.class)
+                  .to(TherapistQueryExecutor.class).in(Singleton.class);
+            bind(TherapistSearchCache.class)
+                  .to(TherapistSearchCache.class).in(Singleton.class);
             bind(PaginationTokenSerializer.class)
                   .to(new TypeLiteral<TokenSerializer<Map<String, AttributeValue>>>() {
                   })
@@ -57,9 +124,41 @@ public class ApiLambdaHandler implements RequestStreamHandler {
   private static final JerseyLambdaContainerHandler<AwsProxyRequest, AwsProxyResponse> handler
         = JerseyLambdaContainerHandler.getAwsProxyHandler(jerseyApplication);
 
+  static {
+    ApiLambdaPrimer.prime(handler);
+    RequestMetrics.reset();
+    log.info("Initialized in {} ms",
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - INIT_START_NANOS));
+  }
+
   @Override
   public void handleRequest(InputStream inputStream, OutputStream outputStream, Context context)
         throws IOException {
-    handler.proxyStream(inputStream, outputStream, context);
+    long start = System.nanoTime();
+    byte[] input = ByteStreams.toByteArray(inputStream);
+    if (isKeepWarmEvent(input)) {
+      outputStream.write(KEEP_WARM_RESPONSE);
+      return;
+    }
+    handler.proxyStream(new ByteArrayInputStream(input), outputStream, context);
+    RequestMetrics.recordSince(Phase.TOTAL, start);
+    RequestMetrics.flush();
+    if (FIRST_REQUEST.compareAndSet(true, false)) {
+      log.info("First request handled in {} ms",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+  }
+
+  private static boolean isKeepWarmEvent(final byte[] input) {
+    String probe = new String(input, 0, Math.min(input.length, KEEP_WARM_PROBE_LENGTH),
+          StandardCharsets.UTF_8);
+    if (!probe.contains(KEEP_WARM_SOURCE)) {
+      return false;
+    }
+    try {
+      return KEEP_WARM_SOURCE.equals(OBJECT_MAPPER.readTree(input).path("source").asText());
+    } catch (IOException e) {
+      return false;
+    }
   }
 }
@@ -0,0 +1,221 @@
+package software.amazon.serverless.apprepo.container;
+
+import com.amazonaws.serverless.proxy.jersey.JerseyLambdaContainerHandler;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.swagger.model.Therapist;
+import io.swagger.model.TherapistBatchCreateResult;
+import io.swagger.model.TherapistBatchGetResult;
+import io.swagger.model.TherapistList;
+import io.swagger.model.TherapistSummary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistMapper;
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Primes the API Lambda during its init phase, which is not billed against the first
+ * request's latency.
+ *
+ * <p>It loads the classes every request needs and sends synthetic API Gateway events through
+ * the same {@code proxyStream} path as real requests:
+ * <ul>
+ *   <li>two requests answered by {@link PrimingRequestFilter} with a sample
+ *   {@link Therapist} and {@link TherapistList}, which warm Jersey's Jackson writer for the
+ *   response models;</li>
+ *   <li>a list request with an invalid token, which builds the resource and its whole
+ *   dependency graph, resolving the SSM parameters, and is rejected before DynamoDB is
+ *   called.</li>
+ * </ul>
+ * Priming failures are logged and never fail the init.
+ */
+@Slf4j
+final class ApiLambdaPrimer {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final List<Class<?>> HOT_CLASSES = Arrays.asList(
+        Therapist.class, TherapistSummary.class, TherapistList.class,
+        TherapistBatchCreateResult.class, TherapistBatchGetResult.class,
+        TherapistRecord.class, TherapistMapper.class,
+        GetItemRequest.class, GetItemResponse.class, PutItemRequest.class,
+        UpdateItemRequest.class, UpdateItemResponse.class, DeleteItemRequest.class,
+        QueryRequest.class, QueryResponse.class, BatchGetItemRequest.class,
+        BatchWriteItemRequest.class, ConditionalCheckFailedException.class);
+  // Not valid base64, so the token is rejected without calling KMS or DynamoDB.
+  private static final String INVALID_TOKEN = "!";
+
+  private ApiLambdaPrimer() {
+  }
+
+  /**
+   * Prime the handler.
+   *
+   * @param handler the Jersey container handler real requests are sent to.
+   */
+  static void prime(final JerseyLambdaContainerHandler<AwsProxyRequest, AwsProxyResponse>
+                          handler) {
+    long start = System.nanoTime();
+    ClassLoader classLoader = ApiLambdaPrimer.class.getClassLoader();
+    for (Class<?> hotClass : HOT_CLASSES) {
+      try {
+        Class.forName(hotClass.getName(), true, classLoader);
+      } catch (ClassNotFoundException | LinkageError e) {
+        log.warn("Failed to preload {}", hotClass.getName(), e);
+      }
+    }
+    long classesLoaded = System.nanoTime();
+
+    Map<String, String> primingHeader = Collections.singletonMap(
+          PrimingRequestFilter.PRIMING_HEADER, PrimingRequestFilter.PRIMING_TOKEN);
+    proxy(handler, PrimingRequestFilter.THERAPIST_PATH, primingHeader,
+          Collections.emptyMap());
+    proxy(handler, PrimingRequestFilter.THERAPIST_LIST_PATH, primingHeader,
+          Collections.emptyMap());
+    proxy(handler, "/therapist", Collections.emptyMap(),
+          Collections.singletonMap("nextToken", INVALID_TOKEN));
+
+    long end = System.nanoTime();
+    log.info("Primed in {} ms: classes {} ms, synthetic requests {} ms",
+          TimeUnit.NANOSECONDS.toMillis(end - start),
+          TimeUnit.NANOSECONDS.toMillis(classesLoaded - start),
+          TimeUnit.NANOSECONDS.toMillis(end - classesLoaded));
+  }
+
+  private static void proxy(final JerseyLambdaContainerHandler<AwsProxyRequest, AwsProxyResponse>
+                                  handler,
+                            final String path, final Map<String, String> headers,
+                            final Map<String, String> queryStringParameters) {
+    long start = System.nanoTime();
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      handler.proxyStream(new ByteArrayInputStream(toEvent(path, headers,
+            queryStringParameters)), output, new PrimingContext());
+      JsonNode response = OBJECT_MAPPER.readTree(output.toByteArray());
+      log.info("Priming request GET {} returned {} in {} ms", path,
+            response.path("statusCode").asInt(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } catch (IOException | RuntimeException e) {
+      log.warn("Priming request GET {} failed", path, e);
+    }
+  }
+
+  private static byte[] toEvent(final String path, final Map<String, String> headers,
+                                final Map<String, String> queryStringParameters)
+        throws IOException {
+    ObjectNode event = OBJECT_MAPPER.createObjectNode()
+          .put("resource", "/{proxy+}")
+          .put("path", path)
+          .put("httpMethod", "GET")
+          .put("isBase64Encoded", false);
+    ObjectNode singleValueHeaders = event.putObject("headers")
+          .put("Accept", "application/json");
+    ObjectNode multiValueHeaders = event.putObject("multiValueHeaders");
+    multiValueHeaders.putArray("Accept").add("application/json");
+    headers.forEach((name, value) -> {
+      singleValueHeaders.put(name, value);
+      multiValueHeaders.putArray(name).add(value);
+    });
+    ObjectNode singleValueParameters = event.putObject("queryStringParameters");
+    ObjectNode multiValueParameters = event.putObject("multiValueQueryStringParameters");
+    queryStringParameters.forEach((name, value) -> {
+      singleValueParameters.put(name, value);
+      multiValueParameters.putArray(name).add(value);
+    });
+    ObjectNode requestContext = event.putObject("requestContext")
+          .put("requestId", "priming")
+          .put("stage", "priming")
+          .put("httpMethod", "GET")
+          .put("path", path);
+    requestContext.putObject("identity").put("sourceIp", "127.0.0.1");
+    return OBJECT_MAPPER.writeValueAsBytes(event);
+  }
+
+  /**
+   * Lambda context of the synthetic requests.
+   */
+  private static final class PrimingContext implements Context {
+    @Override
+    public String getAwsRequestId() {
+      return "priming";
+    }
+
+    @Override
+    public String getLogGroupName() {
+      return null;
+    }
+
+    @Override
+    public String getLogStreamName() {
+      return null;
+    }
+
+    @Override
+    public String getFunctionName() {
+      return null;
+    }
+
+    @Override
+    public String getFunctionVersion() {
+      return null;
+    }
+
+    @Override
+    public String getInvokedFunctionArn() {
+      return null;
+    }
+
+    @Override
+    public CognitoIdentity getIdentity() {
+      return null;
+    }
+
+    @Override
+    public ClientContext getClientContext() {
+      return null;
+    }
+
+    @Override
+    public int getRemainingTimeInMillis() {
+      return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int getMemoryLimitInMB() {
+      return 0;
+    }
+
+    @Override
+    public LambdaLogger getLogger() {
+      return message -> log.debug(message);
+    }
+  }
+}
@@ -0,0 +1,372 @@
+package software.amazon.serverless.apprepo.container;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.api.TherapistApi;
+import io.swagger.model.Therapist;
+import io.swagger.model.TherapistBatchCreateRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import software.amazon.serverless.apprepo.api.exception.ApiExceptionMapper;
+import software.amazon.serverless.apprepo.api.exception.InvalidJsonExceptionMappers;
+import software.amazon.serverless.apprepo.api.impl.TherapistPartitioner;
+import software.amazon.serverless.apprepo.api.impl.TherapistQueryExecutor;
+import software.amazon.serverless.apprepo.api.impl.TherapistSearchCache;
+import software.amazon.serverless.apprepo.api.impl.TherapistService;
+import software.amazon.serverless.apprepo.api.impl.TherapistStore;
+import software.amazon.serverless.apprepo.api.impl.batch.TherapistBatchOperations;
+import software.amazon.serverless.apprepo.api.impl.cache.TherapistCache;
+import software.amazon.serverless.apprepo.api.impl.pagination.PaginationTokenSerializer;
+import software.amazon.serverless.apprepo.api.impl.pagination.TokenSerializer;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+import software.amazon.serverless.apprepo.container.config.Env;
+import software.amazon.serverless.apprepo.container.factory.DynamoDbClientFactory;
+import software.amazon.serverless.apprepo.container.factory.ExecutorServiceFactory;
+import software.amazon.serverless.apprepo.container.factory.KmsClientFactory;
+import software.amazon.serverless.apprepo.container.factory.NameIndexFactory;
+import software.amazon.serverless.apprepo.container.factory.SsmConfigProviderFactory;
+import software.amazon.serverless.apprepo.container.factory.TherapistCacheFactory;
+import software.amazon.serverless.apprepo.container.factory.TherapistStoreFactory;
+import software.amazon.serverless.apprepo.metrics.ConsumedCapacityRecorder;
+import software.amazon.serverless.apprepo.metrics.Phase;
+import software.amazon.serverless.apprepo.metrics.RequestMetrics;
+
+/**
+ * API Lambda handler that routes the therapist operations to {@link TherapistService} directly,
+ * without Jersey and HK2. Use it as the function's handler instead of {@link ApiLambdaHandler}
+ * to take Jersey start up off the cold start and its frames off every request.
+ *
+ * <p>Responses are the same as {@link ApiLambdaHandler}'s: entities are written as Json with
+ * status 200, or 204 when there is none, thrown exceptions are mapped by
+ * {@link ApiExceptionMapper}, a body that can not be read by
+ * {@link InvalidJsonExceptionMappers}, and every response carries the
+ * {@link CorsHeadersResponseFilter} header. Like JAX-RS, an unknown path is 404, an unsupported
+ * method is 405 and a query parameter that is not a number is 404. Unlike Jersey, OPTIONS and
+ * HEAD are not answered for every resource but are 405 too. Scheduled keep-warm events
+ * are answered with "{}". Metrics are recorded and flushed like {@link ApiLambdaHandler}
+ * does, with the operation named after the {@link TherapistApi} method, and the
+ * {@link MetricsFilter} consumed capacity header is added when enabled.
+ */
+@Slf4j
+public class DirectDispatchLambdaHandler implements RequestStreamHandler {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+  private static final ApiExceptionMapper EXCEPTION_MAPPER = new ApiExceptionMapper();
+  private static final String RESOURCE = "therapist";
+  private static final String KEEP_WARM_SOURCE = "aws.events";
+  private static final boolean CONSUMED_CAPACITY_HEADER_ENABLED =
+        Env.isConsumedCapacityHeaderEnabled();
+  private static final Result NOT_FOUND = new Result(Response.Status.NOT_FOUND.getStatusCode(),
+        null);
+  // Like Jersey, a 405 lists the methods of the resource, and OPTIONS, in its Allow header.
+  private static final Result COLLECTION_METHOD_NOT_ALLOWED = methodNotAllowed("GET,OPTIONS,POST");
+  private static final Result QUERY_METHOD_NOT_ALLOWED = methodNotAllowed("GET,OPTIONS");
+  private static final Result THERAPIST_METHOD_NOT_ALLOWED = methodNotAllowed(
+        "DELETE,GET,OPTIONS,PUT");
+
+  private final TherapistApi therapistService;
+
+  /**
+   * Construct the handler with the {@link TherapistService} of the Lambda environment, wired
+   * like {@link ApiLambdaHandler} wires it.
+   */
+  public DirectDispatchLambdaHandler() {
+    this(ServiceHolder.THERAPIST_SERVICE);
+  }
+
+  /**
+   * Construct the handler.
+   *
+   * @param therapistService the service requests are routed to.
+   */
+  public DirectDispatchLambdaHandler(final TherapistApi therapistService) {
+    this.therapistService = therapistService;
+  }
+
+  @Override
+  public void handleRequest(final InputStream inputStream, final OutputStream outputStream,
+                            final Context context) throws IOException {
+    long start = System.nanoTime();
+    ProxyRequest request = ProxyRequest.read(inputStream, JSON_FACTORY);
+    if (request.getHttpMethod() == null && KEEP_WARM_SOURCE.equals(request.getSource())) {
+      outputStream.write(new byte[] {'{', '}'});
+      return;
+    }
+    Result result;
+    try {
+      result = route(request);
+    } catch (InvalidParameterException e) {
+      result = NOT_FOUND;
+    } catch (IOException e) {
+      Response response = InvalidJsonExceptionMappers.toResponse(e);
+      result = new Result(response.getStatus(), response.getEntity());
+    } catch (RuntimeException e) {
+      Response response = EXCEPTION_MAPPER.toResponse(e);
+      result = new Result(response.getStatus(), response.getEntity());
+    }
+    write(result, CONSUMED_CAPACITY_HEADER_ENABLED ? ConsumedCapacityRecorder.describe() : null,
+          outputStream);
+    RequestMetrics.recordSince(Phase.TOTAL, start);
+    RequestMetrics.flush();
+  }
+
+  private Result route(final ProxyRequest request) throws IOException {
+    List<String> segments = segments(request.getPath());
+    if (segments.isEmpty() || segments.size() > 2 || !RESOURCE.equals(segments.get(0))) {
+      return NOT_FOUND;
+    }
+    String method = request.getHttpMethod();
+    if (segments.size() == 1) {
+      switch (method) {
+        case "GET":
+          RequestMetrics.setOperation("getTherapistList");
+          return ok(therapistService.getTherapistList(
+                request.getQueryStringParameter("nextToken"),
+                integerParameter(request, "maxItems"),
+                request.getQueryStringParameter("consistency")));
+        case "POST":
+          RequestMetrics.setOperation("addTherapist");
+          return ok(therapistService.addTherapist(body(request, Therapist.class)));
+        default:
+          return COLLECTION_METHOD_NOT_ALLOWED;
+      }
+    }
+
+    String segment = segments.get(1);
+    switch (segment) {
+      case "search":
+        if (!"GET".equals(method)) {
+          return routeOtherMethod(request, segment, QUERY_METHOD_NOT_ALLOWED);
+        }
+        RequestMetrics.setOperation("getTherapistByNTA");
+        return ok(therapistService.getTherapistByNTA(
+              request.getQueryStringParameter("therapistArea"),
+              request.getQueryStringParameter("nextToken"),
+              request.getQueryStringParameter("therapistType"),
+              integerParameter(request, "maxItems"),
+              request.getQueryStringParameter("name")));
+      case "changes":
+        if (!"GET".equals(method)) {
+          return routeOtherMethod(request, segment, QUERY_METHOD_NOT_ALLOWED);
+        }
+        RequestMetrics.setOperation("getTherapistChanges");
+        return ok(therapistService.getTherapistChanges(
+              request.getQueryStringParameter("since"),
+              integerParameter(request, "maxItems")));
+      case "facets":
+        if (!"GET".equals(method)) {
+          return routeOtherMethod(request, segment, QUERY_METHOD_NOT_ALLOWED);
+        }
+        RequestMetrics.setOperation("getTherapistFacets");
+        return ok(therapistService.getTherapistFacets(
+              request.getQueryStringParameter("therapistArea")));
+      case "batch":
+        switch (method) {
+          case "GET":
+            RequestMetrics.setOperation("getTherapistBatch");
+            return ok(therapistService.getTherapistBatch(
+                  request.getQueryStringParameters("ids")));
+          case "POST":
+            RequestMetrics.setOperation("addTherapistBatch");
+            return ok(therapistService.addTherapistBatch(
+                  body(request, TherapistBatchCreateRequest.class)));
+          default:
+            return routeOtherMethod(request, segment, COLLECTION_METHOD_NOT_ALLOWED);
+        }
+      default:
+        return routeTherapist(request, segment);
+    }
+  }
+
+  private Result routeTherapist(final ProxyRequest request, final String therapistId)
+        throws IOException {
+    switch (request.getHttpMethod()) {
+      case "GET":
+        RequestMetrics.setOperation("getTherapist");
+        return ok(therapistService.getTherapist(therapistId,
+              request.getQueryStringParameter("consistency"),
+              longParameter(request, "minVersion")));
+      case "PUT":
+        RequestMetrics.setOperation("updateTherapist");
+        return ok(therapistService.updateTherapist(body(request, Therapist.class), therapistId));
+      case "DELETE":
+        RequestMetrics.setOperation("deleteTherapist");
+        therapistService.deleteTherapist(therapistId,
+              longParameter(request, "expectedVersion"));
+        return ok(null);
+      default:
+        return THERAPIST_METHOD_NOT_ALLOWED;
+    }
+  }
+
+  // Like JAX-RS, a method the named resource does not have goes to the therapist of that id
+  // when the therapist resource has it, e.g. PUT /therapist/search updates therapist "search".
+  private Result routeOtherMethod(final ProxyRequest request, final String segment,
+                                  final Result methodNotAllowed) throws IOException {
+    switch (request.getHttpMethod()) {
+      case "PUT":
+      case "DELETE":
+        return routeTherapist(request, segment);
+      default:
+        return methodNotAllowed;
+    }
+  }
+
+  private static List<String> segments(final String path) {
+    List<String> segments = new ArrayList<>(2);
+    if (path == null) {
+      return segments;
+    }
+    for (String segment : path.split("/")) {
+      if (!segment.isEmpty()) {
+        segments.add(segment);
+      }
+    }
+    return segments;
+  }
+
+  private static Integer integerParameter(final ProxyRequest request, final String name) {
+    String value = request.getQueryStringParameter(name);
+    try {
+      return value == null ? null : Integer.valueOf(value);
+    } catch (NumberFormatException e) {
+      throw new InvalidParameterException(e);
+    }
+  }
+
+  private static Long longParameter(final ProxyRequest request, final String name) {
+    String value = request.getQueryStringParameter(name);
+    try {
+      return value == null ? null : Long.valueOf(value);
+    } catch (NumberFormatException e) {
+      throw new InvalidParameterException(e);
+    }
+  }
+
+  // An empty body is a null entity, like Jersey passes it to the resource method.
+  private static <T> T body(final ProxyRequest request, final Class<T> type)
+        throws IOException {
+    String body = request.getBodyText();
+    if (body == null || body.isEmpty()) {
+      return null;
+    }
+    return OBJECT_MAPPER.readValue(body, type);
+  }
+
+  private static Result methodNotAllowed(final String allow) {
+    return new Result(Response.Status.METHOD_NOT_ALLOWED.getStatusCode(), null, allow);
+  }
+
+  private static Result ok(final Object entity) {
+    return entity == null
+          ? new Result(Response.Status.NO_CONTENT.getStatusCode(), null)
+          : new Result(Response.Status.OK.getStatusCode(), entity);
+  }
+
+  private static void write(final Result result, final String consumedCapacity,
+                            final OutputStream outputStream) throws IOException {
+    long start = System.nanoTime();
+    String body = result.entity == null ? null : OBJECT_MAPPER.writeValueAsString(result.entity);
+    RequestMetrics.recordSince(Phase.JSON_WRITE, start);
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+      generator.writeStartObject();
+      generator.writeNumberField("statusCode", result.status);
+      generator.writeObjectFieldStart("multiValueHeaders");
+      if (body != null) {
+        generator.writeArrayFieldStart("Content-Type");
+        generator.writeString(MediaType.APPLICATION_JSON);
+        generator.writeEndArray();
+      }
+      generator.writeArrayFieldStart("Access-Control-Allow-Origin");
+      generator.writeString("*");
+      generator.writeEndArray();
+      if (result.allow != null) {
+        generator.writeArrayFieldStart(HttpHeaders.ALLOW);
+        generator.writeString(result.allow);
+        generator.writeEndArray();
+      }
+      if (consumedCapacity != null) {
+        generator.writeArrayFieldStart(MetricsFilter.CONSUMED_CAPACITY_HEADER);
+        generator.writeString(consumedCapacity);
+        generator.writeEndArray();
+      }
+      generator.writeEndObject();
+      generator.writeStringField("body", body);
+      generator.writeBooleanField("isBase64Encoded", false);
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * Status and entity of a response.
+   */
+  @AllArgsConstructor
+  private static final class Result {
+    private final int status;
+    private final Object entity;
+    private final String allow;
+
+    private Result(final int status, final Object entity) {
+      this(status, entity, null);
+    }
+  }
+
+  /**
+   * A query parameter that can not be converted to its type, which JAX-RS answers with 404.
+   */
+  private static final class InvalidParameterException extends IllegalArgumentException {
+    private InvalidParameterException(final NumberFormatException cause) {
+      super(cause);
+    }
+  }
+
+  /**
+   * Wires the service on first use, so constructing the handler with a service needs no AWS
+   * environment.
+   */
+  private static final class ServiceHolder {
+    private static final TherapistApi THERAPIST_SERVICE = createTherapistService();
+
+    private static TherapistApi createTherapistService() {
+      ConfigProvider configProvider = new SsmConfigProviderFactory().provide();
+      ExecutorService executor = new ExecutorServiceFactory().provide();
+      DynamoDbClient dynamodb = new DynamoDbClientFactory(configProvider, executor).provide();
+      TokenSerializer<Map<String, AttributeValue>> paginationTokenSerializer =
+            new PaginationTokenSerializer(new KmsClientFactory().provide(), configProvider);
+      TherapistCache therapistCache = new TherapistCacheFactory(configProvider).provide();
+      TherapistPartitioner therapistPartitioner = new TherapistPartitioner(configProvider);
+      TherapistBatchOperations therapistBatchOperations = new TherapistBatchOperations(
+            dynamodb, configProvider, executor, therapistCache, therapistPartitioner);
+      TherapistQueryExecutor therapistQueryExecutor = new TherapistQueryExecutor(dynamodb,
+            paginationTokenSerializer, configProvider, executor);
+      TherapistStore therapistStore = new TherapistStoreFactory(configProvider, dynamodb,
+            therapistPartitioner, therapistCache).provide();
+      log.info("Wired TherapistService without Jersey");
+      return new TherapistService(paginationTokenSerializer, dynamodb, configProvider,
+            therapistStore, therapistBatchOperations, therapistPartitioner,
+            therapistQueryExecutor, new TherapistSearchCache(configProvider),
+            new NameIndexFactory(configProvider).provide());
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package software.amazon.serverless.apprepo.container;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import software.amazon.serverless.apprepo.container.config.Env;
+import software.amazon.serverless.apprepo.metrics.ConsumedCapacityRecorder;
+import software.amazon.serverless.apprepo.metrics.Phase;
+import software.amazon.serverless.apprepo.metrics.RequestMetrics;
+
+/**
+ * Filter to record request metrics. Names the operation of the invocation after the matched
+ * resource method and times writing the response entity. When enabled, adds the DynamoDB
+ * capacity the request consumed as the {@value #CONSUMED_CAPACITY_HEADER} header.
+ */
+@Provider
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter,
+      WriterInterceptor {
+  public static final String CONSUMED_CAPACITY_HEADER = "X-Consumed-Capacity";
+  private static final boolean CONSUMED_CAPACITY_HEADER_ENABLED =
+        Env.isConsumedCapacityHeaderEnabled();
+
+  @Context
+  private ResourceInfo resourceInfo;
+
+  @Override
+  public void filter(ContainerRequestContext requestContext) {
+    Method method = resourceInfo.getResourceMethod();
+    if (method != null) {
+      RequestMetrics.setOperation(method.getName());
+    }
+  }
+
+  @Override
+  public void filter(ContainerRequestContext requestContext,
+                     ContainerResponseContext responseContext) {
+    if (CONSUMED_CAPACITY_HEADER_ENABLED) {
+      String consumedCapacity = ConsumedCapacityRecorder.describe();
+      if (consumedCapacity != null) {
+        responseContext.getHeaders().add(CONSUMED_CAPACITY_HEADER, consumedCapacity);
+      }
+    }
+  }
+
+  @Override
+  public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+    long start = System.nanoTime();
+    try {
+      context.proceed();
+    } finally {
+      RequestMetrics.recordSince(Phase.JSON_WRITE, start);
+    }
+  }
+}
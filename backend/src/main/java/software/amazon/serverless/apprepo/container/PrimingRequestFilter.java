@@ -0,0 +1,61 @@
+package software.amazon.serverless.apprepo.container;
+
+import io.swagger.model.Therapist;
+import io.swagger.model.TherapistList;
+import io.swagger.model.TherapistSummary;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Answers the synthetic priming requests of {@link ApiLambdaPrimer} with sample therapists,
+ * so priming runs Jersey's Jackson writer for the response models without a backend call.
+ *
+ * <p>Only requests that carry this container's random priming token are answered; every
+ * other request passes through.
+ */
+@Provider
+@PreMatching
+public class PrimingRequestFilter implements ContainerRequestFilter {
+  static final String PRIMING_HEADER = "X-Apprepo-Priming";
+  static final String PRIMING_TOKEN = UUID.randomUUID().toString();
+  static final String THERAPIST_PATH = "/priming/therapist";
+  static final String THERAPIST_LIST_PATH = "/priming/therapists";
+
+  private static final Therapist SAMPLE_THERAPIST = new Therapist()
+        .therapistId("priming")
+        .therapistName("Priming")
+        .therapistMob("0000000000")
+        .therapistArea("priming")
+        .therapistType("priming")
+        .creationTime("1970-01-01T00:00:00Z")
+        .version(1L);
+  private static final TherapistList SAMPLE_THERAPIST_LIST = new TherapistList()
+        .therapist(Arrays.asList(new TherapistSummary()
+              .therapistId("priming")
+              .therapistName("Priming")
+              .therapistMob("0000000000")
+              .therapistArea("priming")
+              .therapistType("priming")
+              .creationTime("1970-01-01T00:00:00Z")
+              .version(1L)))
+        .nextToken("priming");
+
+  @Override
+  public void filter(final ContainerRequestContext requestContext) {
+    if (!PRIMING_TOKEN.equals(requestContext.getHeaderString(PRIMING_HEADER))) {
+      return;
+    }
+    Object entity = requestContext.getUriInfo().getRequestUri().getPath()
+          .endsWith(THERAPIST_PATH)
+          ? SAMPLE_THERAPIST : SAMPLE_THERAPIST_LIST;
+    requestContext.abortWith(Response.ok(entity, MediaType.APPLICATION_JSON_TYPE).build());
+  }
+}
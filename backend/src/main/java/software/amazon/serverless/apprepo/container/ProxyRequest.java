@@ -0,0 +1,147 @@
+package software.amazon.serverless.apprepo.container;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * The parts of an API Gateway proxy event that {@link DirectDispatchLambdaHandler} routes on,
+ * read with a streaming parser that skips everything else, e.g. the request context and
+ * the headers.
+ */
+@Getter
+final class ProxyRequest {
+  private String source;
+  private String httpMethod;
+  private String path;
+  private String body;
+  private boolean base64Encoded;
+  private Map<String, List<String>> queryStringParameters = Collections.emptyMap();
+
+  private ProxyRequest() {
+  }
+
+  /**
+   * Read a proxy event.
+   *
+   * @param input the event Json.
+   * @param jsonFactory factory of the streaming parser.
+   * @return the request.
+   * @throws IOException when the event is not a Json object.
+   */
+  static ProxyRequest read(final InputStream input, final JsonFactory jsonFactory)
+        throws IOException {
+    ProxyRequest request = new ProxyRequest();
+    Map<String, List<String>> singleValueParameters = null;
+    Map<String, List<String>> multiValueParameters = null;
+    try (JsonParser parser = jsonFactory.createParser(input)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Proxy event is not a Json object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        parser.nextToken();
+        switch (field) {
+          case "source":
+            request.source = parser.getValueAsString();
+            break;
+          case "httpMethod":
+            request.httpMethod = parser.getValueAsString();
+            break;
+          case "path":
+            request.path = parser.getValueAsString();
+            break;
+          case "body":
+            request.body = parser.getValueAsString();
+            break;
+          case "isBase64Encoded":
+            request.base64Encoded = parser.getValueAsBoolean();
+            break;
+          case "queryStringParameters":
+            singleValueParameters = readParameters(parser);
+            break;
+          case "multiValueQueryStringParameters":
+            multiValueParameters = readParameters(parser);
+            break;
+          default:
+            parser.skipChildren();
+        }
+      }
+    }
+    if (multiValueParameters != null) {
+      request.queryStringParameters = multiValueParameters;
+    } else if (singleValueParameters != null) {
+      request.queryStringParameters = singleValueParameters;
+    }
+    return request;
+  }
+
+  /**
+   * The first value of a query string parameter, like {@code @QueryParam} injects it.
+   *
+   * @param name parameter name.
+   * @return the value, or null when absent.
+   */
+  String getQueryStringParameter(final String name) {
+    List<String> values = queryStringParameters.get(name);
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+  /**
+   * All values of a query string parameter.
+   *
+   * @param name parameter name.
+   * @return the values, empty when absent.
+   */
+  List<String> getQueryStringParameters(final String name) {
+    return queryStringParameters.getOrDefault(name, Collections.emptyList());
+  }
+
+  /**
+   * The body as UTF-8 text, decoding a base64 encoded body.
+   *
+   * @return the body, or null when there is none.
+   */
+  String getBodyText() {
+    if (body == null || !base64Encoded) {
+      return body;
+    }
+    return new String(Base64.getDecoder().decode(body), StandardCharsets.UTF_8);
+  }
+
+  // Values are either a string or, in the multi value map, an array of strings.
+  private static Map<String, List<String>> readParameters(final JsonParser parser)
+        throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return null;
+    }
+    Map<String, List<String>> parameters = new HashMap<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      List<String> values = new ArrayList<>(1);
+      if (parser.nextToken() == JsonToken.START_ARRAY) {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          values.add(parser.getValueAsString());
+        }
+      } else if (parser.currentToken() != JsonToken.VALUE_NULL) {
+        values.add(parser.getValueAsString());
+      }
+      parameters.put(name, values);
+    }
+    return parameters;
+  }
+}
@@ -0,0 +1,68 @@
+package software.amazon.serverless.apprepo.container;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Reads the item images of the DynamoDB stream events Lambda delivers, with Jackson rather
+ * than the Lambda event classes, which are built on the v1 SDK.
+ */
+final class StreamImages {
+  static final String REMOVE_EVENT = "REMOVE";
+
+  private StreamImages() {
+  }
+
+  /**
+   * Read an image of a stream record.
+   *
+   * @param record    the stream record.
+   * @param imageName "Keys", "OldImage" or "NewImage".
+   * @return the therapist, or null when the record has no such image or the item is one of
+   *     the table's own items rather than a therapist.
+   */
+  static TherapistRecord therapist(final JsonNode record, final String imageName) {
+    JsonNode image = record.path("dynamodb").path(imageName);
+    if (image.isMissingNode() || image.size() == 0) {
+      return null;
+    }
+    TherapistRecord therapist = new TherapistRecord(toAttributeMap(image));
+    return therapist.getTherapistId() == null
+          || TherapistRecord.isReservedUserId(therapist.getUserId()) ? null : therapist;
+  }
+
+  /**
+   * Read when the change of a stream record was made.
+   *
+   * @param record the stream record.
+   * @return the approximate creation time of the record, rounded down to the second.
+   */
+  static Instant changedAt(final JsonNode record) {
+    return Instant.ofEpochSecond(
+          (long) record.path("dynamodb").path("ApproximateCreationDateTime").asDouble());
+  }
+
+  // Therapist items only hold string and number attributes.
+  private static Map<String, AttributeValue> toAttributeMap(final JsonNode image) {
+    Map<String, AttributeValue> item = new HashMap<>();
+    Iterator<Map.Entry<String, JsonNode>> attributes = image.fields();
+    while (attributes.hasNext()) {
+      Map.Entry<String, JsonNode> attribute = attributes.next();
+      JsonNode value = attribute.getValue();
+      if (value.has("S")) {
+        item.put(attribute.getKey(), AttributeValue.builder().s(value.get("S").asText()).build());
+      } else if (value.has("N")) {
+        item.put(attribute.getKey(), AttributeValue.builder().n(value.get("N").asText()).build());
+      }
+    }
+    return item;
+  }
+}
@@ -0,0 +1,136 @@
+package software.amazon.serverless.apprepo.container;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+import software.amazon.serverless.apprepo.api.impl.changes.ChangeLogWriter;
+import software.amazon.serverless.apprepo.api.impl.facet.FacetAggregator;
+import software.amazon.serverless.apprepo.api.impl.search.NameIndexStore;
+import software.amazon.serverless.apprepo.api.impl.search.NameIndexUpdater;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+import software.amazon.serverless.apprepo.container.config.Env;
+import software.amazon.serverless.apprepo.container.factory.NameIndexFactory;
+import software.amazon.serverless.apprepo.container.factory.SsmConfigProviderFactory;
+import software.amazon.serverless.apprepo.container.http.HttpTransport;
+
+/**
+ * Therapist stream Lambda handler. This is the entry point for the one Lambda that consumes
+ * the Therapist table stream, and it hands every batch to the {@link NameIndexUpdater}, the
+ * {@link FacetAggregator} and the {@link ChangeLogWriter} in turn.
+ *
+ * <p>DynamoDB Streams throttles when more than two readers poll a shard, so the consumers
+ * share one event source mapping rather than each having their own.
+ *
+ * <p>A batch that fails in any consumer is retried by Lambda for all of them. The name index
+ * rewrites the latest images, the aggregator skips the parts it already applied and the
+ * change log appends repeated changes clients apply as upserts, so each may see a batch
+ * again. The change log is appended last, so a batch is only repeated in it when the append
+ * itself fails.
+ */
+@Slf4j
+public class TherapistStreamLambdaHandler implements RequestStreamHandler {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final byte[] RESPONSE = "{}".getBytes(StandardCharsets.UTF_8);
+
+  private static final NameIndexUpdater nameIndexUpdater;
+  private static final FacetAggregator facetAggregator;
+  private static final ChangeLogWriter changeLogWriter;
+
+  static {
+    ConfigProvider configProvider = new SsmConfigProviderFactory().provide();
+    DynamoDbClient dynamodb = DynamoDbClient.builder()
+          .region(Region.of(Env.getRegion()))
+          .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
+          .httpClient(HttpTransport.getInstance().client(HttpTransport.DYNAMODB))
+          .build();
+    String tableName = configProvider.getTherapistTableName();
+    nameIndexUpdater = new NameIndexUpdater(
+          new NameIndexStore(NameIndexFactory.createS3Client(), Env.getNameIndexBucket()),
+          dynamodb, tableName, Clock.systemUTC());
+    facetAggregator = new FacetAggregator(dynamodb, tableName, Clock.systemUTC());
+    changeLogWriter = new ChangeLogWriter(dynamodb, tableName, Clock.systemUTC());
+  }
+
+  @Override
+  public void handleRequest(InputStream inputStream, OutputStream outputStream, Context context)
+        throws IOException {
+    JsonNode records = OBJECT_MAPPER.readTree(inputStream).path("Records");
+    nameIndexUpdater.update(nameIndexChanges(records));
+    if (records.size() > 0) {
+      // Lambda keeps the event ids of the first and last records when it retries the batch.
+      String batchId = records.get(0).path("eventID").asText() + "-"
+            + records.get(records.size() - 1).path("eventID").asText();
+      facetAggregator.apply(batchId, facetChanges(records));
+    }
+    changeLogWriter.append(changeLogChanges(records));
+    outputStream.write(RESPONSE);
+  }
+
+  // Records of an item are in order within a batch, so the last one is its current state.
+  private static SortedMap<String, TherapistRecord> nameIndexChanges(final JsonNode records) {
+    SortedMap<String, TherapistRecord> changes = new TreeMap<>();
+    for (JsonNode record : records) {
+      if (StreamImages.REMOVE_EVENT.equals(record.path("eventName").asText())) {
+        TherapistRecord key = StreamImages.therapist(record, "Keys");
+        if (key != null) {
+          changes.put(key.getTherapistId(), null);
+        }
+      } else {
+        TherapistRecord therapist = StreamImages.therapist(record, "NewImage");
+        if (therapist != null) {
+          changes.put(therapist.getTherapistId(), therapist);
+        }
+      }
+    }
+    return changes;
+  }
+
+  private static List<FacetAggregator.Change> facetChanges(final JsonNode records) {
+    List<FacetAggregator.Change> changes = new ArrayList<>(records.size());
+    for (JsonNode record : records) {
+      changes.add(new FacetAggregator.Change(StreamImages.changedAt(record),
+            StreamImages.therapist(record, "OldImage"),
+            StreamImages.therapist(record, "NewImage")));
+    }
+    return changes;
+  }
+
+  private static List<ChangeLogWriter.Change> changeLogChanges(final JsonNode records) {
+    List<ChangeLogWriter.Change> changes = new ArrayList<>();
+    for (JsonNode record : records) {
+      if (StreamImages.REMOVE_EVENT.equals(record.path("eventName").asText())) {
+        TherapistRecord key = StreamImages.therapist(record, "Keys");
+        if (key != null) {
+          changes.add(new ChangeLogWriter.Change(key.getTherapistId(), null));
+        }
+      } else {
+        TherapistRecord therapist = StreamImages.therapist(record, "NewImage");
+        // A write that left the therapist as it was is not a change for clients.
+        if (therapist != null
+              && !therapist.equals(StreamImages.therapist(record, "OldImage"))) {
+          changes.add(new ChangeLogWriter.Change(therapist.getTherapistId(), therapist));
+        }
+      }
+    }
+    return changes;
+  }
+}
@@ -26,4 +26,124 @@ public interface ConfigProvider {
    * @return ttl duration.
    */
   Duration getPaginationTokenTtl();
+
+  /**
+   * Get how long a pagination data key is used to encrypt tokens before it is rotated.
+   *
+   * @return rotation interval duration.
+   */
+  Duration getPaginationDataKeyRotationInterval();
+
+  /**
+   * Get Therapist DynamoDB Table stream ARN.
+   *
+   * @return stream ARN String.
+   */
+  String getTherapistTableStreamArn();
+
+  /**
+   * Get the maximum number of therapists cached in a container.
+   *
+   * @return maximum cache size.
+   */
+  long getTherapistCacheMaxSize();
+
+  /**
+   * Get how long a therapist stays cached in a container.
+   *
+   * @return ttl duration.
+   */
+  Duration getTherapistCacheTtl();
+
+  /**
+   * Get whether cached therapists are invalidated from the table stream.
+   *
+   * @return true if the container should poll the table stream.
+   */
+  boolean isTherapistCacheStreamInvalidationEnabled();
+
+  /**
+   * Get the number of partition keys therapists are spread over.
+   *
+   * @return shard count.
+   */
+  int getTherapistShardCount();
+
+  /**
+   * Get whether therapists may still be stored under the unsharded partition key.
+   *
+   * @return true while therapists written before sharding are not migrated.
+   */
+  boolean isTherapistLegacyKeyFallbackEnabled();
+
+  /**
+   * Get the maximum size in bytes of the therapists in a list or search page.
+   *
+   * @return byte budget.
+   */
+  long getQueryResponseByteBudget();
+
+  /**
+   * Get how long a prefetched list or search page is kept for the next request.
+   *
+   * @return ttl duration, zero to disable prefetching.
+   */
+  Duration getQueryPrefetchTtl();
+
+  /**
+   * Get the maximum approximate size in bytes of the search pages cached in a container.
+   *
+   * @return maximum cache size in bytes.
+   */
+  long getSearchCacheMaxBytes();
+
+  /**
+   * Get how long a search page stays cached in a container.
+   *
+   * @return ttl duration, zero to disable the search cache.
+   */
+  Duration getSearchCacheTtl();
+
+  /**
+   * Get how often a container checks for a new version of the name index.
+   *
+   * @return refresh interval duration.
+   */
+  Duration getNameIndexRefreshInterval();
+
+  /**
+   * Get the maximum number of attempts of a DynamoDB call, including the first one.
+   *
+   * @return maximum attempts.
+   */
+  int getDynamoDbMaxAttempts();
+
+  /**
+   * Get the retry token budget shared by all DynamoDB calls of a container. A retry costs 5
+   * tokens, 10 after a timeout, and a successful call returns 1.
+   *
+   * @return budget in tokens.
+   */
+  int getDynamoDbRetryBudget();
+
+  /**
+   * Get the share of failed DynamoDB calls that opens the circuit breaker.
+   *
+   * @return failure rate between 0 and 1.
+   */
+  double getDynamoDbCircuitBreakerFailureRate();
+
+  /**
+   * Get how long an open circuit breaker rejects DynamoDB calls before it lets a probe through.
+   *
+   * @return open duration.
+   */
+  Duration getDynamoDbCircuitBreakerOpenDuration();
+
+  /**
+   * Get whether a slow GetItem is hedged with a second request after the p95 latency.
+   *
+   * @return true if GetItem requests are hedged.
+   */
+  boolean isDynamoDbHedgedReadEnabled();
 }
@@ -1,5 +1,8 @@
 package software.amazon.serverless.apprepo.container.config;
 
+import java.time.Duration;
+import java.util.Locale;
+
 /**
  * System environment variable helper class.
  */
@@ -8,6 +11,11 @@ public final class Env {
     return System.getenv(key);
   }
 
+  private static long getEnvAsLong(final String key, final long defaultValue) {
+    String value = getEnv(key);
+    return value == null || value.isEmpty() ? defaultValue : Long.parseLong(value);
+  }
+
   private static String getStage() {
     return getEnv("STAGE");
   }
@@ -20,4 +28,95 @@ public final class Env {
     return getEnv("AWS_REGION");
   }
 
+  /**
+   * Whether the API is served by the non-blocking service on DynamoDbAsyncClient.
+   * Defaults to the synchronous service.
+   *
+   * @return true if ASYNC_SERVICE is set to true.
+   */
+  public static boolean isAsyncServiceEnabled() {
+    return Boolean.parseBoolean(getEnv("ASYNC_SERVICE"));
+  }
+
+  /**
+   * Whether responses carry the DynamoDB capacity the request consumed in the
+   * X-Consumed-Capacity header. Meant for debugging; defaults to off.
+   *
+   * @return true if CONSUMED_CAPACITY_HEADER is set to true.
+   */
+  public static boolean isConsumedCapacityHeaderEnabled() {
+    return Boolean.parseBoolean(getEnv("CONSUMED_CAPACITY_HEADER"));
+  }
+
+  /**
+   * Storage engine of the therapists: "dynamodb", or "memory" for tests and load benchmarks
+   * without DynamoDB.
+   *
+   * @return THERAPIST_STORE, or "dynamodb" when it is not set.
+   */
+  public static String getTherapistStore() {
+    String value = getEnv("THERAPIST_STORE");
+    return value == null || value.isEmpty() ? "dynamodb" : value.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Whether the in-memory therapist store keeps the therapists off the heap.
+   *
+   * @return true if THERAPIST_STORE_OFF_HEAP is set to true.
+   */
+  public static boolean isTherapistStoreOffHeap() {
+    return Boolean.parseBoolean(getEnv("THERAPIST_STORE_OFF_HEAP"));
+  }
+
+  /**
+   * S3 bucket of the therapist name index. Name search is disabled when it is not set.
+   *
+   * @return NAME_INDEX_BUCKET, or null.
+   */
+  public static String getNameIndexBucket() {
+    return getEnv("NAME_INDEX_BUCKET");
+  }
+
+  /**
+   * Maximum concurrent connections to a service, from HTTP_MAX_CONNECTIONS_&lt;SERVICE&gt;,
+   * e.g. HTTP_MAX_CONNECTIONS_DYNAMODB, then HTTP_MAX_CONNECTIONS.
+   *
+   * @param service endpoint prefix of the service, e.g. "dynamodb" or "streams.dynamodb".
+   * @param defaultValue value when neither is set.
+   * @return the maximum connections.
+   */
+  public static int getHttpMaxConnections(final String service, final int defaultValue) {
+    String serviceKey = "HTTP_MAX_CONNECTIONS_"
+          + service.toUpperCase(Locale.ROOT).replace('.', '_');
+    return (int) getEnvAsLong(serviceKey, getEnvAsLong("HTTP_MAX_CONNECTIONS", defaultValue));
+  }
+
+  public static Duration getHttpConnectionTimeout(final Duration defaultValue) {
+    return Duration.ofMillis(getEnvAsLong("HTTP_CONNECTION_TIMEOUT_MILLIS",
+          defaultValue.toMillis()));
+  }
+
+  public static Duration getHttpSocketTimeout(final Duration defaultValue) {
+    return Duration.ofMillis(getEnvAsLong("HTTP_SOCKET_TIMEOUT_MILLIS", defaultValue.toMillis()));
+  }
+
+  public static Duration getHttpConnectionAcquisitionTimeout(final Duration defaultValue) {
+    return Duration.ofMillis(getEnvAsLong("HTTP_CONNECTION_ACQUISITION_TIMEOUT_MILLIS",
+          defaultValue.toMillis()));
+  }
+
+  public static int getHttpPrewarmConnections(final int defaultValue) {
+    return (int) getEnvAsLong("HTTP_PREWARM_CONNECTIONS", defaultValue);
+  }
+
+  /**
+   * Interval the HTTP transport metrics are logged at.
+   *
+   * @param defaultValue value when HTTP_METRICS_LOG_INTERVAL_SECONDS is not set.
+   * @return the interval; zero disables the log.
+   */
+  public static Duration getHttpMetricsLogInterval(final Duration defaultValue) {
+    return Duration.ofSeconds(getEnvAsLong("HTTP_METRICS_LOG_INTERVAL_SECONDS",
+          defaultValue.getSeconds()));
+  }
 }
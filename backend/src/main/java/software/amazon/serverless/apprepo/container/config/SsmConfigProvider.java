@@ -4,38 +4,208 @@ import java.time.Duration;
 
 import lombok.RequiredArgsConstructor;
 import software.amazon.awssdk.services.ssm.model.ParameterNotFoundException;
-import software.amazon.serverless.ssmcachingclient.SsmParameterCachingClient;
 
 /**
  * Provide config value from AWS SSM.
+ *
+ * <p>Values are read from the in-memory {@link SsmParameterStore}, so no lookup calls SSM.
+ * Optional parameters that do not exist fall back to their defaults.
  */
 @RequiredArgsConstructor
 public class SsmConfigProvider implements ConfigProvider {
   private static final Duration DEFAULT_PAGINATION_TOKEN_TTL = Duration.ofHours(1);
+  private static final Duration DEFAULT_PAGINATION_DATA_KEY_ROTATION_INTERVAL =
+        Duration.ofMinutes(15);
+  private static final long DEFAULT_THERAPIST_CACHE_MAX_SIZE = 10_000L;
+  private static final Duration DEFAULT_THERAPIST_CACHE_TTL = Duration.ofSeconds(30);
+  private static final int DEFAULT_THERAPIST_SHARD_COUNT = 1;
+  private static final long DEFAULT_QUERY_RESPONSE_BYTE_BUDGET = 1024L * 1024L;
+  private static final Duration DEFAULT_QUERY_PREFETCH_TTL = Duration.ofSeconds(5);
+  private static final long DEFAULT_SEARCH_CACHE_MAX_BYTES = 16L * 1024L * 1024L;
+  private static final Duration DEFAULT_SEARCH_CACHE_TTL = Duration.ofSeconds(10);
+  private static final Duration DEFAULT_NAME_INDEX_REFRESH_INTERVAL = Duration.ofSeconds(30);
+  private static final int DEFAULT_DYNAMODB_MAX_ATTEMPTS = 3;
+  private static final int DEFAULT_DYNAMODB_RETRY_BUDGET = 500;
+  private static final double DEFAULT_DYNAMODB_CIRCUIT_BREAKER_FAILURE_RATE = 0.5;
+  private static final Duration DEFAULT_DYNAMODB_CIRCUIT_BREAKER_OPEN_DURATION =
+        Duration.ofSeconds(5);
   private static final String THERAPIST_TABLE_NAME_CONFIG_KEY = "ddb/Therapist/TableName";
+  private static final String THERAPIST_TABLE_STREAM_ARN_CONFIG_KEY = "ddb/Therapist/StreamArn";
   private static final String KMS_KEY_ID_CONFIG_KEY = "kms/pagination/KeyId";
   private static final String PAGINATION_TOKEN_TTL_IN_SECONDS_CONFIG_KEY =
         "configuration/pagination/TtlInSeconds";
+  private static final String PAGINATION_DATA_KEY_ROTATION_IN_SECONDS_CONFIG_KEY =
+        "configuration/pagination/DataKeyRotationInSeconds";
+  private static final String THERAPIST_CACHE_MAX_SIZE_CONFIG_KEY =
+        "configuration/cache/Therapist/MaxSize";
+  private static final String THERAPIST_CACHE_TTL_IN_SECONDS_CONFIG_KEY =
+        "configuration/cache/Therapist/TtlInSeconds";
+  private static final String THERAPIST_CACHE_STREAM_INVALIDATION_CONFIG_KEY =
+        "configuration/cache/Therapist/StreamInvalidationEnabled";
+  private static final String THERAPIST_SHARD_COUNT_CONFIG_KEY =
+        "configuration/sharding/Therapist/ShardCount";
+  private static final String THERAPIST_LEGACY_KEY_FALLBACK_CONFIG_KEY =
+        "configuration/sharding/Therapist/LegacyKeyFallbackEnabled";
+  private static final String QUERY_RESPONSE_BYTE_BUDGET_CONFIG_KEY =
+        "configuration/query/ResponseByteBudget";
+  private static final String QUERY_PREFETCH_TTL_IN_MILLIS_CONFIG_KEY =
+        "configuration/query/PrefetchTtlInMillis";
+  private static final String SEARCH_CACHE_MAX_BYTES_CONFIG_KEY =
+        "configuration/cache/Search/MaxBytes";
+  private static final String SEARCH_CACHE_TTL_IN_SECONDS_CONFIG_KEY =
+        "configuration/cache/Search/TtlInSeconds";
+  private static final String NAME_INDEX_REFRESH_INTERVAL_IN_SECONDS_CONFIG_KEY =
+        "configuration/search/NameIndex/RefreshIntervalInSeconds";
+  private static final String DYNAMODB_MAX_ATTEMPTS_CONFIG_KEY =
+        "configuration/resilience/DynamoDb/MaxAttempts";
+  private static final String DYNAMODB_RETRY_BUDGET_CONFIG_KEY =
+        "configuration/resilience/DynamoDb/RetryBudget";
+  private static final String DYNAMODB_CIRCUIT_BREAKER_FAILURE_RATE_CONFIG_KEY =
+        "configuration/resilience/DynamoDb/CircuitBreakerFailureRate";
+  private static final String DYNAMODB_CIRCUIT_BREAKER_OPEN_IN_MILLIS_CONFIG_KEY =
+        "configuration/resilience/DynamoDb/CircuitBreakerOpenInMillis";
+  private static final String DYNAMODB_HEDGED_READ_CONFIG_KEY =
+        "configuration/resilience/DynamoDb/HedgedReadEnabled";
 
-  private final SsmParameterCachingClient ssm;
+  private final SsmParameterStore parameters;
 
   @Override
   public String getTherapistTableName() {
-    return ssm.getAsString(THERAPIST_TABLE_NAME_CONFIG_KEY);
+    return required(THERAPIST_TABLE_NAME_CONFIG_KEY);
   }
 
   @Override
   public String getKmsKeyId() {
-    return ssm.getAsString(KMS_KEY_ID_CONFIG_KEY);
+    return required(KMS_KEY_ID_CONFIG_KEY);
   }
 
   @Override
   public Duration getPaginationTokenTtl() {
-    try {
-      String ttlString = ssm.getAsString(PAGINATION_TOKEN_TTL_IN_SECONDS_CONFIG_KEY);
-      return Duration.ofSeconds(Long.parseLong(ttlString));
-    } catch (ParameterNotFoundException e) {
-      return DEFAULT_PAGINATION_TOKEN_TTL;
-    }
-  }
-}
\ No newline at end of file
+    return parameters.get(PAGINATION_TOKEN_TTL_IN_SECONDS_CONFIG_KEY)
+          .map(value -> Duration.ofSeconds(Long.parseLong(value)))
+          .orElse(DEFAULT_PAGINATION_TOKEN_TTL);
+  }
+
+  @Override
+  public Duration getPaginationDataKeyRotationInterval() {
+    return parameters.get(PAGINATION_DATA_KEY_ROTATION_IN_SECONDS_CONFIG_KEY)
+          .map(value -> Duration.ofSeconds(Long.parseLong(value)))
+          .orElse(DEFAULT_PAGINATION_DATA_KEY_ROTATION_INTERVAL);
+  }
+
+  @Override
+  public String getTherapistTableStreamArn() {
+    return required(THERAPIST_TABLE_STREAM_ARN_CONFIG_KEY);
+  }
+
+  @Override
+  public long getTherapistCacheMaxSize() {
+    return parameters.get(THERAPIST_CACHE_MAX_SIZE_CONFIG_KEY)
+          .map(Long::parseLong)
+          .orElse(DEFAULT_THERAPIST_CACHE_MAX_SIZE);
+  }
+
+  @Override
+  public Duration getTherapistCacheTtl() {
+    return parameters.get(THERAPIST_CACHE_TTL_IN_SECONDS_CONFIG_KEY)
+          .map(value -> Duration.ofSeconds(Long.parseLong(value)))
+          .orElse(DEFAULT_THERAPIST_CACHE_TTL);
+  }
+
+  @Override
+  public boolean isTherapistCacheStreamInvalidationEnabled() {
+    return parameters.get(THERAPIST_CACHE_STREAM_INVALIDATION_CONFIG_KEY)
+          .map(Boolean::parseBoolean)
+          .orElse(false);
+  }
+
+  @Override
+  public int getTherapistShardCount() {
+    return parameters.get(THERAPIST_SHARD_COUNT_CONFIG_KEY)
+          .map(Integer::parseInt)
+          .orElse(DEFAULT_THERAPIST_SHARD_COUNT);
+  }
+
+  @Override
+  public boolean isTherapistLegacyKeyFallbackEnabled() {
+    return parameters.get(THERAPIST_LEGACY_KEY_FALLBACK_CONFIG_KEY)
+          .map(Boolean::parseBoolean)
+          .orElse(true);
+  }
+
+  @Override
+  public long getQueryResponseByteBudget() {
+    return parameters.get(QUERY_RESPONSE_BYTE_BUDGET_CONFIG_KEY)
+          .map(Long::parseLong)
+          .orElse(DEFAULT_QUERY_RESPONSE_BYTE_BUDGET);
+  }
+
+  @Override
+  public Duration getQueryPrefetchTtl() {
+    return parameters.get(QUERY_PREFETCH_TTL_IN_MILLIS_CONFIG_KEY)
+          .map(value -> Duration.ofMillis(Long.parseLong(value)))
+          .orElse(DEFAULT_QUERY_PREFETCH_TTL);
+  }
+
+  @Override
+  public long getSearchCacheMaxBytes() {
+    return parameters.get(SEARCH_CACHE_MAX_BYTES_CONFIG_KEY)
+          .map(Long::parseLong)
+          .orElse(DEFAULT_SEARCH_CACHE_MAX_BYTES);
+  }
+
+  @Override
+  public Duration getSearchCacheTtl() {
+    return parameters.get(SEARCH_CACHE_TTL_IN_SECONDS_CONFIG_KEY)
+          .map(value -> Duration.ofSeconds(Long.parseLong(value)))
+          .orElse(DEFAULT_SEARCH_CACHE_TTL);
+  }
+
+  @Override
+  public Duration getNameIndexRefreshInterval() {
+    return parameters.get(NAME_INDEX_REFRESH_INTERVAL_IN_SECONDS_CONFIG_KEY)
+          .map(value -> Duration.ofSeconds(Long.parseLong(value)))
+          .orElse(DEFAULT_NAME_INDEX_REFRESH_INTERVAL);
+  }
+
+  @Override
+  public int getDynamoDbMaxAttempts() {
+    return parameters.get(DYNAMODB_MAX_ATTEMPTS_CONFIG_KEY)
+          .map(Integer::parseInt)
+          .orElse(DEFAULT_DYNAMODB_MAX_ATTEMPTS);
+  }
+
+  @Override
+  public int getDynamoDbRetryBudget() {
+    return parameters.get(DYNAMODB_RETRY_BUDGET_CONFIG_KEY)
+          .map(Integer::parseInt)
+          .orElse(DEFAULT_DYNAMODB_RETRY_BUDGET);
+  }
+
+  @Override
+  public double getDynamoDbCircuitBreakerFailureRate() {
+    return parameters.get(DYNAMODB_CIRCUIT_BREAKER_FAILURE_RATE_CONFIG_KEY)
+          .map(Double::parseDouble)
+          .orElse(DEFAULT_DYNAMODB_CIRCUIT_BREAKER_FAILURE_RATE);
+  }
+
+  @Override
+  public Duration getDynamoDbCircuitBreakerOpenDuration() {
+    return parameters.get(DYNAMODB_CIRCUIT_BREAKER_OPEN_IN_MILLIS_CONFIG_KEY)
+          .map(value -> Duration.ofMillis(Long.parseLong(value)))
+          .orElse(DEFAULT_DYNAMODB_CIRCUIT_BREAKER_OPEN_DURATION);
+  }
+
+  @Override
+  public boolean isDynamoDbHedgedReadEnabled() {
+    return parameters.get(DYNAMODB_HEDGED_READ_CONFIG_KEY)
+          .map(Boolean::parseBoolean)
+          .orElse(false);
+  }
+
+  private String required(final String key) {
+    return parameters.get(key).orElseThrow(() -> ParameterNotFoundException.builder()
+          .message(String.format("Parameter %s is not found.", key))
+          .build());
+  }
+}
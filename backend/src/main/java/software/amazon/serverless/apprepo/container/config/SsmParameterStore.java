@@ -0,0 +1,116 @@
+package software.amazon.serverless.apprepo.container.config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+
+/**
+ * In-memory copy of every SSM parameter under a key prefix.
+ *
+ * <p>All parameters are read with GetParametersByPath, a page of 10 per call, and swapped in
+ * as one immutable snapshot, so lookups never call SSM. {@link #start} refreshes the snapshot
+ * in the background. A refresh that fails is logged and the last known good snapshot keeps
+ * being served.
+ */
+@Slf4j
+public class SsmParameterStore {
+  private final SsmClient ssm;
+  private final String keyPrefix;
+  private final Clock clock;
+  private volatile Snapshot snapshot;
+
+  /**
+   * Construct SsmParameterStore. Nothing is loaded until {@link #load()} is called.
+   *
+   * @param ssm       SSM client.
+   * @param keyPrefix key prefix the parameters are under, ending with "/".
+   */
+  public SsmParameterStore(final SsmClient ssm, final String keyPrefix) {
+    this(ssm, keyPrefix, Clock.systemUTC());
+  }
+
+  SsmParameterStore(final SsmClient ssm, final String keyPrefix, final Clock clock) {
+    this.ssm = ssm;
+    this.keyPrefix = keyPrefix;
+    this.clock = clock;
+  }
+
+  /**
+   * Read all parameters under the prefix and replace the snapshot.
+   *
+   * @throws software.amazon.awssdk.core.exception.SdkException when SSM can not be read; the
+   *     previous snapshot is kept.
+   */
+  public void load() {
+    Map<String, String> values = new HashMap<>();
+    // The path of GetParametersByPath must not end with "/".
+    GetParametersByPathRequest request = GetParametersByPathRequest.builder()
+          .path(keyPrefix.substring(0, keyPrefix.length() - 1))
+          .recursive(Boolean.TRUE)
+          .build();
+    for (Parameter parameter : ssm.getParametersByPathPaginator(request).parameters()) {
+      values.put(parameter.name().substring(keyPrefix.length()), parameter.value());
+    }
+    snapshot = new Snapshot(Collections.unmodifiableMap(values), clock.instant());
+    log.info("Loaded {} SSM parameters under {}", values.size(), keyPrefix);
+  }
+
+  /**
+   * Refresh the snapshot in the background.
+   *
+   * @param executor        executor the refresh runs on.
+   * @param refreshInterval time between refreshes.
+   */
+  public void start(final ScheduledExecutorService executor, final Duration refreshInterval) {
+    executor.scheduleWithFixedDelay(this::refresh, refreshInterval.toMillis(),
+          refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Look up a parameter in the current snapshot.
+   *
+   * @param key key relative to the prefix, e.g. "ddb/Therapist/TableName".
+   * @return the value, or empty when the parameter does not exist.
+   * @throws IllegalStateException when nothing has been loaded yet.
+   */
+  public Optional<String> get(final String key) {
+    Snapshot current = snapshot;
+    if (current == null) {
+      throw new IllegalStateException("SSM parameters under " + keyPrefix + " are not loaded.");
+    }
+    return Optional.ofNullable(current.values.get(key));
+  }
+
+  private void refresh() {
+    try {
+      load();
+    } catch (RuntimeException e) {
+      // Any exception would cancel the scheduled refresh.
+      Snapshot current = snapshot;
+      log.warn("Failed to refresh SSM parameters under {}; serving values loaded at {}",
+            keyPrefix, current == null ? null : current.loadedAt, e);
+    }
+  }
+
+  /**
+   * Parameter values loaded together.
+   */
+  @RequiredArgsConstructor
+  private static final class Snapshot {
+    private final Map<String, String> values;
+    private final Instant loadedAt;
+  }
+}
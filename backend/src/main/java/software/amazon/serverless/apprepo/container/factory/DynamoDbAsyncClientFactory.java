@@ -0,0 +1,73 @@
+package software.amazon.serverless.apprepo.container.factory;
+
+import java.time.Duration;
+
+import javax.inject.Inject;
+
+import org.glassfish.hk2.api.Factory;
+
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.backoff.BackoffStrategy;
+import software.amazon.awssdk.core.retry.backoff.FullJitterBackoffStrategy;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
+import software.amazon.serverless.apprepo.api.impl.resilience.ResilientDynamoDbClient;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+import software.amazon.serverless.apprepo.container.config.Env;
+import software.amazon.serverless.apprepo.metrics.ConsumedCapacityDynamoDbClient;
+import software.amazon.serverless.apprepo.metrics.TimedDynamoDbClient;
+
+/**
+ * Factory for {@link DynamoDbAsyncClient} for HK2 DI wiring.
+ *
+ * <p>The client retries in the SDK, with the same maximum attempts and jittered backoff as the
+ * {@link ResilientDynamoDbClient} of the blocking client. It is not decorated like the blocking
+ * client: it has no retry budget or circuit breaker, and its calls are not recorded by
+ * {@link TimedDynamoDbClient} or {@link ConsumedCapacityDynamoDbClient}, whose per-request
+ * metrics do not follow a call onto the Netty threads it completes on.
+ */
+public class DynamoDbAsyncClientFactory implements Factory<DynamoDbAsyncClient> {
+  // Requests beyond this many in-flight calls wait for a connection instead of failing.
+  private static final int MAX_CONCURRENCY = 200;
+  private static final BackoffStrategy RETRY_BACKOFF = FullJitterBackoffStrategy.builder()
+        .baseDelay(Duration.ofMillis(25))
+        .maxBackoffTime(Duration.ofSeconds(1))
+        .build();
+
+  private final ConfigProvider configProvider;
+
+  @Inject
+  public DynamoDbAsyncClientFactory(final ConfigProvider configProvider) {
+    this.configProvider = configProvider;
+  }
+
+  @Override
+  public DynamoDbAsyncClient provide() {
+    // Same attempt timeout as DynamoDbClientFactory, on a non-blocking Netty client so a
+    // waiting call does not hold a thread.
+    return DynamoDbAsyncClient.builder()
+          .region(Region.of(Env.getRegion()))
+          .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
+          .overrideConfiguration(ClientOverrideConfiguration.builder()
+                .apiCallAttemptTimeout(Duration.ofSeconds(1))
+                .retryPolicy(RetryPolicy.builder()
+                      .numRetries(configProvider.getDynamoDbMaxAttempts() - 1)
+                      .backoffStrategy(RETRY_BACKOFF)
+                      .throttlingBackoffStrategy(RETRY_BACKOFF)
+                      .build())
+                .build())
+          .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(MAX_CONCURRENCY)
+                .connectionAcquisitionTimeout(Duration.ofSeconds(10)))
+          .build();
+  }
+
+  @Override
+  public void dispose(DynamoDbAsyncClient dynamoDbAsyncClient) {
+    dynamoDbAsyncClient.close();
+  }
+}
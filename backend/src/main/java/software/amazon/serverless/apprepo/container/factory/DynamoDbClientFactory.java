@@ -1,36 +1,61 @@
 package software.amazon.serverless.apprepo.container.factory;
 
 import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+import javax.inject.Inject;
 
 import org.glassfish.hk2.api.Factory;
 
 import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.core.retry.RetryPolicy;
-import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
+import software.amazon.serverless.apprepo.api.impl.resilience.ResilientDynamoDbClient;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
 import software.amazon.serverless.apprepo.container.config.Env;
+import software.amazon.serverless.apprepo.container.http.HttpTransport;
+import software.amazon.serverless.apprepo.metrics.ConsumedCapacityDynamoDbClient;
+import software.amazon.serverless.apprepo.metrics.TimedDynamoDbClient;
 
 /**
- * Factory for {@link DynamoDbClient} for HK2 DI wiring.
+ * Factory for {@link DynamoDbClient} for HK2 DI wiring. The client is a
+ * {@link ResilientDynamoDbClient}, which does the retries, around a {@link TimedDynamoDbClient},
+ * which records the latency of each attempt, around a {@link ConsumedCapacityDynamoDbClient},
+ * which records the capacity each attempt consumed.
  */
 public class DynamoDbClientFactory implements Factory<DynamoDbClient> {
   // Creating the DynamoDB client followed AWS SDK v2 best practice to improve Lambda performance:
   // https://docs.aws.amazon.com/sdk-for-java/v2/developer-guide/client-configuration-starttime.html
-  private static final DynamoDbClient dynamoDbClient = DynamoDbClient.builder()
-        .region(Region.of(Env.getRegion()))
-        .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
-        .overrideConfiguration(ClientOverrideConfiguration.builder()
-              .apiCallAttemptTimeout(Duration.ofSeconds(1))
-              .retryPolicy(RetryPolicy.builder().numRetries(10).build())
-              .build())
-        .httpClientBuilder(UrlConnectionHttpClient.builder()).build();
+  private static final DynamoDbClient dynamoDbClient = new TimedDynamoDbClient(
+        new ConsumedCapacityDynamoDbClient(DynamoDbClient.builder()
+              .region(Region.of(Env.getRegion()))
+              .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
+              .overrideConfiguration(ClientOverrideConfiguration.builder()
+                    .apiCallAttemptTimeout(Duration.ofSeconds(1))
+                    .retryPolicy(RetryPolicy.none())
+                    .build())
+              .httpClient(HttpTransport.getInstance().client(HttpTransport.DYNAMODB)).build()));
+
+  static {
+    HttpTransport.getInstance().prewarm(HttpTransport.DYNAMODB);
+  }
+
+  private final ConfigProvider configProvider;
+  private final ExecutorService executor;
+
+  @Inject
+  public DynamoDbClientFactory(final ConfigProvider configProvider,
+                               final ExecutorService executor) {
+    this.configProvider = configProvider;
+    this.executor = executor;
+  }
 
   @Override
   public DynamoDbClient provide() {
-    return dynamoDbClient;
+    return new ResilientDynamoDbClient(dynamoDbClient, configProvider, executor);
   }
 
   @Override
@@ -0,0 +1,33 @@
+package software.amazon.serverless.apprepo.container.factory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.glassfish.hk2.api.Factory;
+
+/**
+ * Factory for the {@link ExecutorService} that fans out DynamoDB calls of batch APIs
+ * for HK2 DI wiring.
+ */
+public class ExecutorServiceFactory implements Factory<ExecutorService> {
+  // Tasks mostly wait on blocking DynamoDB calls, so the pool is larger than the vCPU count.
+  private static final int POOL_SIZE = 16;
+
+  private static final ExecutorService executorService = Executors.newFixedThreadPool(POOL_SIZE,
+        new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("therapist-batch-%d")
+              .build());
+
+  @Override
+  public ExecutorService provide() {
+    return executorService;
+  }
+
+  @Override
+  public void dispose(ExecutorService executorService) {
+
+  }
+}
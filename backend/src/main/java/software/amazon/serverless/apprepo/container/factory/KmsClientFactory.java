@@ -3,22 +3,27 @@ package software.amazon.serverless.apprepo.container.factory;
 import org.glassfish.hk2.api.Factory;
 
 import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
-import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.kms.KmsClient;
 
 import software.amazon.serverless.apprepo.container.config.Env;
+import software.amazon.serverless.apprepo.container.http.HttpTransport;
+import software.amazon.serverless.apprepo.metrics.TimedKmsClient;
 
 /**
- * Factory for {@link KmsClient} for HK2 DI wiring.
+ * Factory for {@link KmsClient} for HK2 DI wiring. The client is a {@link TimedKmsClient}.
  */
 public class KmsClientFactory implements Factory<KmsClient> {
   // Creating the DynamoDB client followed AWS SDK v2 best practice to improve Lambda performance:
   // https://docs.aws.amazon.com/sdk-for-java/v2/developer-guide/client-configuration-starttime.html
-  private static final KmsClient kmsClient = KmsClient.builder()
+  private static final KmsClient kmsClient = new TimedKmsClient(KmsClient.builder()
         .region(Region.of(Env.getRegion()))
         .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
-        .httpClientBuilder(UrlConnectionHttpClient.builder()).build();
+        .httpClient(HttpTransport.getInstance().client(HttpTransport.KMS)).build());
+
+  static {
+    HttpTransport.getInstance().prewarm(HttpTransport.KMS);
+  }
 
   @Override
   public KmsClient provide() {
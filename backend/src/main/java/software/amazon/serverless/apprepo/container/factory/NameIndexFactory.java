@@ -0,0 +1,82 @@
+package software.amazon.serverless.apprepo.container.factory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+
+import javax.inject.Inject;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.glassfish.hk2.api.Factory;
+
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import software.amazon.serverless.apprepo.api.impl.search.NameIndex;
+import software.amazon.serverless.apprepo.api.impl.search.NameIndexLoader;
+import software.amazon.serverless.apprepo.api.impl.search.NameIndexStore;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+import software.amazon.serverless.apprepo.container.config.Env;
+import software.amazon.serverless.apprepo.container.http.HttpTransport;
+
+/**
+ * Factory for {@link NameIndex} for HK2 DI wiring. The index is loaded during init and then
+ * refreshed in the background. Without NAME_INDEX_BUCKET the index is never loaded and name
+ * search is disabled.
+ */
+@Slf4j
+public class NameIndexFactory implements Factory<NameIndex> {
+  // Lambda only allows writing to /tmp.
+  private static final Path SEGMENT_DIRECTORY = Paths.get("/tmp/name-index");
+
+  private final ConfigProvider configProvider;
+
+  @Inject
+  public NameIndexFactory(final ConfigProvider configProvider) {
+    this.configProvider = configProvider;
+  }
+
+  /**
+   * Create the S3 client of the name index.
+   *
+   * @return the client.
+   */
+  public static S3Client createS3Client() {
+    return S3Client.builder()
+          .region(Region.of(Env.getRegion()))
+          .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
+          .httpClient(HttpTransport.getInstance().client(HttpTransport.S3))
+          .build();
+  }
+
+  @Override
+  public NameIndex provide() {
+    NameIndex index = new NameIndex();
+    String bucket = Env.getNameIndexBucket();
+    if (bucket == null || bucket.isEmpty()) {
+      return index;
+    }
+    NameIndexLoader loader = new NameIndexLoader(new NameIndexStore(createS3Client(), bucket),
+          index, SEGMENT_DIRECTORY);
+    try {
+      loader.refresh();
+    } catch (RuntimeException e) {
+      // Retried by the background refresh; name search is unavailable until then.
+      log.warn("Failed to load the name index during init", e);
+    }
+    loader.start(Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat("name-index-refresh-%d")
+          .build()), configProvider.getNameIndexRefreshInterval());
+    return index;
+  }
+
+  @Override
+  public void dispose(NameIndex nameIndex) {
+
+  }
+}
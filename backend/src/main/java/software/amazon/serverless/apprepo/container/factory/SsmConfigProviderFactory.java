@@ -1,33 +1,44 @@
 package software.amazon.serverless.apprepo.container.factory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import java.time.Duration;
+import java.util.concurrent.Executors;
 
 import org.glassfish.hk2.api.Factory;
 
 import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
-import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.ssm.SsmClient;
 
 import software.amazon.serverless.apprepo.container.config.ConfigProvider;
 import software.amazon.serverless.apprepo.container.config.Env;
 import software.amazon.serverless.apprepo.container.config.SsmConfigProvider;
-import software.amazon.serverless.ssmcachingclient.SsmParameterCachingClient;
+import software.amazon.serverless.apprepo.container.config.SsmParameterStore;
+import software.amazon.serverless.apprepo.container.http.HttpTransport;
 
 /**
  * Factory for {@link SsmConfigProvider} for HK2 DI wiring.
  */
 public class SsmConfigProviderFactory implements Factory<ConfigProvider> {
+  private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(5);
   private static final ConfigProvider configProvider;
 
   static {
     SsmClient ssm = SsmClient.builder()
           .region(Region.of(Env.getRegion()))
           .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
-          .httpClientBuilder(UrlConnectionHttpClient.builder())
+          .httpClient(HttpTransport.getInstance().client(HttpTransport.SSM))
           .build();
-    configProvider = new SsmConfigProvider(new SsmParameterCachingClient(ssm,
-          Duration.ofMinutes(5), Env.getSsmConfigKeyPrefix()));
+    // All parameters are loaded once during init and then refreshed in the background, so
+    // requests never wait on SSM.
+    SsmParameterStore parameters = new SsmParameterStore(ssm, Env.getSsmConfigKeyPrefix());
+    parameters.load();
+    parameters.start(Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat("ssm-config-refresh-%d")
+          .build()), REFRESH_INTERVAL);
+    configProvider = new SsmConfigProvider(parameters);
   }
 
   @Override
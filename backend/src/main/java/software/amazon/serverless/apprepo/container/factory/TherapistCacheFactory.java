@@ -0,0 +1,59 @@
+package software.amazon.serverless.apprepo.container.factory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import javax.inject.Inject;
+
+import org.glassfish.hk2.api.Factory;
+
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+import software.amazon.serverless.apprepo.api.impl.cache.TherapistCache;
+import software.amazon.serverless.apprepo.api.impl.cache.TherapistCacheStreamConsumer;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+import software.amazon.serverless.apprepo.container.config.Env;
+import software.amazon.serverless.apprepo.container.http.HttpTransport;
+
+/**
+ * Factory for {@link TherapistCache} for HK2 DI wiring.
+ */
+public class TherapistCacheFactory implements Factory<TherapistCache> {
+  private static final Duration STREAM_POLL_INTERVAL = Duration.ofSeconds(1);
+
+  private final ConfigProvider configProvider;
+
+  @Inject
+  public TherapistCacheFactory(final ConfigProvider configProvider) {
+    this.configProvider = configProvider;
+  }
+
+  @Override
+  public TherapistCache provide() {
+    TherapistCache cache = new TherapistCache(configProvider.getTherapistCacheMaxSize(),
+          configProvider.getTherapistCacheTtl());
+    if (configProvider.isTherapistCacheStreamInvalidationEnabled()) {
+      DynamoDbStreamsClient streams = DynamoDbStreamsClient.builder()
+            .region(Region.of(Env.getRegion()))
+            .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
+            .httpClient(HttpTransport.getInstance().client(HttpTransport.DYNAMODB_STREAMS))
+            .build();
+      new TherapistCacheStreamConsumer(streams, configProvider.getTherapistTableStreamArn(),
+            cache, STREAM_POLL_INTERVAL)
+            .start(Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("therapist-cache-stream-%d")
+                  .build()));
+    }
+    return cache;
+  }
+
+  @Override
+  public void dispose(TherapistCache therapistCache) {
+
+  }
+}
@@ -0,0 +1,62 @@
+package software.amazon.serverless.apprepo.container.factory;
+
+import javax.inject.Inject;
+
+import org.glassfish.hk2.api.Factory;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import software.amazon.serverless.apprepo.api.impl.CachingTherapistStore;
+import software.amazon.serverless.apprepo.api.impl.DynamoDbTherapistStore;
+import software.amazon.serverless.apprepo.api.impl.InMemoryTherapistStore;
+import software.amazon.serverless.apprepo.api.impl.TherapistPartitioner;
+import software.amazon.serverless.apprepo.api.impl.TherapistStore;
+import software.amazon.serverless.apprepo.api.impl.cache.TherapistCache;
+import software.amazon.serverless.apprepo.container.config.ConfigProvider;
+import software.amazon.serverless.apprepo.container.config.Env;
+
+/**
+ * Factory for {@link TherapistStore} for HK2 DI wiring. The store is selected with
+ * {@link Env#getTherapistStore()}: the DynamoDB store behind the {@link TherapistCache}, or
+ * the in-memory store, which needs no cache.
+ */
+public class TherapistStoreFactory implements Factory<TherapistStore> {
+  static final String DYNAMODB_STORE = "dynamodb";
+  static final String MEMORY_STORE = "memory";
+
+  private final ConfigProvider configProvider;
+  private final DynamoDbClient dynamodb;
+  private final TherapistPartitioner therapistPartitioner;
+  private final TherapistCache therapistCache;
+
+  @Inject
+  public TherapistStoreFactory(final ConfigProvider configProvider,
+                               final DynamoDbClient dynamodb,
+                               final TherapistPartitioner therapistPartitioner,
+                               final TherapistCache therapistCache) {
+    this.configProvider = configProvider;
+    this.dynamodb = dynamodb;
+    this.therapistPartitioner = therapistPartitioner;
+    this.therapistCache = therapistCache;
+  }
+
+  @Override
+  public TherapistStore provide() {
+    String store = Env.getTherapistStore();
+    switch (store) {
+      case DYNAMODB_STORE:
+        return new CachingTherapistStore(new DynamoDbTherapistStore(dynamodb,
+              configProvider.getTherapistTableName(), therapistPartitioner), therapistCache);
+      case MEMORY_STORE:
+        return new InMemoryTherapistStore(Env.isTherapistStoreOffHeap());
+      default:
+        throw new IllegalStateException(String.format(
+              "Therapist store %s is invalid, use dynamodb or memory.", store));
+    }
+  }
+
+  @Override
+  public void dispose(TherapistStore therapistStore) {
+
+  }
+}
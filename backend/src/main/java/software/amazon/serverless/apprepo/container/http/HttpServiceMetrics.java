@@ -0,0 +1,93 @@
+package software.amazon.serverless.apprepo.container.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection and request counters of one service's HTTP transport.
+ */
+public final class HttpServiceMetrics {
+  private final String service;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder connectionsOpened = new LongAdder();
+  private final LongAdder connectNanos = new LongAdder();
+  private final LongAdder poolWaitNanos = new LongAdder();
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  HttpServiceMetrics(final String service) {
+    this.service = service;
+  }
+
+  void requestStarted(final long poolWaitNanos) {
+    requests.increment();
+    this.poolWaitNanos.add(poolWaitNanos);
+    inFlight.incrementAndGet();
+  }
+
+  void requestFinished() {
+    inFlight.decrementAndGet();
+  }
+
+  void connectionOpened(final long connectNanos) {
+    connectionsOpened.increment();
+    this.connectNanos.add(connectNanos);
+  }
+
+  public String getService() {
+    return service;
+  }
+
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  public long getConnectionsOpened() {
+    return connectionsOpened.sum();
+  }
+
+  /**
+   * Share of requests that were sent on a pooled connection instead of a new one.
+   *
+   * @return the ratio between 0 and 1, or 0 before the first request.
+   */
+  public double getConnectionReuseRatio() {
+    long requestCount = getRequests();
+    return requestCount == 0 ? 0
+          : Math.max(0, requestCount - getConnectionsOpened()) / (double) requestCount;
+  }
+
+  /**
+   * Average time to set up a new connection, from TCP connect to the end of the TLS handshake.
+   *
+   * @return the average in milliseconds, or 0 when no connection was opened.
+   */
+  public double getAverageHandshakeMillis() {
+    long count = getConnectionsOpened();
+    return count == 0 ? 0
+          : connectNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Average time a request waited for one of the service's connections.
+   *
+   * @return the average in milliseconds, or 0 before the first request.
+   */
+  public double getAveragePoolWaitMillis() {
+    long count = getRequests();
+    return count == 0 ? 0
+          : poolWaitNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: requests=%d, connectionsOpened=%d, reuseRatio=%.3f, "
+                + "avgHandshakeMs=%.1f, avgPoolWaitMs=%.3f, inFlight=%d", service, getRequests(),
+          getConnectionsOpened(), getConnectionReuseRatio(), getAverageHandshakeMillis(),
+          getAveragePoolWaitMillis(), getInFlight());
+  }
+}
@@ -0,0 +1,185 @@
+package software.amazon.serverless.apprepo.container.http;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import javax.net.ssl.HttpsURLConnection;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.regions.ServiceMetadata;
+
+import software.amazon.serverless.apprepo.container.config.Env;
+
+/**
+ * The HTTP transport shared by the synchronous AWS clients.
+ *
+ * <p>Every service gets its own {@link UrlConnectionHttpClient}, which keeps the fast start up
+ * of the JDK client, behind an {@link InstrumentedHttpClient} that caps its concurrent
+ * connections. Idle connections are pooled per host by the JDK keep-alive cache, sized with
+ * "http.maxConnections", and closed by it once idle past the server's keep-alive timeout.
+ * {@link #prewarm} opens connections during init so the first requests skip the handshake.
+ *
+ * <p>The transport is configured with HTTP_* environment variables, see {@link Env}, and logs
+ * the {@link HttpServiceMetrics} of every service periodically.
+ */
+@Slf4j
+public final class HttpTransport {
+  public static final String DYNAMODB = "dynamodb";
+  public static final String DYNAMODB_STREAMS = "streams.dynamodb";
+  public static final String KMS = "kms";
+  public static final String S3 = "s3";
+  public static final String SSM = "ssm";
+
+  // Lambda runs one request at a time, but batch calls fan out on 16 threads.
+  private static final int DEFAULT_MAX_CONNECTIONS = 32;
+  private static final Duration DEFAULT_CONNECTION_TIMEOUT = Duration.ofSeconds(2);
+  private static final Duration DEFAULT_SOCKET_TIMEOUT = Duration.ofSeconds(30);
+  private static final Duration DEFAULT_CONNECTION_ACQUISITION_TIMEOUT = Duration.ofSeconds(10);
+  private static final int DEFAULT_PREWARM_CONNECTIONS = 1;
+  private static final Duration DEFAULT_METRICS_LOG_INTERVAL = Duration.ofMinutes(1);
+  private static final String KEEP_ALIVE_CACHE_SIZE_PROPERTY = "http.maxConnections";
+
+  private static final HttpTransport instance = new HttpTransport(Region.of(Env.getRegion()));
+
+  private final Region region;
+  private final ConcurrentMap<String, HttpServiceMetrics> metrics = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, SdkHttpClient> clients = new ConcurrentHashMap<>();
+
+  private HttpTransport(final Region region) {
+    this.region = region;
+    // Read once by the JDK, so it has to be set before the first connection.
+    if (System.getProperty(KEEP_ALIVE_CACHE_SIZE_PROPERTY) == null) {
+      System.setProperty(KEEP_ALIVE_CACHE_SIZE_PROPERTY, Integer.toString(
+            Env.getHttpMaxConnections("default", DEFAULT_MAX_CONNECTIONS)));
+    }
+    HttpsURLConnection.setDefaultSSLSocketFactory(new InstrumentedSslSocketFactory(
+          HttpsURLConnection.getDefaultSSLSocketFactory(), this::metricsForHost));
+
+    Duration logInterval = Env.getHttpMetricsLogInterval(DEFAULT_METRICS_LOG_INTERVAL);
+    if (!logInterval.isZero()) {
+      ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("http-transport-metrics-%d")
+                  .build());
+      executor.scheduleWithFixedDelay(this::logMetrics, logInterval.toMillis(),
+            logInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public static HttpTransport getInstance() {
+    return instance;
+  }
+
+  /**
+   * The HTTP client of a service. Clients are created once and shared.
+   *
+   * @param service endpoint prefix of the service, e.g. {@link #DYNAMODB}.
+   * @return the client.
+   */
+  public SdkHttpClient client(final String service) {
+    return clients.computeIfAbsent(service, key -> new InstrumentedHttpClient(
+          UrlConnectionHttpClient.builder()
+                .connectionTimeout(Env.getHttpConnectionTimeout(DEFAULT_CONNECTION_TIMEOUT))
+                .socketTimeout(Env.getHttpSocketTimeout(DEFAULT_SOCKET_TIMEOUT))
+                .build(),
+          Env.getHttpMaxConnections(key, DEFAULT_MAX_CONNECTIONS),
+          Env.getHttpConnectionAcquisitionTimeout(DEFAULT_CONNECTION_ACQUISITION_TIMEOUT),
+          metrics(key)));
+  }
+
+  /**
+   * Open HTTP_PREWARM_CONNECTIONS connections to a service and leave them in the pool. Failures
+   * are logged; the connections are then opened by the first requests.
+   *
+   * @param service endpoint prefix of the service.
+   */
+  public void prewarm(final String service) {
+    int connections = Env.getHttpPrewarmConnections(DEFAULT_PREWARM_CONNECTIONS);
+    if (connections <= 0) {
+      return;
+    }
+    long start = System.nanoTime();
+    SdkHttpClient client = client(service);
+    URI endpoint = URI.create("https://" + ServiceMetadata.of(service).endpointFor(region));
+    // Concurrent requests, as a sequential one would reuse the first connection.
+    CompletableFuture<?>[] requests = IntStream.range(0, connections)
+          .mapToObj(i -> CompletableFuture.runAsync(() -> ping(client, endpoint)))
+          .toArray(CompletableFuture<?>[]::new);
+    CompletableFuture.allOf(requests).join();
+    log.info("Pre-warmed {} connections to {} in {} ms", connections, endpoint,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * The metrics of every service that has a client.
+   *
+   * @return metrics by service.
+   */
+  public Map<String, HttpServiceMetrics> getMetrics() {
+    return Collections.unmodifiableMap(metrics);
+  }
+
+  private HttpServiceMetrics metrics(final String service) {
+    return metrics.computeIfAbsent(service, HttpServiceMetrics::new);
+  }
+
+  private HttpServiceMetrics metricsForHost(final String host) {
+    if (host == null) {
+      return null;
+    }
+    for (Map.Entry<String, HttpServiceMetrics> entry : metrics.entrySet()) {
+      if (host.startsWith(entry.getKey() + ".")) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  private void logMetrics() {
+    metrics.values().forEach(serviceMetrics -> log.info("HTTP transport {}", serviceMetrics));
+  }
+
+  // Any response, even an error, leaves a reusable connection once its body is read.
+  private static void ping(final SdkHttpClient client, final URI endpoint) {
+    SdkHttpFullRequest request = SdkHttpFullRequest.builder()
+          .method(SdkHttpMethod.GET)
+          .uri(endpoint)
+          .build();
+    try {
+      HttpExecuteResponse response = client.prepareRequest(HttpExecuteRequest.builder()
+            .request(request)
+            .build())
+            .call();
+      if (response.responseBody().isPresent()) {
+        try (InputStream body = response.responseBody().get()) {
+          ByteStreams.exhaust(body);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to pre-warm a connection to {}", endpoint, e);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package software.amazon.serverless.apprepo.container.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+
+/**
+ * {@link SdkHttpClient} decorator that limits the concurrent requests to one service and
+ * records them in the service's {@link HttpServiceMetrics}.
+ *
+ * <p>A request holds one of the service's permits until its response body is closed, since the
+ * connection only goes back to the pool then. The time spent waiting for a permit is the pool
+ * wait time.
+ */
+final class InstrumentedHttpClient implements SdkHttpClient {
+  private final SdkHttpClient delegate;
+  private final Semaphore connections;
+  private final Duration acquisitionTimeout;
+  private final HttpServiceMetrics metrics;
+
+  InstrumentedHttpClient(final SdkHttpClient delegate, final int maxConnections,
+                         final Duration acquisitionTimeout, final HttpServiceMetrics metrics) {
+    this.delegate = delegate;
+    this.connections = new Semaphore(maxConnections);
+    this.acquisitionTimeout = acquisitionTimeout;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public ExecutableHttpRequest prepareRequest(final HttpExecuteRequest request) {
+    return new ExecutableHttpRequest() {
+      private volatile ExecutableHttpRequest executable;
+
+      @Override
+      public HttpExecuteResponse call() throws IOException {
+        Runnable release = acquire();
+        try {
+          executable = delegate.prepareRequest(request);
+          HttpExecuteResponse response = executable.call();
+          if (!response.responseBody().isPresent()) {
+            release.run();
+            return response;
+          }
+          AbortableInputStream body = response.responseBody().get();
+          return HttpExecuteResponse.builder()
+                .response(response.httpResponse())
+                .responseBody(AbortableInputStream.create(new FilterInputStream(body) {
+                  @Override
+                  public void close() throws IOException {
+                    try {
+                      super.close();
+                    } finally {
+                      release.run();
+                    }
+                  }
+                }, () -> {
+                  body.abort();
+                  release.run();
+                }))
+                .build();
+        } catch (IOException | RuntimeException e) {
+          release.run();
+          throw e;
+        }
+      }
+
+      @Override
+      public void abort() {
+        ExecutableHttpRequest current = executable;
+        if (current != null) {
+          current.abort();
+        }
+      }
+    };
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  private Runnable acquire() throws IOException {
+    long start = System.nanoTime();
+    try {
+      if (!connections.tryAcquire(acquisitionTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new IOException(String.format("Timed out after %s waiting for a connection to %s.",
+              acquisitionTimeout, metrics.getService()));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for a connection to "
+            + metrics.getService());
+    }
+    metrics.requestStarted(System.nanoTime() - start);
+    AtomicBoolean released = new AtomicBoolean();
+    return () -> {
+      if (released.compareAndSet(false, true)) {
+        connections.release();
+        metrics.requestFinished();
+      }
+    };
+  }
+}
@@ -0,0 +1,84 @@
+package software.amazon.serverless.apprepo.container.http;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.function.Function;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * {@link SSLSocketFactory} that reports every new connection and its set up time, from socket
+ * creation to the completed TLS handshake, to the metrics of the peer host's service.
+ *
+ * <p>HttpsURLConnection only creates a socket when its keep-alive cache has no idle connection
+ * to the host, so the sockets created are exactly the connections that were not reused.
+ */
+final class InstrumentedSslSocketFactory extends SSLSocketFactory {
+  private final SSLSocketFactory delegate;
+  private final Function<String, HttpServiceMetrics> metricsByHost;
+
+  InstrumentedSslSocketFactory(final SSLSocketFactory delegate,
+                               final Function<String, HttpServiceMetrics> metricsByHost) {
+    this.delegate = delegate;
+    this.metricsByHost = metricsByHost;
+  }
+
+  @Override
+  public String[] getDefaultCipherSuites() {
+    return delegate.getDefaultCipherSuites();
+  }
+
+  @Override
+  public String[] getSupportedCipherSuites() {
+    return delegate.getSupportedCipherSuites();
+  }
+
+  @Override
+  public Socket createSocket() throws IOException {
+    return instrument(delegate.createSocket());
+  }
+
+  @Override
+  public Socket createSocket(final Socket socket, final String host, final int port,
+                             final boolean autoClose) throws IOException {
+    return instrument(delegate.createSocket(socket, host, port, autoClose));
+  }
+
+  @Override
+  public Socket createSocket(final String host, final int port) throws IOException {
+    return instrument(delegate.createSocket(host, port));
+  }
+
+  @Override
+  public Socket createSocket(final String host, final int port, final InetAddress localHost,
+                             final int localPort) throws IOException {
+    return instrument(delegate.createSocket(host, port, localHost, localPort));
+  }
+
+  @Override
+  public Socket createSocket(final InetAddress host, final int port) throws IOException {
+    return instrument(delegate.createSocket(host, port));
+  }
+
+  @Override
+  public Socket createSocket(final InetAddress address, final int port,
+                             final InetAddress localAddress, final int localPort)
+        throws IOException {
+    return instrument(delegate.createSocket(address, port, localAddress, localPort));
+  }
+
+  private Socket instrument(final Socket socket) {
+    if (socket instanceof SSLSocket) {
+      long createdAt = System.nanoTime();
+      ((SSLSocket) socket).addHandshakeCompletedListener(event -> {
+        HttpServiceMetrics metrics = metricsByHost.apply(event.getSession().getPeerHost());
+        if (metrics != null) {
+          metrics.connectionOpened(System.nanoTime() - createdAt);
+        }
+      });
+    }
+    return socket;
+  }
+}
@@ -0,0 +1,165 @@
+package software.amazon.serverless.apprepo.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Data;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import software.amazon.serverless.apprepo.api.impl.pagination.DynamoDbStartKeySerializer;
+import software.amazon.serverless.apprepo.api.impl.pagination.InvalidTokenException;
+import software.amazon.serverless.apprepo.api.impl.pagination.TokenSerializer;
+
+/**
+ * Progress of an export: the scan position of each segment and how many bytes of the output
+ * were written up to that position.
+ *
+ * <p>The checkpoint is only advanced after the output is flushed, so on resume the output is
+ * truncated to {@link #getOutputOffset()} and every segment continues right after the last
+ * page that is in the output. The file is replaced atomically, so an interrupted write
+ * leaves the previous checkpoint.
+ */
+public class ExportCheckpoint {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final TokenSerializer<Map<String, AttributeValue>> START_KEY_SERIALIZER =
+        new DynamoDbStartKeySerializer();
+
+  private final Path file;
+  private final State state;
+
+  private ExportCheckpoint(final Path file, final State state) {
+    this.file = file;
+    this.state = state;
+  }
+
+  /**
+   * Create a checkpoint that is not persisted, for exports that can not be resumed.
+   *
+   * @param totalSegments number of scan segments.
+   * @return the checkpoint.
+   */
+  public static ExportCheckpoint inMemory(final int totalSegments) {
+    return new ExportCheckpoint(null, State.initial(totalSegments));
+  }
+
+  /**
+   * Load the checkpoint from a file, or start a new one if the file does not exist.
+   *
+   * @param file          checkpoint file.
+   * @param totalSegments number of scan segments; must match the checkpoint's.
+   * @return the checkpoint.
+   * @throws IOException when the file can not be read.
+   */
+  public static ExportCheckpoint load(final Path file, final int totalSegments)
+        throws IOException {
+    if (!Files.exists(file)) {
+      return new ExportCheckpoint(file, State.initial(totalSegments));
+    }
+    State state = OBJECT_MAPPER.readValue(file.toFile(), State.class);
+    if (state.getTotalSegments() != totalSegments) {
+      throw new IllegalArgumentException(String.format(
+            "Checkpoint %s was written with %d segments, not %d.", file,
+            state.getTotalSegments(), totalSegments));
+    }
+    return new ExportCheckpoint(file, state);
+  }
+
+  public int getTotalSegments() {
+    return state.getTotalSegments();
+  }
+
+  public long getOutputOffset() {
+    return state.getOutputOffset();
+  }
+
+  /**
+   * Check whether a segment was completely exported.
+   *
+   * @param segment scan segment.
+   * @return true if the segment is done.
+   */
+  public boolean isCompleted(final int segment) {
+    return state.getCompletedSegments().contains(segment);
+  }
+
+  /**
+   * Get the key to continue a segment from.
+   *
+   * @param segment scan segment.
+   * @return the ExclusiveStartKey, or null to start the segment from the beginning.
+   */
+  public Map<String, AttributeValue> getStartKey(final int segment) {
+    String startKey = state.getStartKeys().get(segment);
+    if (startKey == null) {
+      return null;
+    }
+    try {
+      return START_KEY_SERIALIZER.deserialize(startKey);
+    } catch (InvalidTokenException e) {
+      throw new IllegalStateException(String.format(
+            "Checkpoint has an invalid start key for segment %d.", segment), e);
+    }
+  }
+
+  /**
+   * Record that a page of a segment is in the output.
+   *
+   * @param segment          scan segment.
+   * @param lastEvaluatedKey LastEvaluatedKey of the page, or null when the segment is done.
+   * @param outputOffset     output bytes written including the page.
+   * @throws IOException when the checkpoint can not be written.
+   */
+  public void update(final int segment, final Map<String, AttributeValue> lastEvaluatedKey,
+                     final long outputOffset) throws IOException {
+    if (lastEvaluatedKey == null) {
+      state.getStartKeys().remove(segment);
+      state.getCompletedSegments().add(segment);
+    } else {
+      state.getStartKeys().put(segment, START_KEY_SERIALIZER.serialize(lastEvaluatedKey));
+    }
+    state.setOutputOffset(outputOffset);
+    if (file != null) {
+      Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+      OBJECT_MAPPER.writeValue(temp.toFile(), state);
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+
+  /**
+   * Delete the checkpoint file after the export completed.
+   *
+   * @throws IOException when the file can not be deleted.
+   */
+  public void delete() throws IOException {
+    if (file != null) {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /**
+   * Persisted checkpoint content.
+   */
+  @Data
+  static class State {
+    private int totalSegments;
+    private long outputOffset;
+    private Map<Integer, String> startKeys = new HashMap<>();
+    private Set<Integer> completedSegments = new HashSet<>();
+
+    static State initial(final int totalSegments) {
+      State state = new State();
+      state.setTotalSegments(totalSegments);
+      return state;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package software.amazon.serverless.apprepo.export;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+
+/**
+ * Command line entry point of the therapist export.
+ *
+ * <pre>
+ * java -cp emotion-journaling-application-backend-1.0.1.jar \
+ *     software.amazon.serverless.apprepo.export.TherapistExportCli \
+ *     --table &lt;table&gt; --output therapists.ndjson [--segments 4] [--rcu 100] \
+ *     [--page-size 500] [--region us-east-1] [--checkpoint therapists.ndjson.checkpoint]
+ * </pre>
+ *
+ * <p>Writing to a file is resumable: the checkpoint defaults to the output file name with a
+ * ".checkpoint" suffix, and running the same command again after a failure continues the
+ * export. The checkpoint is deleted once the export completes. With "--output -" the lines
+ * are written to stdout and the export can not be resumed.
+ */
+@Slf4j
+public final class TherapistExportCli {
+  private static final String STDOUT = "-";
+  private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+  private static final String USAGE = "Usage: TherapistExportCli --table <table> "
+        + "--output <file|-> [--segments <n>] [--rcu <units per second>] "
+        + "[--page-size <items>] [--region <region>] [--checkpoint <file>]";
+
+  private TherapistExportCli() {
+  }
+
+  public static void main(final String[] args) throws IOException, InterruptedException {
+    // Outside Lambda the log appender prints to System.out; keep stdout for the export.
+    PrintStream stdout = System.out;
+    System.setOut(System.err);
+
+    Map<String, String> options;
+    try {
+      options = parseOptions(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      System.exit(2);
+      return;
+    }
+    String tableName = options.get("table");
+    String output = options.get("output");
+    int totalSegments = Integer.parseInt(options.getOrDefault("segments", "4"));
+    double readCapacityUnits = Double.parseDouble(options.getOrDefault("rcu", "100"));
+    int pageSize = Integer.parseInt(options.getOrDefault("page-size", "500"));
+
+    DynamoDbClientBuilder builder = DynamoDbClient.builder()
+          .credentialsProvider(DefaultCredentialsProvider.create())
+          .overrideConfiguration(ClientOverrideConfiguration.builder()
+                .apiCallAttemptTimeout(Duration.ofSeconds(5))
+                .retryPolicy(RetryPolicy.builder().numRetries(10).build())
+                .build())
+          .httpClientBuilder(UrlConnectionHttpClient.builder());
+    if (options.containsKey("region")) {
+      builder.region(Region.of(options.get("region")));
+    }
+    TherapistExporter exporter = new TherapistExporter(builder.build(), tableName, pageSize,
+          readCapacityUnits);
+
+    long exported;
+    if (STDOUT.equals(output)) {
+      exported = exporter.export(new BufferedOutputStream(stdout, OUTPUT_BUFFER_SIZE),
+            ExportCheckpoint.inMemory(totalSegments));
+    } else {
+      Path checkpointFile = Paths.get(options.getOrDefault("checkpoint",
+            output + ".checkpoint"));
+      ExportCheckpoint checkpoint = ExportCheckpoint.load(checkpointFile, totalSegments);
+      try (FileChannel channel = FileChannel.open(Paths.get(output),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        // Drop whatever was written after the last checkpoint; those pages are read again.
+        channel.truncate(checkpoint.getOutputOffset());
+        channel.position(checkpoint.getOutputOffset());
+        exported = exporter.export(new BufferedOutputStream(Channels.newOutputStream(channel),
+              OUTPUT_BUFFER_SIZE), checkpoint);
+      }
+      checkpoint.delete();
+    }
+    log.info("Exported {} therapists from {}.", exported, tableName);
+  }
+
+  private static Map<String, String> parseOptions(final String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (int i = 0; i < args.length; i += 2) {
+      if (!args[i].startsWith("--") || i + 1 >= args.length) {
+        throw new IllegalArgumentException(String.format("Invalid option %s.", args[i]));
+      }
+      options.put(args[i].substring(2), args[i + 1]);
+    }
+    if (!options.containsKey("table") || !options.containsKey("output")) {
+      throw new IllegalArgumentException("--table and --output are required.");
+    }
+    return options;
+  }
+}
@@ -0,0 +1,199 @@
+package software.amazon.serverless.apprepo.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.swagger.model.Therapist;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistMapper;
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Exports the Therapist table as newline delimited JSON, one {@link Therapist} per line.
+ *
+ * <p>The table is read with a parallel Scan, one thread per segment. Each scanned page is
+ * converted and serialized on its segment's thread and handed to the single writer through
+ * a bounded queue, so a slow output blocks the scans instead of buffering the table in
+ * memory. The consumed read capacity of every page is paid to a shared rate limiter before
+ * the segment reads its next page, which keeps the export within its read capacity budget.
+ *
+ * <p>After a page is written and the output flushed, the segment's position is recorded in
+ * the {@link ExportCheckpoint}, so an interrupted export can resume where it stopped.
+ */
+@Slf4j
+public class TherapistExporter {
+  private static final ObjectWriter THERAPIST_WRITER = new ObjectMapper()
+        .writerFor(Therapist.class);
+  private static final byte NEWLINE = '\n';
+  private static final int PAGES_BUFFERED_PER_SEGMENT = 2;
+
+  private final DynamoDbClient dynamodb;
+  private final String tableName;
+  private final int pageSize;
+  private final RateLimiter readCapacityLimiter;
+
+  /**
+   * Create an exporter.
+   *
+   * @param dynamodb                   DynamoDB client.
+   * @param tableName                  Therapist table name.
+   * @param pageSize                   maximum number of items scanned per request.
+   * @param readCapacityUnitsPerSecond read capacity budget shared by all segments.
+   */
+  public TherapistExporter(final DynamoDbClient dynamodb, final String tableName,
+                           final int pageSize, final double readCapacityUnitsPerSecond) {
+    this.dynamodb = dynamodb;
+    this.tableName = tableName;
+    this.pageSize = pageSize;
+    this.readCapacityLimiter = RateLimiter.create(readCapacityUnitsPerSecond);
+  }
+
+  /**
+   * Export every segment that is not completed in the checkpoint.
+   *
+   * @param output     where to write the NDJSON lines. The checkpoint's output offset must be
+   *                   the number of bytes it already holds.
+   * @param checkpoint where to resume from; advanced as pages are written.
+   * @return the number of therapists written by this run.
+   * @throws IOException          when the output or checkpoint can not be written.
+   * @throws InterruptedException when interrupted while waiting for pages.
+   */
+  public long export(final OutputStream output, final ExportCheckpoint checkpoint)
+        throws IOException, InterruptedException {
+    int totalSegments = checkpoint.getTotalSegments();
+    BlockingQueue<Page> pages = new ArrayBlockingQueue<>(
+          totalSegments * PAGES_BUFFERED_PER_SEGMENT);
+    ExecutorService scanners = Executors.newFixedThreadPool(totalSegments,
+          new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("therapist-export-%d")
+                .build());
+
+    int remainingSegments = 0;
+    for (int segment = 0; segment < totalSegments; segment++) {
+      if (!checkpoint.isCompleted(segment)) {
+        remainingSegments++;
+        int scanSegment = segment;
+        Map<String, AttributeValue> startKey = checkpoint.getStartKey(segment);
+        scanners.execute(() -> scanSegment(scanSegment, totalSegments, startKey, pages));
+      }
+    }
+
+    long startOffset = checkpoint.getOutputOffset();
+    CountingOutputStream countingOutput = new CountingOutputStream(output);
+    long exported = 0;
+    try {
+      while (remainingSegments > 0) {
+        Page page = pages.take();
+        if (page.failure != null) {
+          throw new IllegalStateException(String.format("Scan of segment %d failed.",
+                page.segment), page.failure);
+        }
+        countingOutput.write(page.lines);
+        countingOutput.flush();
+        checkpoint.update(page.segment, page.lastEvaluatedKey,
+              startOffset + countingOutput.getCount());
+        exported += page.count;
+        if (page.lastEvaluatedKey == null) {
+          remainingSegments--;
+          log.info("Segment {} of {} completed, {} therapists exported.", page.segment,
+                totalSegments, exported);
+        }
+      }
+    } finally {
+      scanners.shutdownNow();
+    }
+    return exported;
+  }
+
+  private void scanSegment(final int segment, final int totalSegments,
+                           final Map<String, AttributeValue> startKey,
+                           final BlockingQueue<Page> pages) {
+    Map<String, AttributeValue> exclusiveStartKey = startKey;
+    try {
+      do {
+        ScanResponse response = dynamodb.scan(ScanRequest.builder()
+              .tableName(tableName)
+              .segment(segment)
+              .totalSegments(totalSegments)
+              .limit(pageSize)
+              .exclusiveStartKey(exclusiveStartKey)
+              .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+              .build());
+        if (response.consumedCapacity() != null) {
+          readCapacityLimiter.acquire(
+                (int) Math.max(1, Math.ceil(response.consumedCapacity().capacityUnits())));
+        }
+        exclusiveStartKey = response.lastEvaluatedKey().isEmpty()
+              ? null : response.lastEvaluatedKey();
+        // The table's own items, e.g. the facet counts, are not exported.
+        List<Map<String, AttributeValue>> therapists = response.items().stream()
+              .filter(item -> !item.containsKey(TherapistRecord.USER_ID_ATTRIBUTE_NAME)
+                    || !TherapistRecord.isReservedUserId(
+                          item.get(TherapistRecord.USER_ID_ATTRIBUTE_NAME).s()))
+              .collect(Collectors.toList());
+        pages.put(new Page(segment, toLines(therapists), therapists.size(),
+              exclusiveStartKey, null));
+      } while (exclusiveStartKey != null);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.error("Scan of segment {} failed.", segment, e);
+      try {
+        pages.put(new Page(segment, null, 0, null, e));
+      } catch (InterruptedException interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static byte[] toLines(final List<Map<String, AttributeValue>> items) {
+    ByteArrayOutputStream lines = new ByteArrayOutputStream();
+    try {
+      for (Map<String, AttributeValue> item : items) {
+        THERAPIST_WRITER.writeValue(lines, TherapistMapper.toTherapist(
+              new TherapistRecord(item)));
+        lines.write(NEWLINE);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return lines.toByteArray();
+  }
+
+  /**
+   * Serialized page of a segment, or the failure of its scan.
+   */
+  @RequiredArgsConstructor
+  private static final class Page {
+    private final int segment;
+    private final byte[] lines;
+    private final int count;
+    private final Map<String, AttributeValue> lastEvaluatedKey;
+    private final RuntimeException failure;
+  }
+}
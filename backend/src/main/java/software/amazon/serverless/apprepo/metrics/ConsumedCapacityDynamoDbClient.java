@@ -0,0 +1,139 @@
+package software.amazon.serverless.apprepo.metrics;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import software.amazon.serverless.apprepo.api.impl.DelegatingDynamoDbClient;
+
+/**
+ * {@link DynamoDbClient} decorator that asks for the consumed capacity of every call, table
+ * and indexes, and records it in {@link ConsumedCapacityRecorder}. Requests that already ask
+ * for it are sent as they are.
+ */
+public class ConsumedCapacityDynamoDbClient extends DelegatingDynamoDbClient {
+  private static final ReturnConsumedCapacity RETURN_CONSUMED_CAPACITY =
+        ReturnConsumedCapacity.INDEXES;
+
+  /**
+   * Construct ConsumedCapacityDynamoDbClient.
+   *
+   * @param delegate the DynamoDbClient to send the requests with.
+   */
+  public ConsumedCapacityDynamoDbClient(final DynamoDbClient delegate) {
+    super(delegate);
+  }
+
+  @Override
+  public GetItemResponse getItem(final GetItemRequest request) {
+    GetItemResponse response = delegate.getItem(request.returnConsumedCapacity() != null
+          ? request
+          : request.toBuilder().returnConsumedCapacity(RETURN_CONSUMED_CAPACITY).build());
+    ConsumedCapacityRecorder.record(response.consumedCapacity(), false);
+    return response;
+  }
+
+  @Override
+  public PutItemResponse putItem(final PutItemRequest request) {
+    PutItemResponse response = delegate.putItem(request.returnConsumedCapacity() != null
+          ? request
+          : request.toBuilder().returnConsumedCapacity(RETURN_CONSUMED_CAPACITY).build());
+    ConsumedCapacityRecorder.record(response.consumedCapacity(), true);
+    return response;
+  }
+
+  @Override
+  public UpdateItemResponse updateItem(final UpdateItemRequest request) {
+    UpdateItemResponse response = delegate.updateItem(request.returnConsumedCapacity() != null
+          ? request
+          : request.toBuilder().returnConsumedCapacity(RETURN_CONSUMED_CAPACITY).build());
+    ConsumedCapacityRecorder.record(response.consumedCapacity(), true);
+    return response;
+  }
+
+  @Override
+  public DeleteItemResponse deleteItem(final DeleteItemRequest request) {
+    DeleteItemResponse response = delegate.deleteItem(request.returnConsumedCapacity() != null
+          ? request
+          : request.toBuilder().returnConsumedCapacity(RETURN_CONSUMED_CAPACITY).build());
+    ConsumedCapacityRecorder.record(response.consumedCapacity(), true);
+    return response;
+  }
+
+  @Override
+  public QueryResponse query(final QueryRequest request) {
+    QueryResponse response = delegate.query(request.returnConsumedCapacity() != null
+          ? request
+          : request.toBuilder().returnConsumedCapacity(RETURN_CONSUMED_CAPACITY).build());
+    ConsumedCapacityRecorder.record(response.consumedCapacity(), false);
+    return response;
+  }
+
+  @Override
+  public BatchGetItemResponse batchGetItem(final BatchGetItemRequest request) {
+    BatchGetItemResponse response = delegate.batchGetItem(
+          request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(RETURN_CONSUMED_CAPACITY).build());
+    ConsumedCapacityRecorder.record(response.consumedCapacity(), false);
+    return response;
+  }
+
+  @Override
+  public BatchWriteItemResponse batchWriteItem(final BatchWriteItemRequest request) {
+    BatchWriteItemResponse response = delegate.batchWriteItem(
+          request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(RETURN_CONSUMED_CAPACITY).build());
+    ConsumedCapacityRecorder.record(response.consumedCapacity(), true);
+    return response;
+  }
+
+  @Override
+  public ScanResponse scan(final ScanRequest request) {
+    ScanResponse response = delegate.scan(request.returnConsumedCapacity() != null
+          ? request
+          : request.toBuilder().returnConsumedCapacity(RETURN_CONSUMED_CAPACITY).build());
+    ConsumedCapacityRecorder.record(response.consumedCapacity(), false);
+    return response;
+  }
+
+  @Override
+  public TransactGetItemsResponse transactGetItems(final TransactGetItemsRequest request) {
+    TransactGetItemsResponse response = delegate.transactGetItems(
+          request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(RETURN_CONSUMED_CAPACITY).build());
+    ConsumedCapacityRecorder.record(response.consumedCapacity(), false);
+    return response;
+  }
+
+  @Override
+  public TransactWriteItemsResponse transactWriteItems(final TransactWriteItemsRequest request) {
+    TransactWriteItemsResponse response = delegate.transactWriteItems(
+          request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(RETURN_CONSUMED_CAPACITY).build());
+    ConsumedCapacityRecorder.record(response.consumedCapacity(), true);
+    return response;
+  }
+}
@@ -0,0 +1,135 @@
+package software.amazon.serverless.apprepo.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import software.amazon.awssdk.services.dynamodb.model.Capacity;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+
+/**
+ * Read and write capacity units the current invocation consumed, per table and index.
+ *
+ * <p>Fed by {@link ConsumedCapacityDynamoDbClient} and flushed with the latencies by
+ * {@link RequestMetrics}. Usage is keyed by the table name for the table itself and by
+ * "table/index" for a secondary index. When DynamoDB only returns the total capacity units of
+ * a call, they are counted as read or write units by the kind of call.
+ */
+public final class ConsumedCapacityRecorder {
+  private static final Map<String, Usage> USAGE = new ConcurrentHashMap<>();
+
+  private ConsumedCapacityRecorder() {
+  }
+
+  /**
+   * Record the capacity consumed by a call.
+   *
+   * @param consumedCapacity the consumed capacity of the response, or null when none was
+   *                         returned.
+   * @param write            whether the call is a write.
+   */
+  public static void record(final ConsumedCapacity consumedCapacity, final boolean write) {
+    if (consumedCapacity == null || consumedCapacity.tableName() == null) {
+      return;
+    }
+    String tableName = consumedCapacity.tableName();
+    Capacity table = consumedCapacity.table();
+    if (table != null) {
+      record(tableName, table.readCapacityUnits(), table.writeCapacityUnits(),
+            table.capacityUnits(), write);
+    } else {
+      record(tableName, consumedCapacity.readCapacityUnits(),
+            consumedCapacity.writeCapacityUnits(), consumedCapacity.capacityUnits(), write);
+    }
+    recordIndexes(tableName, consumedCapacity.globalSecondaryIndexes(), write);
+    recordIndexes(tableName, consumedCapacity.localSecondaryIndexes(), write);
+  }
+
+  /**
+   * Record the capacity consumed by a batch call.
+   *
+   * @param consumedCapacity the consumed capacity per table of the response.
+   * @param write            whether the call is a write.
+   */
+  public static void record(final Collection<ConsumedCapacity> consumedCapacity,
+                            final boolean write) {
+    if (consumedCapacity != null) {
+      consumedCapacity.forEach(capacity -> record(capacity, write));
+    }
+  }
+
+  /**
+   * Describe the usage recorded so far, for the debug response header.
+   *
+   * @return e.g. "Therapist;rcu=1.0;wcu=0.0, Therapist/areaTypeIndex;rcu=0.5;wcu=0.0", or
+   *     null when no capacity was consumed.
+   */
+  public static String describe() {
+    if (USAGE.isEmpty()) {
+      return null;
+    }
+    StringBuilder description = new StringBuilder();
+    new TreeMap<>(USAGE).forEach((name, usage) -> {
+      if (description.length() > 0) {
+        description.append(", ");
+      }
+      description.append(name)
+            .append(";rcu=").append(usage.read.sum())
+            .append(";wcu=").append(usage.write.sum());
+    });
+    return description.toString();
+  }
+
+  /**
+   * Take the usage recorded so far and reset it.
+   *
+   * @return read and write capacity units by table or "table/index", sorted by name.
+   */
+  static Map<String, double[]> drain() {
+    Map<String, double[]> drained = new TreeMap<>();
+    for (String name : USAGE.keySet()) {
+      Usage usage = USAGE.remove(name);
+      if (usage != null) {
+        drained.put(name, new double[] {usage.read.sum(), usage.write.sum()});
+      }
+    }
+    return drained;
+  }
+
+  private static void recordIndexes(final String tableName, final Map<String, Capacity> indexes,
+                                    final boolean write) {
+    if (indexes == null) {
+      return;
+    }
+    indexes.forEach((indexName, capacity) -> record(tableName + "/" + indexName,
+          capacity.readCapacityUnits(), capacity.writeCapacityUnits(),
+          capacity.capacityUnits(), write));
+  }
+
+  private static void record(final String name, final Double readUnits, final Double writeUnits,
+                             final Double totalUnits, final boolean write) {
+    Usage usage = USAGE.computeIfAbsent(name, key -> new Usage());
+    if (readUnits == null && writeUnits == null) {
+      if (totalUnits != null) {
+        (write ? usage.write : usage.read).add(totalUnits);
+      }
+      return;
+    }
+    if (readUnits != null) {
+      usage.read.add(readUnits);
+    }
+    if (writeUnits != null) {
+      usage.write.add(writeUnits);
+    }
+  }
+
+  /**
+   * Read and write capacity units of a table or index.
+   */
+  private static final class Usage {
+    private final DoubleAdder read = new DoubleAdder();
+    private final DoubleAdder write = new DoubleAdder();
+  }
+}
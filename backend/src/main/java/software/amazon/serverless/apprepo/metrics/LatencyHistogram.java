@@ -0,0 +1,70 @@
+package software.amazon.serverless.apprepo.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram.
+ *
+ * <p>Latencies are counted in microseconds. Below 32 µs every value has its own bucket; above
+ * that every power of two is split into 16 buckets, so a bucket is at most 6.25% wide. The
+ * counts are an {@link AtomicLongArray}, so recording from any thread allocates nothing and
+ * takes no lock.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // 2^36 µs is about 19 hours; longer latencies are counted in the last bucket.
+  private static final int MAX_MAGNITUDE = 35;
+  static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+  /**
+   * Count a latency.
+   *
+   * @param nanos the latency in nanoseconds.
+   */
+  public void record(final long nanos) {
+    counts.incrementAndGet(index(TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos))));
+  }
+
+  /**
+   * Read a bucket's count and reset it to zero.
+   *
+   * @param index bucket index between 0 and {@link #BUCKET_COUNT}.
+   * @return the count.
+   */
+  long getAndReset(final int index) {
+    return counts.get(index) == 0 ? 0 : counts.getAndSet(index, 0);
+  }
+
+  /**
+   * The latency a bucket stands for, the middle of its range.
+   *
+   * @param index bucket index.
+   * @return the latency in milliseconds.
+   */
+  static double valueInMillis(final int index) {
+    if (index < SUB_BUCKETS) {
+      return index / 1000.0;
+    }
+    int magnitude = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+    int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    long width = 1L << (magnitude - SUB_BUCKET_BITS);
+    long lowerBound = (SUB_BUCKETS + subBucket) * width;
+    return (lowerBound + (width - 1) / 2.0) / 1000.0;
+  }
+
+  static int index(final long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+    if (magnitude > MAX_MAGNITUDE) {
+      return BUCKET_COUNT - 1;
+    }
+    int subBucket = (int) (micros >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return SUB_BUCKETS + (magnitude - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+  }
+}
@@ -0,0 +1,45 @@
+package software.amazon.serverless.apprepo.metrics;
+
+/**
+ * The phases of a request that latencies are recorded for. Each phase is one metric.
+ */
+public enum Phase {
+  /**
+   * The whole invocation, from the proxy event to the written response.
+   */
+  TOTAL("Latency"),
+  /**
+   * Decoding the pagination token of a request.
+   */
+  TOKEN_DECODE("TokenDecodeLatency"),
+  /**
+   * Encoding the pagination token of a response.
+   */
+  TOKEN_ENCODE("TokenEncodeLatency"),
+  /**
+   * One DynamoDB call attempt.
+   */
+  DYNAMODB("DynamoDbLatency"),
+  /**
+   * One KMS call.
+   */
+  KMS("KmsLatency"),
+  /**
+   * Mapping records to the API models.
+   */
+  MAPPING("MappingLatency"),
+  /**
+   * Writing the response entity as Json.
+   */
+  JSON_WRITE("JsonWriteLatency");
+
+  private final String metricName;
+
+  Phase(final String metricName) {
+    this.metricName = metricName;
+  }
+
+  public String getMetricName() {
+    return metricName;
+  }
+}
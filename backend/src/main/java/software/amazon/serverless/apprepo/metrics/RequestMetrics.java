@@ -0,0 +1,234 @@
+package software.amazon.serverless.apprepo.metrics;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-phase latency histograms of the current invocation, flushed as one CloudWatch Embedded
+ * Metric Format line at its end, followed by a line per table and index the invocation
+ * consumed capacity of, from {@link ConsumedCapacityRecorder}.
+ *
+ * <p>A Lambda container runs one invocation at a time, so the histograms are container-wide
+ * and {@link #flush()} resets them. Work that outlives an invocation, e.g. a prefetch, is
+ * counted in the next one. Recording only increments a preallocated counter; the Json is
+ * built at flush time, after the response is written.
+ */
+@Slf4j
+public final class RequestMetrics {
+  static final String NAMESPACE = "TherapistApi";
+  static final String OPERATION_DIMENSION = "Operation";
+  static final String INDEX_DIMENSION = "Index";
+  // EMF accepts at most 100 values per metric.
+  private static final int MAX_VALUES = 100;
+  private static final String UNKNOWN_OPERATION = "unknown";
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final Map<Phase, LatencyHistogram> HISTOGRAMS = new EnumMap<>(Phase.class);
+  private static final List<String> PHASE_METRIC_NAMES = Arrays.stream(Phase.values())
+        .map(Phase::getMetricName)
+        .collect(Collectors.toList());
+  private static final List<String> CAPACITY_METRIC_NAMES = Arrays.asList(
+        "ReadCapacityUnits", "WriteCapacityUnits");
+  private static volatile String operation = UNKNOWN_OPERATION;
+  private static volatile PrintStream output = System.out;
+
+  static {
+    for (Phase phase : Phase.values()) {
+      HISTOGRAMS.put(phase, new LatencyHistogram());
+    }
+  }
+
+  private RequestMetrics() {
+  }
+
+  /**
+   * Record the latency of a phase.
+   *
+   * @param phase the phase.
+   * @param nanos the latency in nanoseconds.
+   */
+  public static void record(final Phase phase, final long nanos) {
+    HISTOGRAMS.get(phase).record(nanos);
+  }
+
+  /**
+   * Record the latency of a phase that started at the given time.
+   *
+   * @param phase      the phase.
+   * @param startNanos {@link System#nanoTime()} at the start of the phase.
+   */
+  public static void recordSince(final Phase phase, final long startNanos) {
+    record(phase, System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Set the API operation of the current invocation, the dimension its metrics are flushed
+   * with.
+   *
+   * @param operationName operation name, e.g. "getTherapist".
+   */
+  public static void setOperation(final String operationName) {
+    operation = operationName;
+  }
+
+  /**
+   * Discard everything recorded so far, e.g. by priming requests.
+   */
+  public static void reset() {
+    operation = UNKNOWN_OPERATION;
+    ConsumedCapacityRecorder.drain();
+    for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+      for (int index = 0; index < LatencyHistogram.BUCKET_COUNT; index++) {
+        histogram.getAndReset(index);
+      }
+    }
+  }
+
+  /**
+   * Write the metrics of the invocation to the output as EMF lines and reset them.
+   * The output is standard output, which Lambda sends to CloudWatch Logs.
+   */
+  public static void flush() {
+    flush(output, System.currentTimeMillis());
+  }
+
+  /**
+   * Replace the output EMF lines are written to, e.g. to discard them in benchmarks.
+   *
+   * @param printStream the output.
+   */
+  public static void setOutput(final PrintStream printStream) {
+    output = printStream;
+  }
+
+  static void flush(final PrintStream out, final long timestamp) {
+    String operationName = operation;
+    operation = UNKNOWN_OPERATION;
+    try {
+      String latencies = latencyLine(operationName, timestamp);
+      if (latencies != null) {
+        out.println(latencies);
+      }
+      for (Map.Entry<String, double[]> usage : ConsumedCapacityRecorder.drain().entrySet()) {
+        out.println(capacityLine(operationName, timestamp, usage.getKey(), usage.getValue()));
+      }
+    } catch (IOException e) {
+      log.warn("Failed to write metrics", e);
+    }
+  }
+
+  private static String latencyLine(final String operationName, final long timestamp)
+        throws IOException {
+    StringWriter line = new StringWriter(1024);
+    boolean empty = true;
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(line)) {
+      generator.writeStartObject();
+      writeMetadata(generator, timestamp, "Milliseconds", PHASE_METRIC_NAMES,
+            Collections.singletonList(OPERATION_DIMENSION));
+      generator.writeStringField(OPERATION_DIMENSION, operationName);
+      for (Phase phase : Phase.values()) {
+        empty &= !writeHistogram(generator, phase.getMetricName(), HISTOGRAMS.get(phase));
+      }
+      generator.writeEndObject();
+    }
+    return empty ? null : line.toString();
+  }
+
+  // One line per table or index, as the index is a dimension; the line is also published by
+  // operation alone, so CloudWatch sums it across indexes.
+  private static String capacityLine(final String operationName, final long timestamp,
+                                     final String index, final double[] usage)
+        throws IOException {
+    StringWriter line = new StringWriter(512);
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(line)) {
+      generator.writeStartObject();
+      writeMetadata(generator, timestamp, "Count", CAPACITY_METRIC_NAMES,
+            Arrays.asList(OPERATION_DIMENSION, INDEX_DIMENSION),
+            Collections.singletonList(OPERATION_DIMENSION));
+      generator.writeStringField(OPERATION_DIMENSION, operationName);
+      generator.writeStringField(INDEX_DIMENSION, index);
+      generator.writeNumberField(CAPACITY_METRIC_NAMES.get(0), usage[0]);
+      generator.writeNumberField(CAPACITY_METRIC_NAMES.get(1), usage[1]);
+      generator.writeEndObject();
+    }
+    return line.toString();
+  }
+
+  @SafeVarargs
+  private static void writeMetadata(final JsonGenerator generator, final long timestamp,
+                                    final String unit, final List<String> metricNames,
+                                    final List<String>... dimensionSets) throws IOException {
+    generator.writeObjectFieldStart("_aws");
+    generator.writeNumberField("Timestamp", timestamp);
+    generator.writeArrayFieldStart("CloudWatchMetrics");
+    generator.writeStartObject();
+    generator.writeStringField("Namespace", NAMESPACE);
+    generator.writeArrayFieldStart("Dimensions");
+    for (List<String> dimensionSet : dimensionSets) {
+      generator.writeStartArray();
+      for (String dimension : dimensionSet) {
+        generator.writeString(dimension);
+      }
+      generator.writeEndArray();
+    }
+    generator.writeEndArray();
+    generator.writeArrayFieldStart("Metrics");
+    for (String metricName : metricNames) {
+      generator.writeStartObject();
+      generator.writeStringField("Name", metricName);
+      generator.writeStringField("Unit", unit);
+      generator.writeEndObject();
+    }
+    generator.writeEndArray();
+    generator.writeEndObject();
+    generator.writeEndArray();
+    generator.writeEndObject();
+  }
+
+  private static boolean writeHistogram(final JsonGenerator generator, final String name,
+                                        final LatencyHistogram histogram) throws IOException {
+    double[] values = new double[MAX_VALUES];
+    long[] counts = new long[MAX_VALUES];
+    int size = 0;
+    for (int index = 0; index < LatencyHistogram.BUCKET_COUNT; index++) {
+      long count = histogram.getAndReset(index);
+      if (count == 0) {
+        continue;
+      }
+      if (size == MAX_VALUES) {
+        // Fold the slowest buckets into the last value rather than dropping them.
+        counts[size - 1] += count;
+        continue;
+      }
+      values[size] = LatencyHistogram.valueInMillis(index);
+      counts[size++] = count;
+    }
+    if (size == 0) {
+      return false;
+    }
+    generator.writeObjectFieldStart(name);
+    generator.writeArrayFieldStart("Values");
+    for (int i = 0; i < size; i++) {
+      generator.writeNumber(values[i]);
+    }
+    generator.writeEndArray();
+    generator.writeArrayFieldStart("Counts");
+    for (int i = 0; i < size; i++) {
+      generator.writeNumber(counts[i]);
+    }
+    generator.writeEndArray();
+    generator.writeEndObject();
+    return true;
+  }
+}
@@ -0,0 +1,102 @@
+package software.amazon.serverless.apprepo.metrics;
+
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import software.amazon.serverless.apprepo.api.impl.DelegatingDynamoDbClient;
+
+/**
+ * {@link DynamoDbClient} decorator that records the latency of every call in
+ * {@link Phase#DYNAMODB}, failed calls included. Wrapped by the retrying client, so each
+ * attempt is one sample.
+ */
+public class TimedDynamoDbClient extends DelegatingDynamoDbClient {
+  /**
+   * Construct TimedDynamoDbClient.
+   *
+   * @param delegate the DynamoDbClient to time.
+   */
+  public TimedDynamoDbClient(final DynamoDbClient delegate) {
+    super(delegate);
+  }
+
+  @Override
+  public GetItemResponse getItem(final GetItemRequest request) {
+    return timed(() -> delegate.getItem(request));
+  }
+
+  @Override
+  public PutItemResponse putItem(final PutItemRequest request) {
+    return timed(() -> delegate.putItem(request));
+  }
+
+  @Override
+  public UpdateItemResponse updateItem(final UpdateItemRequest request) {
+    return timed(() -> delegate.updateItem(request));
+  }
+
+  @Override
+  public DeleteItemResponse deleteItem(final DeleteItemRequest request) {
+    return timed(() -> delegate.deleteItem(request));
+  }
+
+  @Override
+  public QueryResponse query(final QueryRequest request) {
+    return timed(() -> delegate.query(request));
+  }
+
+  @Override
+  public BatchGetItemResponse batchGetItem(final BatchGetItemRequest request) {
+    return timed(() -> delegate.batchGetItem(request));
+  }
+
+  @Override
+  public BatchWriteItemResponse batchWriteItem(final BatchWriteItemRequest request) {
+    return timed(() -> delegate.batchWriteItem(request));
+  }
+
+  @Override
+  public ScanResponse scan(final ScanRequest request) {
+    return timed(() -> delegate.scan(request));
+  }
+
+  @Override
+  public TransactGetItemsResponse transactGetItems(final TransactGetItemsRequest request) {
+    return timed(() -> delegate.transactGetItems(request));
+  }
+
+  @Override
+  public TransactWriteItemsResponse transactWriteItems(final TransactWriteItemsRequest request) {
+    return timed(() -> delegate.transactWriteItems(request));
+  }
+
+  private static <T> T timed(final Supplier<T> call) {
+    long start = System.nanoTime();
+    try {
+      return call.get();
+    } finally {
+      RequestMetrics.recordSince(Phase.DYNAMODB, start);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package software.amazon.serverless.apprepo.metrics;
+
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DecryptResponse;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+import software.amazon.awssdk.services.kms.model.EncryptResponse;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyRequest;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyResponse;
+
+/**
+ * {@link KmsClient} decorator that records the latency of every call in {@link Phase#KMS},
+ * failed calls included. Only the operations the token serializers use are supported.
+ */
+public class TimedKmsClient implements KmsClient {
+  private final KmsClient delegate;
+
+  /**
+   * Construct TimedKmsClient.
+   *
+   * @param delegate the KmsClient to time.
+   */
+  public TimedKmsClient(final KmsClient delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public EncryptResponse encrypt(final EncryptRequest request) {
+    return timed(() -> delegate.encrypt(request));
+  }
+
+  @Override
+  public DecryptResponse decrypt(final DecryptRequest request) {
+    return timed(() -> delegate.decrypt(request));
+  }
+
+  @Override
+  public GenerateDataKeyResponse generateDataKey(final GenerateDataKeyRequest request) {
+    return timed(() -> delegate.generateDataKey(request));
+  }
+
+  @Override
+  public String serviceName() {
+    return delegate.serviceName();
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  private static <T> T timed(final Supplier<T> call) {
+    long start = System.nanoTime();
+    try {
+      return call.get();
+    } finally {
+      RequestMetrics.recordSince(Phase.KMS, start);
+    }
+  }
+}
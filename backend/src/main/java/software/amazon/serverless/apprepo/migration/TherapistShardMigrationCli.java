@@ -0,0 +1,173 @@
+package software.amazon.serverless.apprepo.migration;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistPartitioner;
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+/**
+ * Moves the therapists written before sharding from the legacy partition key to their shard.
+ *
+ * <pre>
+ * java -cp emotion-journaling-application-backend-1.0.1.jar \
+ *     software.amazon.serverless.apprepo.migration.TherapistShardMigrationCli \
+ *     --table &lt;table&gt; --shards &lt;shard count&gt; [--region us-east-1]
+ * </pre>
+ *
+ * <p>Roll out sharding in three steps:
+ * <ol>
+ *   <li>Set configuration/sharding/Therapist/ShardCount, with
+ *   configuration/sharding/Therapist/LegacyKeyFallbackEnabled left at its default of true.
+ *   New therapists are written to their shard, and reads, writes and lists still find the
+ *   therapists under the legacy key.</li>
+ *   <li>Run this migration with the same shard count. Each therapist is moved with one
+ *   transaction that puts it under its sharded key and deletes the legacy item if it is
+ *   still at the version that was read, so concurrent updates are never lost. A therapist
+ *   that changed while it was moved is skipped; running the migration again moves it.</li>
+ *   <li>Once a run reports no therapists left, set LegacyKeyFallbackEnabled to false.</li>
+ * </ol>
+ *
+ * <p>Container caches see the move as a delete on the table stream, so a moved therapist is
+ * read from the table until the cache ttl passes.
+ */
+@Slf4j
+public final class TherapistShardMigrationCli {
+  private static final int PAGE_SIZE = 100;
+  private static final String USAGE = "Usage: TherapistShardMigrationCli --table <table> "
+        + "--shards <shard count> [--region <region>]";
+
+  private TherapistShardMigrationCli() {
+  }
+
+  public static void main(final String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+    }
+    if (!options.containsKey("table") || !options.containsKey("shards")) {
+      System.err.println(USAGE);
+      System.exit(2);
+      return;
+    }
+    int shardCount = Integer.parseInt(options.get("shards"));
+    if (shardCount < 2) {
+      System.err.println("The shard count must be at least 2 to move therapists.");
+      System.exit(2);
+      return;
+    }
+
+    DynamoDbClientBuilder builder = DynamoDbClient.builder()
+          .credentialsProvider(DefaultCredentialsProvider.create())
+          .overrideConfiguration(ClientOverrideConfiguration.builder()
+                .apiCallAttemptTimeout(Duration.ofSeconds(5))
+                .retryPolicy(RetryPolicy.builder().numRetries(10).build())
+                .build())
+          .httpClientBuilder(UrlConnectionHttpClient.builder());
+    if (options.containsKey("region")) {
+      builder.region(Region.of(options.get("region")));
+    }
+    long skipped = migrate(builder.build(), options.get("table"),
+          new TherapistPartitioner(shardCount, true));
+    System.exit(skipped == 0 ? 0 : 1);
+  }
+
+  /**
+   * Move every therapist of the legacy partition to its shard.
+   *
+   * @param dynamodb    DynamoDB client.
+   * @param tableName   Therapist table name.
+   * @param partitioner partitioner with the target shard count.
+   * @return the number of therapists that were skipped and are still under the legacy key.
+   */
+  static long migrate(final DynamoDbClient dynamodb, final String tableName,
+                      final TherapistPartitioner partitioner) {
+    long moved = 0;
+    long skipped = 0;
+    Map<String, AttributeValue> exclusiveStartKey = null;
+    do {
+      QueryResponse response = dynamodb.query(QueryRequest.builder()
+            .tableName(tableName)
+            .keyConditionExpression(String.format("%s = :u",
+                  TherapistRecord.USER_ID_ATTRIBUTE_NAME))
+            .expressionAttributeValues(Collections.singletonMap(":u",
+                  AttributeValue.builder().s(TherapistPartitioner.LEGACY_USER_ID).build()))
+            .exclusiveStartKey(exclusiveStartKey)
+            .limit(PAGE_SIZE)
+            .build());
+      for (Map<String, AttributeValue> item : response.items()) {
+        if (move(dynamodb, tableName, partitioner, item)) {
+          moved++;
+        } else {
+          skipped++;
+        }
+      }
+      exclusiveStartKey = response.lastEvaluatedKey().isEmpty()
+            ? null : response.lastEvaluatedKey();
+      log.info("Moved {} therapists, skipped {}.", moved, skipped);
+    } while (exclusiveStartKey != null);
+    return skipped;
+  }
+
+  private static boolean move(final DynamoDbClient dynamodb, final String tableName,
+                              final TherapistPartitioner partitioner,
+                              final Map<String, AttributeValue> item) {
+    TherapistRecord legacyRecord = new TherapistRecord(item);
+    String therapistId = legacyRecord.getTherapistId();
+    TherapistRecord shardedRecord = new TherapistRecord(item);
+    shardedRecord.setUserId(partitioner.partitionKey(therapistId));
+    Delete.Builder delete = Delete.builder()
+          .tableName(tableName)
+          .key(TherapistRecord.toKeyRecord(TherapistPartitioner.LEGACY_USER_ID, therapistId));
+    if (legacyRecord.getVersion() == null) {
+      delete.conditionExpression(String.format("attribute_not_exists(%s)",
+            TherapistRecord.VERSION_ATTRIBUTE_NAME));
+    } else {
+      delete.conditionExpression(String.format("%s = :v",
+            TherapistRecord.VERSION_ATTRIBUTE_NAME))
+            .expressionAttributeValues(Collections.singletonMap(":v",
+                  AttributeValue.builder().n(legacyRecord.getVersion().toString()).build()));
+    }
+    try {
+      dynamodb.transactWriteItems(TransactWriteItemsRequest.builder()
+            .transactItems(
+                  TransactWriteItem.builder()
+                        .put(Put.builder()
+                              .tableName(tableName)
+                              .item(shardedRecord.toAttributeMap())
+                              .conditionExpression(String.format("attribute_not_exists(%s)",
+                                    TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME))
+                              .build())
+                        .build(),
+                  TransactWriteItem.builder()
+                        .delete(delete.build())
+                        .build())
+            .build());
+      return true;
+    } catch (TransactionCanceledException e) {
+      log.warn("Therapist {} changed while it was moved, skipped: {}", therapistId,
+            e.getMessage());
+      return false;
+    }
+  }
+}
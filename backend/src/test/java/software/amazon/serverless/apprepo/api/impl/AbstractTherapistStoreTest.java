@@ -0,0 +1,202 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.swagger.model.ConflictException;
+import io.swagger.model.NotFoundException;
+import io.swagger.model.Therapist;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import software.amazon.serverless.apprepo.api.exception.ApiException;
+import software.amazon.serverless.apprepo.api.exception.BadRequestApiException;
+import software.amazon.serverless.apprepo.api.exception.ConflictApiException;
+import software.amazon.serverless.apprepo.api.exception.NotFoundApiException;
+
+/**
+ * The version semantics every {@link TherapistStore} shares, run against each store by its
+ * subclass.
+ */
+public abstract class AbstractTherapistStoreTest {
+  private static final String MISSING_ID = "00000000-0000-0000-0000-000000000000";
+
+  protected TherapistStore store;
+
+  protected abstract TherapistStore createStore();
+
+  @Before
+  public void createTherapistStore() {
+    store = createStore();
+  }
+
+  @Test
+  public void aCreatedTherapistIsRead() {
+    TherapistRecord therapist = therapist();
+
+    store.create(copy(therapist));
+
+    assertThat(get(therapist.getTherapistId())).isEqualToIgnoringGivenFields(therapist, "userId");
+  }
+
+  @Test
+  public void aTherapistIsCreatedOnce() {
+    TherapistRecord therapist = therapist();
+    store.create(copy(therapist));
+
+    assertThatThrownBy(() -> store.create(copy(therapist)))
+          .isInstanceOf(ConflictApiException.class)
+          .satisfies(e -> assertThat(errorCode(e)).isEqualTo("TherapistAlreadyExist"));
+  }
+
+  @Test
+  public void aMissingTherapistIsEmpty() {
+    assertThat(store.get(MISSING_ID, ReadConsistency.STRONG, null)).isEmpty();
+  }
+
+  @Test
+  public void anUpdateSetsTheGivenFieldsAndIncrementsTheVersion() {
+    TherapistRecord therapist = created();
+
+    TherapistRecord updated = store.update(therapist.getTherapistId(), new Therapist()
+          .therapistArea("Mumbai"));
+
+    assertThat(updated.getVersion()).isEqualTo(2L);
+    assertThat(updated.getTherapistArea()).isEqualTo("Mumbai");
+    assertThat(updated.getTherapistName()).isEqualTo(therapist.getTherapistName());
+    assertThat(get(therapist.getTherapistId())).isEqualTo(updated);
+  }
+
+  @Test
+  public void anUpdateAtTheExpectedVersionSucceeds() {
+    TherapistRecord therapist = created();
+    store.update(therapist.getTherapistId(), new Therapist().therapistName("Jane").version(1L));
+
+    TherapistRecord updated = store.update(therapist.getTherapistId(), new Therapist()
+          .therapistName("Joan")
+          .version(2L));
+
+    assertThat(updated.getVersion()).isEqualTo(3L);
+    assertThat(updated.getTherapistName()).isEqualTo("Joan");
+  }
+
+  @Test
+  public void anUpdateAtAnotherVersionConflicts() {
+    TherapistRecord therapist = created();
+
+    assertThatThrownBy(() -> store.update(therapist.getTherapistId(), new Therapist()
+          .therapistName("Jane")
+          .version(2L)))
+          .isInstanceOf(ConflictApiException.class)
+          .satisfies(e -> assertThat(errorCode(e)).isEqualTo("VersionConflict"));
+    assertThat(get(therapist.getTherapistId()).getTherapistName())
+          .isEqualTo(therapist.getTherapistName());
+  }
+
+  @Test
+  public void anUpdateOfAMissingTherapistIsNotFound() {
+    assertThatThrownBy(() -> store.update(MISSING_ID, new Therapist().therapistName("Jane")))
+          .isInstanceOf(NotFoundApiException.class);
+    assertThatThrownBy(() -> store.update(MISSING_ID, new Therapist()
+          .therapistName("Jane")
+          .version(1L)))
+          .isInstanceOf(NotFoundApiException.class);
+    assertThat(store.get(MISSING_ID, ReadConsistency.STRONG, null)).isEmpty();
+  }
+
+  @Test
+  public void anUpdateWithoutFieldsIsABadRequest() {
+    TherapistRecord therapist = created();
+
+    assertThatThrownBy(() -> store.update(therapist.getTherapistId(), new Therapist()
+          .version(1L)))
+          .isInstanceOf(BadRequestApiException.class);
+    assertThat(get(therapist.getTherapistId()).getVersion()).isEqualTo(1L);
+  }
+
+  @Test
+  public void aDeleteReturnsTheDeletedTherapist() {
+    TherapistRecord therapist = created();
+
+    TherapistRecord deleted = store.delete(therapist.getTherapistId(), null);
+
+    assertThat(deleted).isEqualToIgnoringGivenFields(therapist, "userId");
+    assertThat(store.get(therapist.getTherapistId(), ReadConsistency.STRONG, null)).isEmpty();
+  }
+
+  @Test
+  public void aDeleteAtTheExpectedVersionSucceeds() {
+    TherapistRecord therapist = created();
+
+    assertThat(store.delete(therapist.getTherapistId(), 1L).getVersion()).isEqualTo(1L);
+    assertThat(store.get(therapist.getTherapistId(), ReadConsistency.STRONG, null)).isEmpty();
+  }
+
+  @Test
+  public void aDeleteAtAnotherVersionConflicts() {
+    TherapistRecord therapist = created();
+
+    assertThatThrownBy(() -> store.delete(therapist.getTherapistId(), 2L))
+          .isInstanceOf(ConflictApiException.class)
+          .satisfies(e -> assertThat(errorCode(e)).isEqualTo("VersionConflict"));
+    assertThat(store.get(therapist.getTherapistId(), ReadConsistency.STRONG, null)).isNotEmpty();
+  }
+
+  @Test
+  public void aDeleteOfAMissingTherapistIsNotFound() {
+    assertThatThrownBy(() -> store.delete(MISSING_ID, null))
+          .isInstanceOf(NotFoundApiException.class)
+          .satisfies(e -> assertThat(errorCode(e)).isEqualTo("TherapistNotFound"));
+    assertThatThrownBy(() -> store.delete(MISSING_ID, 1L))
+          .isInstanceOf(NotFoundApiException.class);
+  }
+
+  @Test
+  public void aDeletedTherapistCanBeCreatedAgain() {
+    TherapistRecord therapist = created();
+    store.delete(therapist.getTherapistId(), null);
+
+    store.create(copy(therapist));
+
+    assertThat(get(therapist.getTherapistId()).getVersion()).isEqualTo(1L);
+  }
+
+  protected TherapistRecord get(final String therapistId) {
+    return store.get(therapistId, ReadConsistency.STRONG, null).get();
+  }
+
+  private TherapistRecord created() {
+    TherapistRecord therapist = therapist();
+    store.create(copy(therapist));
+    return therapist;
+  }
+
+  protected static TherapistRecord therapist() {
+    return TherapistRecord.builder()
+          .userId(TherapistPartitioner.LEGACY_USER_ID)
+          .therapistId(UUID.randomUUID().toString())
+          .therapistName("John Smith")
+          .therapistArea("Delhi")
+          .therapistType("CBT")
+          .therapistMob("98765")
+          .createdAt(Instant.parse("2020-01-02T03:04:05.678Z"))
+          .version(1L)
+          .build();
+  }
+
+  // Stores may set fields of the record they create, such as its partition key.
+  protected static TherapistRecord copy(final TherapistRecord record) {
+    return new TherapistRecord(record.toAttributeMap());
+  }
+
+  private static String errorCode(final Throwable e) {
+    Object entity = ((ApiException) e).getResponse().getEntity();
+    return entity instanceof ConflictException
+          ? ((ConflictException) entity).getErrorCode()
+          : ((NotFoundException) entity).getErrorCode();
+  }
+}
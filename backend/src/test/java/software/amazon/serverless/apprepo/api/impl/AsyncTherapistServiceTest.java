@@ -0,0 +1,162 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.swagger.model.Therapist;
+import io.swagger.model.TherapistList;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import software.amazon.serverless.apprepo.api.impl.cache.TherapistCache;
+import software.amazon.serverless.apprepo.api.impl.pagination.TokenSerializer;
+
+public class AsyncTherapistServiceTest {
+  private static final String PAGE_THREAD = "test-page-";
+  private static final TherapistRecord THERAPIST = TherapistRecord.builder()
+        .userId("Raj")
+        .therapistId("1")
+        .therapistName("John Smith")
+        .therapistArea("Mumbai")
+        .therapistType("Physio")
+        .version(1L)
+        .build();
+
+  private final ExecutorService pageExecutor = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setNameFormat(PAGE_THREAD + "%d").build());
+  private final List<String> tokenThreads = new CopyOnWriteArrayList<>();
+  private final StubDynamoDbClient dynamodb = new StubDynamoDbClient();
+  private final AsyncTherapistService service = new AsyncTherapistService(
+        new StubDynamoDbAsyncClient(), "Therapist", new TherapistCache(100, Duration.ofMinutes(1)),
+        null, new TherapistPartitioner(1, false),
+        new TherapistQueryExecutor(dynamodb, new ThreadRecordingSerializer(), null,
+              Long.MAX_VALUE, Duration.ZERO),
+        new TherapistSearchCache(1 << 20, Duration.ofMinutes(1)), null, pageExecutor,
+        Clock.systemUTC());
+
+  @After
+  public void shutdownExecutor() {
+    pageExecutor.shutdownNow();
+  }
+
+  @Test
+  public void pagesAndTheirTokensAreBuiltOnThePageExecutor() {
+    TherapistList page = search("0");
+
+    assertThat(page.getTherapist()).extracting("therapistId").containsExactly("1");
+    assertThat(page.getNextToken()).isEqualTo("1");
+    assertThat(tokenThreads).hasSize(2).allMatch(thread -> thread.startsWith(PAGE_THREAD));
+  }
+
+  @Test
+  public void searchPagesAreServedFromTheSearchCache() {
+    search(null);
+    search(null);
+
+    assertThat(dynamodb.queries.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void anUpdateEvictsTheSearchPagesOfTheTherapist() {
+    search(null);
+
+    service.updateTherapist(new Therapist().therapistName("Jane"), THERAPIST.getTherapistId())
+          .toCompletableFuture().join();
+    search(null);
+
+    assertThat(dynamodb.queries.get()).isEqualTo(2);
+  }
+
+  private TherapistList search(final String nextToken) {
+    return service.getTherapistByNTA(THERAPIST.getTherapistArea(), nextToken, null, 1, null)
+          .toCompletableFuture().join();
+  }
+
+  /**
+   * Serializer of numeric positions that records the threads it runs on.
+   */
+  private final class ThreadRecordingSerializer
+        implements TokenSerializer<Map<String, AttributeValue>> {
+    @Override
+    public Map<String, AttributeValue> deserialize(final String tokenString) {
+      tokenThreads.add(Thread.currentThread().getName());
+      return Collections.singletonMap(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME,
+            AttributeValue.builder().s(tokenString).build());
+    }
+
+    @Override
+    public String serialize(final Map<String, AttributeValue> token) {
+      tokenThreads.add(Thread.currentThread().getName());
+      return token.get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME).s();
+    }
+  }
+
+  /**
+   * DynamoDbClient whose queries return the therapist, followed by more therapists.
+   */
+  private static final class StubDynamoDbClient implements DynamoDbClient {
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @Override
+    public QueryResponse query(final QueryRequest request) {
+      queries.incrementAndGet();
+      return QueryResponse.builder()
+            .items(Collections.singletonList(THERAPIST.toAttributeMap()))
+            .lastEvaluatedKey(Collections.singletonMap(
+                  TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME,
+                  AttributeValue.builder().s(THERAPIST.getTherapistId()).build()))
+            .build();
+    }
+
+    @Override
+    public String serviceName() {
+      return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  /**
+   * DynamoDbAsyncClient whose updates succeed and return the therapist.
+   */
+  private static final class StubDynamoDbAsyncClient implements DynamoDbAsyncClient {
+    @Override
+    public CompletableFuture<UpdateItemResponse> updateItem(final UpdateItemRequest request) {
+      return CompletableFuture.completedFuture(UpdateItemResponse.builder()
+            .attributes(THERAPIST.toAttributeMap())
+            .build());
+    }
+
+    @Override
+    public String serviceName() {
+      return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.swagger.model.Therapist;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+import software.amazon.serverless.apprepo.api.impl.cache.TherapistCache;
+
+public class CachingTherapistStoreTest extends AbstractTherapistStoreTest {
+  private final TherapistStore table = new InMemoryTherapistStore(false);
+  // The same table as seen by another container, with a cache of its own.
+  private final TherapistStore otherContainer = cachingStore();
+
+  @Override
+  protected TherapistStore createStore() {
+    return cachingStore();
+  }
+
+  @Test
+  public void aStrongReadSeesAWriteOfAnotherContainer() {
+    TherapistRecord therapist = therapist();
+    store.create(copy(therapist));
+    get(therapist.getTherapistId());
+
+    otherContainer.update(therapist.getTherapistId(), new Therapist().therapistName("Jane"));
+
+    assertThat(store.get(therapist.getTherapistId(), ReadConsistency.STRONG, null).get()
+          .getTherapistName()).isEqualTo("Jane");
+  }
+
+  @Test
+  public void aStrongReadSeesADeleteOfAnotherContainer() {
+    TherapistRecord therapist = therapist();
+    store.create(copy(therapist));
+    get(therapist.getTherapistId());
+
+    otherContainer.delete(therapist.getTherapistId(), null);
+
+    assertThat(store.get(therapist.getTherapistId(), ReadConsistency.STRONG, null)).isEmpty();
+  }
+
+  @Test
+  public void anEventualReadIsServedFromTheCacheUntilItIsOlderThanTheVersionToken() {
+    TherapistRecord therapist = therapist();
+    store.create(copy(therapist));
+    get(therapist.getTherapistId());
+    TherapistRecord updated = otherContainer.update(therapist.getTherapistId(),
+          new Therapist().therapistName("Jane"));
+
+    assertThat(store.get(therapist.getTherapistId(), ReadConsistency.EVENTUAL, null).get()
+          .getTherapistName()).isEqualTo("John Smith");
+    assertThat(store.get(therapist.getTherapistId(), ReadConsistency.EVENTUAL,
+          updated.getVersion()).get().getTherapistName()).isEqualTo("Jane");
+  }
+
+  @Test
+  public void aStrongReadRefreshesTheCache() {
+    TherapistRecord therapist = therapist();
+    store.create(copy(therapist));
+    get(therapist.getTherapistId());
+    otherContainer.update(therapist.getTherapistId(), new Therapist().therapistName("Jane"));
+
+    get(therapist.getTherapistId());
+
+    assertThat(store.get(therapist.getTherapistId(), ReadConsistency.EVENTUAL, null).get()
+          .getTherapistName()).isEqualTo("Jane");
+  }
+
+  private TherapistStore cachingStore() {
+    return new CachingTherapistStore(table, new TherapistCache(100, Duration.ofMinutes(1)));
+  }
+}
@@ -0,0 +1,91 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbRequest;
+
+import software.amazon.serverless.apprepo.metrics.ConsumedCapacityDynamoDbClient;
+import software.amazon.serverless.apprepo.metrics.TimedDynamoDbClient;
+
+public class DelegatingDynamoDbClientTest {
+  private final List<String> calls = new ArrayList<>();
+  private final DynamoDbClient delegate = (DynamoDbClient) Proxy.newProxyInstance(
+        DynamoDbClient.class.getClassLoader(), new Class<?>[] {DynamoDbClient.class},
+        (proxy, method, args) -> {
+          calls.add(method.getName());
+          if (method.getName().equals("serviceName")) {
+            return "dynamodb";
+          }
+          if (method.getReturnType() == void.class) {
+            return null;
+          }
+          return build(method.getReturnType());
+        });
+
+  @Test
+  public void everyOperationReachesTheDelegate() throws Exception {
+    assertForwardsEveryOperation(new DelegatingDynamoDbClient(delegate) {
+    });
+  }
+
+  @Test
+  public void theTimedClientForwardsEveryOperation() throws Exception {
+    assertForwardsEveryOperation(new TimedDynamoDbClient(delegate));
+  }
+
+  @Test
+  public void theConsumedCapacityClientForwardsEveryOperation() throws Exception {
+    assertForwardsEveryOperation(new ConsumedCapacityDynamoDbClient(delegate));
+  }
+
+  @Test
+  public void serviceNameAndCloseReachTheDelegate() {
+    DynamoDbClient client = new TimedDynamoDbClient(delegate);
+
+    assertThat(client.serviceName()).isEqualTo("dynamodb");
+    client.close();
+    assertThat(calls).containsExactly("serviceName", "close");
+  }
+
+  private void assertForwardsEveryOperation(final DynamoDbClient client) throws Exception {
+    int operations = 0;
+    for (Method method : DynamoDbClient.class.getMethods()) {
+      if (method.getParameterCount() != 1
+            || !DynamoDbRequest.class.isAssignableFrom(method.getParameterTypes()[0])) {
+        continue;
+      }
+      calls.clear();
+      Object response = method.invoke(client, build(method.getParameterTypes()[0]));
+      if (response instanceof SdkIterable) {
+        // Paginators call the operation of their page for each page.
+        ((SdkIterable<?>) response).forEach(page -> { });
+        assertThat(calls).as(method.getName()).containsExactly(
+              method.getName().substring(0, method.getName().length() - "Paginator".length()));
+      } else {
+        assertThat(calls).as(method.getName()).containsExactly(method.getName());
+      }
+      operations++;
+    }
+    assertThat(operations).isGreaterThan(30);
+  }
+
+  private static Object build(final Class<?> type) throws ReflectiveOperationException {
+    Method builder = type.getMethod("builder");
+    try {
+      // The builder implementations are private; their interfaces are not.
+      return builder.getReturnType().getMethod("build").invoke(builder.invoke(null));
+    } catch (InvocationTargetException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.swagger.model.Therapist;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+public class DynamoDbTherapistStoreTest extends AbstractTherapistStoreTest {
+  private static final String TABLE_NAME = "Therapist";
+
+  private final StubTherapistTable table = new StubTherapistTable();
+  private final TherapistPartitioner therapistPartitioner = new TherapistPartitioner(4, true);
+
+  @Override
+  protected TherapistStore createStore() {
+    return new DynamoDbTherapistStore(table, TABLE_NAME, therapistPartitioner);
+  }
+
+  @Test
+  public void therapistsAreCreatedUnderTheirShard() {
+    TherapistRecord therapist = therapist();
+
+    store.create(copy(therapist));
+
+    assertThat(get(therapist.getTherapistId()).getUserId())
+          .isEqualTo(therapistPartitioner.partitionKey(therapist.getTherapistId()));
+  }
+
+  @Test
+  public void therapistsUnderTheLegacyKeyAreWrittenInPlace() {
+    TherapistRecord therapist = therapist();
+    table.items.put(table.key(therapist.toAttributeMap()), therapist.toAttributeMap());
+
+    TherapistRecord updated = store.update(therapist.getTherapistId(), new Therapist()
+          .therapistName("Jane")
+          .version(1L));
+
+    assertThat(updated.getUserId()).isEqualTo(TherapistPartitioner.LEGACY_USER_ID);
+    assertThat(updated.getVersion()).isEqualTo(2L);
+    assertThat(store.delete(therapist.getTherapistId(), 2L).getTherapistName())
+          .isEqualTo("Jane");
+    assertThat(table.items).isEmpty();
+  }
+
+  /**
+   * Therapist table that evaluates the condition and update expressions of
+   * {@link TherapistWriteRequests} and DynamoDbTherapistStore.
+   */
+  private static final class StubTherapistTable implements DynamoDbClient {
+    private static final Pattern EXISTS = Pattern.compile("attribute_exists\\((\\w+)\\)");
+    private static final Pattern NOT_EXISTS = Pattern.compile("attribute_not_exists\\((\\w+)\\)");
+    private static final Pattern EQUALS = Pattern.compile("(\\w+) = (:\\w+)");
+    private static final Pattern ADD = Pattern.compile("(\\w+) = \\1 \\+ (:\\w+)");
+
+    private final Map<List<String>, Map<String, AttributeValue>> items = new HashMap<>();
+
+    @Override
+    public PutItemResponse putItem(final PutItemRequest request) {
+      Map<String, AttributeValue> item = request.item();
+      check(request.conditionExpression(), request.expressionAttributeValues(),
+            items.get(key(item)));
+      items.put(key(item), new HashMap<>(item));
+      return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public GetItemResponse getItem(final GetItemRequest request) {
+      Map<String, AttributeValue> item = items.get(key(request.key()));
+      return GetItemResponse.builder().item(item == null ? new HashMap<>() : item).build();
+    }
+
+    @Override
+    public UpdateItemResponse updateItem(final UpdateItemRequest request) {
+      Map<String, AttributeValue> item = items.get(key(request.key()));
+      check(request.conditionExpression(), request.expressionAttributeValues(), item);
+      Map<String, AttributeValue> updated = new HashMap<>(item);
+      Map<String, AttributeValue> values = request.expressionAttributeValues();
+      for (String set : request.updateExpression().replaceFirst("^SET ", "").split(",")) {
+        Matcher add = ADD.matcher(set.trim());
+        Matcher equals = EQUALS.matcher(set.trim());
+        if (add.matches()) {
+          updated.put(add.group(1), AttributeValue.builder()
+                .n(new BigDecimal(item.get(add.group(1)).n())
+                      .add(new BigDecimal(values.get(add.group(2)).n()))
+                      .toString())
+                .build());
+        } else if (equals.matches()) {
+          updated.put(equals.group(1), values.get(equals.group(2)));
+        } else {
+          throw new IllegalArgumentException("Unsupported update " + set);
+        }
+      }
+      items.put(key(request.key()), updated);
+      return UpdateItemResponse.builder().attributes(updated).build();
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(final DeleteItemRequest request) {
+      Map<String, AttributeValue> item = items.get(key(request.key()));
+      check(request.conditionExpression(), request.expressionAttributeValues(), item);
+      items.remove(key(request.key()));
+      return DeleteItemResponse.builder().attributes(item).build();
+    }
+
+    @Override
+    public String serviceName() {
+      return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private List<String> key(final Map<String, AttributeValue> item) {
+      return Arrays.asList(item.get(TherapistRecord.USER_ID_ATTRIBUTE_NAME).s(),
+            item.get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME).s());
+    }
+
+    private static void check(final String condition, final Map<String, AttributeValue> values,
+                              final Map<String, AttributeValue> item) {
+      boolean met = true;
+      for (String clause : condition.split(" AND ")) {
+        Matcher exists = EXISTS.matcher(clause);
+        Matcher notExists = NOT_EXISTS.matcher(clause);
+        Matcher equals = EQUALS.matcher(clause);
+        if (exists.matches()) {
+          met &= item != null && item.containsKey(exists.group(1));
+        } else if (notExists.matches()) {
+          met &= item == null || !item.containsKey(notExists.group(1));
+        } else if (equals.matches()) {
+          met &= item != null && values.get(equals.group(2)).equals(item.get(equals.group(1)));
+        } else {
+          throw new IllegalArgumentException("Unsupported condition " + clause);
+        }
+      }
+      if (!met) {
+        throw ConditionalCheckFailedException.builder()
+              .message("The conditional request failed")
+              .build();
+      }
+    }
+  }
+}
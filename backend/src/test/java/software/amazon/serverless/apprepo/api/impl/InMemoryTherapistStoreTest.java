@@ -0,0 +1,125 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.swagger.model.Therapist;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import software.amazon.serverless.apprepo.api.exception.NotFoundApiException;
+
+@RunWith(Parameterized.class)
+public class InMemoryTherapistStoreTest extends AbstractTherapistStoreTest {
+  @Parameterized.Parameter
+  public boolean offHeap;
+
+  @Parameterized.Parameters(name = "offHeap={0}")
+  public static Collection<Object[]> offHeap() {
+    return Arrays.asList(new Object[] {false}, new Object[] {true});
+  }
+
+  @Override
+  protected TherapistStore createStore() {
+    return new InMemoryTherapistStore(offHeap);
+  }
+
+  @Test
+  public void everyFieldIsReadBack() {
+    TherapistRecord full = TherapistRecord.builder()
+          .userId("Raj#3")
+          .therapistId(UUID.randomUUID().toString())
+          .therapistName("Zoë O'Neil 😀")
+          .therapistArea("")
+          .therapistType("CBT")
+          .therapistMob("+91 98765 43210")
+          .createdAt(Instant.ofEpochSecond(-1, 999_999_999))
+          .version(0L)
+          .build();
+    TherapistRecord sparse = TherapistRecord.builder()
+          .therapistId(UUID.randomUUID().toString())
+          .build();
+
+    store.create(full);
+    store.create(sparse);
+
+    assertThat(get(full.getTherapistId())).isEqualTo(full);
+    assertThat(get(sparse.getTherapistId())).isEqualTo(sparse);
+  }
+
+  @Test
+  public void readsAndWritesDoNotShareRecords() {
+    TherapistRecord therapist = therapist();
+    store.create(therapist);
+
+    therapist.setTherapistName("Jane");
+    get(therapist.getTherapistId()).setTherapistName("Joan");
+
+    assertThat(get(therapist.getTherapistId()).getTherapistName()).isEqualTo("John Smith");
+  }
+
+  @Test
+  public void idsThatAreNotLowercaseUuidsAreNeverFound() {
+    TherapistRecord therapist = therapist();
+    store.create(copy(therapist));
+    String upperCase = therapist.getTherapistId().toUpperCase();
+
+    assertThatThrownBy(() -> store.create(TherapistRecord.builder()
+          .therapistId("therapist")
+          .build()))
+          .isInstanceOf(IllegalArgumentException.class);
+    assertThat(store.get(upperCase, ReadConsistency.STRONG, null)).isEmpty();
+    assertThat(store.get(null, ReadConsistency.STRONG, null)).isEmpty();
+    assertThatThrownBy(() -> store.update(upperCase, new Therapist().therapistName("Jane")))
+          .isInstanceOf(NotFoundApiException.class);
+    assertThatThrownBy(() -> store.delete(upperCase, null))
+          .isInstanceOf(NotFoundApiException.class);
+  }
+
+  @Test
+  public void removesKeepEveryOtherTherapistReachable() {
+    // Enough therapists per stripe that the tables grow and their probe runs collide, so
+    // removes have keys to shift back.
+    Random random = new Random(42);
+    List<String> therapistIds = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      String therapistId = new UUID(random.nextLong(), random.nextLong()).toString();
+      therapistIds.add(therapistId);
+      store.create(TherapistRecord.builder().therapistId(therapistId).version(1L).build());
+    }
+    Collections.shuffle(therapistIds, random);
+    List<String> removed = therapistIds.subList(0, therapistIds.size() / 2);
+    Set<String> kept = new HashSet<>(therapistIds.subList(therapistIds.size() / 2,
+          therapistIds.size()));
+
+    for (String therapistId : removed) {
+      assertThat(store.delete(therapistId, 1L).getTherapistId()).isEqualTo(therapistId);
+    }
+
+    for (String therapistId : kept) {
+      assertThat(get(therapistId).getTherapistId()).isEqualTo(therapistId);
+    }
+    for (String therapistId : removed) {
+      assertThat(store.get(therapistId, ReadConsistency.STRONG, null)).isEmpty();
+    }
+    for (String therapistId : removed) {
+      store.create(TherapistRecord.builder().therapistId(therapistId).version(2L).build());
+    }
+    for (String therapistId : therapistIds) {
+      assertThat(get(therapistId).getVersion()).isEqualTo(kept.contains(therapistId) ? 1L : 2L);
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+public class TherapistListMergerTest {
+  private static final String TABLE_NAME = "Therapist";
+
+  @Test
+  public void pagesSmallerThanTheShardCountReturnEveryTherapistOnce() {
+    TherapistPartitioner partitioner = new TherapistPartitioner(8, true);
+    Map<String, List<String>> table = table(partitioner, 50);
+
+    List<String> listed = listAll(partitioner.partitions(), table, 3, Long.MAX_VALUE);
+
+    assertThat(listed).containsExactlyElementsOf(allIds(table));
+  }
+
+  @Test
+  public void pagesStoppedByTheByteBudgetReturnEveryTherapistOnce() {
+    TherapistPartitioner partitioner = new TherapistPartitioner(4, false);
+    Map<String, List<String>> table = table(partitioner, 40);
+
+    // Every page holds a single therapist, however many were asked for.
+    List<String> listed = listAll(partitioner.partitions(), table, 10, 1);
+
+    assertThat(listed).containsExactlyElementsOf(allIds(table));
+  }
+
+  @Test
+  public void pagesWithPartitionsOfOnePageReturnEveryTherapistOnce() {
+    TherapistPartitioner partitioner = new TherapistPartitioner(4, false);
+    Map<String, List<String>> table = table(partitioner, 12);
+
+    List<String> listed = listAll(partitioner.partitions(), table, 100, Long.MAX_VALUE);
+
+    assertThat(listed).containsExactlyElementsOf(allIds(table));
+  }
+
+  @Test
+  public void legacyTokenContinuesTheLegacyPartition() {
+    Map<String, AttributeValue> token = TherapistRecord.toKeyRecord(
+          TherapistPartitioner.LEGACY_USER_ID, "therapist-1");
+
+    Map<String, AttributeValue> positions = TherapistListMerger.positions(token);
+
+    assertThat(positions).containsOnlyKeys(TherapistPartitioner.LEGACY_USER_ID);
+    assertThat(positions.get(TherapistPartitioner.LEGACY_USER_ID).s()).isEqualTo("therapist-1");
+  }
+
+  private static List<String> listAll(final List<String> partitions,
+                                      final Map<String, List<String>> table, final int limit,
+                                      final long byteBudget) {
+    List<String> listed = new ArrayList<>();
+    Map<String, AttributeValue> token = null;
+    int pages = 0;
+    do {
+      Map<String, AttributeValue> positions = TherapistListMerger.positions(token);
+      Map<String, QueryResponse> responses = new LinkedHashMap<>();
+      TherapistListMerger.queries(TABLE_NAME, partitions, positions, limit, true)
+            .forEach((partition, query) -> responses.put(partition, query(table, query)));
+      TherapistPage page = TherapistListMerger.merge(partitions, positions, responses, limit,
+            byteBudget);
+      page.records.forEach(record -> listed.add(record.getTherapistId()));
+      token = page.nextPosition;
+      assertThat(++pages).as("pages").isLessThan(1000);
+    } while (token != null);
+    return listed;
+  }
+
+  /**
+   * Answers a query like DynamoDB does: the items after the ExclusiveStartKey in therapistId
+   * order, up to the limit, with a LastEvaluatedKey when the page is full.
+   */
+  private static QueryResponse query(final Map<String, List<String>> table,
+                                     final QueryRequest query) {
+    String partition = query.expressionAttributeValues().get(":u").s();
+    String start = query.exclusiveStartKey().isEmpty() ? null : query.exclusiveStartKey()
+          .get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME).s();
+    List<Map<String, AttributeValue>> items = table.get(partition).stream()
+          .filter(id -> start == null || id.compareTo(start) > 0)
+          .limit(query.limit())
+          .map(id -> TherapistRecord.builder()
+                .userId(partition)
+                .therapistId(id)
+                .therapistName("Therapist " + id)
+                .version(1L)
+                .build()
+                .toAttributeMap())
+          .collect(Collectors.toList());
+    QueryResponse.Builder response = QueryResponse.builder().items(items);
+    if (items.size() == query.limit()) {
+      response.lastEvaluatedKey(TherapistRecord.toKeyRecord(partition,
+            items.get(items.size() - 1).get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME).s()));
+    }
+    return response.build();
+  }
+
+  private static Map<String, List<String>> table(final TherapistPartitioner partitioner,
+                                                 final int count) {
+    Map<String, List<String>> table = new TreeMap<>();
+    partitioner.partitions().forEach(partition -> table.put(partition, new ArrayList<>()));
+    for (int i = 0; i < count; i++) {
+      String therapistId = String.format("therapist-%03d", i);
+      // Every fifth therapist was written before sharding.
+      String partition = partitioner.isLegacyKeyFallbackEnabled() && i % 5 == 0
+            ? TherapistPartitioner.LEGACY_USER_ID : partitioner.partitionKey(therapistId);
+      table.get(partition).add(therapistId);
+    }
+    table.values().forEach(ids -> ids.sort(String::compareTo));
+    return table;
+  }
+
+  private static List<String> allIds(final Map<String, List<String>> table) {
+    return table.values().stream()
+          .flatMap(List::stream)
+          .sorted()
+          .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,132 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.swagger.model.Therapist;
+import io.swagger.model.TherapistSummary;
+
+import java.time.Instant;
+
+import org.junit.Test;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.PropertyMap;
+
+/**
+ * Checks that TherapistMapper maps exactly what the ModelMapper configuration it replaced did.
+ */
+public class TherapistMapperTest {
+  private static final ModelMapper LEGACY_MAPPER = legacyModelMapper();
+
+  @Test
+  public void toTherapistMatchesModelMapper() {
+    TherapistRecord record = fullRecord();
+
+    Therapist therapist = TherapistMapper.toTherapist(record);
+
+    assertThat(therapist).isEqualTo(LEGACY_MAPPER.map(record, Therapist.class));
+    assertThat(therapist.getCreationTime()).isEqualTo("2020-01-02T03:04:05.678Z");
+    assertThat(therapist.getVersion()).isEqualTo(7L);
+  }
+
+  @Test
+  public void toTherapistSummaryMatchesModelMapper() {
+    TherapistRecord record = fullRecord();
+
+    TherapistSummary summary = TherapistMapper.toTherapistSummary(record);
+
+    assertThat(summary).isEqualTo(LEGACY_MAPPER.map(record, TherapistSummary.class));
+    assertThat(summary.getCreationTime()).isEqualTo("2020-01-02T03:04:05.678Z");
+    assertThat(summary.getVersion()).isEqualTo(7L);
+  }
+
+  @Test
+  public void creationTimeIsIso8601() {
+    TherapistRecord record = fullRecord();
+    record.setCreatedAt(Instant.parse("2020-01-02T03:04:00Z"));
+
+    assertThat(TherapistMapper.toTherapist(record).getCreationTime())
+          .isEqualTo("2020-01-02T03:04:00Z")
+          .isEqualTo(LEGACY_MAPPER.map(record, Therapist.class).getCreationTime());
+    assertThat(Instant.parse(TherapistMapper.toTherapistSummary(record).getCreationTime()))
+          .isEqualTo(record.getCreatedAt());
+  }
+
+  @Test
+  public void nullFieldsStayNull() {
+    TherapistRecord record = TherapistRecord.builder()
+          .therapistId("id")
+          .build();
+
+    Therapist therapist = TherapistMapper.toTherapist(record);
+    TherapistSummary summary = TherapistMapper.toTherapistSummary(record);
+
+    assertThat(therapist).isEqualTo(new Therapist().therapistId("id"));
+    assertThat(therapist).isEqualTo(LEGACY_MAPPER.map(record, Therapist.class));
+    assertThat(summary).isEqualTo(new TherapistSummary().therapistId("id"));
+    assertThat(summary).isEqualTo(LEGACY_MAPPER.map(record, TherapistSummary.class));
+  }
+
+  @Test
+  public void toTherapistRecordMatchesModelMapper() {
+    Therapist therapist = new Therapist()
+          .therapistId("id")
+          .therapistName("name")
+          .therapistMob("mob")
+          .therapistArea("area")
+          .therapistType("type")
+          .creationTime("2020-01-02T03:04:05.678Z")
+          .version(7L);
+
+    TherapistRecord record = TherapistMapper.toTherapistRecord(therapist);
+
+    // The service set the version of every new record after ModelMapper copied it, so it is
+    // left out of the record rather than taken from the request body.
+    TherapistRecord legacyRecord = LEGACY_MAPPER.map(therapist, TherapistRecord.class);
+    legacyRecord.setVersion(null);
+    assertThat(record).isEqualTo(legacyRecord);
+    assertThat(record.getCreatedAt()).isNull();
+    assertThat(record.getVersion()).isNull();
+    assertThat(record.getUserId()).isNull();
+  }
+
+  @Test
+  public void toTherapistRecordKeepsNullFields() {
+    Therapist therapist = new Therapist().therapistName("name");
+
+    TherapistRecord record = TherapistMapper.toTherapistRecord(therapist);
+
+    assertThat(record).isEqualTo(TherapistRecord.builder().therapistName("name").build());
+    assertThat(record).isEqualTo(LEGACY_MAPPER.map(therapist, TherapistRecord.class));
+  }
+
+  private static TherapistRecord fullRecord() {
+    return TherapistRecord.builder()
+          .userId("Raj#3")
+          .therapistId("id")
+          .therapistName("name")
+          .therapistMob("mob")
+          .therapistArea("area")
+          .therapistType("type")
+          .createdAt(Instant.parse("2020-01-02T03:04:05.678Z"))
+          .version(7L)
+          .build();
+  }
+
+  /**
+   * The ModelMapper configuration TherapistService used before TherapistMapper.
+   */
+  private static ModelMapper legacyModelMapper() {
+    ModelMapper modelMapper = new ModelMapper();
+    modelMapper.addMappings(new PropertyMap<TherapistRecord, Therapist>() {
+      protected void configure() {
+        map(source.getCreatedAt()).setCreationTime(null);
+      }
+    });
+    modelMapper.addMappings(new PropertyMap<TherapistRecord, TherapistSummary>() {
+      protected void configure() {
+        map(source.getCreatedAt()).setCreationTime(null);
+      }
+    });
+    return modelMapper;
+  }
+}
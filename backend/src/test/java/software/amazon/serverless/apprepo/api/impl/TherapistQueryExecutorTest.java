@@ -0,0 +1,81 @@
+package software.amazon.serverless.apprepo.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.swagger.model.TherapistList;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import software.amazon.serverless.apprepo.api.impl.pagination.TokenSerializer;
+
+public class TherapistQueryExecutorTest {
+  private static final String POSITION = "position";
+  private static final int PAGES = 3;
+
+  private final Map<Integer, String> loadingThreads = new ConcurrentHashMap<>();
+  private final TherapistQueryExecutor executor = new TherapistQueryExecutor(null,
+        new PositionSerializer(), null, Long.MAX_VALUE, Duration.ofMinutes(1));
+
+  @Test
+  public void eventuallyConsistentPagesArePrefetched() {
+    TherapistList first = executor.execute("list", ReadConsistency.EVENTUAL, null, 1,
+          this::load);
+    TherapistList second = executor.execute("list", ReadConsistency.EVENTUAL,
+          first.getNextToken(), 1, this::load);
+
+    assertThat(second.getTherapist()).extracting("therapistId").containsExactly("1");
+    assertThat(loadingThreads.get(1)).startsWith("therapist-prefetch-");
+  }
+
+  @Test
+  public void stronglyConsistentPagesAreNotPrefetched() {
+    TherapistList first = executor.execute("list", ReadConsistency.STRONG, null, 1,
+          this::load);
+    TherapistList second = executor.execute("list", ReadConsistency.STRONG,
+          first.getNextToken(), 1, this::load);
+
+    assertThat(second.getTherapist()).extracting("therapistId").containsExactly("1");
+    assertThat(loadingThreads.get(1)).isEqualTo(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void pagesPrefetchedForEventualReadsAreNotServedToStrongReads() {
+    TherapistList first = executor.execute("list", ReadConsistency.EVENTUAL, null, 1,
+          this::load);
+    executor.execute("list", ReadConsistency.STRONG, first.getNextToken(), 1, this::load);
+
+    assertThat(loadingThreads.get(1)).isEqualTo(Thread.currentThread().getName());
+  }
+
+  private TherapistPage load(final Map<String, AttributeValue> position, final int maxItems,
+                             final long byteBudget) {
+    int page = position == null ? 0 : Integer.parseInt(position.get(POSITION).n());
+    loadingThreads.put(page, Thread.currentThread().getName());
+    return new TherapistPage(
+          Collections.singletonList(TherapistRecord.builder()
+                .therapistId(String.valueOf(page))
+                .build()),
+          page + 1 == PAGES ? null : Collections.singletonMap(POSITION,
+                AttributeValue.builder().n(String.valueOf(page + 1)).build()));
+  }
+
+  private static final class PositionSerializer
+        implements TokenSerializer<Map<String, AttributeValue>> {
+    @Override
+    public Map<String, AttributeValue> deserialize(final String tokenString) {
+      return Collections.singletonMap(POSITION, AttributeValue.builder().n(tokenString).build());
+    }
+
+    @Override
+    public String serialize(final Map<String, AttributeValue> token) {
+      return token.get(POSITION).n();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package software.amazon.serverless.apprepo.api.impl.changes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.swagger.model.BadRequestException;
+import io.swagger.model.TherapistChanges;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import software.amazon.serverless.apprepo.api.exception.BadRequestApiException;
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+public class ChangeLogTest {
+  private static final String TABLE_NAME = "Therapist";
+  private static final Instant NOW = Instant.parse("2020-03-01T00:00:00Z");
+  private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+  @Test
+  public void queryStartsAfterTheWatermarkSequence() {
+    String since = "42." + NOW.minusSeconds(60).toEpochMilli();
+
+    QueryRequest request = ChangeLog.query(TABLE_NAME, since, 10, CLOCK);
+
+    assertThat(request.expressionAttributeValues().get(":userId").s())
+          .isEqualTo(ChangeLog.USER_ID);
+    assertThat(request.expressionAttributeValues().get(":since").s())
+          .isEqualTo("00000000000000000042");
+    assertThat(request.consistentRead()).isTrue();
+    assertThat(request.limit()).isEqualTo(10);
+  }
+
+  @Test
+  public void watermarkAtTheRetentionIsAccepted() {
+    String since = "42." + NOW.minus(ChangeLog.RETENTION).toEpochMilli();
+
+    assertThat(ChangeLog.query(TABLE_NAME, since, 10, CLOCK)).isNotNull();
+  }
+
+  @Test
+  public void watermarkOlderThanTheRetentionIsExpired() {
+    String since = "42." + NOW.minus(ChangeLog.RETENTION).minusMillis(1).toEpochMilli();
+
+    assertThatThrownBy(() -> ChangeLog.query(TABLE_NAME, since, 10, CLOCK))
+          .isInstanceOf(BadRequestApiException.class)
+          .satisfies(e -> assertThat(errorCode(e)).isEqualTo("WatermarkExpired"));
+  }
+
+  @Test
+  public void malformedWatermarksAreInvalid() {
+    for (String since : Arrays.asList("", "42", "42.", ".1", "a.1", "1.b", "1.2.3")) {
+      assertThatThrownBy(() -> ChangeLog.query(TABLE_NAME, since, 10, CLOCK))
+            .as(since)
+            .isInstanceOf(BadRequestApiException.class)
+            .satisfies(e -> assertThat(errorCode(e)).isEqualTo("InvalidRequest"));
+    }
+  }
+
+  @Test
+  public void watermarkMovesToTheLastChange() {
+    Instant changedAt = NOW.minusSeconds(5);
+    QueryResponse response = QueryResponse.builder()
+          .items(Arrays.asList(entry(43, ChangeLog.UPSERT, NOW.minusSeconds(10)),
+                entry(44, ChangeLog.DELETE, changedAt)))
+          .lastEvaluatedKey(Collections.singletonMap(TherapistRecord.USER_ID_ATTRIBUTE_NAME,
+                AttributeValue.builder().s(ChangeLog.USER_ID).build()))
+          .build();
+
+    TherapistChanges changes = ChangeLog.toTherapistChanges("42.0", response, CLOCK);
+
+    assertThat(changes.getChanges()).extracting("changeType")
+          .containsExactly(ChangeLog.UPSERT, ChangeLog.DELETE);
+    assertThat(changes.getChanges().get(0).getTherapist().getTherapistName()).isEqualTo("name");
+    assertThat(changes.getChanges().get(1).getTherapist()).isNull();
+    assertThat(changes.getWatermark()).isEqualTo("44." + changedAt.toEpochMilli());
+    assertThat(changes.isisHasMore()).isTrue();
+  }
+
+  @Test
+  public void quietLogKeepsTheSequenceAndRenewsTheTime() {
+    String since = "42." + NOW.minus(ChangeLog.RETENTION).toEpochMilli();
+    QueryResponse response = QueryResponse.builder()
+          .items(Collections.emptyList())
+          .build();
+
+    TherapistChanges changes = ChangeLog.toTherapistChanges(since, response, CLOCK);
+
+    assertThat(changes.getChanges()).isEmpty();
+    assertThat(changes.getWatermark()).isEqualTo("42." + NOW.toEpochMilli());
+    assertThat(changes.isisHasMore()).isFalse();
+    // A day later the renewed watermark is still accepted, the original one is not.
+    Clock later = Clock.offset(CLOCK, Duration.ofDays(1));
+    assertThat(ChangeLog.query(TABLE_NAME, changes.getWatermark(), 10, later)).isNotNull();
+    assertThatThrownBy(() -> ChangeLog.query(TABLE_NAME, since, 10, later))
+          .isInstanceOf(BadRequestApiException.class);
+  }
+
+  @Test
+  public void headWatermarkStartsAtTheNextSequence() {
+    Map<String, AttributeValue> head = new HashMap<>(ChangeLog.headKey());
+    head.put(ChangeLog.SEQUENCE_ATTRIBUTE_NAME, AttributeValue.builder().n("7").build());
+
+    assertThat(ChangeLog.fromHead(head, CLOCK).getWatermark())
+          .isEqualTo("7." + NOW.toEpochMilli());
+    assertThat(ChangeLog.fromHead(Collections.emptyMap(), CLOCK).getWatermark())
+          .isEqualTo("0." + NOW.toEpochMilli());
+  }
+
+  private static Map<String, AttributeValue> entry(final long sequence, final String changeType,
+                                                   final Instant changedAt) {
+    Map<String, AttributeValue> item = new HashMap<>();
+    item.put(TherapistRecord.USER_ID_ATTRIBUTE_NAME,
+          AttributeValue.builder().s(ChangeLog.USER_ID).build());
+    item.put(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME,
+          AttributeValue.builder().s(ChangeLog.sortKey(sequence)).build());
+    item.put(ChangeLog.CHANGE_TYPE_ATTRIBUTE_NAME, AttributeValue.builder().s(changeType).build());
+    item.put(ChangeLog.CHANGED_THERAPIST_ID_ATTRIBUTE_NAME,
+          AttributeValue.builder().s("id" + sequence).build());
+    item.put(ChangeLog.CHANGED_AT_ATTRIBUTE_NAME,
+          AttributeValue.builder().s(changedAt.toString()).build());
+    if (ChangeLog.UPSERT.equals(changeType)) {
+      item.put(ChangeLog.IMAGE_ATTRIBUTE_NAME, AttributeValue.builder()
+            .m(TherapistRecord.builder()
+                  .therapistId("id" + sequence)
+                  .therapistName("name")
+                  .createdAt(changedAt)
+                  .version(1L)
+                  .build()
+                  .toAttributeMap())
+            .build());
+    }
+    return item;
+  }
+
+  private static String errorCode(final Throwable e) {
+    return ((BadRequestException) ((BadRequestApiException) e).getResponse().getEntity())
+          .getErrorCode();
+  }
+}
@@ -0,0 +1,388 @@
+package software.amazon.serverless.apprepo.api.impl.facet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.InternalServerErrorException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+public class FacetAggregatorTest {
+  private static final String TABLE_NAME = "Therapist";
+  private static final Instant NOW = Instant.parse("2020-01-01T00:00:00Z");
+  // Changes are made after the table was counted unless a test says otherwise.
+  private static final Instant CHANGED_AT = NOW.plusSeconds(1);
+
+  private final StubDynamoDbClient dynamodb = new StubDynamoDbClient();
+  private final FacetAggregator aggregator = new FacetAggregator(dynamodb, TABLE_NAME,
+        Clock.fixed(NOW, ZoneOffset.UTC));
+
+  @Test
+  public void insertsDeletesAndMovesComeDownToDeltas() {
+    dynamodb.counted(therapist("1", "Delhi", "CBT"), therapist("2", "Mumbai", "DBT"),
+          therapist("3", "Delhi", "CBT"));
+
+    aggregator.apply("batch", Arrays.asList(
+          insert(therapist("4", "Delhi", "CBT")),
+          insert(therapist("5", "Pune", null)),
+          delete(therapist("2", "Mumbai", "DBT")),
+          update(therapist("3", "Delhi", "CBT"), therapist("3", "Mumbai", "CBT"))));
+
+    // Delhi gains 4 and loses 3, so only Pune and the types of Mumbai change.
+    assertThat(dynamodb.transactions).hasSize(1);
+    assertThat(dynamodb.counters(0)).containsOnly(
+          entry(TherapistFacetItem.AREA_COUNTS_ATTRIBUTE_NAME + "/Pune", 1L),
+          entry(typeCounter("Mumbai", "CBT"), 1L),
+          entry(typeCounter("Mumbai", "DBT"), -1L));
+    assertThat(dynamodb.areaCounts).containsOnly(entry("Delhi", 2L), entry("Mumbai", 1L),
+          entry("Pune", 1L));
+    assertThat(dynamodb.areaTypeCounts).containsOnly(
+          entry(TherapistFacetItem.areaTypeKey("Delhi", "CBT"), 2L),
+          entry(TherapistFacetItem.areaTypeKey("Mumbai", "CBT"), 1L),
+          entry(TherapistFacetItem.areaTypeKey("Mumbai", "DBT"), 0L));
+  }
+
+  @Test
+  public void changesThatNetToNothingWriteNothing() {
+    dynamodb.counted(therapist("1", "Delhi", "CBT"));
+    TherapistRecord renamed = TherapistRecord.builder()
+          .userId("Raj#3")
+          .therapistId("1")
+          .therapistName("John Smith")
+          .therapistArea("Delhi")
+          .therapistType("CBT")
+          .build();
+
+    aggregator.apply("batch", Arrays.asList(
+          update(therapist("1", "Delhi", "CBT"), renamed),
+          insert(therapist("2", "Pune", "CBT")),
+          delete(therapist("2", "Pune", "CBT"))));
+
+    assertThat(dynamodb.transactions).isEmpty();
+  }
+
+  @Test
+  public void reservedItemsAndTherapistsWithoutAnAreaAreNotCounted() {
+    dynamodb.counted(therapist("1", "Delhi", "CBT"));
+    TherapistRecord marker = TherapistRecord.builder()
+          .userId(FacetAggregator.BATCH_USER_ID)
+          .therapistId("other/0")
+          .therapistArea("Delhi")
+          .build();
+
+    aggregator.apply("batch", Arrays.asList(insert(marker),
+          insert(therapist("2", null, "CBT"))));
+
+    assertThat(dynamodb.transactions).isEmpty();
+  }
+
+  @Test
+  public void eachPartIsWrittenWithAMarkerThatExpires() {
+    dynamodb.counted(therapist("1", "Delhi", "CBT"));
+    List<FacetAggregator.Change> changes = new ArrayList<>();
+    // An area and an area and type counter for each.
+    for (int i = 0; i < FacetAggregator.MAX_COUNTERS_PER_UPDATE; i++) {
+      changes.add(insert(therapist("t" + i, "Area " + i, "CBT")));
+    }
+
+    aggregator.apply("batch", changes);
+
+    assertThat(dynamodb.transactions).hasSize(2);
+    assertThat(dynamodb.markers).containsOnly(entry("batch/0", expiresAt()),
+          entry("batch/1", expiresAt()));
+    assertThat(dynamodb.areaCounts).hasSize(FacetAggregator.MAX_COUNTERS_PER_UPDATE + 1)
+          .containsEntry("Area 0", 1L);
+  }
+
+  @Test
+  public void aRetriedBatchIsAppliedOnce() {
+    dynamodb.counted(therapist("1", "Delhi", "CBT"));
+    List<FacetAggregator.Change> changes = Collections.singletonList(
+          insert(therapist("2", "Delhi", "CBT")));
+
+    aggregator.apply("batch", changes);
+    aggregator.apply("batch", changes);
+
+    assertThat(dynamodb.transactions).hasSize(2);
+    assertThat(dynamodb.areaCounts).containsOnly(entry("Delhi", 2L));
+  }
+
+  @Test
+  public void aRetryOnlyAppliesThePartsThatFailed() {
+    dynamodb.counted(therapist("1", "Delhi", "CBT"));
+    List<FacetAggregator.Change> changes = new ArrayList<>();
+    for (int i = 0; i < 2 * FacetAggregator.MAX_COUNTERS_PER_UPDATE; i++) {
+      changes.add(insert(therapist("t" + i, "Area " + i, "CBT")));
+    }
+    dynamodb.failingTransaction = 2;
+
+    assertThatThrownBy(() -> aggregator.apply("batch", changes))
+          .isInstanceOf(InternalServerErrorException.class);
+    assertThat(dynamodb.markers).containsOnlyKeys("batch/0", "batch/1");
+    aggregator.apply("batch", changes);
+
+    assertThat(dynamodb.markers).containsOnlyKeys("batch/0", "batch/1", "batch/2", "batch/3");
+    assertThat(dynamodb.areaCounts.values()).containsOnly(1L);
+    assertThat(dynamodb.areaTypeCounts.values()).containsOnly(1L);
+  }
+
+  @Test
+  public void aCanceledTransactionWithoutItsMarkerIsThrown() {
+    dynamodb.counted(therapist("1", "Delhi", "CBT"));
+    dynamodb.cancelWithoutMarker = true;
+
+    assertThatThrownBy(() -> aggregator.apply("batch", Collections.singletonList(
+          insert(therapist("2", "Delhi", "CBT")))))
+          .isInstanceOf(TransactionCanceledException.class);
+    assertThat(dynamodb.areaCounts).containsOnly(entry("Delhi", 1L));
+  }
+
+  @Test
+  public void theFirstBatchCountsTheTableAndIsNotAppliedAgain() {
+    dynamodb.table.add(therapist("1", "Delhi", "CBT"));
+    dynamodb.table.add(therapist("2", "Delhi", null));
+    List<FacetAggregator.Change> changes = Collections.singletonList(
+          insert(therapist("2", "Delhi", null), NOW));
+
+    aggregator.apply("first", changes);
+    aggregator.apply("first", changes);
+    aggregator.apply("second", Collections.singletonList(insert(therapist("3", "Pune", "CBT"))));
+
+    assertThat(dynamodb.scans).isEqualTo(1);
+    assertThat(dynamodb.scannedAt).isEqualTo(NOW.getEpochSecond());
+    assertThat(dynamodb.areaCounts).containsOnly(entry("Delhi", 2L), entry("Pune", 1L));
+    assertThat(dynamodb.areaTypeCounts).containsOnly(
+          entry(TherapistFacetItem.areaTypeKey("Delhi", "CBT"), 1L),
+          entry(TherapistFacetItem.areaTypeKey("Pune", "CBT"), 1L));
+  }
+
+  @Test
+  public void theBacklogTheScanCountedIsNotAppliedAgain() {
+    // The stream is read from its trim horizon, hours behind the table.
+    Instant backlog = NOW.minusSeconds(6 * 60 * 60);
+    dynamodb.table.add(therapist("2", "Mumbai", "DBT"));
+    dynamodb.table.add(therapist("3", "Pune", "CBT"));
+
+    aggregator.apply("first", Arrays.asList(
+          insert(therapist("1", "Delhi", "CBT"), backlog),
+          insert(therapist("2", "Delhi", "CBT"), backlog)));
+    aggregator.apply("second", Arrays.asList(
+          delete(therapist("1", "Delhi", "CBT"), backlog.plusSeconds(60)),
+          update(therapist("2", "Delhi", "CBT"), therapist("2", "Mumbai", "DBT"),
+                backlog.plusSeconds(120)),
+          insert(therapist("3", "Pune", "CBT"), NOW),
+          insert(therapist("4", "Pune", "CBT"), CHANGED_AT)));
+
+    assertThat(dynamodb.scans).isEqualTo(1);
+    assertThat(dynamodb.transactions).hasSize(1);
+    assertThat(dynamodb.areaCounts).containsOnly(entry("Mumbai", 1L), entry("Pune", 2L));
+    assertThat(dynamodb.areaTypeCounts).containsOnly(
+          entry(TherapistFacetItem.areaTypeKey("Mumbai", "DBT"), 1L),
+          entry(TherapistFacetItem.areaTypeKey("Pune", "CBT"), 2L));
+  }
+
+  private static long expiresAt() {
+    return NOW.plusSeconds(2 * 24 * 60 * 60).getEpochSecond();
+  }
+
+  private static String typeCounter(final String area, final String type) {
+    return TherapistFacetItem.AREA_TYPE_COUNTS_ATTRIBUTE_NAME + "/"
+          + TherapistFacetItem.areaTypeKey(area, type);
+  }
+
+  private static FacetAggregator.Change insert(final TherapistRecord therapist) {
+    return insert(therapist, CHANGED_AT);
+  }
+
+  private static FacetAggregator.Change insert(final TherapistRecord therapist,
+                                               final Instant changedAt) {
+    return new FacetAggregator.Change(changedAt, null, therapist);
+  }
+
+  private static FacetAggregator.Change update(final TherapistRecord oldTherapist,
+                                               final TherapistRecord newTherapist) {
+    return update(oldTherapist, newTherapist, CHANGED_AT);
+  }
+
+  private static FacetAggregator.Change update(final TherapistRecord oldTherapist,
+                                               final TherapistRecord newTherapist,
+                                               final Instant changedAt) {
+    return new FacetAggregator.Change(changedAt, oldTherapist, newTherapist);
+  }
+
+  private static FacetAggregator.Change delete(final TherapistRecord therapist) {
+    return delete(therapist, CHANGED_AT);
+  }
+
+  private static FacetAggregator.Change delete(final TherapistRecord therapist,
+                                               final Instant changedAt) {
+    return new FacetAggregator.Change(changedAt, therapist, null);
+  }
+
+  private static TherapistRecord therapist(final String therapistId, final String area,
+                                           final String type) {
+    return TherapistRecord.builder()
+          .userId("Raj#3")
+          .therapistId(therapistId)
+          .therapistArea(area)
+          .therapistType(type)
+          .build();
+  }
+
+  /**
+   * The facet item, markers and therapists of the table, with transactions that evaluate the
+   * counter updates FacetAggregator writes.
+   */
+  private static final class StubDynamoDbClient implements DynamoDbClient {
+    private static final Pattern SET = Pattern.compile(
+          "(\\w+)\\.(#c\\d+) = if_not_exists\\(\\1\\.#c\\d+, :zero\\) \\+ (:d\\d+)");
+
+    private final List<TherapistRecord> table = new ArrayList<>();
+    private final Map<String, Long> areaCounts = new TreeMap<>();
+    private final Map<String, Long> areaTypeCounts = new TreeMap<>();
+    private final Map<String, Long> markers = new TreeMap<>();
+    private final List<TransactWriteItemsRequest> transactions = new ArrayList<>();
+    private long scannedAt;
+    private boolean facetItemExists;
+    private int scans;
+    private int failingTransaction = -1;
+    private boolean cancelWithoutMarker;
+
+    // The facet item as if the therapists were counted by an earlier batch.
+    private void counted(final TherapistRecord... therapists) {
+      facetItemExists = true;
+      scannedAt = NOW.getEpochSecond();
+      for (TherapistRecord therapist : therapists) {
+        areaCounts.merge(therapist.getTherapistArea(), 1L, Long::sum);
+        areaTypeCounts.merge(TherapistFacetItem.areaTypeKey(therapist.getTherapistArea(),
+              therapist.getTherapistType()), 1L, Long::sum);
+      }
+    }
+
+    // The deltas of a transaction, by attribute name and counter key.
+    private Map<String, Long> counters(final int transaction) {
+      Update update = transactions.get(transaction).transactItems().get(0).update();
+      Map<String, Long> counters = new HashMap<>();
+      Matcher matcher = SET.matcher(update.updateExpression());
+      while (matcher.find()) {
+        counters.put(matcher.group(1) + "/"
+                    + update.expressionAttributeNames().get(matcher.group(2)),
+              Long.valueOf(update.expressionAttributeValues().get(matcher.group(3)).n()));
+      }
+      return counters;
+    }
+
+    @Override
+    public GetItemResponse getItem(final GetItemRequest request) {
+      Map<String, AttributeValue> key = request.key();
+      if (key.equals(TherapistFacetItem.key())) {
+        return GetItemResponse.builder().item(facetItem()).build();
+      }
+      String markerId = key.get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME).s();
+      return GetItemResponse.builder()
+            .item(markers.containsKey(markerId) ? key : Collections.emptyMap())
+            .build();
+    }
+
+    @Override
+    public ScanResponse scan(final ScanRequest request) {
+      scans++;
+      return ScanResponse.builder()
+            .items(table.stream()
+                  .map(TherapistRecord::toAttributeMap)
+                  .collect(Collectors.toList()))
+            .build();
+    }
+
+    @Override
+    public PutItemResponse putItem(final PutItemRequest request) {
+      Map<String, AttributeValue> item = request.item();
+      facetItemExists = true;
+      scannedAt = Long.parseLong(item.get(TherapistFacetItem.SCANNED_AT_ATTRIBUTE_NAME).n());
+      putCounts(item.get(TherapistFacetItem.AREA_COUNTS_ATTRIBUTE_NAME), areaCounts);
+      putCounts(item.get(TherapistFacetItem.AREA_TYPE_COUNTS_ATTRIBUTE_NAME), areaTypeCounts);
+      return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(
+          final TransactWriteItemsRequest request) {
+      transactions.add(request);
+      if (transactions.size() - 1 == failingTransaction) {
+        throw InternalServerErrorException.builder().statusCode(500).build();
+      }
+      TransactWriteItem marker = request.transactItems().get(1);
+      String markerId = marker.put().item().get(TherapistRecord.THERAPIST_ID_ATTRIBUTE_NAME).s();
+      if (cancelWithoutMarker || markers.containsKey(markerId)) {
+        throw TransactionCanceledException.builder().message("Condition failed").build();
+      }
+      Update update = request.transactItems().get(0).update();
+      Matcher matcher = SET.matcher(update.updateExpression());
+      while (matcher.find()) {
+        Map<String, Long> counts =
+              TherapistFacetItem.AREA_COUNTS_ATTRIBUTE_NAME.equals(matcher.group(1))
+                    ? areaCounts : areaTypeCounts;
+        counts.merge(update.expressionAttributeNames().get(matcher.group(2)),
+              Long.valueOf(update.expressionAttributeValues().get(matcher.group(3)).n()),
+              Long::sum);
+      }
+      markers.put(markerId, Long.valueOf(marker.put().item()
+            .get(FacetAggregator.EXPIRES_AT_ATTRIBUTE_NAME).n()));
+      return TransactWriteItemsResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+      return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private Map<String, AttributeValue> facetItem() {
+      if (!facetItemExists) {
+        return Collections.emptyMap();
+      }
+      Map<String, AttributeValue> item = TherapistFacetItem.key();
+      item.put(TherapistFacetItem.SCANNED_AT_ATTRIBUTE_NAME,
+            AttributeValue.builder().n(Long.toString(scannedAt)).build());
+      return item;
+    }
+
+    private static void putCounts(final AttributeValue map, final Map<String, Long> counts) {
+      counts.clear();
+      map.m().forEach((key, count) -> counts.put(key, Long.valueOf(count.n())));
+    }
+  }
+}
@@ -0,0 +1,323 @@
+package software.amazon.serverless.apprepo.api.impl.pagination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Test;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DecryptResponse;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+import software.amazon.awssdk.services.kms.model.EncryptResponse;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyRequest;
+import software.amazon.awssdk.services.kms.model.GenerateDataKeyResponse;
+import software.amazon.awssdk.services.kms.model.InvalidCiphertextException;
+import software.amazon.awssdk.services.kms.model.KmsException;
+import software.amazon.awssdk.services.kms.model.KmsInternalException;
+
+public class EncryptedTokenSerializerTest {
+  private static final String KEY_ID = "1234abcd-12ab-34cd-56ef-1234567890ab";
+  private static final String OTHER_KEY_ID = "0987dcba-09fe-87dc-65ba-ab0987654321";
+  private static final String START_KEY = "{\"therapistId\":\"t1\",\"userId\":\"Raj#3\"}";
+
+  private final StubKmsClient kms = new StubKmsClient();
+  private final EncryptedTokenSerializer serializer = envelopeSerializer(KEY_ID);
+
+  @Test
+  public void anEnvelopeTokenIsReadInEveryContainer() throws Exception {
+    String token = serializer.serialize(START_KEY);
+
+    assertThat(serializer.deserialize(token)).isEqualTo(START_KEY);
+    assertThat(envelopeSerializer(KEY_ID).deserialize(token)).isEqualTo(START_KEY);
+    assertThat(kms.generateDataKeyRequests).extracting(GenerateDataKeyRequest::encryptionContext)
+          .containsExactly(DataKeyCache.ENCRYPTION_CONTEXT);
+    assertThat(kms.decryptRequests).extracting(DecryptRequest::encryptionContext)
+          .containsExactly(DataKeyCache.ENCRYPTION_CONTEXT);
+  }
+
+  @Test
+  public void aTokenEncryptedByKmsIsStillRead() throws Exception {
+    String token = new EncryptedTokenSerializer(kms, KEY_ID).serialize(START_KEY);
+
+    assertThat(serializer.deserialize(token)).isEqualTo(START_KEY);
+  }
+
+  @Test
+  public void aTokenWithAnyByteChangedIsInvalid() {
+    byte[] token = decode(serializer.serialize(START_KEY));
+    EncryptedTokenSerializer otherContainer = envelopeSerializer(KEY_ID);
+
+    // Covers the version, the wrapped key and its length, the IV, the cipher text and the tag.
+    for (int i = 0; i < token.length; i++) {
+      byte[] tampered = token.clone();
+      tampered[i] ^= 0x01;
+      assertInvalid(otherContainer, tampered);
+    }
+  }
+
+  @Test
+  public void aTruncatedTokenIsInvalid() {
+    byte[] token = decode(serializer.serialize(START_KEY));
+    EncryptedTokenSerializer otherContainer = envelopeSerializer(KEY_ID);
+
+    for (int length = 0; length < token.length; length++) {
+      assertInvalid(otherContainer, Arrays.copyOf(token, length));
+    }
+  }
+
+  @Test
+  public void aTokenEncryptedByKmsIsNotADataKey() throws Exception {
+    byte[] dataKey = new byte[32];
+    byte[] kmsToken = decode(new EncryptedTokenSerializer(kms, KEY_ID).serialize(
+          new String(dataKey, StandardCharsets.UTF_8)));
+
+    assertInvalid(envelopeSerializer(KEY_ID), envelope(kmsToken, dataKey));
+  }
+
+  @Test
+  public void theWrappedKeyOfAnotherTokenIsInvalid() {
+    byte[] token = decode(serializer.serialize(START_KEY));
+    byte[] otherToken = decode(envelopeSerializer(KEY_ID).serialize(START_KEY));
+
+    assertInvalid(envelopeSerializer(KEY_ID), withWrappedKey(token, wrappedKey(otherToken)));
+  }
+
+  @Test
+  public void aDataKeyOfAnotherKmsKeyIsInvalid() throws Exception {
+    GenerateDataKeyResponse dataKey = kms.generateDataKey(GenerateDataKeyRequest.builder()
+          .keyId(OTHER_KEY_ID)
+          .encryptionContext(DataKeyCache.ENCRYPTION_CONTEXT)
+          .build());
+
+    assertInvalid(envelopeSerializer(KEY_ID), envelope(
+          dataKey.ciphertextBlob().asByteArray(), dataKey.plaintext().asByteArray()));
+  }
+
+  @Test
+  public void aDataKeyThatIsNotAnAes256KeyIsInvalid() throws Exception {
+    byte[] dataKey = new byte[16];
+    byte[] wrappedKey = kms.encrypt(EncryptRequest.builder()
+          .keyId(KEY_ID)
+          .plaintext(SdkBytes.fromByteArray(dataKey))
+          .encryptionContext(DataKeyCache.ENCRYPTION_CONTEXT)
+          .build())
+          .ciphertextBlob()
+          .asByteArray();
+
+    assertInvalid(envelopeSerializer(KEY_ID), envelope(wrappedKey, dataKey));
+  }
+
+  @Test
+  public void kmsFailingIsNotAnInvalidToken() {
+    String token = serializer.serialize(START_KEY);
+    String kmsToken = new EncryptedTokenSerializer(kms, KEY_ID).serialize(START_KEY);
+    KmsException throttled = (KmsException) KmsException.builder()
+          .statusCode(400)
+          .awsErrorDetails(AwsErrorDetails.builder().errorCode("ThrottlingException").build())
+          .build();
+
+    kms.decryptFailure = KmsInternalException.builder().statusCode(500).build();
+    assertThatThrownBy(() -> envelopeSerializer(KEY_ID).deserialize(token))
+          .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> serializer.deserialize(kmsToken))
+          .isInstanceOf(KmsInternalException.class);
+    kms.decryptFailure = throttled;
+    assertThatThrownBy(() -> envelopeSerializer(KEY_ID).deserialize(token))
+          .isInstanceOf(IllegalStateException.class)
+          .hasCause(throttled);
+  }
+
+  private EncryptedTokenSerializer envelopeSerializer(final String keyId) {
+    return new EncryptedTokenSerializer(kms, keyId,
+          new DataKeyCache(kms, keyId, Duration.ofMinutes(15), Duration.ofHours(1)));
+  }
+
+  private static void assertInvalid(final EncryptedTokenSerializer serializer,
+                                    final byte[] token) {
+    assertThatThrownBy(() -> serializer.deserialize(
+          EncryptedTokenSerializer.base64Encode(token)))
+          .as("token %s", Arrays.toString(token))
+          .isInstanceOf(InvalidTokenException.class);
+  }
+
+  private static byte[] decode(final String token) {
+    try {
+      return EncryptedTokenSerializer.base64Decode(token);
+    } catch (InvalidTokenException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // A token laid out as EncryptedTokenSerializer does, with a data key the test knows.
+  private static byte[] envelope(final byte[] wrappedKey, final byte[] dataKey)
+        throws GeneralSecurityException {
+    byte[] iv = new byte[12];
+    ByteBuffer header = ByteBuffer.allocate(1 + Short.BYTES + wrappedKey.length)
+          .put(EncryptedTokenSerializer.ENVELOPE_TOKEN_VERSION)
+          .putShort((short) wrappedKey.length)
+          .put(wrappedKey);
+    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(dataKey, "AES"),
+          new GCMParameterSpec(128, iv));
+    cipher.updateAAD(header.array());
+    byte[] cipherText = cipher.doFinal(START_KEY.getBytes(StandardCharsets.UTF_8));
+    return ByteBuffer.allocate(header.capacity() + iv.length + cipherText.length)
+          .put(header.array())
+          .put(iv)
+          .put(cipherText)
+          .array();
+  }
+
+  private static byte[] wrappedKey(final byte[] token) {
+    ByteBuffer buffer = ByteBuffer.wrap(token, 1, token.length - 1);
+    byte[] wrappedKey = new byte[Short.toUnsignedInt(buffer.getShort())];
+    buffer.get(wrappedKey);
+    return wrappedKey;
+  }
+
+  // The token with its wrapped key replaced, and the IV and cipher text kept.
+  private static byte[] withWrappedKey(final byte[] token, final byte[] wrappedKey) {
+    int rest = 1 + Short.BYTES + wrappedKey(token).length;
+    return ByteBuffer.allocate(1 + Short.BYTES + wrappedKey.length + token.length - rest)
+          .put(EncryptedTokenSerializer.ENVELOPE_TOKEN_VERSION)
+          .putShort((short) wrappedKey.length)
+          .put(wrappedKey)
+          .put(token, rest, token.length - rest)
+          .array();
+  }
+
+  /**
+   * KMS with a key per key id, whose cipher text blobs are bound to their key and encryption
+   * context like those of KMS.
+   */
+  private static final class StubKmsClient implements KmsClient {
+    private static final byte BLOB_VERSION = 0x01;
+    private static final int IV_LENGTH_IN_BYTES = 12;
+
+    private final SecureRandom random = new SecureRandom();
+    private final List<String> keyIds = new ArrayList<>();
+    private final List<SecretKey> keys = new ArrayList<>();
+    private final List<GenerateDataKeyRequest> generateDataKeyRequests = new ArrayList<>();
+    private final List<DecryptRequest> decryptRequests = new ArrayList<>();
+    private RuntimeException decryptFailure;
+
+    @Override
+    public EncryptResponse encrypt(final EncryptRequest request) {
+      return EncryptResponse.builder()
+            .keyId(arn(request.keyId()))
+            .ciphertextBlob(SdkBytes.fromByteArray(wrap(request.keyId(),
+                  request.plaintext().asByteArray(), request.encryptionContext())))
+            .build();
+    }
+
+    @Override
+    public GenerateDataKeyResponse generateDataKey(final GenerateDataKeyRequest request) {
+      generateDataKeyRequests.add(request);
+      byte[] dataKey = new byte[32];
+      random.nextBytes(dataKey);
+      return GenerateDataKeyResponse.builder()
+            .keyId(arn(request.keyId()))
+            .plaintext(SdkBytes.fromByteArray(dataKey))
+            .ciphertextBlob(SdkBytes.fromByteArray(wrap(request.keyId(), dataKey,
+                  request.encryptionContext())))
+            .build();
+    }
+
+    @Override
+    public DecryptResponse decrypt(final DecryptRequest request) {
+      decryptRequests.add(request);
+      if (decryptFailure != null) {
+        throw decryptFailure;
+      }
+      byte[] blob = request.ciphertextBlob().asByteArray();
+      if (blob.length < 2 + IV_LENGTH_IN_BYTES || blob[0] != BLOB_VERSION
+            || blob[1] < 0 || blob[1] >= keys.size()) {
+        throw invalidCiphertext();
+      }
+      try {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, keys.get(blob[1]),
+              new GCMParameterSpec(128, blob, 2, IV_LENGTH_IN_BYTES));
+        cipher.updateAAD(aad(request.encryptionContext()));
+        return DecryptResponse.builder()
+              .keyId(arn(keyIds.get(blob[1])))
+              .plaintext(SdkBytes.fromByteArray(cipher.doFinal(blob, 2 + IV_LENGTH_IN_BYTES,
+                    blob.length - 2 - IV_LENGTH_IN_BYTES)))
+              .build();
+      } catch (GeneralSecurityException e) {
+        throw invalidCiphertext();
+      }
+    }
+
+    @Override
+    public String serviceName() {
+      return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    // Blobs are the version, the index of their key, the IV and the AES-GCM cipher text.
+    private byte[] wrap(final String keyId, final byte[] plaintext,
+                        final Map<String, String> encryptionContext) {
+      if (!keyIds.contains(keyId)) {
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        keyIds.add(keyId);
+        keys.add(new SecretKeySpec(key, "AES"));
+      }
+      int keyIndex = keyIds.indexOf(keyId);
+      byte[] iv = new byte[IV_LENGTH_IN_BYTES];
+      random.nextBytes(iv);
+      try {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, keys.get(keyIndex), new GCMParameterSpec(128, iv));
+        cipher.updateAAD(aad(encryptionContext));
+        byte[] cipherText = cipher.doFinal(plaintext);
+        return ByteBuffer.allocate(2 + iv.length + cipherText.length)
+              .put(BLOB_VERSION)
+              .put((byte) keyIndex)
+              .put(iv)
+              .put(cipherText)
+              .array();
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static String arn(final String keyId) {
+      return "arn:aws:kms:us-east-1:111122223333:key/" + keyId;
+    }
+
+    private static byte[] aad(final Map<String, String> encryptionContext) {
+      return new TreeMap<>(encryptionContext).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static InvalidCiphertextException invalidCiphertext() {
+      return (InvalidCiphertextException) InvalidCiphertextException.builder()
+            .statusCode(400)
+            .message("Invalid cipher text.")
+            .build();
+    }
+  }
+}
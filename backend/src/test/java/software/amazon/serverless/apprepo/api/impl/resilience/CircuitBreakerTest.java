@@ -0,0 +1,106 @@
+package software.amazon.serverless.apprepo.api.impl.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+  private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+  private final MutableClock clock = new MutableClock();
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker("test", 0.5, OPEN_DURATION,
+        clock);
+
+  @Test
+  public void staysClosedBelowTheMinimumCalls() {
+    fail(9);
+
+    assertThat(circuitBreaker.isOpen()).isFalse();
+    assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+  }
+
+  @Test
+  public void staysClosedBelowTheFailureRate() {
+    succeed(6);
+    fail(4);
+
+    assertThat(circuitBreaker.isOpen()).isFalse();
+  }
+
+  @Test
+  public void opensAtTheFailureRate() {
+    succeed(5);
+    fail(5);
+
+    assertThat(circuitBreaker.isOpen()).isTrue();
+    assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+  }
+
+  @Test
+  public void failuresOfAnEarlierWindowAreForgotten() {
+    fail(9);
+    clock.advance(Duration.ofSeconds(10));
+    fail(1);
+
+    assertThat(circuitBreaker.isOpen()).isFalse();
+  }
+
+  @Test
+  public void goesFromOpenToHalfOpenToClosed() {
+    fail(10);
+    clock.advance(OPEN_DURATION.minusMillis(1));
+    assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+
+    clock.advance(Duration.ofMillis(1));
+    // Half open: a single probe is let through.
+    assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+    assertThat(circuitBreaker.isOpen()).isFalse();
+    assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+
+    circuitBreaker.onSuccess();
+    assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+    assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+  }
+
+  @Test
+  public void aFailedProbeOpensTheBreakerAgain() {
+    fail(10);
+    clock.advance(OPEN_DURATION);
+    assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+
+    circuitBreaker.onFailure();
+
+    assertThat(circuitBreaker.isOpen()).isTrue();
+    assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    clock.advance(OPEN_DURATION);
+    assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+  }
+
+  @Test
+  public void closingStartsAFreshWindow() {
+    fail(10);
+    clock.advance(OPEN_DURATION);
+    circuitBreaker.tryAcquirePermission();
+    circuitBreaker.onSuccess();
+
+    fail(9);
+
+    assertThat(circuitBreaker.isOpen()).isFalse();
+  }
+
+  private void succeed(final int calls) {
+    for (int i = 0; i < calls; i++) {
+      assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+      circuitBreaker.onSuccess();
+    }
+  }
+
+  private void fail(final int calls) {
+    for (int i = 0; i < calls; i++) {
+      assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+      circuitBreaker.onFailure();
+    }
+  }
+}
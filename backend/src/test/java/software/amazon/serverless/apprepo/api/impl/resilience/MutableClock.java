@@ -0,0 +1,33 @@
+package software.amazon.serverless.apprepo.api.impl.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Clock the tests move forward by hand.
+ */
+final class MutableClock extends Clock {
+  private volatile Instant now = Instant.parse("2020-01-01T00:00:00Z");
+
+  void advance(final Duration duration) {
+    now = now.plus(duration);
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return ZoneOffset.UTC;
+  }
+
+  @Override
+  public Clock withZone(final ZoneId zone) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Instant instant() {
+    return now;
+  }
+}
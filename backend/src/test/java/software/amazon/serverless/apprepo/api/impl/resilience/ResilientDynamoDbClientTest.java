@@ -0,0 +1,342 @@
+package software.amazon.serverless.apprepo.api.impl.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.junit.After;
+import org.junit.Test;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.InternalServerErrorException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+
+import software.amazon.serverless.apprepo.api.exception.TooManyRequestsApiException;
+
+public class ResilientDynamoDbClientTest {
+  private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+  // Enough GetItem calls for the latency percentile the hedge waits for.
+  private static final int WARM_UP_CALLS = 20;
+  private static final GetItemRequest GET_ITEM = GetItemRequest.builder()
+        .tableName("Therapist")
+        .build();
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final MutableClock clock = new MutableClock();
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker("test", 0.5, OPEN_DURATION,
+        clock);
+
+  @After
+  public void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void throttlingServerErrorsAndTimeoutsAreRetried() {
+    StubDynamoDbClient stub = new StubDynamoDbClient(outcomes(throttling(), serverError(),
+          timeout(), response("ok")));
+    RetryBudget retryBudget = new RetryBudget(100);
+
+    GetItemResponse response = client(stub, 4, retryBudget, false).getItem(GET_ITEM);
+
+    assertThat(id(response)).isEqualTo("ok");
+    assertThat(stub.calls.get()).isEqualTo(4);
+    assertThat(retryBudget.getTokens()).isEqualTo(100 - RetryBudget.RETRY_COST
+          - RetryBudget.RETRY_COST - RetryBudget.TIMEOUT_RETRY_COST + RetryBudget.SUCCESS_REFUND);
+  }
+
+  @Test
+  public void theLastFailureIsThrownAfterTheMaximumAttempts() {
+    SdkException last = serverError();
+    StubDynamoDbClient stub = new StubDynamoDbClient(outcomes(throttling(), serverError(), last));
+
+    assertThatThrownBy(() -> client(stub, 3, new RetryBudget(100), false).getItem(GET_ITEM))
+          .isSameAs(last);
+    assertThat(stub.calls.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void retriesStopWhenTheBudgetIsSpent() {
+    StubDynamoDbClient stub = new StubDynamoDbClient(outcomes(throttling()));
+    RetryBudget retryBudget = new RetryBudget(RetryBudget.RETRY_COST);
+
+    assertThatThrownBy(() -> client(stub, 10, retryBudget, false).getItem(GET_ITEM))
+          .isInstanceOf(ProvisionedThroughputExceededException.class);
+    assertThat(stub.calls.get()).isEqualTo(2);
+    assertThat(retryBudget.getTokens()).isZero();
+  }
+
+  @Test
+  public void retriesAfterTimeoutsTakeMoreOfTheBudget() {
+    StubDynamoDbClient stub = new StubDynamoDbClient(outcomes(timeout()));
+
+    assertThatThrownBy(() -> client(stub, 10,
+          new RetryBudget(RetryBudget.TIMEOUT_RETRY_COST - 1), false).getItem(GET_ITEM))
+          .isInstanceOf(ApiCallAttemptTimeoutException.class);
+    assertThat(stub.calls.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void failedConditionsAreThrownAtOnce() {
+    ConditionalCheckFailedException conditionFailed = ConditionalCheckFailedException.builder()
+          .statusCode(400)
+          .message("The conditional request failed")
+          .build();
+    StubDynamoDbClient stub = new StubDynamoDbClient(outcomes(conditionFailed));
+    ResilientDynamoDbClient client = client(stub, 3, new RetryBudget(100), false);
+
+    for (int i = 0; i < 20; i++) {
+      assertThatThrownBy(() -> client.putItem(PutItemRequest.builder().build()))
+            .isSameAs(conditionFailed);
+    }
+    assertThat(stub.calls.get()).isEqualTo(20);
+    // The caller's errors do not count against DynamoDB.
+    assertThat(circuitBreaker.isOpen()).isFalse();
+  }
+
+  @Test
+  public void scansAreRetried() {
+    StubDynamoDbClient stub = new StubDynamoDbClient(outcomes(serverError(), response("ok")));
+
+    client(stub, 3, new RetryBudget(100), false).scan(ScanRequest.builder().build());
+
+    assertThat(stub.calls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void aRetriedTransactionKeepsItsClientRequestToken() {
+    StubDynamoDbClient stub = new StubDynamoDbClient(outcomes(timeout(), serverError(),
+          response("ok")));
+    ResilientDynamoDbClient client = client(stub, 3, new RetryBudget(100), false);
+
+    client.transactWriteItems(TransactWriteItemsRequest.builder().build());
+
+    assertThat(stub.clientRequestTokens).hasSize(3).doesNotContainNull();
+    assertThat(new HashSet<>(stub.clientRequestTokens)).hasSize(1);
+  }
+
+  @Test
+  public void theClientRequestTokenOfTheCallerIsKept() {
+    StubDynamoDbClient stub = new StubDynamoDbClient(outcomes(response("ok")));
+
+    client(stub, 3, new RetryBudget(100), false).transactWriteItems(
+          TransactWriteItemsRequest.builder().clientRequestToken("token").build());
+
+    assertThat(stub.clientRequestTokens).containsExactly("token");
+  }
+
+  @Test
+  public void anOpenBreakerFailsFastUntilAProbeSucceeds() {
+    AtomicInteger failing = new AtomicInteger(10);
+    StubDynamoDbClient stub = new StubDynamoDbClient(call -> {
+      if (failing.getAndDecrement() > 0) {
+        throw serverError();
+      }
+      return response("ok");
+    });
+    ResilientDynamoDbClient client = client(stub, 1, new RetryBudget(100), false);
+    for (int i = 0; i < 10; i++) {
+      assertThatThrownBy(() -> client.getItem(GET_ITEM))
+            .isInstanceOf(InternalServerErrorException.class);
+    }
+
+    assertThatThrownBy(() -> client.getItem(GET_ITEM))
+          .isInstanceOf(TooManyRequestsApiException.class);
+    assertThat(stub.calls.get()).isEqualTo(10);
+
+    clock.advance(OPEN_DURATION);
+    assertThat(id(client.getItem(GET_ITEM))).isEqualTo("ok");
+    assertThat(id(client.getItem(GET_ITEM))).isEqualTo("ok");
+    assertThat(circuitBreaker.isOpen()).isFalse();
+  }
+
+  @Test
+  public void aSlowGetItemIsHedgedAndTheHedgeWins() {
+    CountDownLatch slowReleased = new CountDownLatch(1);
+    int slowCall = WARM_UP_CALLS + 1;
+    StubDynamoDbClient stub = new StubDynamoDbClient(call -> {
+      if (call == slowCall) {
+        await(slowReleased);
+        return response("slow");
+      }
+      return response(call == slowCall + 1 ? "hedge" : "fast");
+    });
+    ResilientDynamoDbClient client = client(stub, 3, new RetryBudget(100), true);
+    warmUp(client);
+
+    try {
+      assertThat(id(client.getItem(GET_ITEM))).isEqualTo("hedge");
+    } finally {
+      slowReleased.countDown();
+    }
+    assertThat(stub.calls.get()).isEqualTo(slowCall + 1);
+  }
+
+  @Test
+  public void aFastGetItemIsNotHedged() {
+    StubDynamoDbClient stub = new StubDynamoDbClient(outcomes(response("fast")));
+    ResilientDynamoDbClient client = client(stub, 3, new RetryBudget(100), true);
+    warmUp(client);
+
+    assertThat(id(client.getItem(GET_ITEM))).isEqualTo("fast");
+    assertThat(stub.calls.get()).isEqualTo(WARM_UP_CALLS + 1);
+  }
+
+  @Test
+  public void noHedgeIsSentWithoutBudget() {
+    int slowCall = WARM_UP_CALLS + 1;
+    StubDynamoDbClient stub = new StubDynamoDbClient(call -> {
+      if (call == slowCall) {
+        sleep(50);
+        return response("slow");
+      }
+      return response("fast");
+    });
+    RetryBudget retryBudget = new RetryBudget(RetryBudget.RETRY_COST);
+    ResilientDynamoDbClient client = client(stub, 3, retryBudget, true);
+    warmUp(client);
+    // Spend the budget the warm up refilled.
+    retryBudget.tryAcquire(false);
+
+    assertThat(id(client.getItem(GET_ITEM))).isEqualTo("slow");
+    assertThat(stub.calls.get()).isEqualTo(slowCall);
+  }
+
+  private ResilientDynamoDbClient client(final DynamoDbClient delegate, final int maxAttempts,
+                                         final RetryBudget retryBudget,
+                                         final boolean hedgedReadEnabled) {
+    return new ResilientDynamoDbClient(delegate, executor, maxAttempts, retryBudget,
+          circuitBreaker, hedgedReadEnabled);
+  }
+
+  private static void warmUp(final ResilientDynamoDbClient client) {
+    for (int i = 0; i < WARM_UP_CALLS; i++) {
+      client.getItem(GET_ITEM);
+    }
+  }
+
+  private static IntFunction<GetItemResponse> outcomes(final Object... outcomes) {
+    return call -> {
+      Object outcome = outcomes[Math.min(call, outcomes.length) - 1];
+      if (outcome instanceof RuntimeException) {
+        throw (RuntimeException) outcome;
+      }
+      return (GetItemResponse) outcome;
+    };
+  }
+
+  private static GetItemResponse response(final String id) {
+    return GetItemResponse.builder()
+          .item(Collections.singletonMap("therapistId", AttributeValue.builder().s(id).build()))
+          .build();
+  }
+
+  private static String id(final GetItemResponse response) {
+    return response.item().get("therapistId").s();
+  }
+
+  private static SdkException throttling() {
+    return ProvisionedThroughputExceededException.builder()
+          .statusCode(400)
+          .awsErrorDetails(AwsErrorDetails.builder()
+                .errorCode("ProvisionedThroughputExceededException")
+                .build())
+          .build();
+  }
+
+  private static SdkException serverError() {
+    return InternalServerErrorException.builder().statusCode(500).build();
+  }
+
+  private static SdkException timeout() {
+    return ApiCallAttemptTimeoutException.create(1000);
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * DynamoDbClient whose GetItem, PutItem, Scan and TransactWriteItems calls have the outcome of
+   * their call number, counting from 1.
+   */
+  private static final class StubDynamoDbClient implements DynamoDbClient {
+    private final AtomicInteger calls = new AtomicInteger();
+    private final List<String> clientRequestTokens = new ArrayList<>();
+    private final IntFunction<GetItemResponse> outcome;
+
+    private StubDynamoDbClient(final IntFunction<GetItemResponse> outcome) {
+      this.outcome = outcome;
+    }
+
+    @Override
+    public GetItemResponse getItem(final GetItemRequest request) {
+      return outcome.apply(calls.incrementAndGet());
+    }
+
+    @Override
+    public PutItemResponse putItem(final PutItemRequest request) {
+      outcome.apply(calls.incrementAndGet());
+      return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public ScanResponse scan(final ScanRequest request) {
+      outcome.apply(calls.incrementAndGet());
+      return ScanResponse.builder().build();
+    }
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(
+          final TransactWriteItemsRequest request) {
+      clientRequestTokens.add(request.clientRequestToken());
+      outcome.apply(calls.incrementAndGet());
+      return TransactWriteItemsResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+      return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
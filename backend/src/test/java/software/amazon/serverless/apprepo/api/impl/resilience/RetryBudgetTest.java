@@ -0,0 +1,42 @@
+package software.amazon.serverless.apprepo.api.impl.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class RetryBudgetTest {
+  @Test
+  public void retriesAreRefusedOnceTheBudgetIsSpent() {
+    RetryBudget retryBudget = new RetryBudget(2 * RetryBudget.RETRY_COST);
+
+    assertThat(retryBudget.tryAcquire(false)).isTrue();
+    assertThat(retryBudget.tryAcquire(false)).isTrue();
+    assertThat(retryBudget.tryAcquire(false)).isFalse();
+    assertThat(retryBudget.getTokens()).isZero();
+  }
+
+  @Test
+  public void retriesAfterTimeoutsCostMore() {
+    RetryBudget retryBudget = new RetryBudget(RetryBudget.TIMEOUT_RETRY_COST - 1);
+
+    assertThat(retryBudget.tryAcquire(true)).isFalse();
+    assertThat(retryBudget.tryAcquire(false)).isTrue();
+    assertThat(retryBudget.getTokens())
+          .isEqualTo(RetryBudget.TIMEOUT_RETRY_COST - 1 - RetryBudget.RETRY_COST);
+  }
+
+  @Test
+  public void successesRefillTheBudgetUpToItsCapacity() {
+    RetryBudget retryBudget = new RetryBudget(RetryBudget.RETRY_COST);
+    retryBudget.tryAcquire(false);
+
+    for (int i = 0; i < RetryBudget.RETRY_COST; i++) {
+      assertThat(retryBudget.tryAcquire(false)).isFalse();
+      retryBudget.onSuccess();
+    }
+    retryBudget.onSuccess();
+
+    assertThat(retryBudget.getTokens()).isEqualTo(RetryBudget.RETRY_COST);
+    assertThat(retryBudget.tryAcquire(false)).isTrue();
+  }
+}
@@ -0,0 +1,154 @@
+package software.amazon.serverless.apprepo.api.impl.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+public class NameIndexSegmentTest {
+  @Test
+  public void docsAreReadBackInIdOrder() {
+    TherapistRecord full = TherapistRecord.builder()
+          .therapistId("b")
+          .userId("Raj#3")
+          .therapistName("John Smith")
+          .therapistArea("Delhi")
+          .therapistType("CBT")
+          .therapistMob("98765")
+          .createdAt(Instant.parse("2020-01-02T03:04:05.678Z"))
+          .version(7L)
+          .build();
+    TherapistRecord sparse = TherapistRecord.builder()
+          .therapistId("a")
+          .therapistName("Ann")
+          .build();
+    SortedMap<String, TherapistRecord> docs = new TreeMap<>();
+    docs.put(full.getTherapistId(), full);
+    docs.put(sparse.getTherapistId(), sparse);
+
+    NameIndexSegment segment = open(docs);
+
+    assertThat(segment.getDocCount()).isEqualTo(2);
+    assertThat(segment.findDoc("a")).isEqualTo(0);
+    assertThat(segment.findDoc("b")).isEqualTo(1);
+    assertThat(segment.findDoc("c")).isEqualTo(-1);
+    assertThat(segment.record(0)).isEqualTo(sparse);
+    assertThat(segment.record(1)).isEqualTo(full);
+    assertThat(segment.therapistId(1)).isEqualTo("b");
+    assertThat(segment.isDeleted(1)).isFalse();
+  }
+
+  @Test
+  public void tombstonesHaveOnlyAnIdAndNoTerms() {
+    SortedMap<String, TherapistRecord> docs = new TreeMap<>();
+    docs.put("a", null);
+
+    NameIndexSegment segment = open(docs);
+
+    assertThat(segment.getDocCount()).isEqualTo(1);
+    assertThat(segment.getTermCount()).isZero();
+    assertThat(segment.isDeleted(0)).isTrue();
+    assertThat(segment.record(0)).isEqualTo(TherapistRecord.builder().therapistId("a").build());
+  }
+
+  @Test
+  public void termsAreSortedByUtf8Bytes() {
+    NameIndexSegment segment = open(docs("Zoë Ann", "Anna Ann", "ßara Ann"));
+
+    // zoe, ann, anna and ßara, the last sorting after ASCII by its UTF-8 bytes.
+    assertThat(segment.getTermCount()).isEqualTo(4);
+    assertThat(segment.findTerm(bytes("ann"))).isEqualTo(0);
+    assertThat(segment.findTerm(bytes("anna"))).isEqualTo(1);
+    assertThat(segment.findTerm(bytes("zoe"))).isEqualTo(2);
+    assertThat(segment.findTerm(bytes("ßara"))).isEqualTo(3);
+    assertThat(segment.findTerm(bytes("an"))).isEqualTo(-1);
+    assertThat(segment.lowerBound(bytes("an"))).isEqualTo(0);
+    assertThat(segment.lowerBound(bytes("b"))).isEqualTo(2);
+    assertThat(segment.lowerBound(bytes("zz"))).isEqualTo(3);
+    assertThat(segment.lowerBound(bytes("ÿ"))).isEqualTo(4);
+    assertThat(segment.termStartsWith(1, bytes("an"))).isTrue();
+    assertThat(segment.termStartsWith(0, bytes("anna"))).isFalse();
+    assertThat(segment.termStartsWith(3, bytes("ß"))).isTrue();
+  }
+
+  @Test
+  public void postingsRoundTripThroughVarintDeltas() {
+    // Gaps of 1, 127, 128 and 16384 ordinals take one to three varint bytes.
+    int[] expected = {0, 1, 128, 256, 16640};
+    String[] names = new String[expected[expected.length - 1] + 1];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = "other";
+    }
+    for (int doc : expected) {
+      names[doc] = "match";
+    }
+
+    NameIndexSegment segment = open(docs(names));
+
+    assertThat(segment.postings(segment.findTerm(bytes("match")))).containsExactly(expected);
+    assertThat(segment.postings(segment.findTerm(bytes("other"))))
+          .hasSize(names.length - expected.length);
+  }
+
+  @Test
+  public void termsAreIndexedOncePerDoc() {
+    NameIndexSegment segment = open(docs("Ann Ann Lee"));
+
+    assertThat(segment.postings(segment.findTerm(bytes("ann")))).containsExactly(0);
+  }
+
+  @Test
+  public void emptySegmentsHaveNoDocsOrTerms() {
+    NameIndexSegment segment = open(new TreeMap<>());
+
+    assertThat(segment.getDocCount()).isZero();
+    assertThat(segment.getTermCount()).isZero();
+    assertThat(segment.findDoc("a")).isEqualTo(-1);
+    assertThat(segment.findTerm(bytes("a"))).isEqualTo(-1);
+  }
+
+  @Test
+  public void otherBytesAreRejected() {
+    byte[] segment = NameIndexSegmentWriter.write(new TreeMap<>());
+    byte[] otherVersion = segment.clone();
+    ByteBuffer.wrap(otherVersion).putInt(4, NameIndexSegment.FORMAT_VERSION + 1);
+
+    assertThatThrownBy(() -> new NameIndexSegment(ByteBuffer.wrap(new byte[4])))
+          .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new NameIndexSegment(ByteBuffer.wrap(
+          new byte[NameIndexSegment.HEADER_SIZE])))
+          .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new NameIndexSegment(ByteBuffer.wrap(otherVersion)))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("version");
+  }
+
+  // Therapists with ids in the order of the names.
+  private static SortedMap<String, TherapistRecord> docs(final String... names) {
+    SortedMap<String, TherapistRecord> docs = new TreeMap<>();
+    for (int i = 0; i < names.length; i++) {
+      String therapistId = String.format("%08d", i);
+      docs.put(therapistId, TherapistRecord.builder()
+            .therapistId(therapistId)
+            .therapistName(names[i])
+            .build());
+    }
+    return docs;
+  }
+
+  private static NameIndexSegment open(final SortedMap<String, TherapistRecord> docs) {
+    return new NameIndexSegment(ByteBuffer.wrap(NameIndexSegmentWriter.write(docs)));
+  }
+
+  private static byte[] bytes(final String term) {
+    return term.getBytes(StandardCharsets.UTF_8);
+  }
+}
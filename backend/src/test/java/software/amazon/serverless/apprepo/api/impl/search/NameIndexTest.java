@@ -0,0 +1,225 @@
+package software.amazon.serverless.apprepo.api.impl.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import software.amazon.serverless.apprepo.api.impl.TherapistRecord;
+
+public class NameIndexTest {
+  private final NameIndex nameIndex = new NameIndex();
+
+  @Test
+  public void nothingIsFoundBeforeTheIndexIsLoaded() {
+    assertThat(nameIndex.isLoaded()).isFalse();
+    assertThat(nameIndex.search("john", null, null, 10)).isEmpty();
+  }
+
+  @Test
+  public void exactMatchesRankAbovePrefixMatches() {
+    nameIndex.swap(Collections.singletonList(segment(
+          therapist("1", "John Smith"),
+          therapist("2", "Jo Smith"),
+          therapist("3", "Joanna Lee"))));
+
+    assertThat(names(nameIndex.search("jo", null, null, 10)))
+          .containsExactly("Jo Smith", "Joanna Lee", "John Smith");
+  }
+
+  @Test
+  public void onlyTheLastTermMatchesAsAPrefix() {
+    nameIndex.swap(Collections.singletonList(segment(therapist("1", "John Smith"))));
+
+    assertThat(names(nameIndex.search("smith joh", null, null, 10)))
+          .containsExactly("John Smith");
+    assertThat(nameIndex.search("joh smith", null, null, 10)).isEmpty();
+  }
+
+  @Test
+  public void prefixesShorterThanTheMinimumMatchExactly() {
+    nameIndex.swap(Collections.singletonList(segment(
+          therapist("1", "John Smith"),
+          therapist("2", "J Smith"))));
+
+    assertThat(names(nameIndex.search("j", null, null, 10))).containsExactly("J Smith");
+  }
+
+  @Test
+  public void everyTermMustMatch() {
+    nameIndex.swap(Collections.singletonList(segment(
+          therapist("1", "John Smith"),
+          therapist("2", "John Lee"))));
+
+    assertThat(names(nameIndex.search("john lee", null, null, 10))).containsExactly("John Lee");
+    assertThat(nameIndex.search("john brown", null, null, 10)).isEmpty();
+  }
+
+  @Test
+  public void termsOneEditAwayMatchFuzzily() {
+    nameIndex.swap(Collections.singletonList(segment(therapist("1", "Johnathan Smith"))));
+
+    // Transposition, substitution, deletion and insertion.
+    assertThat(nameIndex.search("smtih", null, null, 10)).hasSize(1);
+    assertThat(nameIndex.search("smyth", null, null, 10)).hasSize(1);
+    assertThat(nameIndex.search("smih", null, null, 10)).hasSize(1);
+    assertThat(nameIndex.search("smitth", null, null, 10)).hasSize(1);
+    assertThat(nameIndex.search("smxyth", null, null, 10)).isEmpty();
+  }
+
+  @Test
+  public void shortTermsAreNotMatchedFuzzily() {
+    nameIndex.swap(Collections.singletonList(segment(therapist("1", "Ann Lee"))));
+
+    assertThat(nameIndex.search("lea", null, null, 10)).isEmpty();
+  }
+
+  @Test
+  public void termsThatMatchAreNotMatchedFuzzily() {
+    nameIndex.swap(Collections.singletonList(segment(
+          therapist("1", "Anna Smith"),
+          therapist("2", "Zed Smyth"))));
+
+    assertThat(names(nameIndex.search("smyth", null, null, 10))).containsExactly("Zed Smyth");
+  }
+
+  @Test
+  public void fuzzyMatchesRankBelowExactMatches() {
+    // A term is matched fuzzily per segment, when that segment has no exact or prefix match.
+    nameIndex.swap(Arrays.asList(
+          segment(therapist("1", "Anna Smith")),
+          segment(therapist("2", "Zed Smyth"))));
+
+    assertThat(names(nameIndex.search("smyth", null, null, 10)))
+          .containsExactly("Zed Smyth", "Anna Smith");
+  }
+
+  @Test
+  public void diacriticsAndCaseAreIgnored() {
+    nameIndex.swap(Collections.singletonList(segment(therapist("1", "Dr. José O'Neil"))));
+
+    assertThat(nameIndex.search("JOSE oneil", null, null, 10)).hasSize(1);
+  }
+
+  @Test
+  public void areaAndTypeFilterTheMatches() {
+    nameIndex.swap(Collections.singletonList(segment(
+          therapist("1", "John Smith", "Delhi", "CBT"),
+          therapist("2", "John Lee", "Delhi", "DBT"),
+          therapist("3", "John Brown", "Mumbai", "CBT"))));
+
+    assertThat(names(nameIndex.search("john", "Delhi", null, 10)))
+          .containsExactly("John Lee", "John Smith");
+    assertThat(names(nameIndex.search("john", null, "CBT", 10)))
+          .containsExactly("John Brown", "John Smith");
+    assertThat(names(nameIndex.search("john", "Delhi", "CBT", 10)))
+          .containsExactly("John Smith");
+  }
+
+  @Test
+  public void resultsAreLimited() {
+    nameIndex.swap(Collections.singletonList(segment(
+          therapist("1", "John C"),
+          therapist("2", "John A"),
+          therapist("3", "John B"))));
+
+    assertThat(names(nameIndex.search("john", null, null, 2)))
+          .containsExactly("John A", "John B");
+  }
+
+  @Test
+  public void newerSegmentsShadowOlderVersions() {
+    NameIndexSegment base = segment(
+          therapist("1", "John Smith"),
+          therapist("2", "John Lee"),
+          therapist("3", "John Brown"));
+    SortedMap<String, TherapistRecord> delta = new TreeMap<>();
+    delta.put("1", therapist("1", "Jane Smith"));
+    delta.put("2", null);
+    nameIndex.swap(Arrays.asList(open(delta), base));
+
+    assertThat(names(nameIndex.search("john", null, null, 10))).containsExactly("John Brown");
+    assertThat(names(nameIndex.search("jane", null, null, 10))).containsExactly("Jane Smith");
+    assertThat(names(nameIndex.search("smith", null, null, 10))).containsExactly("Jane Smith");
+    assertThat(nameIndex.search("lee", null, null, 10)).isEmpty();
+  }
+
+  @Test
+  public void aPrefixExpandsToEveryTermItStarts() {
+    // More terms than the expansion used to be capped at, one therapist each.
+    TherapistRecord[] therapists = new TherapistRecord[200];
+    for (int i = 0; i < therapists.length; i++) {
+      therapists[i] = therapist(String.format("%03d", i), "Jo" + letters(i) + " Smith");
+    }
+    nameIndex.swap(Collections.singletonList(segment(therapists)));
+
+    assertThat(nameIndex.search("jo", null, null, 1000)).hasSize(therapists.length);
+    assertThat(nameIndex.search("smith jo", null, null, 1000)).hasSize(therapists.length);
+  }
+
+  @Test
+  public void prefixExpansionStopsAtTheDocCap() {
+    TherapistRecord[] therapists = new TherapistRecord[NameIndex.MAX_PREFIX_DOCS + 100];
+    for (int i = 0; i < therapists.length; i++) {
+      // Terms of 60 therapists each, so the cap is crossed within a term.
+      therapists[i] = therapist(String.format("%05d", i), "Jo" + letters(i / 60));
+    }
+    nameIndex.swap(Collections.singletonList(segment(therapists)));
+
+    List<TherapistRecord> found = nameIndex.search("jo", null, null, therapists.length);
+
+    assertThat(found.size()).isBetween(NameIndex.MAX_PREFIX_DOCS,
+          NameIndex.MAX_PREFIX_DOCS + 59);
+  }
+
+  private static List<String> names(final List<TherapistRecord> records) {
+    return records.stream()
+          .map(TherapistRecord::getTherapistName)
+          .collect(Collectors.toList());
+  }
+
+  // A distinct run of letters for every number.
+  private static String letters(final int number) {
+    StringBuilder letters = new StringBuilder();
+    int remaining = number;
+    do {
+      letters.append((char) ('a' + remaining % 26));
+      remaining /= 26;
+    } while (remaining > 0);
+    return letters.append('x').toString();
+  }
+
+  private static TherapistRecord therapist(final String therapistId, final String name) {
+    return therapist(therapistId, name, "Delhi", "CBT");
+  }
+
+  private static TherapistRecord therapist(final String therapistId, final String name,
+                                           final String area, final String type) {
+    return TherapistRecord.builder()
+          .therapistId(therapistId)
+          .therapistName(name)
+          .therapistArea(area)
+          .therapistType(type)
+          .version(1L)
+          .build();
+  }
+
+  private static NameIndexSegment segment(final TherapistRecord... therapists) {
+    SortedMap<String, TherapistRecord> docs = new TreeMap<>();
+    for (TherapistRecord therapist : therapists) {
+      docs.put(therapist.getTherapistId(), therapist);
+    }
+    return open(docs);
+  }
+
+  private static NameIndexSegment open(final SortedMap<String, TherapistRecord> docs) {
+    return new NameIndexSegment(ByteBuffer.wrap(NameIndexSegmentWriter.write(docs)));
+  }
+}
@@ -0,0 +1,335 @@
+package software.amazon.serverless.apprepo.container;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.serverless.proxy.jersey.JerseyLambdaContainerHandler;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.ByteStreams;
+
+import io.swagger.api.TherapistApi;
+import io.swagger.model.ConflictException;
+import io.swagger.model.NotFoundException;
+import io.swagger.model.Therapist;
+import io.swagger.model.TherapistBatchCreateRequest;
+import io.swagger.model.TherapistBatchCreateResult;
+import io.swagger.model.TherapistBatchGetResult;
+import io.swagger.model.TherapistChanges;
+import io.swagger.model.TherapistFacets;
+import io.swagger.model.TherapistList;
+import io.swagger.model.TherapistSummary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.core.HttpHeaders;
+
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import software.amazon.serverless.apprepo.api.exception.ApiExceptionMapper;
+import software.amazon.serverless.apprepo.api.exception.ConflictApiException;
+import software.amazon.serverless.apprepo.api.exception.InvalidJsonExceptionMappers;
+import software.amazon.serverless.apprepo.api.exception.NotFoundApiException;
+import software.amazon.serverless.apprepo.metrics.RequestMetrics;
+
+/**
+ * Every route answered by {@link DirectDispatchLambdaHandler} and by Jersey, as
+ * {@link ApiLambdaHandler} runs it, must have the same status, headers and body, where no body
+ * equals an empty one.
+ */
+public class DirectDispatchLambdaHandlerTest {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final String THERAPIST_JSON = "{\"therapistId\":\"1\","
+        + "\"therapistName\":\"John Smith\",\"therapistArea\":\"Delhi\","
+        + "\"therapistType\":\"CBT\",\"version\":3}";
+
+  private static RequestStreamHandler jerseyHandler;
+  private static RequestStreamHandler directHandler;
+  private static Context context;
+
+  @BeforeClass
+  public static void createHandlers() {
+    RequestMetrics.setOutput(new PrintStream(ByteStreams.nullOutputStream()));
+    JerseyLambdaContainerHandler<AwsProxyRequest, AwsProxyResponse> handler =
+          JerseyLambdaContainerHandler.getAwsProxyHandler(new ResourceConfig()
+                .register(new StubTherapistApi())
+                .registerClasses(CorsHeadersResponseFilter.class, MetricsFilter.class,
+                      ApiExceptionMapper.class,
+                      InvalidJsonExceptionMappers.ParseExceptionMapper.class,
+                      InvalidJsonExceptionMappers.MappingExceptionMapper.class)
+                .register(JacksonFeature.class));
+    jerseyHandler = (input, output, context) -> {
+      handler.proxyStream(input, output, context);
+      RequestMetrics.flush();
+    };
+    directHandler = new DirectDispatchLambdaHandler(new StubTherapistApi());
+    context = new MockLambdaContext();
+  }
+
+  @Test
+  public void getTherapistIsOk() throws IOException {
+    assertThat(statusOfBoth(event("GET", "/therapist/1"))).isEqualTo(200);
+  }
+
+  @Test
+  public void getTherapistListIsOk() throws IOException {
+    assertThat(statusOfBoth(event("GET", "/therapist"))).isEqualTo(200);
+    assertThat(statusOfBoth(withQuery(event("GET", "/therapist"), "maxItems", "5")))
+          .isEqualTo(200);
+  }
+
+  @Test
+  public void searchIsOk() throws IOException {
+    assertThat(statusOfBoth(withQuery(event("GET", "/therapist/search"), "therapistArea",
+          "Delhi"))).isEqualTo(200);
+  }
+
+  @Test
+  public void addAndUpdateTherapistAreOk() throws IOException {
+    assertThat(statusOfBoth(withBody(event("POST", "/therapist"), THERAPIST_JSON)))
+          .isEqualTo(200);
+    assertThat(statusOfBoth(withBody(event("PUT", "/therapist/1"), THERAPIST_JSON)))
+          .isEqualTo(200);
+  }
+
+  @Test
+  public void deleteTherapistHasNoContent() throws IOException {
+    assertThat(statusOfBoth(event("DELETE", "/therapist/1"))).isEqualTo(204);
+  }
+
+  @Test
+  public void malformedJsonIsABadRequest() throws IOException {
+    assertThat(statusOfBoth(withBody(event("POST", "/therapist"), "{\"therapistName\":")))
+          .isEqualTo(400);
+  }
+
+  @Test
+  public void jsonThatDoesNotFitTheModelIsABadRequest() throws IOException {
+    assertThat(statusOfBoth(withBody(event("POST", "/therapist"), "{\"version\":\"one\"}")))
+          .isEqualTo(400);
+  }
+
+  @Test
+  public void unknownPathsAreNotFound() throws IOException {
+    assertThat(statusOfBoth(event("GET", "/therapists"))).isEqualTo(404);
+    assertThat(statusOfBoth(event("GET", "/therapist/1/versions"))).isEqualTo(404);
+  }
+
+  @Test
+  public void nonNumericMaxItemsIsNotFound() throws IOException {
+    assertThat(statusOfBoth(withQuery(event("GET", "/therapist"), "maxItems", "ten")))
+          .isEqualTo(404);
+  }
+
+  @Test
+  public void missingTherapistsAreNotFound() throws IOException {
+    assertThat(statusOfBoth(event("GET", "/therapist/" + StubTherapistApi.MISSING_ID)))
+          .isEqualTo(404);
+  }
+
+  @Test
+  public void unsupportedMethodsAreNotAllowed() throws IOException {
+    assertThat(statusOfBoth(event("PATCH", "/therapist/1"))).isEqualTo(405);
+    assertThat(statusOfBoth(event("DELETE", "/therapist"))).isEqualTo(405);
+    assertThat(statusOfBoth(event("POST", "/therapist/search"))).isEqualTo(405);
+    assertThat(statusOfBoth(event("PATCH", "/therapist/batch"))).isEqualTo(405);
+  }
+
+  @Test
+  public void otherMethodsOfNamedResourcesGoToTheTherapistOfThatId() throws IOException {
+    assertThat(statusOfBoth(withBody(event("PUT", "/therapist/batch"), THERAPIST_JSON)))
+          .isEqualTo(200);
+    assertThat(statusOfBoth(event("DELETE", "/therapist/search"))).isEqualTo(204);
+  }
+
+  @Test
+  public void versionConflictsAreConflicts() throws IOException {
+    assertThat(statusOfBoth(withBody(event("PUT", "/therapist/" + StubTherapistApi.STALE_ID),
+          THERAPIST_JSON))).isEqualTo(409);
+  }
+
+  @Test
+  public void unexpectedErrorsAreInternalServerErrors() throws IOException {
+    assertThat(statusOfBoth(event("GET", "/therapist/" + StubTherapistApi.BROKEN_ID)))
+          .isEqualTo(500);
+  }
+
+  // Asserts both handlers answer alike and returns the status they answered with.
+  private static int statusOfBoth(final ObjectNode event) throws IOException {
+    byte[] input = OBJECT_MAPPER.writeValueAsBytes(event);
+    JsonNode expected = OBJECT_MAPPER.readTree(handle(jerseyHandler, input));
+    JsonNode actual = OBJECT_MAPPER.readTree(handle(directHandler, input));
+
+    assertThat(actual.path("statusCode")).isEqualTo(expected.path("statusCode"));
+    assertThat(headers(actual)).isEqualTo(headers(expected));
+    assertThat(body(actual)).isEqualTo(body(expected));
+    return actual.path("statusCode").asInt();
+  }
+
+  private static byte[] handle(final RequestStreamHandler handler, final byte[] input)
+        throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    handler.handleRequest(new ByteArrayInputStream(input), output, context);
+    return output.toByteArray();
+  }
+
+  // Jersey lists the allowed methods in the order of a hash set.
+  private static JsonNode headers(final JsonNode response) {
+    ObjectNode headers = response.path("multiValueHeaders").deepCopy();
+    JsonNode allow = headers.path(HttpHeaders.ALLOW).path(0);
+    if (allow.isTextual()) {
+      String[] methods = allow.asText().split(",");
+      Arrays.sort(methods);
+      headers.putArray(HttpHeaders.ALLOW).add(String.join(",", methods));
+    }
+    return headers;
+  }
+
+  // A null body and an empty body are the same empty response to API Gateway.
+  private static String body(final JsonNode response) {
+    JsonNode body = response.path("body");
+    return body.isNull() || body.isMissingNode() ? "" : body.asText();
+  }
+
+  private static ObjectNode event(final String httpMethod, final String path) {
+    ObjectNode event = OBJECT_MAPPER.createObjectNode()
+          .put("resource", "/{proxy+}")
+          .put("path", path)
+          .put("httpMethod", httpMethod)
+          .put("isBase64Encoded", false);
+    event.putObject("headers")
+          .put("Accept", "application/json")
+          .put("Content-Type", "application/json");
+    ObjectNode headers = event.putObject("multiValueHeaders");
+    headers.putArray("Accept").add("application/json");
+    headers.putArray("Content-Type").add("application/json");
+    ObjectNode requestContext = event.putObject("requestContext")
+          .put("requestId", "test")
+          .put("stage", "test")
+          .put("httpMethod", httpMethod)
+          .put("path", path);
+    requestContext.putObject("identity").put("sourceIp", "127.0.0.1");
+    return event;
+  }
+
+  private static ObjectNode withQuery(final ObjectNode event, final String name,
+                                      final String value) {
+    event.putObject("queryStringParameters").put(name, value);
+    event.putObject("multiValueQueryStringParameters").putArray(name).add(value);
+    return event;
+  }
+
+  private static ObjectNode withBody(final ObjectNode event, final String body) {
+    return event.put("body", body);
+  }
+
+  /**
+   * TherapistApi that answers every operation without DynamoDB. Reading {@link #MISSING_ID} is
+   * not found, updating {@link #STALE_ID} is a conflict and reading {@link #BROKEN_ID} fails
+   * with an unexpected error.
+   */
+  public static class StubTherapistApi implements TherapistApi {
+    static final String MISSING_ID = "missing";
+    static final String STALE_ID = "stale";
+    static final String BROKEN_ID = "broken";
+
+    @Override
+    public Therapist addTherapist(final Therapist body) {
+      return body.therapistId("1").version(1L);
+    }
+
+    @Override
+    public TherapistBatchCreateResult addTherapistBatch(final TherapistBatchCreateRequest body) {
+      return new TherapistBatchCreateResult();
+    }
+
+    @Override
+    public void deleteTherapist(final String therapistId, final Long expectedVersion) {
+    }
+
+    @Override
+    public TherapistBatchGetResult getTherapistBatch(final List<String> ids) {
+      return new TherapistBatchGetResult();
+    }
+
+    @Override
+    public Therapist getTherapist(final String therapistId, final String consistency,
+                                  final Long minVersion) {
+      switch (therapistId) {
+        case MISSING_ID:
+          throw new NotFoundApiException(new NotFoundException()
+                .errorCode("NotFound")
+                .message("Therapist " + therapistId + " is not found"));
+        case BROKEN_ID:
+          throw new IllegalStateException("Unexpected");
+        default:
+          return therapist(therapistId);
+      }
+    }
+
+    @Override
+    public TherapistList getTherapistByNTA(final String therapistArea, final String nextToken,
+                                           final String therapistType, final Integer maxItems,
+                                           final String name) {
+      return therapistList();
+    }
+
+    @Override
+    public TherapistChanges getTherapistChanges(final String since, final Integer maxItems) {
+      return new TherapistChanges();
+    }
+
+    @Override
+    public TherapistFacets getTherapistFacets(final String therapistArea) {
+      return new TherapistFacets();
+    }
+
+    @Override
+    public TherapistList getTherapistList(final String nextToken, final Integer maxItems,
+                                          final String consistency) {
+      return therapistList();
+    }
+
+    @Override
+    public Therapist updateTherapist(final Therapist body, final String therapistId) {
+      if (STALE_ID.equals(therapistId)) {
+        throw new ConflictApiException(new ConflictException()
+              .errorCode("VersionConflict")
+              .message("Therapist " + therapistId + " has a newer version"));
+      }
+      return body.therapistId(therapistId).version(body.getVersion() + 1);
+    }
+
+    private static Therapist therapist(final String therapistId) {
+      return new Therapist()
+            .therapistId(therapistId)
+            .therapistName("John Smith")
+            .therapistArea("Delhi")
+            .therapistType("CBT")
+            .creationTime("2020-01-02T03:04:05.678Z")
+            .version(3L);
+    }
+
+    private static TherapistList therapistList() {
+      return new TherapistList()
+            .therapist(Collections.singletonList(new TherapistSummary()
+                  .therapistId("1")
+                  .therapistName("John Smith")))
+            .nextToken("token");
+    }
+  }
+}
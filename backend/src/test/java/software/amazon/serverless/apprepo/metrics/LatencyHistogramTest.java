@@ -0,0 +1,83 @@
+package software.amazon.serverless.apprepo.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+  @Test
+  public void latenciesBelow32MicrosHaveTheirOwnBucket() {
+    for (int micros = 0; micros < 32; micros++) {
+      assertThat(LatencyHistogram.index(micros)).isEqualTo(micros);
+      assertThat(LatencyHistogram.valueInMillis(micros)).isEqualTo(micros / 1000.0);
+    }
+  }
+
+  @Test
+  public void bucketsFollowEachOtherWithoutGaps() {
+    int previous = LatencyHistogram.index(0);
+    for (long micros = 1; micros < 1 << 16; micros++) {
+      int index = LatencyHistogram.index(micros);
+      assertThat(index - previous).isBetween(0, 1);
+      previous = index;
+    }
+  }
+
+  @Test
+  public void aBucketStandsForItsLatenciesWithin3Percent() {
+    Random random = new Random(42);
+    for (int magnitude = 5; magnitude < 36; magnitude++) {
+      long lowest = 1L << magnitude;
+      long[] latencies = {lowest, lowest + 1, 2 * lowest - 1,
+            lowest + (long) (random.nextDouble() * lowest)};
+      for (long micros : latencies) {
+        double value = LatencyHistogram.valueInMillis(LatencyHistogram.index(micros)) * 1000;
+        // Half of a bucket 1/16 of its power of two wide.
+        assertThat(value).isCloseTo(micros, within(micros / 32.0));
+      }
+    }
+  }
+
+  @Test
+  public void theBucketOfAPowerOfTwoStartsAtIt() {
+    for (int magnitude = 5; magnitude < 36; magnitude++) {
+      long lowest = 1L << magnitude;
+
+      assertThat(LatencyHistogram.index(lowest)).isEqualTo(LatencyHistogram.index(lowest - 1) + 1);
+      assertThat(LatencyHistogram.valueInMillis(LatencyHistogram.index(lowest)) * 1000)
+            .isCloseTo(lowest + ((lowest >> 4) - 1) / 2.0, within(1e-6));
+    }
+  }
+
+  @Test
+  public void latenciesOfHoursAreCountedInTheLastBucket() {
+    int last = LatencyHistogram.BUCKET_COUNT - 1;
+
+    assertThat(LatencyHistogram.index((1L << 36) - 1)).isEqualTo(last);
+    assertThat(LatencyHistogram.index(1L << 36)).isEqualTo(last);
+    assertThat(LatencyHistogram.index(Long.MAX_VALUE)).isEqualTo(last);
+    assertThat(LatencyHistogram.index((1L << 36) - (1L << 31) - 1)).isEqualTo(last - 1);
+  }
+
+  @Test
+  public void recordedNanosAreCountedByMicrosUntilReset() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    histogram.record(1_999);
+    histogram.record(1_000);
+    histogram.record(-5);
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(250));
+
+    assertThat(histogram.getAndReset(0)).isEqualTo(1);
+    assertThat(histogram.getAndReset(1)).isEqualTo(2);
+    assertThat(histogram.getAndReset(LatencyHistogram.index(250_000))).isEqualTo(1);
+    assertThat(histogram.getAndReset(1)).isZero();
+    for (int index = 0; index < LatencyHistogram.BUCKET_COUNT; index++) {
+      assertThat(histogram.getAndReset(index)).isZero();
+    }
+  }
+}